@@ -1,24 +1,23 @@
 #!/bin/bash
 
-PROJECT_DIR=/home/kalessil/PhpstormProjects/symfony2
-PHP_STORM_DIR=/home/kalessil/Apps/PhpStorm-143.1480
+PROJECT_DIR=${PROJECT_DIR:-/home/kalessil/PhpstormProjects/symfony2}
+PHP_STORM_DIR=${PHP_STORM_DIR:-/home/kalessil/Apps/PhpStorm-162.1889}
 
-# Raw output will be stored under ./Default folder.
+# The project folder is taken from PROJECT_DIR (it must contain the .idea folder, or inspection fails).
 # Parameters are:
-# 1. Project folder with .idea folder (.idea is needed, or inspection fails)
-# 2. File with profiles and profile (we can have our own at any place)
-# 3. Additional params: verbosity, which folder in the project to inspect
-$PHP_STORM_DIR/bin/inspect.sh \
-    $PROJECT_DIR \
-    ~/WebIde100/config/inspection/Default.xml Default \
-    -v2 -d $PROJECT_DIR/src
+# 1. Report file (defaults to ./ea-report.xml)
+# 2. Report format: checkstyle (default) or sarif
+# 3. Number of worker threads (defaults to number of cores); files are sharded between workers
+# 4. Which folder in the project to inspect (defaults to $PROJECT_DIR/src)
+REPORT_FILE=${1:-./ea-report.xml}
+REPORT_FORMAT=${2:-checkstyle}
+THREADS=${3:-$(getconf _NPROCESSORS_ONLN)}
+SOURCES_DIR=${4:-$PROJECT_DIR/src}
 
-# Target format we want to convert into is check-style; each PS xml converted individually
-# <?xml version="1.0" encoding="UTF-8"?>
-# <checkstyle version="*">
-#   <file name="File name">
-#       <error line="Line number" severity="info|level|error" message="Reported message" source="Inspection Title" />
-#       ...
-#   </file>
-#   ...
-# </checkstyle>
\ No newline at end of file
+# Only EA Extended inspections enabled by default are applied; per-worker throughput (files/sec) is printed at the end.
+$PHP_STORM_DIR/bin/phpstorm.sh ea-inspect \
+    $PROJECT_DIR \
+    $REPORT_FILE \
+    --format=$REPORT_FORMAT \
+    --threads=$THREADS \
+    --dir=$SOURCES_DIR
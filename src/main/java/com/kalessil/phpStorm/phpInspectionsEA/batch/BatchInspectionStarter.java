@@ -0,0 +1,173 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.codeInspection.InspectionProfileEntry;
+import com.intellij.codeInspection.LocalInspectionEP;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.ide.impl.ProjectUtil;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ApplicationStarterEx;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.FileTypeIndex;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.jetbrains.php.lang.PhpFileType;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.InspectionsProfiler;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Headless runner: `phpstorm.sh ea-inspect <project> <report> [--format=checkstyle|sarif] [--threads=N] [--dir=<path>] [--profile=<file>]`
+ *
+ * Unlike inspect.sh, only EA Extended inspections are applied, files are sharded between fork-join workers
+ * and the report is produced in a format CI tools are consuming directly.
+ */
+public class BatchInspectionStarter extends ApplicationStarterEx {
+    private static final String pluginPackage = "com.kalessil.phpStorm.phpInspectionsEA.";
+
+    @Override
+    public String getCommandName() {
+        return "ea-inspect";
+    }
+
+    @Override
+    public boolean isHeadless() {
+        return true;
+    }
+
+    @Override
+    public void premain(String[] args) {
+        /* args[0] is the command name */
+        if (args.length < 3) {
+            System.err.println("Usage: ea-inspect <project folder> <report file> [--format=checkstyle|sarif] [--threads=N] [--dir=<folder>] [--profile=<file>]");
+            System.exit(2);
+        }
+    }
+
+    @Override
+    public void main(String[] args) {
+        final String projectPath = FileUtil.toSystemIndependentName(new File(args[1]).getAbsolutePath());
+        final File reportFile    = new File(args[2]);
+
+        String format  = "checkstyle";
+        String subDir  = null;
+        File profile   = null;
+        int threads    = Runtime.getRuntime().availableProcessors();
+        for (int index = 3; index < args.length; ++index) {
+            final String argument = args[index];
+            if (argument.startsWith("--format=")) {
+                format = argument.substring("--format=".length());
+            } else if (argument.startsWith("--threads=")) {
+                threads = Math.max(1, Integer.parseInt(argument.substring("--threads=".length())));
+            } else if (argument.startsWith("--dir=")) {
+                subDir = FileUtil.toSystemIndependentName(new File(argument.substring("--dir=".length())).getAbsolutePath());
+            } else if (argument.startsWith("--profile=")) {
+                profile = new File(argument.substring("--profile=".length()));
+            }
+        }
+
+        int exitCode = 0;
+        try {
+            final Project project = ProjectUtil.openOrImport(projectPath, null, false);
+            if (null == project) {
+                System.err.println("Unable to open project: " + projectPath);
+                System.exit(1);
+                return;
+            }
+            DumbService.getInstance(project).waitForSmartMode();
+
+            final List<BatchInspectionTask.Tool> tools = collectTools();
+            final List<VirtualFile> files              = collectFiles(project, subDir);
+            System.out.println(String.format("Inspecting %d files with %d inspections using %d threads", files.size(), tools.size(), threads));
+
+            /* per-inspection timings are collected by visitors built after this point */
+            InspectionsProfiler.setEnabled(null != profile);
+
+            final BatchReport report = new BatchReport(projectPath);
+            final long start         = System.nanoTime();
+            final ForkJoinPool pool  = new ForkJoinPool(threads);
+            try {
+                pool.invoke(new BatchInspectionTask(project, files, 0, files.size(), tools, report));
+            } finally {
+                pool.shutdown();
+            }
+            final long elapsed = System.nanoTime() - start;
+
+            report.printStatistics(System.out, files.size(), elapsed);
+            if (format.equals("sarif")) {
+                report.writeSarif(reportFile);
+            } else {
+                report.writeCheckstyle(reportFile);
+            }
+            System.out.println(String.format("%d problems reported into %s", report.countProblems(), reportFile.getPath()));
+            if (null != profile) {
+                FileUtil.writeToFile(profile, InspectionsProfiler.toJson());
+                System.out.println(String.format("Inspections profile stored into %s", profile.getPath()));
+            }
+        } catch (IOException failure) {
+            System.err.println("Unable to write report: " + failure.getMessage());
+            exitCode = 1;
+        } catch (Throwable failure) {
+            failure.printStackTrace();
+            exitCode = 1;
+        }
+
+        System.exit(exitCode);
+    }
+
+    @NotNull
+    private static List<BatchInspectionTask.Tool> collectTools() {
+        final List<BatchInspectionTask.Tool> tools = new ArrayList<>();
+        for (LocalInspectionEP extension : LocalInspectionEP.LOCAL_INSPECTION.getExtensions()) {
+            final String implementation = extension.implementationClass;
+            if (null == implementation || !implementation.startsWith(pluginPackage) || !extension.enabledByDefault) {
+                continue;
+            }
+
+            final InspectionProfileEntry tool = extension.instantiateTool();
+            if (tool instanceof LocalInspectionTool) {
+                tools.add(new BatchInspectionTask.Tool((LocalInspectionTool) tool, extension.getShortName(), extension.level));
+            }
+        }
+
+        return tools;
+    }
+
+    @NotNull
+    private static List<VirtualFile> collectFiles(@NotNull final Project project, @Nullable final String subDir) {
+        return ApplicationManager.getApplication().runReadAction(new Computable<List<VirtualFile>>() {
+            @Override
+            public List<VirtualFile> compute() {
+                final Collection<VirtualFile> candidates
+                        = FileTypeIndex.getFiles(PhpFileType.INSTANCE, GlobalSearchScope.projectScope(project));
+
+                final List<VirtualFile> files = new ArrayList<>();
+                for (VirtualFile file : candidates) {
+                    if (null == subDir || FileUtil.startsWith(file.getPath(), subDir)) {
+                        files.add(file);
+                    }
+                }
+
+                return files;
+            }
+        });
+    }
+}
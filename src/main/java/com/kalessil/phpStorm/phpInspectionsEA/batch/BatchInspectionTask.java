@@ -0,0 +1,135 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.codeInspection.*;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.MultiplexedPhpElementVisitor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Fork-join shard: splits files range until it fits into a batch, batches are inspected in a read action.
+ */
+class BatchInspectionTask extends RecursiveAction {
+    private static final int batchSize = 32;
+
+    static class Tool {
+        final LocalInspectionTool inspection;
+        final String shortName;
+        final String level;
+        final Collection<String> functions;
+
+        Tool(@NotNull LocalInspectionTool inspection, @NotNull String shortName, String level) {
+            this.inspection = inspection;
+            this.shortName  = shortName;
+            this.level      = null == level ? "WARNING" : level;
+            this.functions  = inspection instanceof BasePhpInspection ? ((BasePhpInspection) inspection).getTargetFunctions() : null;
+        }
+    }
+
+    private final Project project;
+    private final List<VirtualFile> files;
+    private final int from;
+    private final int to;
+    private final List<Tool> tools;
+    private final BatchReport report;
+
+    BatchInspectionTask(
+            @NotNull Project project,
+            @NotNull List<VirtualFile> files,
+            int from,
+            int to,
+            @NotNull List<Tool> tools,
+            @NotNull BatchReport report
+    ) {
+        this.project = project;
+        this.files   = files;
+        this.from    = from;
+        this.to      = to;
+        this.tools   = tools;
+        this.report  = report;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from > batchSize) {
+            final int middle = (from + to) >>> 1;
+            invokeAll(
+                new BatchInspectionTask(project, files, from, middle, tools, report),
+                new BatchInspectionTask(project, files, middle, to, tools, report)
+            );
+            return;
+        }
+
+        final long start = System.nanoTime();
+        for (int index = from; index < to; ++index) {
+            final VirtualFile file = files.get(index);
+            ApplicationManager.getApplication().runReadAction(new Runnable() {
+                @Override
+                public void run() {
+                    inspectFile(file);
+                }
+            });
+        }
+        report.registerBatch(Thread.currentThread().getName(), to - from, System.nanoTime() - start);
+    }
+
+    private void inspectFile(@NotNull VirtualFile file) {
+        final PsiFile psiFile = file.isValid() ? PsiManager.getInstance(project).findFile(file) : null;
+        if (!(psiFile instanceof PhpFile)) {
+            return;
+        }
+
+        /* build visitors of all inspections, walk the file once and dispatch elements to interested visitors only */
+        final InspectionManager manager          = InspectionManager.getInstance(project);
+        final LocalInspectionToolSession session = new LocalInspectionToolSession(psiFile, 0, psiFile.getTextLength());
+        final List<ProblemsHolder> holders       = new ArrayList<>(tools.size());
+        final List<PsiElementVisitor> visitors   = new ArrayList<>(tools.size());
+        final MultiplexedPhpElementVisitor multiplexer = new MultiplexedPhpElementVisitor() {
+            @Override
+            protected void onFailure(@NotNull PsiElementVisitor visitor, @NotNull PsiElement element, @NotNull RuntimeException failure) {
+                report.registerFailure(file, tools.get(visitors.indexOf(visitor)).shortName, failure);
+            }
+        };
+        for (Tool tool : tools) {
+            final ProblemsHolder holder = new ProblemsHolder(manager, psiFile, false);
+            tool.inspection.inspectionStarted(session, false);
+            final PsiElementVisitor visitor = tool.inspection.buildVisitor(holder, false, session);
+
+            holders.add(holder);
+            visitors.add(visitor);
+            multiplexer.register(visitor, tool.functions);
+        }
+        multiplexer.walk(psiFile);
+
+        for (int index = 0; index < tools.size(); ++index) {
+            final Tool tool             = tools.get(index);
+            final ProblemsHolder holder = holders.get(index);
+            tool.inspection.inspectionFinished(session, holder);
+
+            for (ProblemDescriptor descriptor : holder.getResults()) {
+                report.registerProblem(file, tool.shortName, tool.level, descriptor);
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.codeInspection.ProblemDescriptor;
+import com.intellij.codeInspection.ProblemDescriptorUtil;
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.TypeFromPsiResolvingUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.TypeFromSignatureResolvingUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Thread-safe problems and throughput collector, shared by all shards of a batch run.
+ */
+class BatchReport {
+    private static class Problem {
+        final String path;
+        final int line;
+        final String severity;
+        final String message;
+        final String source;
+
+        Problem(@NotNull String path, int line, @NotNull String severity, @NotNull String message, @NotNull String source) {
+            this.path     = path;
+            this.line     = line;
+            this.severity = severity;
+            this.message  = message;
+            this.source   = source;
+        }
+    }
+
+    private final String projectPath;
+    private final ConcurrentLinkedQueue<Problem> problems           = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<String, AtomicLong[]> shards    = new ConcurrentHashMap<>();
+    private final AtomicLong failures                               = new AtomicLong();
+
+    BatchReport(@NotNull String projectPath) {
+        this.projectPath = projectPath;
+    }
+
+    void registerProblem(@NotNull VirtualFile file, @NotNull String source, @NotNull String level, @NotNull ProblemDescriptor descriptor) {
+        final String message = ProblemDescriptorUtil.renderDescriptionMessage(descriptor, descriptor.getPsiElement());
+        problems.add(new Problem(file.getPath(), descriptor.getLineNumber() + 1, getSeverity(level, descriptor), message, source));
+    }
+
+    void registerFailure(@NotNull VirtualFile file, @NotNull String source, @NotNull Throwable failure) {
+        failures.incrementAndGet();
+        System.err.println(String.format("%s failed on %s: %s", source, file.getPath(), failure.toString()));
+    }
+
+    void registerBatch(@NotNull String shard, int filesCount, long nanos) {
+        AtomicLong[] counters = shards.get(shard);
+        if (null == counters) {
+            shards.putIfAbsent(shard, new AtomicLong[]{new AtomicLong(), new AtomicLong()});
+            counters = shards.get(shard);
+        }
+        counters[0].addAndGet(filesCount);
+        counters[1].addAndGet(nanos);
+    }
+
+    int countProblems() {
+        return problems.size();
+    }
+
+    void printStatistics(@NotNull PrintStream output, int filesCount, long nanos) {
+        final List<String> names = new ArrayList<>(shards.keySet());
+        Collections.sort(names);
+        for (String name : names) {
+            final AtomicLong[] counters = shards.get(name);
+            output.println(String.format(
+                "%s: %d files in %.2fs, %.1f files/sec",
+                name, counters[0].get(), counters[1].get() / 1e9, getThroughput(counters[0].get(), counters[1].get())
+            ));
+        }
+        output.println(String.format(
+            "Total: %d files in %.2fs, %.1f files/sec, %d inspection failures",
+            filesCount, nanos / 1e9, getThroughput(filesCount, nanos), failures.get()
+        ));
+        output.println(String.format(
+            "Expression types cache: %d hits, %d misses",
+            TypeFromPsiResolvingUtil.getCacheHits(), TypeFromPsiResolvingUtil.getCacheMisses()
+        ));
+        output.println(String.format(
+            "Signatures cache: %d hits, %d misses",
+            TypeFromSignatureResolvingUtil.getCacheHits(), TypeFromSignatureResolvingUtil.getCacheMisses()
+        ));
+    }
+
+    void writeCheckstyle(@NotNull File target) throws IOException {
+        final StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<checkstyle version=\"4.3\">\n");
+        String currentPath = null;
+        for (Problem problem : getSortedProblems()) {
+            if (!problem.path.equals(currentPath)) {
+                if (null != currentPath) {
+                    xml.append("  </file>\n");
+                }
+                currentPath = problem.path;
+                xml.append("  <file name=\"").append(StringUtil.escapeXml(currentPath)).append("\">\n");
+            }
+            xml.append("    <error line=\"").append(problem.line)
+               .append("\" severity=\"").append(problem.severity)
+               .append("\" message=\"").append(StringUtil.escapeXml(problem.message))
+               .append("\" source=\"").append(StringUtil.escapeXml(problem.source))
+               .append("\"/>\n");
+        }
+        if (null != currentPath) {
+            xml.append("  </file>\n");
+        }
+        xml.append("</checkstyle>\n");
+
+        FileUtil.writeToFile(target, xml.toString());
+    }
+
+    void writeSarif(@NotNull File target) throws IOException {
+        final StringBuilder json = new StringBuilder();
+        json.append("{\n  \"version\": \"2.1.0\",\n")
+            .append("  \"$schema\": \"https://json.schemastore.org/sarif-2.1.0.json\",\n")
+            .append("  \"runs\": [{\n    \"tool\": {\"driver\": {\"name\": \"Php Inspections (EA Extended)\"}},\n")
+            .append("    \"results\": [");
+        boolean isFirst = true;
+        for (Problem problem : getSortedProblems()) {
+            json.append(isFirst ? "\n" : ",\n");
+            isFirst = false;
+
+            final String level = problem.severity.equals("info") ? "note" : problem.severity;
+            json.append("      {\"ruleId\": \"").append(escapeJson(problem.source))
+                .append("\", \"level\": \"").append(level)
+                .append("\", \"message\": {\"text\": \"").append(escapeJson(problem.message))
+                .append("\"}, \"locations\": [{\"physicalLocation\": {\"artifactLocation\": {\"uri\": \"")
+                .append(escapeJson(getRelativePath(problem.path)))
+                .append("\"}, \"region\": {\"startLine\": ").append(problem.line)
+                .append("}}}]}");
+        }
+        json.append("\n    ]\n  }]\n}\n");
+
+        FileUtil.writeToFile(target, json.toString());
+    }
+
+    @NotNull
+    private List<Problem> getSortedProblems() {
+        final List<Problem> sorted = new ArrayList<>(problems);
+        Collections.sort(sorted, new Comparator<Problem>() {
+            @Override
+            public int compare(Problem first, Problem second) {
+                final int byPath = first.path.compareTo(second.path);
+                return 0 == byPath ? Integer.compare(first.line, second.line) : byPath;
+            }
+        });
+
+        return sorted;
+    }
+
+    @NotNull
+    private String getRelativePath(@NotNull String path) {
+        final String relative = FileUtil.getRelativePath(projectPath, path, '/');
+        return null == relative ? path : relative;
+    }
+
+    @NotNull
+    private static String getSeverity(@NotNull String level, @NotNull ProblemDescriptor descriptor) {
+        final ProblemHighlightType type = descriptor.getHighlightType();
+        if (type == ProblemHighlightType.ERROR || type == ProblemHighlightType.GENERIC_ERROR || level.equals("ERROR")) {
+            return "error";
+        }
+
+        return level.equals("WARNING") ? "warning" : "info";
+    }
+
+    private static double getThroughput(long filesCount, long nanos) {
+        return 0 == nanos ? 0.0 : filesCount / (nanos / 1e9);
+    }
+
+    @NotNull
+    private static String escapeJson(@NotNull String value) {
+        final StringBuilder escaped = new StringBuilder(value.length());
+        for (char character : value.toCharArray()) {
+            switch (character) {
+                case '"':  escaped.append("\\\""); break;
+                case '\\': escaped.append("\\\\"); break;
+                case '\n': escaped.append("\\n");  break;
+                case '\r': escaped.append("\\r");  break;
+                case '\t': escaped.append("\\t");  break;
+                default:
+                    if (character < 0x20) {
+                        escaped.append(String.format("\\u%04x", (int) character));
+                    } else {
+                        escaped.append(character);
+                    }
+            }
+        }
+
+        return escaped.toString();
+    }
+}
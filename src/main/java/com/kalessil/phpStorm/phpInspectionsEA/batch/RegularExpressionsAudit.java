@@ -0,0 +1,131 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.BacktrackingAnalyzer;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.BacktrackingSimulator;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Analyzes distinct patterns (see RegularExpressionsIndexer) in parallel, once per pattern whatever the number
+ * of call sites is, and ranks them: by measured/estimated costs first, then by call sites and steps.
+ */
+final public class RegularExpressionsAudit {
+    final public static class Entry {
+        @NotNull final public String pattern;
+        final public int calls;
+        final public int files;
+        /* 4: exceeds pcre.backtrack_limit, 3: measured super-linear growth, 2/1: exponential/polynomial
+           ambiguity the simulator can not confirm, 0: linear or not analyzable */
+        final public int severity;
+        @NotNull final public String complexity;
+        final public int steps;
+
+        Entry(@NotNull String pattern, int calls, int files, int severity, @NotNull String complexity, int steps) {
+            this.pattern    = pattern;
+            this.calls      = calls;
+            this.files      = files;
+            this.severity   = severity;
+            this.complexity = complexity;
+            this.steps      = steps;
+        }
+    }
+
+    private static final Comparator<Entry> ranking = new Comparator<Entry>() {
+        @Override
+        public int compare(@NotNull Entry first, @NotNull Entry second) {
+            if (first.severity != second.severity) {
+                return second.severity - first.severity;
+            }
+            if (first.calls != second.calls) {
+                return second.calls - first.calls;
+            }
+            return second.steps != first.steps ? Integer.compare(second.steps, first.steps) : first.pattern.compareTo(second.pattern);
+        }
+    };
+
+    private RegularExpressionsAudit() {
+    }
+
+    /** patterns are mapped to their call sites [calls, files]; returns ranked entries */
+    @NotNull
+    public static List<Entry> audit(@NotNull Map<String, int[]> patterns, @NotNull ExecutorService executor)
+            throws InterruptedException, ExecutionException
+    {
+        final List<Callable<Entry>> tasks = new ArrayList<>(patterns.size());
+        for (final Map.Entry<String, int[]> pattern : patterns.entrySet()) {
+            tasks.add(new Callable<Entry>() {
+                @Override
+                public Entry call() {
+                    return analyze(pattern.getKey(), pattern.getValue()[0], pattern.getValue()[1]);
+                }
+            });
+        }
+
+        final List<Entry> entries = new ArrayList<>(tasks.size());
+        for (Future<Entry> result : executor.invokeAll(tasks)) {
+            entries.add(result.get());
+        }
+        Collections.sort(entries, ranking);
+
+        return entries;
+    }
+
+    @NotNull
+    private static Entry analyze(@NotNull String regex, int calls, int files) {
+        final PcrePattern pattern = PcrePattern.of(regex);
+        if (null == pattern || null == pattern.getRoot()) {
+            return new Entry(regex, calls, files, 0, "malformed", 0);
+        }
+
+        final BacktrackingSimulator.Probe probe = pattern.getCostProbe();
+        if (null != probe) {
+            final int steps = probe.steps[probe.steps.length - 1];
+            return probe.isExceedingLimit()
+                    ? new Entry(regex, calls, files, 4, "exceeds backtrack limit at " + probe.lengths[probe.lengths.length - 1], steps)
+                    : new Entry(regex, calls, files, 3, "n^" + Math.round(probe.getGrowth()), steps);
+        }
+
+        final BacktrackingAnalyzer.Vulnerability vulnerability = pattern.getVulnerability();
+        if (null != vulnerability) {
+            return vulnerability.exponential
+                    ? new Entry(regex, calls, files, 2, "exponential (static)", 0)
+                    : new Entry(regex, calls, files, 1, "polynomial (static)", 0);
+        }
+
+        return new Entry(regex, calls, files, 0, "linear", 0);
+    }
+
+    public static void writeCsv(@NotNull List<Entry> entries, @NotNull File file) throws IOException {
+        final StringBuilder csv = new StringBuilder("rank,severity,complexity,calls,files,steps,pattern\n");
+        int rank = 0;
+        for (Entry entry : entries) {
+            csv.append(++rank).append(',')
+               .append(entry.severity).append(',')
+               .append(entry.complexity).append(',')
+               .append(entry.calls).append(',')
+               .append(entry.files).append(',')
+               .append(entry.steps).append(',')
+               .append('"').append(entry.pattern.replace("\"", "\"\"")).append("\"\n");
+        }
+
+        FileUtil.writeToFile(file, csv.toString());
+    }
+}
@@ -0,0 +1,128 @@
+package com.kalessil.phpStorm.phpInspectionsEA.batch;
+
+import com.intellij.ide.impl.ProjectUtil;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ApplicationStarterEx;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.RegularExpressionsIndexer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Headless runner: `phpstorm.sh ea-regex-audit <project> <report.csv> [--threads=N]`
+ *
+ * Patterns are taken from the index, so the audit costs the number of distinct patterns, not of call sites.
+ */
+public class RegularExpressionsAuditStarter extends ApplicationStarterEx {
+    private static final String usage         = "Usage: ea-regex-audit <project folder> <report file> [--threads=N]";
+    private static final String threadsOption = "--threads=";
+
+    /* validated in premain, before the application is started */
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Override
+    public String getCommandName() {
+        return "ea-regex-audit";
+    }
+
+    @Override
+    public boolean isHeadless() {
+        return true;
+    }
+
+    @Override
+    public void premain(String[] args) {
+        /* args[0] is the command name */
+        if (args.length < 3) {
+            System.err.println(usage);
+            System.exit(2);
+        }
+
+        for (int index = 3; index < args.length; ++index) {
+            if (args[index].startsWith(threadsOption)) {
+                final String value = args[index].substring(threadsOption.length());
+                try {
+                    threads = Math.max(1, Integer.parseInt(value));
+                } catch (NumberFormatException malformed) {
+                    System.err.println("Invalid threads number: " + value);
+                    System.err.println(usage);
+                    System.exit(2);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void main(String[] args) {
+        final String projectPath = FileUtil.toSystemIndependentName(new File(args[1]).getAbsolutePath());
+        final File reportFile    = new File(args[2]);
+
+        int exitCode = 0;
+        try {
+            final Project project = ProjectUtil.openOrImport(projectPath, null, false);
+            if (null == project) {
+                System.err.println("Unable to open project: " + projectPath);
+                System.exit(1);
+                return;
+            }
+            DumbService.getInstance(project).waitForSmartMode();
+
+            final Map<String, int[]> patterns = ApplicationManager.getApplication().runReadAction(new Computable<Map<String, int[]>>() {
+                @Override
+                public Map<String, int[]> compute() {
+                    return RegularExpressionsIndexer.getPatterns(project, GlobalSearchScope.projectScope(project));
+                }
+            });
+            int calls = 0;
+            for (int[] sites : patterns.values()) {
+                calls += sites[0];
+            }
+            System.out.println(String.format("Auditing %d distinct patterns (%d call sites) using %d threads", patterns.size(), calls, threads));
+
+            final long start        = System.nanoTime();
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+            final List<RegularExpressionsAudit.Entry> entries;
+            try {
+                entries = RegularExpressionsAudit.audit(patterns, pool);
+            } finally {
+                pool.shutdown();
+            }
+            final long elapsed = System.nanoTime() - start;
+
+            RegularExpressionsAudit.writeCsv(entries, reportFile);
+            int reported = 0;
+            for (RegularExpressionsAudit.Entry entry : entries) {
+                reported += entry.severity > 0 ? 1 : 0;
+            }
+            System.out.println(String.format(
+                "%d patterns with super-linear backtracking, analyzed in %d ms, reported into %s",
+                reported, elapsed / 1000000, reportFile.getPath()
+            ));
+        } catch (IOException failure) {
+            System.err.println("Unable to write report: " + failure.getMessage());
+            exitCode = 1;
+        } catch (Throwable failure) {
+            failure.printStackTrace();
+            exitCode = 1;
+        }
+
+        System.exit(exitCode);
+    }
+}
@@ -0,0 +1,162 @@
+package com.kalessil.phpStorm.phpInspectionsEA.gui;
+
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFileWrapper;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.intellij.ui.table.JBTable;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.InspectionsProfiler;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+public class InspectionsProfilerToolWindowFactory implements ToolWindowFactory {
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+        final Content content = ContentFactory.SERVICE.getInstance().createContent(new ProfilerPanel(project).getComponent(), "", false);
+        toolWindow.getContentManager().addContent(content);
+    }
+
+    private static class ProfilerTableModel extends AbstractTableModel {
+        private static final String[] columns = {"Inspection", "Visited element", "Invocations", "Time, ms", "Allocated, KB", "Per visit, ns"};
+
+        private List<InspectionsProfiler.Entry> entries = new ArrayList<>();
+
+        void setEntries(@NotNull List<InspectionsProfiler.Entry> entries) {
+            this.entries = entries;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return entries.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            return column < 2 ? String.class : Long.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            final InspectionsProfiler.Entry entry = entries.get(row);
+            switch (column) {
+                case 0:  return entry.inspection;
+                case 1:  return entry.element;
+                case 2:  return entry.invocations;
+                case 3:  return entry.nanos / 1000000;
+                case 4:  return entry.bytes / 1024;
+                default: return 0 == entry.invocations ? 0 : entry.nanos / entry.invocations;
+            }
+        }
+    }
+
+    private static class ProfilerPanel {
+        final private JPanel panel = new JPanel(new BorderLayout());
+        final private ProfilerTableModel model = new ProfilerTableModel();
+        final private JCheckBox groupByInspection = new JCheckBox("Group by inspection", true);
+
+        ProfilerPanel(@NotNull final Project project) {
+            final JCheckBox enabled = new JCheckBox("Profile inspections (applied to the next highlighting pass)", InspectionsProfiler.isEnabled());
+            enabled.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent event) {
+                    InspectionsProfiler.setEnabled(enabled.isSelected());
+                }
+            });
+            groupByInspection.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent event) {
+                    refresh();
+                }
+            });
+
+            final JButton refresh = new JButton("Refresh");
+            refresh.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent event) {
+                    refresh();
+                }
+            });
+            final JButton reset = new JButton("Reset");
+            reset.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent event) {
+                    InspectionsProfiler.reset();
+                    refresh();
+                }
+            });
+            final JButton export = new JButton("Save as JSON...");
+            export.addActionListener(new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent event) {
+                    final FileSaverDescriptor descriptor = new FileSaverDescriptor("Save Profiling Results", "", "json");
+                    final VirtualFileWrapper target
+                            = FileChooserFactory.getInstance().createSaveFileDialog(descriptor, project).save(null, "ea-inspections-profile.json");
+                    if (null != target) {
+                        try {
+                            FileUtil.writeToFile(target.getFile(), InspectionsProfiler.toJson());
+                        } catch (IOException failure) {
+                            Messages.showErrorDialog(project, failure.getMessage(), "Unable to Save Profiling Results");
+                        }
+                    }
+                }
+            });
+
+            final JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            controls.add(enabled);
+            controls.add(groupByInspection);
+            controls.add(refresh);
+            controls.add(reset);
+            controls.add(export);
+
+            final JBTable table = new JBTable(model);
+            table.setAutoCreateRowSorter(true);
+
+            panel.add(controls, BorderLayout.NORTH);
+            panel.add(new JBScrollPane(table), BorderLayout.CENTER);
+            refresh();
+        }
+
+        private void refresh() {
+            model.setEntries(InspectionsProfiler.getSnapshot(groupByInspection.isSelected()));
+        }
+
+        JPanel getComponent() {
+            return panel;
+        }
+    }
+}
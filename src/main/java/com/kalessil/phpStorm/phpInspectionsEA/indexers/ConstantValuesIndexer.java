@@ -0,0 +1,300 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexers;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.parser.PhpElementTypes;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Values of global constants (const and define()) and class constants: "\NS\NAME" and "\NS\Class::NAME" keys.
+ *
+ * Values are folded when a file is indexed: literals, numbers and concatenations are stored as text, references to
+ * other constants are stored by keys and resolved on lookup via the index again. Anything else is "non-constant".
+ * So inspections are getting patterns, modes and paths without resolving references and loading other files PSI.
+ */
+public class ConstantValuesIndexer extends FileBasedIndexExtension<String, String[]> {
+    public static final ID<String, String[]> identity = ID.create("kalessil.phpStorm.phpInspectionsEA.constant_values");
+
+    /* parts of a value: 'L' + literal text or 'C' + referenced constant key; no parts means non-constant */
+    private static final char literalPart     = 'L';
+    private static final char referencePart   = 'C';
+    private static final String[] nonConstant = new String[0];
+
+    private static final int maxResolvingDepth = 16;
+
+    private static final KeyDescriptor<String> keyDescriptor = new EnumeratorStringDescriptor();
+    private static final DataExternalizer<String[]> valueExternalizer = new DataExternalizer<String[]>() {
+        @Override
+        public void save(@NotNull DataOutput out, String[] parts) throws IOException {
+            out.writeInt(parts.length);
+            for (String part : parts) {
+                IOUtil.writeUTF(out, part);
+            }
+        }
+
+        @Override
+        public String[] read(@NotNull DataInput in) throws IOException {
+            final String[] parts = new String[in.readInt()];
+            for (int index = 0; index < parts.length; ++index) {
+                parts[index] = IOUtil.readUTF(in);
+            }
+
+            return parts;
+        }
+    };
+
+    /** returns the folded value or null if the constant is not indexed or is not constant */
+    @Nullable
+    public static String getValue(@NotNull Project project, @NotNull String fqn) {
+        return resolve(project, fqn, new HashSet<String>());
+    }
+
+    @Nullable
+    private static String resolve(@NotNull Project project, @NotNull String fqn, @NotNull Set<String> resolving) {
+        if (resolving.size() >= maxResolvingDepth || !resolving.add(fqn)) {
+            return null;
+        }
+
+        final GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+        List<String[]> definitions    = FileBasedIndex.getInstance().getValues(identity, fqn, scope);
+        /* namespaced constants are falling back to global ones */
+        final int namespaceEnd = fqn.lastIndexOf('\\');
+        if (definitions.isEmpty() && namespaceEnd > 0 && !fqn.contains("::")) {
+            definitions = FileBasedIndex.getInstance().getValues(identity, fqn.substring(namespaceEnd), scope);
+        }
+
+        /* conditional definitions are constant only when values are the same */
+        String value = null;
+        for (String[] parts : definitions) {
+            final String folded = null == parts || 0 == parts.length ? null : join(project, parts, resolving);
+            if (null == folded || (null != value && !value.equals(folded))) {
+                value = null;
+                break;
+            }
+            value = folded;
+        }
+
+        resolving.remove(fqn);
+        return value;
+    }
+
+    @Nullable
+    private static String join(@NotNull Project project, @NotNull String[] parts, @NotNull Set<String> resolving) {
+        final StringBuilder result = new StringBuilder();
+        for (String part : parts) {
+            final String text = part.substring(1);
+            if (literalPart == part.charAt(0)) {
+                result.append(text);
+                continue;
+            }
+
+            final String referenced = resolve(project, text, resolving);
+            if (null == referenced) {
+                return null;
+            }
+            result.append(referenced);
+        }
+
+        return result.toString();
+    }
+
+    @NotNull
+    @Override
+    public ID<String, String[]> getName() {
+        return identity;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, String[], FileContent> getIndexer() {
+        return new DataIndexer<String, String[], FileContent>() {
+            @NotNull
+            @Override
+            public Map<String, String[]> map(@NotNull FileContent inputData) {
+                final PsiFile file = inputData.getPsiFile();
+                if (!(file instanceof PhpFile)) {
+                    return Collections.emptyMap();
+                }
+
+                final Map<String, String[]> result = new HashMap<>();
+
+                /* const NAME = ...; on the namespace level */
+                for (Constant constant : PsiTreeUtil.findChildrenOfType(file, Constant.class)) {
+                    if (!(constant instanceof FunctionReference)) {
+                        result.put(constant.getFQN(), encode(constant.getValue(), null));
+                    }
+                }
+
+                /* define('NAME', ...); */
+                for (FunctionReference call : PsiTreeUtil.findChildrenOfType(file, FunctionReference.class)) {
+                    final PsiElement[] params = call.getParameters();
+                    if (
+                        !(call instanceof MethodReference) && "define".equals(call.getName()) &&
+                        params.length >= 2 && params[0] instanceof StringLiteralExpression
+                    ) {
+                        final String name = ((StringLiteralExpression) params[0]).getContents();
+                        if (!name.isEmpty() && name.indexOf('$') < 0) {
+                            result.put(name.charAt(0) == '\\' ? name : '\\' + name, encode(params[1], null));
+                        }
+                    }
+                }
+
+                /* class constants */
+                for (PhpClass clazz : PsiTreeUtil.findChildrenOfType(file, PhpClass.class)) {
+                    for (Field field : clazz.getOwnFields()) {
+                        if (field.isConstant()) {
+                            result.put(clazz.getFQN() + "::" + field.getName(), encode(field.getDefaultValue(), clazz));
+                        }
+                    }
+                }
+
+                return result;
+            }
+        };
+    }
+
+    @NotNull
+    private static String[] encode(@Nullable PsiElement value, @Nullable PhpClass clazz) {
+        final List<String> parts = new ArrayList<>();
+        if (!encode(value, clazz, parts)) {
+            return nonConstant;
+        }
+
+        /* adjacent literals are merged */
+        final List<String> merged = new ArrayList<>(parts.size());
+        for (String part : parts) {
+            final int last = merged.size() - 1;
+            if (last >= 0 && literalPart == part.charAt(0) && literalPart == merged.get(last).charAt(0)) {
+                merged.set(last, merged.get(last) + part.substring(1));
+            } else {
+                merged.add(part);
+            }
+        }
+
+        return merged.toArray(new String[merged.size()]);
+    }
+
+    private static boolean encode(@Nullable PsiElement value, @Nullable PhpClass clazz, @NotNull List<String> parts) {
+        value = ExpressionSemanticUtil.getExpressionTroughParenthesis(value);
+        if (null == value) {
+            return false;
+        }
+
+        if (value instanceof StringLiteralExpression) {
+            final StringLiteralExpression literal = (StringLiteralExpression) value;
+            final String content                  = literal.getContents();
+            if (!literal.isSingleQuote() && content.indexOf('$') >= 0) {
+                return false;
+            }
+            parts.add(literalPart + content);
+            return true;
+        }
+
+        if (value instanceof PhpExpression && PhpElementTypes.NUMBER == value.getNode().getElementType()) {
+            parts.add(literalPart + value.getText());
+            return true;
+        }
+
+        if (value instanceof BinaryExpression) {
+            final BinaryExpression binary = (BinaryExpression) value;
+            final PsiElement operation    = binary.getOperation();
+            return
+                null != operation && PhpTokenTypes.opCONCAT == operation.getNode().getElementType() &&
+                encode(binary.getLeftOperand(), clazz, parts) && encode(binary.getRightOperand(), clazz, parts);
+        }
+
+        /* references are kept by keys: resolving them would require other files */
+        if (value instanceof ClassConstantReference) {
+            final ClassConstantReference reference = (ClassConstantReference) value;
+            final PsiElement classReference        = reference.getClassReference();
+            if (!(classReference instanceof ClassReference) || null == reference.getName()) {
+                return false;
+            }
+
+            /* static:: is late binding, so it's not constant */
+            final String className = classReference.getText();
+            final String classFqn;
+            if (className.equalsIgnoreCase("self")) {
+                classFqn = null == clazz ? null : clazz.getFQN();
+            } else if (className.equalsIgnoreCase("static")) {
+                classFqn = null;
+            } else {
+                classFqn = ((ClassReference) classReference).getFQN();
+            }
+            if (null == classFqn) {
+                return false;
+            }
+
+            parts.add(referencePart + classFqn + "::" + reference.getName());
+            return true;
+        }
+
+        if (value instanceof ConstantReference) {
+            final String fqn = ((ConstantReference) value).getFQN();
+            if (null == fqn) {
+                return false;
+            }
+
+            parts.add(referencePart + fqn);
+            return true;
+        }
+
+        return false;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return keyDescriptor;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<String[]> getValueExternalizer() {
+        return valueExternalizer;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PhpFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+}
@@ -0,0 +1,136 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexers;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorIntegerDescriptor;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.FunctionReference;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.jetbrains.php.lang.psi.elements.Variable;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.NotOptimalRegularExpressionsInspector;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Pattern literals of preg_* calls (pattern => number of calls in the file). Keys are enumerated by content,
+ * so a pattern repeated across the project is stored and analyzed once, with per-file call counts as values.
+ * Only literals passed directly are indexed: resolving references is not possible while indexing.
+ */
+public class RegularExpressionsIndexer extends FileBasedIndexExtension<String, Integer> {
+    public static final ID<String, Integer> identity = ID.create("kalessil.phpStorm.phpInspectionsEA.regular_expressions");
+
+    private static final KeyDescriptor<String> keyDescriptor         = new EnumeratorStringDescriptor();
+    private static final DataExternalizer<Integer> valueExternalizer = new EnumeratorIntegerDescriptor();
+
+    /** distinct patterns in the scope, with their call sites [calls, files] */
+    @NotNull
+    public static Map<String, int[]> getPatterns(@NotNull Project project, @NotNull GlobalSearchScope scope) {
+        final FileBasedIndex index        = FileBasedIndex.getInstance();
+        final Map<String, int[]> patterns = new HashMap<>();
+        for (String pattern : index.getAllKeys(identity, project)) {
+            int calls = 0;
+            int files = 0;
+            for (Integer count : index.getValues(identity, pattern, scope)) {
+                calls += count;
+                ++files;
+            }
+            /* keys of removed files are kept until the storage is compacted */
+            if (files > 0) {
+                patterns.put(pattern, new int[] {calls, files});
+            }
+        }
+
+        return patterns;
+    }
+
+    @NotNull
+    @Override
+    public ID<String, Integer> getName() {
+        return identity;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, Integer, FileContent> getIndexer() {
+        return new DataIndexer<String, Integer, FileContent>() {
+            @NotNull
+            @Override
+            public Map<String, Integer> map(@NotNull FileContent inputData) {
+                final PsiFile file = inputData.getPsiFile();
+                if (!(file instanceof PhpFile)) {
+                    return Collections.emptyMap();
+                }
+
+                final Map<String, Integer> result = new HashMap<>();
+                for (FunctionReference reference : PsiTreeUtil.findChildrenOfType(file, FunctionReference.class)) {
+                    final String functionName = reference.getName();
+                    if (StringUtil.isEmpty(functionName) || !NotOptimalRegularExpressionsInspector.patternFunctions.contains(functionName)) {
+                        continue;
+                    }
+
+                    final PsiElement[] params = reference.getParameters();
+                    final PsiElement pattern  = params.length > 0 ? ExpressionSemanticUtil.getExpressionTroughParenthesis(params[0]) : null;
+                    if (!(pattern instanceof StringLiteralExpression) || null != PsiTreeUtil.findChildOfType(pattern, Variable.class)) {
+                        continue;
+                    }
+
+                    final String regex = ((StringLiteralExpression) pattern).getContents();
+                    if (!regex.isEmpty()) {
+                        final Integer count = result.get(regex);
+                        result.put(regex, null == count ? 1 : count + 1);
+                    }
+                }
+
+                return result;
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return keyDescriptor;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<Integer> getValueExternalizer() {
+        return valueExternalizer;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PhpFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+}
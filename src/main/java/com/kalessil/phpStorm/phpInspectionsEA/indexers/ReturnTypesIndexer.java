@@ -0,0 +1,190 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexers;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocComment;
+import com.jetbrains.php.lang.documentation.phpdoc.psi.tags.PhpDocReturnTag;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Return types of functions and methods (FQN => "|"-separated types), collected from declared return types,
+ * @return tags and return statements when a file is indexed. Types are local: calls to other functions are stored as signatures and
+ * resolved by TypeFromSignatureResolvingUtil, which is reading this index instead of inferring callee types.
+ */
+public class ReturnTypesIndexer extends FileBasedIndexExtension<String, String> {
+    public static final ID<String, String> identity = ID.create("kalessil.phpStorm.phpInspectionsEA.return_types");
+
+    private static final KeyDescriptor<String> keyDescriptor        = new EnumeratorStringDescriptor();
+    private static final DataExternalizer<String> valueExternalizer = new EnumeratorStringDescriptor();
+
+    /** returns the indexed return types or null if the function is not indexed or no types were collected */
+    @Nullable
+    public static String getReturnTypes(@NotNull Project project, @NotNull String fqn) {
+        final List<String> values = FileBasedIndex.getInstance().getValues(identity, fqn, GlobalSearchScope.allScope(project));
+        if (values.isEmpty()) {
+            return null;
+        }
+
+        /* abstract methods and functions without returns: PSI types are used instead */
+        if (1 == values.size()) {
+            return values.get(0).isEmpty() ? null : values.get(0);
+        }
+
+        /* conditional declarations in several files are possible */
+        final LinkedHashSet<String> types = new LinkedHashSet<>();
+        for (String value : values) {
+            addTypes(value, "", types);
+        }
+
+        return types.isEmpty() ? null : join(types);
+    }
+
+    @NotNull
+    @Override
+    public ID<String, String> getName() {
+        return identity;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, String, FileContent> getIndexer() {
+        return new DataIndexer<String, String, FileContent>() {
+            @NotNull
+            @Override
+            public Map<String, String> map(@NotNull FileContent inputData) {
+                final PsiFile file = inputData.getPsiFile();
+                if (!(file instanceof PhpFile)) {
+                    return Collections.emptyMap();
+                }
+
+                final Map<String, LinkedHashSet<String>> collected = new HashMap<>();
+                for (Function function : PsiTreeUtil.findChildrenOfType(file, Function.class)) {
+                    /* closures are not referenced by name */
+                    if (function.isClosure()) {
+                        continue;
+                    }
+
+                    final String fqn = function.getFQN();
+                    if (!collected.containsKey(fqn)) {
+                        collected.put(fqn, new LinkedHashSet<String>());
+                    }
+                    collectTypes(function, collected.get(fqn));
+                }
+
+                final Map<String, String> result = new HashMap<>(collected.size());
+                for (Map.Entry<String, LinkedHashSet<String>> entry : collected.entrySet()) {
+                    result.put(entry.getKey(), join(entry.getValue()));
+                }
+                collected.clear();
+
+                return result;
+            }
+        };
+    }
+
+    private static void collectTypes(@NotNull Function function, @NotNull Set<String> types) {
+        /* own signature in return types (recursion) is not adding anything */
+        final String ownSignature = function instanceof Method ? "#M#C" + function.getFQN() : "#F" + function.getFQN();
+
+        /* PHP 7 return type declarations */
+        final PhpReturnType declared = PsiTreeUtil.getChildOfType(function, PhpReturnType.class);
+        if (null != declared) {
+            addTypes(declared.getType().toString(), ownSignature, types);
+        }
+
+        final PhpDocComment docBlock = function.getDocComment();
+        final PhpDocReturnTag tag    = null == docBlock ? null : docBlock.getReturnTag();
+        if (null != tag) {
+            addTypes(tag.getType().toString(), ownSignature, types);
+        }
+
+        for (PhpReturn returnStatement : PsiTreeUtil.findChildrenOfType(function, PhpReturn.class)) {
+            /* returns of nested closures are not ours */
+            if (ExpressionSemanticUtil.getScope(returnStatement) != function) {
+                continue;
+            }
+
+            final PhpExpression value = ExpressionSemanticUtil.getReturnValue(returnStatement);
+            if (null != value) {
+                addTypes(value.getType().toString(), ownSignature, types);
+            }
+        }
+    }
+
+    private static void addTypes(@NotNull String signature, @NotNull String ownSignature, @NotNull Set<String> types) {
+        int start = 0;
+        while (start < signature.length()) {
+            int end = signature.indexOf('|', start);
+            if (end < 0) {
+                end = signature.length();
+            }
+            if (end > start) {
+                final String type = signature.substring(start, end);
+                if (!type.equals(ownSignature)) {
+                    types.add(type);
+                }
+            }
+            start = end + 1;
+        }
+    }
+
+    @NotNull
+    private static String join(@NotNull Collection<String> types) {
+        final StringBuilder result = new StringBuilder();
+        for (String type : types) {
+            result.append(result.length() > 0 ? "|" : "").append(type);
+        }
+
+        return result.toString();
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return keyDescriptor;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<String> getValueExternalizer() {
+        return valueExternalizer;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PhpFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+}
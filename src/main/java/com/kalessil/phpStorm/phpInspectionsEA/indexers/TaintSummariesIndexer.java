@@ -0,0 +1,122 @@
+package com.kalessil.phpStorm.phpInspectionsEA.indexers;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.Function;
+import com.jetbrains.php.lang.psi.elements.GroupStatement;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.taint.LocalTaintFlow;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Local taint flows of functions and methods (FQN => serialized LocalTaintFlow, one per line), built when a file
+ * is indexed. Flows are referencing callees by FQN only, TaintSummariesUtil is composing them at call sites.
+ * FQNs are lower-cased both here and in flows, as PHP resolves functions, methods and classes case-insensitively.
+ */
+public class TaintSummariesIndexer extends FileBasedIndexExtension<String, String> {
+    public static final ID<String, String> identity = ID.create("kalessil.phpStorm.phpInspectionsEA.taint_summaries");
+
+    private static final KeyDescriptor<String> keyDescriptor        = new EnumeratorStringDescriptor();
+    private static final DataExternalizer<String> valueExternalizer = new EnumeratorStringDescriptor();
+
+    /** serialized flows of all declarations with the FQN (in any case), empty if the function is not indexed */
+    @NotNull
+    public static List<String> getFlows(@NotNull Project project, @NotNull String fqn) {
+        final List<String> flows = new ArrayList<>();
+        final String key         = fqn.toLowerCase();
+        for (String value : FileBasedIndex.getInstance().getValues(identity, key, GlobalSearchScope.allScope(project))) {
+            /* conditional declarations in one file are stored line by line */
+            flows.addAll(Arrays.asList(value.split("\n")));
+        }
+
+        return flows;
+    }
+
+    @NotNull
+    @Override
+    public ID<String, String> getName() {
+        return identity;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, String, FileContent> getIndexer() {
+        return new DataIndexer<String, String, FileContent>() {
+            @NotNull
+            @Override
+            public Map<String, String> map(@NotNull FileContent inputData) {
+                final PsiFile file = inputData.getPsiFile();
+                if (!(file instanceof PhpFile)) {
+                    return Collections.emptyMap();
+                }
+
+                final Map<String, String> result = new HashMap<>();
+                for (Function function : PsiTreeUtil.findChildrenOfType(file, Function.class)) {
+                    /* closures are not referenced by name */
+                    if (function.isClosure()) {
+                        continue;
+                    }
+                    /* abstract methods and stubs (internal functions declarations) are unknown callees, not sanitizers */
+                    final GroupStatement body = ExpressionSemanticUtil.getGroupStatement(function);
+                    if (null == body || 0 == ExpressionSemanticUtil.countExpressionsInGroup(body)) {
+                        continue;
+                    }
+
+                    final String fqn      = function.getFQN().toLowerCase();
+                    final String flow     = LocalTaintFlow.analyze(function).serialize();
+                    final String previous = result.get(fqn);
+                    result.put(fqn, null == previous ? flow : previous + '\n' + flow);
+                }
+
+                return result;
+            }
+        };
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return keyDescriptor;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<String> getValueExternalizer() {
+        return valueExternalizer;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PhpFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+
+    @Override
+    public int getVersion() {
+        return 4;
+    }
+}
@@ -12,7 +12,9 @@ import com.jetbrains.php.lang.psi.elements.FunctionReference;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
 import java.util.HashMap;
 
 public class AliasFunctionsUsageInspector extends BasePhpInspection {
@@ -44,6 +46,12 @@ public class AliasFunctionsUsageInspector extends BasePhpInspection {
         mapping.put("strchr",               "strstr");
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return mapping.keySet();
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
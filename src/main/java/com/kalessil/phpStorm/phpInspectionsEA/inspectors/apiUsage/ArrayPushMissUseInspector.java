@@ -19,6 +19,10 @@ import com.jetbrains.php.lang.psi.elements.impl.StatementImpl;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
 
 public class ArrayPushMissUseInspector extends BasePhpInspection {
     private static final String strProblemDescription = "'%t%[] = ...' should be used instead (2x faster)";
@@ -28,6 +32,12 @@ public class ArrayPushMissUseInspector extends BasePhpInspection {
         return "ArrayPushMissUseInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("array_push");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -20,6 +20,10 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.PhpLanguageUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
 
 public class ArraySearchUsedAsInArrayInspector extends BasePhpInspection {
     private static final String messageUseInArray        = "'in_array(...)' shall be used instead (clearer intention)";
@@ -30,6 +34,12 @@ public class ArraySearchUsedAsInArrayInspector extends BasePhpInspection {
         return "ArraySearchUsedAsInArrayInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("array_search");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -16,7 +16,10 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 
 public class CompactArgumentsInspector extends BasePhpInspection {
@@ -27,6 +30,12 @@ public class CompactArgumentsInspector extends BasePhpInspection {
         return "CompactArgumentsInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("compact");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -14,6 +14,10 @@ import com.jetbrains.php.lang.psi.elements.FunctionReference;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
 
 public class DirnameCallOnFileConstantInspector extends BasePhpInspection {
     private static final String message = "__DIR__ should be used instead";
@@ -23,6 +27,12 @@ public class DirnameCallOnFileConstantInspector extends BasePhpInspection {
         return "dirnameCallOnFileConstantInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("dirname");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
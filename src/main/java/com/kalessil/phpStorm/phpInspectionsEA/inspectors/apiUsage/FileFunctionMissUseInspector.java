@@ -19,6 +19,10 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
 
 public class FileFunctionMissUseInspector extends BasePhpInspection {
     private static final String messagePattern = "'file_get_contents(%p%)' would consume less cpu and memory resources here";
@@ -28,6 +32,12 @@ public class FileFunctionMissUseInspector extends BasePhpInspection {
         return "FileFunctionMissUseInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("file");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -15,6 +15,10 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
 
 public class FopenBinaryUnsafeUsageInspector extends BasePhpInspection {
     private static final String messageUseBinaryMode         = "The mode is not binary-safe ('b' is missing)";
@@ -25,6 +29,12 @@ public class FopenBinaryUnsafeUsageInspector extends BasePhpInspection {
         return "FopenBinaryUnsafeUsageInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("fopen");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
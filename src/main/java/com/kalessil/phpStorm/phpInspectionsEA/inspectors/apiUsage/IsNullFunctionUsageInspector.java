@@ -16,6 +16,10 @@ import com.jetbrains.php.lang.psi.elements.UnaryExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
 
 public class IsNullFunctionUsageInspector extends BasePhpInspection {
     private static final String messageIdenticalToNull   = "'null === ...' construction shall be used instead";
@@ -26,6 +30,12 @@ public class IsNullFunctionUsageInspector extends BasePhpInspection {
         return "IsNullFunctionUsageInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("is_null");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
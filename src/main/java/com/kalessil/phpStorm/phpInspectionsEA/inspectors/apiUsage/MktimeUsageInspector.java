@@ -13,6 +13,10 @@ import com.jetbrains.php.lang.psi.elements.FunctionReference;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
 
 public class MktimeUsageInspector extends BasePhpInspection {
     private static final String strProblemUseTime             = "You shall use time() function instead (current usage produces a runtime warning)";
@@ -23,6 +27,12 @@ public class MktimeUsageInspector extends BasePhpInspection {
         return "MktimeUsageInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Arrays.asList("mktime", "gmmktime");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
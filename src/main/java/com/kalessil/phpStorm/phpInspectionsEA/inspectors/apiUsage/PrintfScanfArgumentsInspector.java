@@ -11,9 +11,13 @@ import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.PossibleValuesDiscoveryUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,6 +47,12 @@ public class PrintfScanfArgumentsInspector extends BasePhpInspection {
         regexPlaceHolders = Pattern.compile("%((\\d+)\\$)?[+-]?(?:[ 0]|\\\\?'.)?-?\\d*(?:\\.\\d+)?[sducoxXbgGeEfF]");
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return functions.keySet();
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -56,17 +66,25 @@ public class PrintfScanfArgumentsInspector extends BasePhpInspection {
                 /* resolve needed parameter */
                 final int neededPosition              = functions.get(functionName);
                 final int minimumArgumentsForAnalysis = neededPosition + 1;
-                StringLiteralExpression pattern       = null;
+                String content                        = null;
                 final PsiElement[] params             = reference.getParameters();
                 if (params.length >= minimumArgumentsForAnalysis) {
-                    pattern = ExpressionSemanticUtil.resolveAsStringLiteral(params[neededPosition]);
+                    final StringLiteralExpression pattern = ExpressionSemanticUtil.resolveAsStringLiteral(params[neededPosition]);
+                    if (null != pattern) {
+                        content = pattern.getContents();
+                    } else {
+                        /* computed patterns: concatenations, constants, sprintf() and so on */
+                        final Set<String> folded = PossibleValuesDiscoveryUtil.discoverStrings(params[neededPosition]);
+                        if (null != folded && 1 == folded.size()) {
+                            content = folded.iterator().next();
+                        }
+                    }
                 }
                 /* not available */
-                if (null == pattern) {
+                if (null == content) {
                     return;
                 }
 
-                final String content = pattern.getContents();
                 if (!StringUtil.isEmpty(content)) {
                     /* find valid placeholders and extract positions specifiers as well */
                     int countWithoutPositionSpecifier = 0;
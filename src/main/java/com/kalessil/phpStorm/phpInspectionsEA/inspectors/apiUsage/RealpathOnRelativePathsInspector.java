@@ -10,8 +10,10 @@ import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.Collections;
 
 public class RealpathOnRelativePathsInspector extends BasePhpInspection {
     private static final String strProblemDescription = "Relies on relative path, what will not work properly within phar:// stream due to realpath (see PHP 'bug' #52769). Try using dirname instead.";
@@ -21,6 +23,12 @@ public class RealpathOnRelativePathsInspector extends BasePhpInspection {
         return "RealpathOnRelativePathsInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("realpath");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
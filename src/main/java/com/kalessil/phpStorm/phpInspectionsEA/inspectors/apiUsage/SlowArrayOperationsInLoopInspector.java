@@ -1,6 +1,5 @@
 package com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage;
 
-import com.intellij.codeInsight.PsiEquivalenceUtil;
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.util.text.StringUtil;
@@ -10,8 +9,11 @@ import com.jetbrains.php.lang.psi.PhpFile;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.StructuralHashUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
 import java.util.HashSet;
 
 public class SlowArrayOperationsInLoopInspector extends BasePhpInspection {
@@ -30,6 +32,12 @@ public class SlowArrayOperationsInLoopInspector extends BasePhpInspection {
         functionsSet.add("array_replace_recursive");
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return functionsSet;
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -61,7 +69,7 @@ public class SlowArrayOperationsInLoopInspector extends BasePhpInspection {
 
                         /* pattern itself: container overridden */
                         for (PsiElement objParameter : reference.getParameters()) {
-                            if (PsiEquivalenceUtil.areElementsEquivalent(objContainer, objParameter)) {
+                            if (StructuralHashUtil.areEquivalent(objContainer, objParameter)) {
                                 final String message = strProblemDescription.replace("%s%", strFunctionName);
                                 holder.registerProblem(reference, message, ProblemHighlightType.GENERIC_ERROR_OR_WARNING);
 
@@ -11,6 +11,10 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
 
 public class StrTrUsageAsStrReplaceInspector extends BasePhpInspection {
     private static final String strProblemDescription  = "This construct behaves as str_replace(%p%, ...), consider refactoring";
@@ -20,6 +24,12 @@ public class StrTrUsageAsStrReplaceInspector extends BasePhpInspection {
         return "StrTrUsageAsStrReplaceInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("strtr");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
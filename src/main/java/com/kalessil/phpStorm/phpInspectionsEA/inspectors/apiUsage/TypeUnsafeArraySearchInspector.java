@@ -9,7 +9,9 @@ import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
 import java.util.HashSet;
 
 public class TypeUnsafeArraySearchInspector extends BasePhpInspection {
@@ -27,6 +29,12 @@ public class TypeUnsafeArraySearchInspector extends BasePhpInspection {
         functionsSet.add("in_array");
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return functionsSet;
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -13,7 +13,9 @@ import com.jetbrains.php.lang.psi.elements.*;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
 import java.util.HashMap;
 
 public class TypesCastingWithFunctionsInspector extends BasePhpInspection {
@@ -33,6 +35,12 @@ public class TypesCastingWithFunctionsInspector extends BasePhpInspection {
         mapping.put("settype",  "<needed type>");
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return mapping.keySet();
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -15,7 +15,9 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
 import java.util.HashMap;
 
 public class StrNcmpUsedAsStrPosInspector extends BasePhpInspection {
@@ -32,6 +34,12 @@ public class StrNcmpUsedAsStrPosInspector extends BasePhpInspection {
         mapping.put("strncasecmp", "stripos");
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return mapping.keySet();
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
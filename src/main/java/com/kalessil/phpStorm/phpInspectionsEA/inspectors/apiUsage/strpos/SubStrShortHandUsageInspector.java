@@ -18,6 +18,10 @@ import com.jetbrains.php.lang.psi.elements.impl.FunctionReferenceImpl;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
 
 public class SubStrShortHandUsageInspector extends BasePhpInspection {
     private static final String strProblemSimplifyLength = "Normally '%l%' can be dropped, so '-%r%' is only left (sometimes we discovering a range bug here, see bug-report #271).";
@@ -28,6 +32,12 @@ public class SubStrShortHandUsageInspector extends BasePhpInspection {
         return "SubStrShortHandUsageInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("substr");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
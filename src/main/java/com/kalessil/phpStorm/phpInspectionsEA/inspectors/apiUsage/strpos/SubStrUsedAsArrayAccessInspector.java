@@ -15,6 +15,10 @@ import com.jetbrains.php.lang.psi.elements.impl.PhpExpressionImpl;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
 
 public class SubStrUsedAsArrayAccessInspector extends BasePhpInspection {
     private static final String messagePattern = "'%c%[%i%]' might be used instead (invalid index accesses might show up)";
@@ -24,6 +28,12 @@ public class SubStrUsedAsArrayAccessInspector extends BasePhpInspection {
         return "SubStrUsedAsArrayAccessInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Arrays.asList("substr", "mb_substr");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -15,6 +15,10 @@ import com.jetbrains.php.lang.psi.elements.impl.PhpExpressionImpl;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
 
 public class SubStrUsedAsStrPosInspector extends BasePhpInspection {
     private static final String strProblemUseStrpos = "'%i% %o% %f%(%s%, %p%)' should be used instead";
@@ -25,6 +29,12 @@ public class SubStrUsedAsStrPosInspector extends BasePhpInspection {
         return "SubStrUsedAsStrPosInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("substr");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
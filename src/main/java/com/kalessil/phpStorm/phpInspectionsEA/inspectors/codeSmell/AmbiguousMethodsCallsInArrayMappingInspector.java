@@ -1,6 +1,5 @@
 package com.kalessil.phpStorm.phpInspectionsEA.inspectors.codeSmell;
 
-import com.intellij.codeInsight.PsiEquivalenceUtil;
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.psi.PsiElement;
@@ -9,6 +8,7 @@ import com.jetbrains.php.lang.psi.elements.*;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.StructuralHashUtil;
 import org.jetbrains.annotations.NotNull;
 
 public class AmbiguousMethodsCallsInArrayMappingInspector extends BasePhpInspection {
@@ -59,7 +59,7 @@ public class AmbiguousMethodsCallsInArrayMappingInspector extends BasePhpInspect
                     ArrayIndex objIndex = ((ArrayAccessExpression) objContainer).getIndex();
                     if (objIndex != null && objIndex.getValue() instanceof FunctionReference) {
                         FunctionReference objIndexExpression = (FunctionReference) objIndex.getValue();
-                        if (PsiEquivalenceUtil.areElementsEquivalent(objIndexExpression, objValueExpression)) {
+                        if (StructuralHashUtil.areEquivalent(objIndexExpression, objValueExpression)) {
                             holder.registerProblem(objValueExpression, strProblemDescription, ProblemHighlightType.GENERIC_ERROR_OR_WARNING);
                             break;
                         }
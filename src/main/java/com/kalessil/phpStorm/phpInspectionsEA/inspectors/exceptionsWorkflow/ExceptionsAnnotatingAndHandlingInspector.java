@@ -25,9 +25,14 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.hierarhy.InterfacesExtractUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.phpDoc.ThrowsResolveUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.phpExceptions.CollectPossibleThrowsUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.phpExceptions.ExceptionsPropagationUtil;
+import net.miginfocom.swing.MigLayout;
 import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -36,6 +41,15 @@ import java.util.Map;
 public class ExceptionsAnnotatingAndHandlingInspector extends BasePhpInspection {
     /* TODO: add settings for FQNs which doesn't need to be reported */
 
+    // configuration flags automatically saved by IDE
+    @SuppressWarnings("WeakerAccess")
+    public boolean INFER_NON_ANNOTATED_CALLS = false;
+    /* call graph traversal limits, per analyzed method */
+    @SuppressWarnings("WeakerAccess")
+    public int INFERENCE_MAX_DEPTH = 4;
+    @SuppressWarnings("WeakerAccess")
+    public int INFERENCE_MAX_MILLIS = 200;
+
     private static final String strProblemDescription       = "Throws a non-annotated/unhandled exception: '%c%'";
     private static final String strProblemFinallyExceptions = "Exceptions management inside finally has variety of side-effects in certain PHP versions";
 
@@ -116,8 +130,19 @@ public class ExceptionsAnnotatingAndHandlingInspector extends BasePhpInspection
                 }
 
                 HashSet<PsiElement> processedRegistry = new HashSet<>();
-                HashMap<PhpClass, HashSet<PsiElement>> throwsExceptions =
-                        CollectPossibleThrowsUtil.collectNestedAndWorkflowExceptions(method, processedRegistry, holder);
+                HashMap<PhpClass, HashSet<PsiElement>> throwsExceptions;
+                if (INFER_NON_ANNOTATED_CALLS) {
+                    final ExceptionsPropagationUtil.Budget budget
+                            = new ExceptionsPropagationUtil.Budget(INFERENCE_MAX_DEPTH, INFERENCE_MAX_MILLIS);
+                    throwsExceptions = CollectPossibleThrowsUtil.collectNestedAndWorkflowExceptions(method, processedRegistry, holder, budget);
+                    /* out of time: fall back to annotations only, so the highlighting is not depending on machine load */
+                    if (budget.isExhausted()) {
+                        processedRegistry.clear();
+                        throwsExceptions = CollectPossibleThrowsUtil.collectNestedAndWorkflowExceptions(method, processedRegistry, holder);
+                    }
+                } else {
+                    throwsExceptions = CollectPossibleThrowsUtil.collectNestedAndWorkflowExceptions(method, processedRegistry, holder);
+                }
 //holder.registerProblem(objMethodName, "Processed: " + processedRegistry.size(), ProblemHighlightType.WEAK_WARNING);
                 processedRegistry.clear();
 
@@ -146,12 +171,10 @@ public class ExceptionsAnnotatingAndHandlingInspector extends BasePhpInspection
                                 }
 
                                 /* check thrown parents, as annotated not processed here */
-                                final HashSet<PhpClass> thrownVariants = InterfacesExtractUtil.getCrawlCompleteInheritanceTree(thrown, true);
-                                if (!thrownVariants.contains(annotated)) {
+                                if (!InterfacesExtractUtil.isSubType(thrown, annotated)) {
                                     unhandledExceptions.put(thrown, throwsExceptionsPair.getValue());
                                     throwsExceptions.put(thrown, null);
                                 }
-                                thrownVariants.clear();
                             }
                         }
                     } else {
@@ -197,6 +220,53 @@ public class ExceptionsAnnotatingAndHandlingInspector extends BasePhpInspection
         };
     }
 
+    public JComponent createOptionsPanel() {
+        return (new ExceptionsAnnotatingAndHandlingInspector.OptionsPanel()).getComponent();
+    }
+
+    public class OptionsPanel {
+        final private JPanel optionsPanel;
+
+        final private JCheckBox inferNonAnnotatedCalls;
+        final private JSpinner inferenceMaxDepth;
+        final private JSpinner inferenceMaxMillis;
+
+        public OptionsPanel() {
+            optionsPanel = new JPanel();
+            optionsPanel.setLayout(new MigLayout());
+
+            inferNonAnnotatedCalls = new JCheckBox("Infer exceptions thrown by non-annotated methods", INFER_NON_ANNOTATED_CALLS);
+            inferNonAnnotatedCalls.addChangeListener(new ChangeListener() {
+                public void stateChanged(ChangeEvent e) {
+                    INFER_NON_ANNOTATED_CALLS = inferNonAnnotatedCalls.isSelected();
+                }
+            });
+            optionsPanel.add(inferNonAnnotatedCalls, "wrap, span 2");
+
+            inferenceMaxDepth = new JSpinner(new SpinnerNumberModel(INFERENCE_MAX_DEPTH, 1, 64, 1));
+            inferenceMaxDepth.addChangeListener(new ChangeListener() {
+                public void stateChanged(ChangeEvent e) {
+                    INFERENCE_MAX_DEPTH = (Integer) inferenceMaxDepth.getValue();
+                }
+            });
+            optionsPanel.add(new JLabel("Inference: max. calls depth"));
+            optionsPanel.add(inferenceMaxDepth, "wrap");
+
+            inferenceMaxMillis = new JSpinner(new SpinnerNumberModel(INFERENCE_MAX_MILLIS, 10, 60000, 10));
+            inferenceMaxMillis.addChangeListener(new ChangeListener() {
+                public void stateChanged(ChangeEvent e) {
+                    INFERENCE_MAX_MILLIS = (Integer) inferenceMaxMillis.getValue();
+                }
+            });
+            optionsPanel.add(new JLabel("Inference: max. time per method (ms)"));
+            optionsPanel.add(inferenceMaxMillis, "wrap");
+        }
+
+        public JPanel getComponent() {
+            return optionsPanel;
+        }
+    }
+
     private static class MissingThrowAnnotationLocalFix implements LocalQuickFix {
         final private String exception;
         private SmartPsiElementPointer<Method> method;
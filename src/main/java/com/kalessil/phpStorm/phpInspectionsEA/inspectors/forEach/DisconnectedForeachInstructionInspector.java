@@ -7,7 +7,6 @@ import com.intellij.psi.PsiComment;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.tree.IElementType;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.php.lang.lexer.PhpTokenTypes;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.jetbrains.php.lang.psi.elements.impl.PhpPsiElementImpl;
@@ -15,6 +14,7 @@ import com.jetbrains.php.lang.psi.elements.impl.StatementImpl;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.FileFactsUtil;
 import net.miginfocom.swing.MigLayout;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -143,7 +143,11 @@ public class DisconnectedForeachInstructionInspector extends BasePhpInspection {
                 @NotNull HashSet<String> individualDependencies,
                 @NotNull HashSet<String> allModifiedVariables
             ) {
-                for (PsiElement variable : PsiTreeUtil.findChildrenOfType(oneInstruction, Variable.class)) {
+                if (null == oneInstruction) {
+                    return;
+                }
+
+                for (PsiElement variable : FileFactsUtil.findVariables(oneInstruction)) {
                     final String variableName = ((Variable) variable).getName();
                     if (!StringUtil.isEmpty(variableName)) {
                         PsiElement valueContainer = variable;
@@ -17,6 +17,7 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.PhpLanguageUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.StructuralHashUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.hierarhy.InterfacesExtractUtil;
 import net.miginfocom.swing.MigLayout;
 import org.jetbrains.annotations.NotNull;
@@ -28,6 +29,7 @@ import javax.swing.event.ChangeListener;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 
 public class NotOptimalIfConditionsInspection extends BasePhpInspection {
@@ -241,7 +243,6 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
 
 
                 // process entries, perform subject container clean up on each iteration
-                HashMap<PhpClass, HashSet<PhpClass>> resolvedInheritanceChains = new HashMap<>();
                 for (HashMap<PsiElement, PhpClass> subjectContainer : mappedChecks.values()) {
                     // investigate one subject when it has multiple instanceof-expressions
                     if (subjectContainer.size() > 1) {
@@ -251,13 +252,6 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                             final PhpClass clazz                  = instanceOf2class.getValue();
                             final PsiElement instanceOfExpression = instanceOf2class.getKey();
 
-                            // extract current condition details
-                            HashSet<PhpClass> clazzParents = resolvedInheritanceChains.get(clazz);
-                            if (null == clazzParents) {
-                                clazzParents = InterfacesExtractUtil.getCrawlCompleteInheritanceTree(clazz, true);
-                                resolvedInheritanceChains.put(clazz, clazzParents);
-                            }
-
                             // inner loop for verification
                             for (Map.Entry<PsiElement, PhpClass> instanceOf2classInner : subjectContainer.entrySet()) {
                                 // skip itself
@@ -266,7 +260,7 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                                 }
 
                                 // if alternative references to base class current check is ambiguous
-                                if (clazzParents.contains(instanceOf2classInner.getValue())) {
+                                if (InterfacesExtractUtil.isSubType(clazz, instanceOf2classInner.getValue())) {
                                     holder.registerProblem(instanceOfExpression, strProblemDescriptionInstanceOfAmbiguous, ProblemHighlightType.WEAK_WARNING);
                                     break;
                                 }
@@ -275,11 +269,6 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                     }
                     subjectContainer.clear();
                 }
-                // release inheritance cache as well
-                for (HashSet<PhpClass> resolvedInheritance: resolvedInheritanceChains.values()) {
-                    resolvedInheritance.clear();
-                }
-                resolvedInheritanceChains.clear();
                 // release mapping as well
                 mappedChecks.clear();
             }
@@ -398,32 +387,14 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                     }
                 }
 
-                /* scan for duplicates */
-                for (PsiElement objExpression : objCallsExtracted) {
-                    if (null == objExpression) {
-                        continue;
-                    }
-
-                    /* put a stub */
-                    int intOuterIndex = objCallsExtracted.indexOf(objExpression);
-                    objCallsExtracted.set(intOuterIndex, null);
-
-                    /* search duplicates in current scope */
-                    for (PsiElement objInnerLoopExpression : objCallsExtracted) {
-                        if (null == objInnerLoopExpression) {
-                            continue;
-                        }
-
-                        boolean isDuplicate = PsiEquivalenceUtil.areElementsEquivalent(objInnerLoopExpression, objExpression);
-                        if (isDuplicate) {
-                            holder.registerProblem(objInnerLoopExpression, strProblemDescriptionDuplicateConditionPart, ProblemHighlightType.GENERIC_ERROR_OR_WARNING);
-
-                            int intInnerIndex = objCallsExtracted.indexOf(objInnerLoopExpression);
-                            objCallsExtracted.set(intInnerIndex, null);
-                        }
+                /* group equivalent calls by structural hash: all but the first call in a group are duplicates */
+                for (List<PsiElement> group : StructuralHashUtil.groupEquivalent(objCallsExtracted)) {
+                    for (PsiElement duplicate : group.subList(1, group.size())) {
+                        holder.registerProblem(duplicate, strProblemDescriptionDuplicateConditionPart, ProblemHighlightType.GENERIC_ERROR_OR_WARNING);
                     }
+                    group.clear();
                 }
-
+                objCallsExtracted.clear();
             }
 
             /**
@@ -469,16 +440,19 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                 }
 
 
-                /* scan for duplicates */
-                for (PsiElement objExpression : objAllConditions) {
-                    if (null == objExpression) {
-                        continue;
+                /* outer scopes conditions, grouped once: each group is matched by one condition at most */
+                final HashMap<Integer, List<List<PsiElement>>> objParentBuckets = new HashMap<>();
+                for (List<PsiElement> group : StructuralHashUtil.groupEquivalent(objParentConditions)) {
+                    final int hash = StructuralHashUtil.getHash(group.get(0));
+                    if (!objParentBuckets.containsKey(hash)) {
+                        objParentBuckets.put(hash, new LinkedList<List<PsiElement>>());
                     }
+                    objParentBuckets.get(hash).add(group);
+                }
 
-                    /* put a stub */
-                    int intOuterIndex = objAllConditions.indexOf(objExpression);
-                    objAllConditions.set(intOuterIndex, null);
-
+                /* scan for duplicates: group equivalent conditions by structural hash */
+                for (List<PsiElement> group : StructuralHashUtil.groupEquivalent(objAllConditions)) {
+                    final PsiElement objExpression = group.get(0);
 
                     /* ignore variables (even if inverted) */
                     PsiElement variableCandidate = objExpression;
@@ -504,37 +478,28 @@ public class NotOptimalIfConditionsInspection extends BasePhpInspection {
                     /* continue with sensible expressions analysis */
 
 
-                    /* search duplicates in current scope */
-                    for (PsiElement objInnerLoopExpression : objAllConditions) {
-                        if (null == objInnerLoopExpression) {
-                            continue;
-                        }
-
-                        boolean isDuplicate = PsiEquivalenceUtil.areElementsEquivalent(objInnerLoopExpression, objExpression);
-                        if (isDuplicate) {
-                            holder.registerProblem(objInnerLoopExpression, strProblemDescriptionDuplicateConditions, ProblemHighlightType.GENERIC_ERROR_OR_WARNING);
-
-                            int intInnerIndex = objAllConditions.indexOf(objInnerLoopExpression);
-                            objAllConditions.set(intInnerIndex, null);
-                        }
+                    /* duplicates in current scope */
+                    for (PsiElement objInnerLoopExpression : group.subList(1, group.size())) {
+                        holder.registerProblem(objInnerLoopExpression, strProblemDescriptionDuplicateConditions, ProblemHighlightType.GENERIC_ERROR_OR_WARNING);
                     }
 
-                    /* search duplicates in outer scopes */
-                    for (PsiElement objOuterScopeExpression : objParentConditions) {
-                        if (null == objOuterScopeExpression) {
-                            continue;
-                        }
-
-                        boolean isDuplicate = PsiEquivalenceUtil.areElementsEquivalent(objOuterScopeExpression, objExpression);
-                        if (isDuplicate) {
-                            holder.registerProblem(objExpression, strProblemDescriptionDuplicateConditions, ProblemHighlightType.GENERIC_ERROR_OR_WARNING);
-
-                            int intOuterScopeIndex = objParentConditions.indexOf(objOuterScopeExpression);
-                            objParentConditions.set(intOuterScopeIndex, null);
+                    /* duplicates in outer scopes: reported once per matching outer condition */
+                    final List<List<PsiElement>> objOuterCandidates = objParentBuckets.get(StructuralHashUtil.getHash(objExpression));
+                    if (null != objOuterCandidates) {
+                        for (List<PsiElement> objOuterGroup : objOuterCandidates) {
+                            if (PsiEquivalenceUtil.areElementsEquivalent(objOuterGroup.get(0), objExpression)) {
+                                for (int index = 0; index < objOuterGroup.size(); ++index) {
+                                    holder.registerProblem(objExpression, strProblemDescriptionDuplicateConditions, ProblemHighlightType.GENERIC_ERROR_OR_WARNING);
+                                }
+                                objOuterCandidates.remove(objOuterGroup);
+                                break;
+                            }
                         }
                     }
                 }
 
+                objAllConditions.clear();
+                objParentBuckets.clear();
                 objParentConditions.clear();
             }
 
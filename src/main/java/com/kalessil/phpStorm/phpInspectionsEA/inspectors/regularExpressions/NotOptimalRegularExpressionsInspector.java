@@ -11,19 +11,22 @@ import com.jetbrains.php.lang.psi.elements.Variable;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.apiUsage.FunctionCallCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.apiUsage.PlainApiUseCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.classesStrategy.ShortClassDefinitionStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.CatastrophicBacktrackingCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.GreedyCharactersSetCheckStrategy;
-import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy.QuantifierCompoundsQuantifierCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.modifiersStrategy.*;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.optimizeStrategy.AmbiguousAnythingTrimCheckStrategy;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.optimizeStrategy.SequentialClassesCollapseCheckStrategy;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
 
@@ -32,6 +35,8 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
         return "NotOptimalRegularExpressionsInspection";
     }
 
+    /* functions accepting a pattern as the first argument, shared with the cost probe and the patterns index */
+    public static final Set<String> patternFunctions;
     private static final HashSet<String> functions = new HashSet<>();
     static {
         functions.add("preg_filter");
@@ -41,16 +46,15 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
         functions.add("preg_replace_callback");
         functions.add("preg_replace");
         functions.add("preg_split");
+        patternFunctions = Collections.unmodifiableSet(new HashSet<>(functions));
+
         functions.add("preg_quote");
     }
 
-    @SuppressWarnings("CanBeFinal")
-    static private Pattern regexWithModifiers = null;
-    @SuppressWarnings("CanBeFinal")
-    static private Pattern regexWithModifiersCurvy = null;
-    static {
-        regexWithModifiers      = Pattern.compile("^([^\\{])(.*)\\1([a-zA-Z]+)?$");
-        regexWithModifiersCurvy = Pattern.compile("^\\{(.*)\\}([a-zA-Z]+)?$");
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return functions;
     }
 
     @Override
@@ -81,27 +85,18 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                         return;
                     }
 
-                    Matcher regexMatcher = regexWithModifiers.matcher(regex);
-                    if (regexMatcher.find()) {
-                        final String phpRegexPattern   = regexMatcher.group(2);
-                        final String phpRegexModifiers = regexMatcher.group(3);
-
-                        checkCall(strFunctionName, reference, pattern, phpRegexPattern, phpRegexModifiers);
-                        return;
-                    }
-
-                    regexMatcher = regexWithModifiersCurvy.matcher(regex);
-                    if (regexMatcher.find()) {
-                        final String phpRegexPattern   = regexMatcher.group(1);
-                        final String phpRegexModifiers = regexMatcher.group(2);
-
-                        checkCall(strFunctionName, reference, pattern, phpRegexPattern, phpRegexModifiers);
-                        // return;
+                    /* parsed once per pattern text and shared between strategies */
+                    final PcrePattern parsed = PcrePattern.of(regex);
+                    if (null != parsed) {
+                        checkCall(strFunctionName, reference, pattern, parsed);
                     }
                 }
             }
 
-            private void checkCall (String strFunctionName, FunctionReference reference, StringLiteralExpression target, String regex, String modifiers) {
+            private void checkCall (String strFunctionName, FunctionReference reference, StringLiteralExpression target, PcrePattern pattern) {
+                final String regex     = pattern.getBody();
+                final String modifiers = pattern.getModifiers();
+
                 /* Modifiers validity (done):
                  * + /no-az-chars/i => /no-az-chars/
                  * + /no-dot-char/s => /no-dot-char/
@@ -112,10 +107,10 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                  */
                 DeprecatedModifiersCheckStrategy.apply(modifiers, target, holder);
                 AllowedModifierCheckStrategy.apply(modifiers, target, holder);
-                // UselessMultiLineModifierStrategy.apply(modifiers, regex, target, holder); -- we can not analyse if string has new lines
-                UselessDollarEndOnlyModifierStrategy.apply(modifiers, regex, target, holder);
-                UselessDotAllModifierCheckStrategy.apply(modifiers, regex, target, holder);
-                UselessIgnoreCaseModifierCheckStrategy.apply(modifiers, regex, target, holder);
+                // UselessMultiLineModifierStrategy.apply(pattern, target, holder); -- we can not analyse if string has new lines
+                UselessDollarEndOnlyModifierStrategy.apply(pattern, target, holder);
+                UselessDotAllModifierCheckStrategy.apply(pattern, target, holder);
+                UselessIgnoreCaseModifierCheckStrategy.apply(pattern, target, holder);
 
                 /* Plain API simplification (done):
                  * + /^text/ => 0 === strpos(...) (match)
@@ -136,7 +131,7 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                  * + [^\w] => \W
                  * + [^\s] => \S
                  */
-                ShortClassDefinitionStrategy.apply(modifiers, regex, target, holder);
+                ShortClassDefinitionStrategy.apply(pattern, target, holder);
 
                 /* Optimizations:
                  * (...) => (?:...) (if there is no back-reference)
@@ -150,18 +145,18 @@ public class NotOptimalRegularExpressionsInspector extends BasePhpInspection {
                  * + [seq][seq]? => [seq]{1,2}
                  *
                  * + greedy character classes [\d\w][\D\W]
-                 * + dangerous (a+)+ pattern
+                 * + catastrophic backtracking: (a+)+, (a|a)*, \d*\d*
                  */
-                SequentialClassesCollapseCheckStrategy.apply(regex, target, holder);
-                AmbiguousAnythingTrimCheckStrategy.apply(strFunctionName, reference, regex, target, holder);
+                SequentialClassesCollapseCheckStrategy.apply(pattern, target, holder);
+                AmbiguousAnythingTrimCheckStrategy.apply(strFunctionName, reference, pattern, target, holder);
                 //NonGreedyTransformCheckStrategy.apply(regex, target, holder);
-                GreedyCharactersSetCheckStrategy.apply(regex, target, holder);
-                QuantifierCompoundsQuantifierCheckStrategy.apply(regex, target, holder);
+                GreedyCharactersSetCheckStrategy.apply(pattern, target, holder);
+                CatastrophicBacktrackingCheckStrategy.apply(pattern, target, holder);
 
                 /*
                  * Probably bugs: nested tags check without /s
                  */
-                MissingDotAllCheckStrategy.apply(modifiers, regex, target, holder);
+                MissingDotAllCheckStrategy.apply(pattern, target, holder);
             }
         };
     }
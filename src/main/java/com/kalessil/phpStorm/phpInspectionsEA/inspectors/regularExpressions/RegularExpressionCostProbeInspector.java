@@ -0,0 +1,96 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions;
+
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.psi.elements.FunctionReference;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.jetbrains.php.lang.psi.elements.Variable;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.BacktrackingSimulator;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Runs patterns in the backtracking simulator against generated failing inputs and reports measured super-linear
+ * costs. Opt-in: probing takes up to pcre.backtrack_limit steps per pattern (results are cached per pattern).
+ */
+public class RegularExpressionCostProbeInspector extends BasePhpInspection {
+    private static final String messageGrowth   = "Backtracking steps grow as n^%g% with the subject length n (n: steps): %c%";
+    private static final String messageExceeded = "Backtracking exceeds pcre.backtrack_limit on %l% characters, preg_* returns an error (n: steps): %c%";
+
+    @NotNull
+    public String getShortName() {
+        return "RegularExpressionCostProbeInspection";
+    }
+
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return NotOptimalRegularExpressionsInspector.patternFunctions;
+    }
+
+    @Override
+    @NotNull
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        return new BasePhpElementVisitor() {
+            public void visitPhpFunctionCall(FunctionReference reference) {
+                final String functionName = reference.getName();
+                final PsiElement[] params = reference.getParameters();
+                if (0 == params.length || StringUtil.isEmpty(functionName) || !NotOptimalRegularExpressionsInspector.patternFunctions.contains(functionName)) {
+                    return;
+                }
+
+                final StringLiteralExpression literal = ExpressionSemanticUtil.resolveAsStringLiteral(params[0]);
+                if (null == literal || literal.getContainingFile() != params[0].getContainingFile()) {
+                    return;
+                }
+                final String regex = literal.getContents();
+                if (StringUtil.isEmpty(regex) || (regex.indexOf('$') >= 0 && PsiTreeUtil.findChildrenOfType(literal, Variable.class).size() > 0)) {
+                    return;
+                }
+
+                final PcrePattern pattern               = PcrePattern.of(regex);
+                final BacktrackingSimulator.Probe probe = null == pattern ? null : pattern.getCostProbe();
+                if (null != probe) {
+                    final StringBuilder curve = new StringBuilder();
+                    for (int index = 0; index < probe.lengths.length; ++index) {
+                        final int steps = probe.steps[index];
+                        final boolean exceeded = probe.isExceedingLimit() && index == probe.lengths.length - 1;
+                        curve.append(0 == index ? "" : ", ").append(probe.lengths[index]).append(": ")
+                             .append(exceeded ? ">" + BacktrackingSimulator.backtrackLimit : String.valueOf(steps));
+                    }
+
+                    if (probe.isExceedingLimit()) {
+                        final String message = messageExceeded
+                                .replace("%l%", String.valueOf(probe.lengths[probe.lengths.length - 1]))
+                                .replace("%c%", curve.toString());
+                        holder.registerProblem(literal, message, ProblemHighlightType.GENERIC_ERROR);
+                    } else {
+                        final String message = messageGrowth
+                                .replace("%g%", String.valueOf(Math.round(probe.getGrowth())))
+                                .replace("%c%", curve.toString());
+                        holder.registerProblem(literal, message, ProblemHighlightType.WEAK_WARNING);
+                    }
+                }
+            }
+        };
+    }
+}
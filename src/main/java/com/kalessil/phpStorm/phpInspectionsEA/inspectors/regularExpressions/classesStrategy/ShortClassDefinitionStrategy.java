@@ -2,12 +2,15 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.cla
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.HashMap;
-import java.util.Map;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class ShortClassDefinitionStrategy {
     private static final String messagePattern = "'%p%' can be replaced with '%r%' (%h%)";
@@ -29,22 +32,24 @@ public class ShortClassDefinitionStrategy {
         mapping.put("[^\\s]",        "\\S");
     }
 
-    static public void apply(final String modifiers, final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(pattern)) {
-            final boolean isUnicodeMode = !StringUtil.isEmpty(modifiers) && modifiers.indexOf('u') != -1;
+    static public void apply(@NotNull final PcrePattern pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        final PcreNode root = pattern.getRoot();
+        if (null != root && !pattern.getBody().isEmpty()) {
+            final boolean isUnicodeMode = pattern.hasModifier('u');
             final String safetyHint     = isUnicodeMode ? "risky, will match extended sets due to /u" : "safe in non-unicode mode";
 
-            /* normalize only first found cases - sufficient for reporting */
-            final String patternAdapted = pattern
-                    .replace("a-zA-Z",    "A-Za-z")
-                    .replace("0-9A-Za-z", "A-Za-z0-9");
-
-            for (Map.Entry<String, String> replacement : mapping.entrySet()) {
-                final String wildcard = replacement.getKey();
-                if (patternAdapted.contains(wildcard)) {
+            /* whole classes ([0-9]) and POSIX classes inside of classes ([[:digit:]_]), reported once per kind */
+            final Set<String> reported      = new HashSet<>();
+            final List<PcreNode> candidates = root.findAll(PcreNode.Type.CLASS);
+            candidates.addAll(root.findAll(PcreNode.Type.POSIX));
+            for (PcreNode candidate : candidates) {
+                final String wildcard = candidate.getText()
+                        .replace("a-zA-Z",    "A-Za-z")
+                        .replace("0-9A-Za-z", "A-Za-z0-9");
+                if (mapping.containsKey(wildcard) && reported.add(wildcard)) {
                     final String message = messagePattern
                             .replace("%p%", wildcard)
-                            .replace("%r%", replacement.getValue())
+                            .replace("%r%", mapping.get(wildcard))
                             .replace("%h%", safetyHint);
 
                     holder.registerProblem(target, message, ProblemHighlightType.WEAK_WARNING);
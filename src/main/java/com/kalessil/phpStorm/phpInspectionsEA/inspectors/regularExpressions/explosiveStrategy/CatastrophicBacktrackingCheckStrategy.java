@@ -0,0 +1,53 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.explosiveStrategy;
+
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.BacktrackingAnalyzer;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Recognize patterns with catastrophic backtracking, e.g. (a+)+, (a|a)*, (\w|\d)*, \d+\d+.
+ * See details here: http://www.rexegg.com/regex-explosive-quantifiers.html
+ *
+ * The pattern automaton is checked for words which can be matched in many different ways: on a failing match
+ * the engine is trying all of them, which takes exponential (or polynomial) time depending on the input length.
+ *
+ * The lesson here is that ambiguous repetitions need to be rewritten or the engine needs to be prevented
+ * from backtracking, e.g. by possessive quantifiers (?:\D+|0(?!1))*+ or atomic groups (?>(?:\D+|0(?!1))*).
+ */
+public class CatastrophicBacktrackingCheckStrategy {
+    private static final String messagePattern = "%c% backtracking on '%p%' followed by repeated '%r%' (ReDoS, Regular Expression Denial of Service)";
+
+    static public void apply(@NotNull final PcrePattern pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        final BacktrackingAnalyzer.Vulnerability vulnerability = pattern.getVulnerability();
+        if (null != vulnerability) {
+            final String message = messagePattern
+                    .replace("%c%", vulnerability.exponential ? "Exponential" : "Polynomial")
+                    .replace("%p%", escape(vulnerability.prefix))
+                    .replace("%r%", escape(vulnerability.pump));
+            holder.registerProblem(
+                target,
+                message,
+                vulnerability.exponential ? ProblemHighlightType.GENERIC_ERROR : ProblemHighlightType.WEAK_WARNING
+            );
+        }
+    }
+
+    /* samples might contain control characters, e.g. \t and \n */
+    @NotNull
+    private static String escape(@NotNull String sample) {
+        final StringBuilder escaped = new StringBuilder();
+        for (char character : sample.toCharArray()) {
+            if (character < 0x20 || 0x7F == character) {
+                escaped.append(String.format("\\x%02X", (int) character));
+            } else if (character > 0x7F) {
+                escaped.append(String.format("\\x{%X}", (int) character));
+            } else {
+                escaped.append(character);
+            }
+        }
+        return escaped.toString();
+    }
+}
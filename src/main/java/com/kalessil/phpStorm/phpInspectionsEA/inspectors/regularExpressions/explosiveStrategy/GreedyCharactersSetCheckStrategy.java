@@ -2,35 +2,27 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.exp
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class GreedyCharactersSetCheckStrategy {
     private static final String messagePattern = "[%e%] is 'greedy'. Please remove %c% as it's a subset of %p%";
 
-    @SuppressWarnings("CanBeFinal")
-    static private Pattern regexGreedyCharacterSet = null;
-    static {
-        // Original regex: \[([^\[\]]+)\]
-        regexGreedyCharacterSet = Pattern.compile("\\[([^\\[\\]]+)\\]");
-    }
-
-    static public void apply(final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(pattern) && pattern.indexOf('[') >= 0) {
-            final Matcher regexMatcher = regexGreedyCharacterSet.matcher(pattern);
-            while (regexMatcher.find()) {
-                final String set = regexMatcher.group(1);
-                String message   = null;
+    static public void apply(@NotNull final PcrePattern pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        final PcreNode root = pattern.getRoot();
+        if (null != root && pattern.getBody().indexOf('[') >= 0) {
+            for (PcreNode set : root.findAll(PcreNode.Type.CLASS)) {
+                final String text = set.getText();
+                final String body = text.substring(1, text.length() - 1);
+                String message    = null;
 
-                if (set.contains("\\w") && set.contains("\\d")) {
-                   message = messagePattern.replace("%e%", set).replace("%c%", "\\d").replace("%p%", "\\w");
+                if (hasEscape(set, 'w') && hasEscape(set, 'd')) {
+                    message = messagePattern.replace("%e%", body).replace("%c%", "\\d").replace("%p%", "\\w");
                 }
-                if (null == message && set.contains("\\W") && set.contains("\\D")) {
-                   message = messagePattern.replace("%e%", set).replace("%c%", "\\D").replace("%p%", "\\W");
+                if (null == message && hasEscape(set, 'W') && hasEscape(set, 'D')) {
+                    message = messagePattern.replace("%e%", body).replace("%c%", "\\D").replace("%p%", "\\W");
                 }
 
                 if (null != message) {
@@ -39,4 +31,13 @@ public class GreedyCharactersSetCheckStrategy {
             }
         }
     }
+
+    private static boolean hasEscape(@NotNull PcreNode set, char escape) {
+        for (PcreNode item : set.getChildren()) {
+            if (PcreNode.Type.ESCAPE == item.getType() && escape == item.getEscape()) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -2,31 +2,40 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 public class MissingDotAllCheckStrategy {
     private static final String strProblemDescription = "/s modifier is probably missing (nested tags are not recognized)";
 
-    @SuppressWarnings("CanBeFinal")
-    static private Pattern regexTagContentPattern = null;
-    static {
-        regexTagContentPattern = Pattern.compile(".*>\\.(\\*|\\+)\\?<.*");
-    }
-
-    static public void apply(final String modifiers, final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (
-            (StringUtil.isEmpty(modifiers) || modifiers.indexOf('s') == -1) &&
-            !StringUtil.isEmpty(pattern) && pattern.indexOf('?') != -1
-        ) {
-            Matcher regexMatcher = regexTagContentPattern.matcher(pattern);
-            if (regexMatcher.matches()) {
-                holder.registerProblem(target, strProblemDescription, ProblemHighlightType.WEAK_WARNING);
+    static public void apply(@NotNull final PcrePattern pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        final PcreNode root = pattern.getRoot();
+        if (null != root && !pattern.hasModifier('s') && pattern.getBody().indexOf('?') != -1) {
+            /* >.*?< or >.+?< in any sequence */
+            for (PcreNode sequence : root.findAll(PcreNode.Type.SEQUENCE)) {
+                final List<PcreNode> atoms = sequence.getChildren();
+                for (int index = 0; index + 2 < atoms.size(); ++index) {
+                    if (isLiteral(atoms.get(index), '>') && isLazyAnything(atoms.get(index + 1)) && isLiteral(atoms.get(index + 2), '<')) {
+                        holder.registerProblem(target, strProblemDescription, ProblemHighlightType.WEAK_WARNING);
+                        return;
+                    }
+                }
             }
         }
     }
+
+    private static boolean isLiteral(@NotNull PcreNode node, char character) {
+        return PcreNode.Type.LITERAL == node.getType() && character == node.getCharacter();
+    }
+
+    private static boolean isLazyAnything(@NotNull PcreNode node) {
+        final PcreNode quantified = node.getFirstChild();
+        return
+            PcreNode.Type.QUANTIFIED == node.getType() && node.isLazy() && node.isUnbounded() && node.getMin() <= 1 &&
+            null != quantified && PcreNode.Type.DOT == quantified.getType();
+    }
 }
@@ -2,24 +2,24 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
-import org.apache.commons.lang.StringUtils;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
 import org.jetbrains.annotations.NotNull;
 
 public class UselessDollarEndOnlyModifierStrategy {
     private static final String strProblemDescription = "'D' modifier is ambiguous here (no $ in given pattern)";
     private static final String strProblemIgnored     = "'D' modifier will be ignored because of 'm'";
 
-    static public void apply(final String modifiers, final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(modifiers) && !StringUtil.isEmpty(pattern) && modifiers.indexOf('D') >= 0) {
-            if (modifiers.indexOf('m') >= 0) {
+    static public void apply(@NotNull final PcrePattern pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        final PcreNode root = pattern.getRoot();
+        if (null != root && !pattern.getBody().isEmpty() && pattern.hasModifier('D')) {
+            if (pattern.hasModifier('m')) {
                 holder.registerProblem(target, strProblemIgnored, ProblemHighlightType.WEAK_WARNING);
                 return;
             }
 
-            int countEnds = StringUtils.countMatches(pattern, "$") - StringUtils.countMatches(pattern, "\\$");
-            if (0 == countEnds) {
+            if (!root.containsAnchor("$")) {
                 holder.registerProblem(target, strProblemDescription, ProblemHighlightType.WEAK_WARNING);
             }
         }
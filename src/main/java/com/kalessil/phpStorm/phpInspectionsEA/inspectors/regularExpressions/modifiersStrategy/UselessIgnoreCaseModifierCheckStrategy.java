@@ -2,18 +2,54 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.mod
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
 import org.jetbrains.annotations.NotNull;
 
 public class UselessIgnoreCaseModifierCheckStrategy {
     private static final String strProblemDescription = "'i' modifier is ambiguous here (no a-z in given pattern)";
 
-    static public void apply(final String modifiers, final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(modifiers) && !StringUtil.isEmpty(pattern) && modifiers.indexOf('i') >= 0) {
-            if (!pattern.matches(".*[a-zA-Z].*")) {
+    static public void apply(@NotNull final PcrePattern pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        final PcreNode root = pattern.getRoot();
+        if (null != root && !pattern.getBody().isEmpty() && pattern.hasModifier('i')) {
+            if (!isCaseSensitive(root)) {
                 holder.registerProblem(target, strProblemDescription, ProblemHighlightType.WEAK_WARNING);
             }
         }
     }
+
+    /* \d, \s and similar escapes are not affected by the modifier, while back-references and code points are */
+    private static boolean isCaseSensitive(@NotNull PcreNode node) {
+        switch (node.getType()) {
+            case LITERAL:
+                return Character.isLetter(node.getCharacter());
+            case ESCAPE:
+                return -1 != "xo01234567pPc".indexOf(node.getEscape());
+            case POSIX:
+                return node.getText().contains("upper") || node.getText().contains("lower");
+            case BACKREFERENCE:
+            case SUBROUTINE:
+                return true;
+            case RANGE:
+                final PcreNode from = node.getChildren().get(0);
+                final PcreNode to   = node.getChildren().get(1);
+                if (PcreNode.Type.LITERAL == from.getType() && PcreNode.Type.LITERAL == to.getType()) {
+                    for (char character = from.getCharacter(); character <= to.getCharacter() && character >= from.getCharacter(); ++character) {
+                        if (Character.isLetter(character)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                }
+                return true;
+            default:
+                for (PcreNode child : node.getChildren()) {
+                    if (isCaseSensitive(child)) {
+                        return true;
+                    }
+                }
+                return false;
+        }
+    }
 }
@@ -5,34 +5,51 @@ import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.FunctionReference;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
-import org.apache.commons.lang.StringUtils;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.List;
+
 public class AmbiguousAnythingTrimCheckStrategy {
     private static final String strProblemLeading  = "Leading .* can be removed";
     private static final String strProblemTrailing = "Trailing .* can be removed";
 
     static public void apply(
             final String functionName, @NotNull final FunctionReference reference,
-            final String pattern,
+            @NotNull final PcrePattern pattern,
             @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder
     ) {
+        final PcreNode root = pattern.getRoot();
         if (
+            null != root && PcreNode.Type.SEQUENCE == root.getType() &&
             2 == reference.getParameters().length &&
-            !StringUtil.isEmpty(pattern) &&
             !StringUtil.isEmpty(functionName) && functionName.startsWith("preg_match")
         ) {
-            int countBackRefs = StringUtils.countMatches(pattern, "\\0") - StringUtils.countMatches(pattern, "\\\\0");
-            if (countBackRefs > 0) {
-                return;
+            for (PcreNode escape : root.findAll(PcreNode.Type.ESCAPE)) {
+                if (escape.getText().equals("\\0")) {
+                    return;
+                }
             }
 
-            if (pattern.startsWith(".*")) {
+            final List<PcreNode> atoms = root.getChildren();
+            if (atoms.isEmpty()) {
+                return;
+            }
+            if (isAnything(atoms.get(0))) {
                 holder.registerProblem(target, strProblemLeading, ProblemHighlightType.WEAK_WARNING);
             }
-            if (pattern.endsWith(".*")) {
+            if (isAnything(atoms.get(atoms.size() - 1))) {
                 holder.registerProblem(target, strProblemTrailing, ProblemHighlightType.WEAK_WARNING);
             }
         }
     }
+
+    /* .*, .*? and .*+ */
+    private static boolean isAnything(@NotNull PcreNode atom) {
+        final PcreNode quantified = atom.getFirstChild();
+        return
+            PcreNode.Type.QUANTIFIED == atom.getType() && 0 == atom.getMin() && atom.isUnbounded() &&
+            null != quantified && PcreNode.Type.DOT == quantified.getType();
+    }
 }
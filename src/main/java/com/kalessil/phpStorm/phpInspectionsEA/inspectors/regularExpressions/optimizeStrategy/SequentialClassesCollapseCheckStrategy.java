@@ -2,31 +2,46 @@ package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.opt
 
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
-import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.php.lang.psi.elements.StringLiteralExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 public class SequentialClassesCollapseCheckStrategy {
     private static final String strProblemDescription = "'%p%' can be replaced with '%r%{...}'";
 
-    @SuppressWarnings("CanBeFinal")
-    static private Pattern regexRepeatedClasses = null;
-    static {
-        regexRepeatedClasses = Pattern.compile("((\\[([^\\]]+)\\])(\\*|\\+|\\?|\\{[^\\}]+\\})?\\2(\\*|\\+|\\?|\\{[^\\}]+\\})?)+");
-    }
+    static public void apply(@NotNull final PcrePattern pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
+        final PcreNode root = pattern.getRoot();
+        if (null == root || pattern.getBody().indexOf('[') < 0) {
+            return;
+        }
+
+        /* [seq][seq], [seq]+[seq]? and similar: the same class repeated in a row, quantified or not */
+        for (PcreNode sequence : root.findAll(PcreNode.Type.SEQUENCE)) {
+            final List<PcreNode> atoms = sequence.getChildren();
+            for (int start = 0; start < atoms.size(); ++start) {
+                final String set = getClassText(atoms.get(start));
+                int end          = start;
+                while (null != set && end + 1 < atoms.size() && set.equals(getClassText(atoms.get(end + 1)))) {
+                    ++end;
+                }
 
-    static public void apply(final String pattern, @NotNull final StringLiteralExpression target, @NotNull final ProblemsHolder holder) {
-        if (!StringUtil.isEmpty(pattern) && pattern.indexOf('[') >= 0) {
-            Matcher regexMatcher = regexRepeatedClasses.matcher(pattern);
-            if (regexMatcher.find()) {
-                String strError = strProblemDescription
-                        .replace("%p%", regexMatcher.group(0))
-                        .replace("%r%", regexMatcher.group(2));
-                holder.registerProblem(target, strError, ProblemHighlightType.WEAK_WARNING);
+                if (end > start) {
+                    final String repeated = pattern.getBody().substring(atoms.get(start).getStart(), atoms.get(end).getEnd());
+                    final String strError = strProblemDescription.replace("%p%", repeated).replace("%r%", set);
+                    holder.registerProblem(target, strError, ProblemHighlightType.WEAK_WARNING);
+                    return;
+                }
             }
         }
     }
+
+    @Nullable
+    private static String getClassText(@NotNull PcreNode atom) {
+        final PcreNode set = PcreNode.Type.QUANTIFIED == atom.getType() ? atom.getFirstChild() : atom;
+        return null != set && PcreNode.Type.CLASS == set.getType() ? set.getText() : null;
+    }
 }
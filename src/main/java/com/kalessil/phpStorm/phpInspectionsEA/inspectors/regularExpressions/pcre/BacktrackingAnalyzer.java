@@ -0,0 +1,412 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre;
+
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreAutomaton.Transition;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Detects catastrophic backtracking by checking the degree of ambiguity of the pattern automaton:
+ *
+ * - exponential: a state q with two different paths q -> q reading the same word, e.g. (a|a)*, (a+)+, (\w|\d)*;
+ *   found as a strongly connected component of the product automaton containing (q, q) and a pair of different
+ *   states (or an ambiguous transition).
+ * - polynomial: states p != q with paths p -> p, p -> q and q -> q reading the same word, e.g. \d*\d*;
+ *   found as a path (p, p, q) -> (p, q, q) in the triple product automaton.
+ *
+ * Backtracking explodes only when the match is failing, so loops from which the pattern is accepted without
+ * checking anchors or lookarounds (e.g. trailing (a|a)* in /x(a|a)*) are not reported.
+ * The analysis is bounded by products sizes: when the budget is exhausted nothing is reported.
+ */
+final public class BacktrackingAnalyzer {
+    private static final int maxPairs   = 20000;
+    private static final int maxTriples = 100000;
+
+    final public static class Vulnerability {
+        final public boolean exponential;
+        /* the attack: prefix, pumped part repeated many times, then any mismatching character */
+        @NotNull final public String prefix;
+        @NotNull final public String pump;
+
+        Vulnerability(boolean exponential, @NotNull String prefix, @NotNull String pump) {
+            this.exponential = exponential;
+            this.prefix      = prefix;
+            this.pump        = pump;
+        }
+    }
+
+    @NotNull final private PcreAutomaton automaton;
+    final private int count;
+    /* shortest paths from the start state: parent state and read character */
+    @NotNull final private int[] prefixParents;
+    @NotNull final private char[] prefixCharacters;
+
+    private BacktrackingAnalyzer(@NotNull PcreAutomaton automaton) {
+        this.automaton        = automaton;
+        this.count            = automaton.getStatesCount();
+        this.prefixParents    = new int[count];
+        this.prefixCharacters = new char[count];
+    }
+
+    @Nullable
+    public static Vulnerability analyze(@NotNull PcreAutomaton automaton) {
+        final BacktrackingAnalyzer analyzer = new BacktrackingAnalyzer(automaton);
+        analyzer.findPrefixes();
+
+        final Vulnerability exponential = analyzer.findExponential();
+        return null != exponential ? exponential : analyzer.findPolynomial();
+    }
+
+    private void findPrefixes() {
+        Arrays.fill(prefixParents, -2);
+        prefixParents[0] = -1;
+
+        final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(0);
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            for (Transition transition : automaton.getTransitions(state)) {
+                if (-2 == prefixParents[transition.target]) {
+                    prefixParents[transition.target]    = state;
+                    prefixCharacters[transition.target] = transition.characters.getSample();
+                    queue.add(transition.target);
+                }
+            }
+        }
+    }
+
+    private boolean isReachable(int state) {
+        return -2 != prefixParents[state];
+    }
+
+    @NotNull
+    private String getPrefix(int state) {
+        final StringBuilder prefix = new StringBuilder();
+        for (int current = state; prefixParents[current] >= 0; current = prefixParents[current]) {
+            prefix.append(prefixCharacters[current]);
+        }
+        return prefix.reverse().toString();
+    }
+
+    /* pairs are encoded as first * count + second */
+    @Nullable
+    private Vulnerability findExponential() {
+        final Map<Integer, Integer> index = new HashMap<>();
+        final List<Integer> pairs         = new ArrayList<>();
+        /* edges: target pair index, read character, ambiguous transition marker */
+        final List<List<int[]>> edges     = new ArrayList<>();
+
+        final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int state = 0; state < count; ++state) {
+            if (isReachable(state)) {
+                index.put(state * count + state, pairs.size());
+                pairs.add(state * count + state);
+                edges.add(new ArrayList<int[]>());
+                queue.add(state * count + state);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            final int pair   = queue.poll();
+            final int first  = pair / count;
+            final int second = pair % count;
+            for (Transition left : automaton.getTransitions(first)) {
+                for (Transition right : automaton.getTransitions(second)) {
+                    if (!left.characters.intersects(right.characters)) {
+                        continue;
+                    }
+                    if (first == second && left.target != right.target && automaton.isAtomicDivergence(first, left.target, right.target)) {
+                        continue;
+                    }
+
+                    final int target = left.target * count + right.target;
+                    if (!index.containsKey(target)) {
+                        if (pairs.size() >= maxPairs) {
+                            return null;
+                        }
+                        index.put(target, pairs.size());
+                        pairs.add(target);
+                        edges.add(new ArrayList<int[]>());
+                        queue.add(target);
+                    }
+
+                    final boolean ambiguous =
+                        first == second && left == right && left.multiplicity > 1 &&
+                        !automaton.isAtomicDivergence(first, left.target, left.target);
+                    final char sample = left.characters.intersection(right.characters).getSample();
+                    edges.get(index.get(pair)).add(new int[] {index.get(target), sample, ambiguous ? 1 : 0});
+                }
+            }
+        }
+
+        final int[] components = findComponents(edges);
+        final int size         = pairs.size();
+
+        /* components with a diagonal pair and a divergence, where no state is accepting the input early */
+        final boolean[] diverging = new boolean[size];
+        final boolean[] accepting = new boolean[size];
+        for (int vertex = 0; vertex < size; ++vertex) {
+            final int pair      = pairs.get(vertex);
+            final int component = components[vertex];
+            if (automaton.isUnconditionallyAccepting(pair / count) || automaton.isUnconditionallyAccepting(pair % count)) {
+                accepting[component] = true;
+            }
+            for (int[] edge : edges.get(vertex)) {
+                if (components[edge[0]] == component && (1 == edge[2] || !isDiagonal(pairs.get(edge[0])))) {
+                    diverging[component] = true;
+                }
+            }
+        }
+
+        /* the shortest prefix leading into a vulnerable loop */
+        int best = -1;
+        for (int vertex = 0; vertex < size; ++vertex) {
+            final int pair      = pairs.get(vertex);
+            final int component = components[vertex];
+            if (isDiagonal(pair) && diverging[component] && !accepting[component]) {
+                if (-1 == best || getPrefix(pair / count).length() < getPrefix(pairs.get(best) / count).length()) {
+                    best = vertex;
+                }
+            }
+        }
+        if (-1 == best) {
+            return null;
+        }
+
+        final String pump = findPump(best, edges, pairs, components);
+        return null == pump ? null : new Vulnerability(true, getPrefix(pairs.get(best) / count), pump);
+    }
+
+    private boolean isDiagonal(int pair) {
+        return pair / count == pair % count;
+    }
+
+    /* the shortest cycle from the diagonal pair back to it, passing a divergence: BFS over (vertex, diverged) */
+    @Nullable
+    private String findPump(int start, @NotNull List<List<int[]>> edges, @NotNull List<Integer> pairs, @NotNull int[] components) {
+        final int size       = edges.size();
+        final int[] parents  = new int[size * 2];
+        final char[] samples = new char[size * 2];
+        Arrays.fill(parents, -1);
+
+        final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start * 2);
+        parents[start * 2] = start * 2;
+        while (!queue.isEmpty()) {
+            final int node   = queue.poll();
+            final int vertex = node / 2;
+            for (int[] edge : edges.get(vertex)) {
+                if (components[edge[0]] != components[start]) {
+                    continue;
+                }
+
+                final boolean diverged = 1 == node % 2 || 1 == edge[2] || !isDiagonal(pairs.get(edge[0]));
+                final int next         = edge[0] * 2 + (diverged ? 1 : 0);
+                if (-1 == parents[next]) {
+                    parents[next] = node;
+                    samples[next] = (char) edge[1];
+                    if (next == start * 2 + 1) {
+                        final StringBuilder pump = new StringBuilder();
+                        for (int current = next; current != start * 2; current = parents[current]) {
+                            pump.append(samples[current]);
+                        }
+                        return pump.reverse().toString();
+                    }
+                    queue.add(next);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /* iterative Tarjan: products can be large enough for overflowing the stack with recursion */
+    @NotNull
+    private static int[] findComponents(@NotNull List<List<int[]>> edges) {
+        final int size          = edges.size();
+        final int[] components  = new int[size];
+        final int[] indexes     = new int[size];
+        final int[] lowLinks    = new int[size];
+        final int[] iterators   = new int[size];
+        final boolean[] onStack = new boolean[size];
+        Arrays.fill(indexes, -1);
+
+        final int[] stack     = new int[size];
+        final int[] callStack = new int[size];
+        int stackSize         = 0;
+        int counter           = 0;
+        int componentsCount   = 0;
+        for (int root = 0; root < size; ++root) {
+            if (-1 != indexes[root]) {
+                continue;
+            }
+
+            int depth          = 0;
+            callStack[depth++] = root;
+            indexes[root]      = lowLinks[root] = counter++;
+            stack[stackSize++] = root;
+            onStack[root]      = true;
+            while (depth > 0) {
+                final int vertex        = callStack[depth - 1];
+                final List<int[]> out   = edges.get(vertex);
+                if (iterators[vertex] < out.size()) {
+                    final int target = out.get(iterators[vertex]++)[0];
+                    if (-1 == indexes[target]) {
+                        indexes[target]    = lowLinks[target] = counter++;
+                        stack[stackSize++] = target;
+                        onStack[target]    = true;
+                        callStack[depth++] = target;
+                    } else if (onStack[target]) {
+                        lowLinks[vertex] = Math.min(lowLinks[vertex], indexes[target]);
+                    }
+                    continue;
+                }
+
+                if (lowLinks[vertex] == indexes[vertex]) {
+                    int member;
+                    do {
+                        member             = stack[--stackSize];
+                        onStack[member]    = false;
+                        components[member] = componentsCount;
+                    } while (member != vertex);
+                    ++componentsCount;
+                }
+                --depth;
+                if (depth > 0) {
+                    final int parent = callStack[depth - 1];
+                    lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[vertex]);
+                }
+            }
+        }
+
+        return components;
+    }
+
+    @Nullable
+    private Vulnerability findPolynomial() {
+        /* looping states and reachability between states */
+        final boolean[][] reaches = new boolean[count][];
+        for (int state = 0; state < count; ++state) {
+            reaches[state] = findReachable(state);
+        }
+
+        int budget = maxTriples;
+        for (int first = 0; first < count; ++first) {
+            if (!isReachable(first) || !reaches[first][first] || automaton.isUnconditionallyAccepting(first)) {
+                continue;
+            }
+            for (int second = 0; second < count; ++second) {
+                if (
+                    first == second || !reaches[first][second] || !reaches[second][second] ||
+                    automaton.isUnconditionallyAccepting(second)
+                ) {
+                    continue;
+                }
+
+                final Map<Long, Long> parents = new HashMap<>();
+                final String pump             = findTriplePath(first, second, parents, budget);
+                budget                       -= parents.size();
+                if (budget <= 0) {
+                    return null;
+                }
+                if (null != pump) {
+                    return new Vulnerability(false, getPrefix(first), pump);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /* states reachable with at least one character */
+    @NotNull
+    private boolean[] findReachable(int state) {
+        final boolean[] reached         = new boolean[count];
+        final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(state);
+        while (!queue.isEmpty()) {
+            for (Transition transition : automaton.getTransitions(queue.poll())) {
+                if (!reached[transition.target]) {
+                    reached[transition.target] = true;
+                    queue.add(transition.target);
+                }
+            }
+        }
+        return reached;
+    }
+
+    /* path (p, p, q) -> (p, q, q) reading one word: p loops, p reaches q and q loops on it */
+    @Nullable
+    private String findTriplePath(int first, int second, @NotNull Map<Long, Long> parents, int budget) {
+        final long start  = encode(first, first, second);
+        final long target = encode(first, second, second);
+
+        final Map<Long, Character> samples = new HashMap<>();
+        final ArrayDeque<Long> queue       = new ArrayDeque<>();
+        parents.put(start, start);
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            final long triple = queue.poll();
+            final int one     = (int) (triple / count / count);
+            final int two     = (int) (triple / count % count);
+            final int three   = (int) (triple % count);
+            for (Transition left : automaton.getTransitions(one)) {
+                for (Transition middle : automaton.getTransitions(two)) {
+                    if (!left.characters.intersects(middle.characters) || isCut(one, left, two, middle)) {
+                        continue;
+                    }
+                    final CharacterSet common = left.characters.intersection(middle.characters);
+                    for (Transition right : automaton.getTransitions(three)) {
+                        if (!common.intersects(right.characters) || isCut(two, middle, three, right) || isCut(one, left, three, right)) {
+                            continue;
+                        }
+
+                        final long next = encode(left.target, middle.target, right.target);
+                        if (parents.containsKey(next)) {
+                            continue;
+                        }
+                        if (parents.size() >= budget) {
+                            return null;
+                        }
+                        parents.put(next, triple);
+                        samples.put(next, common.intersection(right.characters).getSample());
+
+                        if (next == target) {
+                            final StringBuilder pump = new StringBuilder();
+                            for (long current = next; current != start; current = parents.get(current)) {
+                                pump.append(samples.get(current));
+                            }
+                            return pump.reverse().toString();
+                        }
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private boolean isCut(int one, @NotNull Transition left, int two, @NotNull Transition right) {
+        return one == two && left.target != right.target && automaton.isAtomicDivergence(one, left.target, right.target);
+    }
+
+    private long encode(int one, int two, int three) {
+        return ((long) one * count + two) * count + three;
+    }
+}
@@ -0,0 +1,646 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre;
+
+import com.intellij.openapi.progress.ProgressManager;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode.Group;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode.Type;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Backtracking matcher following PCRE semantics (greedy, lazy and possessive quantifiers, atomic groups,
+ * lookarounds, back-references, the imsDUA modifiers), counting match attempts of pattern nodes as steps.
+ *
+ * Probing runs failing searches over growing inputs generated from the pattern (the attack found by the
+ * BacktrackingAnalyzer, and a sample with repeated loops) until steps are exceeding pcre.backtrack_limit,
+ * so the growth curve is measured rather than guessed. PCRE start-up optimizations (e.g. required characters
+ * checks) are not simulated, so the curve is an upper bound of real costs.
+ */
+final public class BacktrackingSimulator {
+    /* the pcre.backtrack_limit default */
+    final public static int backtrackLimit = 1000000;
+    /* measure() result when the matching could not be completed (the simulator stack overflowed) */
+    final public static int undetermined = -1;
+
+    private static final int[] repetitions        = {4, 8, 16, 32, 64, 128};
+    /* characters failing most of patterns: nul is not a space, new line is not matched by dot without /s */
+    private static final String[] mismatches      = {"\u0000", "\n"};
+    /* costs below this are not worth reporting, whatever the growth is */
+    private static final int minReportedSteps     = 1000;
+    private static final double minReportedGrowth = 1.5;
+    /* cancellation is checked once per this number of steps (a power of two, used as mask) */
+    private static final int cancellationCheckSteps = 4096;
+
+    final private static int CASELESS        = 1;
+    final private static int MULTI_LINE      = 2;
+    final private static int DOT_ALL         = 4;
+    final private static int UNGREEDY        = 8;
+    final private static int DOLLAR_END_ONLY = 16;
+
+    final public static class Probe {
+        /* subjects lengths and total steps over all start offsets, the last subject exceeded the limit if flagged */
+        @NotNull final public int[] lengths;
+        @NotNull final public int[] steps;
+        final private boolean isExceeding;
+
+        Probe(@NotNull int[] lengths, @NotNull int[] steps, boolean isExceeding) {
+            this.lengths     = lengths;
+            this.steps       = steps;
+            this.isExceeding = isExceeding;
+        }
+
+        /** true if a match attempt on the last subject exceeded backtrackLimit: preg_* is failing there */
+        public boolean isExceedingLimit() {
+            return isExceeding;
+        }
+
+        /** the growth exponent between the last two measurements within the limit, e.g. 2.0 for quadratic costs */
+        public double getGrowth() {
+            final int last = isExceedingLimit() ? steps.length - 2 : steps.length - 1;
+            if (last < 1) {
+                return Double.POSITIVE_INFINITY;
+            }
+            return Math.log((double) steps[last] / steps[last - 1]) / Math.log((double) lengths[last] / lengths[last - 1]);
+        }
+    }
+
+    private interface Continuation {
+        boolean match(int position);
+    }
+
+    /* unwinds the matching when steps are exceeding the limit, pre-allocated as thrown often */
+    private static class LimitExceededException extends RuntimeException {
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+    private static final LimitExceededException limitExceeded = new LimitExceededException();
+
+    private static final Continuation accepting = new Continuation() {
+        @Override
+        public boolean match(int position) {
+            return true;
+        }
+    };
+
+    @NotNull final private PcreNode root;
+    final private int initialOptions;
+    final private boolean anchored;
+    @NotNull final private Map<PcreNode, Integer> groupNumbers   = new HashMap<>();
+    @NotNull final private Map<PcreNode, CharacterSet> characters = new HashMap<>();
+
+    /* matching state */
+    private String subject;
+    private int searchStart;
+    /* PCRE is counting against the limit per start offset, totals are kept for the growth curve */
+    private long steps;
+    private int attemptSteps;
+    private int limit;
+    private boolean isLimitExceeded;
+    private int options;
+    private int[] captureStarts;
+    private int[] captureEnds;
+
+    private BacktrackingSimulator(@NotNull PcreNode root, @NotNull PcrePattern pattern) {
+        this.root           = root;
+        this.initialOptions =
+            (pattern.hasModifier('i') ? CASELESS : 0) | (pattern.hasModifier('m') ? MULTI_LINE : 0) |
+            (pattern.hasModifier('s') ? DOT_ALL : 0) | (pattern.hasModifier('U') ? UNGREEDY : 0) |
+            (pattern.hasModifier('D') ? DOLLAR_END_ONLY : 0);
+        this.anchored       = pattern.hasModifier('A') || isAnchored(root, pattern.hasModifier('m'));
+
+        for (PcreNode group : root.findAll(Type.GROUP)) {
+            if (group.isGroup(Group.CAPTURING) || group.isGroup(Group.NAMED)) {
+                groupNumbers.put(group, groupNumbers.size() + 1);
+            }
+        }
+    }
+
+    /** returns null if the pattern is malformed or not supported (recursion, conditionals, named references) */
+    @Nullable
+    public static BacktrackingSimulator of(@NotNull PcrePattern pattern) {
+        final PcreNode root = pattern.getRoot();
+        return null == root || !isSupported(root) ? null : new BacktrackingSimulator(root, pattern);
+    }
+
+    /**
+     * total steps of searching the pattern in the subject over all start offsets (until an attempt exceeded the
+     * limit, see isLimitExceeded()), or undetermined
+     */
+    public int measure(@NotNull String subject, int limit) {
+        this.subject         = subject;
+        this.limit           = limit;
+        this.steps           = 0;
+        this.isLimitExceeded = false;
+        this.captureStarts = new int[groupNumbers.size() + 1];
+        this.captureEnds   = new int[groupNumbers.size() + 1];
+
+        try {
+            final int lastStart = anchored ? 0 : subject.length();
+            for (searchStart = 0; searchStart <= lastStart; ++searchStart) {
+                attemptSteps = 0;
+                options      = initialOptions;
+                Arrays.fill(captureStarts, -1);
+                Arrays.fill(captureEnds, -1);
+                if (match(root, searchStart, accepting)) {
+                    break;
+                }
+            }
+        } catch (LimitExceededException exceeded) {
+            isLimitExceeded = true;
+        } catch (StackOverflowError overflow) {
+            /* the simulator stack is not PCRE one: whether the limit is exceeded is unknown */
+            return undetermined;
+        }
+
+        return (int) Math.min(Integer.MAX_VALUE, steps);
+    }
+
+    /** true if a match attempt of the last measure() call exceeded the limit */
+    public boolean isLimitExceeded() {
+        return isLimitExceeded;
+    }
+
+    /** returns null if the costs are growing linearly (or the pattern can not be simulated or measured) */
+    @Nullable
+    public static Probe probe(@NotNull PcrePattern pattern) {
+        final BacktrackingSimulator simulator = of(pattern);
+        if (null == simulator) {
+            return null;
+        }
+
+        /* inputs families: prefix and pumped part of the attack, or the sample with repeated loops (null pump) */
+        final List<String[]> families                   = new ArrayList<>();
+        final BacktrackingAnalyzer.Vulnerability attack = pattern.getVulnerability();
+        if (null != attack) {
+            families.add(new String[] {attack.prefix, attack.pump});
+        }
+        families.add(new String[] {"", null});
+
+        Probe worst = null;
+        for (String[] family : families) {
+            for (String mismatch : mismatches) {
+                final List<Integer> lengths = new ArrayList<>();
+                final List<Integer> steps   = new ArrayList<>();
+                boolean isExceeding         = false;
+                for (int count : repetitions) {
+                    final String subject = null == family[1]
+                            ? simulator.generate(simulator.root, count, false) + mismatch
+                            : family[0] + repeat(family[1], count) + mismatch;
+                    if (!lengths.isEmpty() && subject.length() <= lengths.get(lengths.size() - 1)) {
+                        /* the sample is not growing: no loops in the pattern */
+                        break;
+                    }
+
+                    final int measured = simulator.measure(subject, backtrackLimit);
+                    if (undetermined == measured) {
+                        /* nothing can be claimed about the pattern */
+                        return null;
+                    }
+
+                    lengths.add(subject.length());
+                    steps.add(measured);
+                    if (simulator.isLimitExceeded()) {
+                        isExceeding = true;
+                        break;
+                    }
+                }
+
+                final Probe probe = toProbe(lengths, steps, isExceeding);
+                if (null != probe && (null == worst || isWorse(probe, worst))) {
+                    worst = probe;
+                }
+            }
+        }
+
+        return worst;
+    }
+
+    @Nullable
+    private static Probe toProbe(@NotNull List<Integer> lengths, @NotNull List<Integer> steps, boolean isExceeding) {
+        /* a single measurement has no growth, but exceeding the limit on the shortest input is the worst case */
+        if (lengths.isEmpty() || (lengths.size() < 2 && !isExceeding)) {
+            return null;
+        }
+
+        final Probe probe = new Probe(new int[lengths.size()], new int[steps.size()], isExceeding);
+        for (int index = 0; index < lengths.size(); ++index) {
+            probe.lengths[index] = lengths.get(index);
+            probe.steps[index]   = steps.get(index);
+        }
+        final boolean reported =
+            probe.isExceedingLimit() ||
+            (probe.steps[probe.steps.length - 1] >= minReportedSteps && probe.getGrowth() >= minReportedGrowth);
+        return reported ? probe : null;
+    }
+
+    private static boolean isWorse(@NotNull Probe probe, @NotNull Probe other) {
+        if (probe.isExceedingLimit() != other.isExceedingLimit()) {
+            return probe.isExceedingLimit();
+        }
+        return probe.isExceedingLimit()
+                ? probe.lengths[probe.lengths.length - 1] < other.lengths[other.lengths.length - 1]
+                : probe.getGrowth() > other.getGrowth();
+    }
+
+    @NotNull
+    private static String repeat(@NotNull String text, int count) {
+        final StringBuilder result = new StringBuilder();
+        for (int index = 0; index < count; ++index) {
+            result.append(text);
+        }
+        return result.toString();
+    }
+
+    /* a matching sample, where the outermost loops are repeated the given number of times */
+    @NotNull
+    private String generate(@NotNull PcreNode node, int count, boolean inLoop) {
+        final StringBuilder result = new StringBuilder();
+        switch (node.getType()) {
+            case SEQUENCE:
+                for (PcreNode child : node.getChildren()) {
+                    result.append(generate(child, count, inLoop));
+                }
+                break;
+            case ALTERNATION:
+            case GROUP:
+                final PcreNode first = node.getFirstChild();
+                if (null != first && !node.isLookaround()) {
+                    result.append(generate(first, count, inLoop));
+                }
+                break;
+            case QUANTIFIED:
+                final PcreNode atom = node.getFirstChild();
+                if (null != atom) {
+                    final boolean loop = !inLoop && (node.isUnbounded() || node.getMax() > 1);
+                    int times          = loop ? Math.max(node.getMin(), count) : Math.max(node.getMin(), 1);
+                    if (!node.isUnbounded()) {
+                        times = Math.min(times, node.getMax());
+                    }
+                    result.append(repeat(generate(atom, count, inLoop || loop), times));
+                }
+                break;
+            case DOT:
+                result.append('a');
+                break;
+            case LITERAL:
+            case ESCAPE:
+            case CLASS:
+            case POSIX:
+                final CharacterSet set = CharacterSet.of(node);
+                if (null != set && !set.isEmpty()) {
+                    result.append(set.getSample());
+                }
+                break;
+            default:
+                break;
+        }
+        return result.toString();
+    }
+
+    private boolean match(@NotNull PcreNode node, final int position, @NotNull final Continuation next) {
+        ++steps;
+        if (++attemptSteps > limit) {
+            throw limitExceeded;
+        }
+        if (0 == (steps & (cancellationCheckSteps - 1))) {
+            ProgressManager.checkCanceled();
+        }
+
+        switch (node.getType()) {
+            case SEQUENCE:
+                return matchSequence(node.getChildren(), 0, position, next);
+            case ALTERNATION:
+                for (PcreNode branch : node.getChildren()) {
+                    if (match(branch, position, next)) {
+                        return true;
+                    }
+                }
+                return false;
+            case GROUP:
+                return matchGroup(node, position, next);
+            case QUANTIFIED:
+                if (node.isPossessive()) {
+                    final int[] end = new int[] {-1};
+                    return matchRepetition(node, 0, position, true, recording(end)) && next.match(end[0]);
+                }
+                return matchRepetition(node, 0, position, node.isLazy() == ((options & UNGREEDY) != 0), next);
+            case DOT:
+                return position < subject.length() &&
+                       ((options & DOT_ALL) != 0 || '\n' != subject.charAt(position)) &&
+                       next.match(position + 1);
+            case LITERAL:
+            case ESCAPE:
+            case CLASS:
+            case POSIX:
+                return position < subject.length() && isMatching(node, subject.charAt(position)) && next.match(position + 1);
+            case ANCHOR:
+                return isAnchorMatching(node.getText(), position) && next.match(position);
+            case BACKREFERENCE:
+                return matchReference(node, position, next);
+            case OPTIONS: {
+                final int outer = options;
+                options         = applyOptions(outer, node.getText());
+                final boolean matched = next.match(position);
+                options         = outer;
+                return matched;
+            }
+            case VERB:
+                return !node.getText().startsWith("(*F") && next.match(position);
+            default:
+                return false;
+        }
+    }
+
+    private boolean matchSequence(@NotNull final List<PcreNode> items, final int index, final int position, @NotNull final Continuation next) {
+        if (index == items.size()) {
+            return next.match(position);
+        }
+        return match(items.get(index), position, new Continuation() {
+            @Override
+            public boolean match(int end) {
+                return matchSequence(items, index + 1, end, next);
+            }
+        });
+    }
+
+    private boolean matchRepetition(
+        @NotNull final PcreNode quantified,
+        final int count,
+        final int position,
+        final boolean greedy,
+        @NotNull final Continuation next
+    ) {
+        final PcreNode atom       = quantified.getFirstChild();
+        final boolean canRepeat   = null != atom && (quantified.isUnbounded() || count < quantified.getMax());
+        final boolean canStop     = count >= quantified.getMin();
+        final Continuation repeat = new Continuation() {
+            @Override
+            public boolean match(int end) {
+                /* an iteration matching the empty string is ending the loop */
+                return end == position ? next.match(end) : matchRepetition(quantified, count + 1, end, greedy, next);
+            }
+        };
+
+        if (greedy) {
+            return (canRepeat && match(atom, position, repeat)) || (canStop && next.match(position));
+        }
+        return (canStop && next.match(position)) || (canRepeat && match(atom, position, repeat));
+    }
+
+    private boolean matchGroup(@NotNull final PcreNode group, final int position, @NotNull final Continuation next) {
+        final PcreNode body = group.getFirstChild();
+        if (null == body) {
+            return next.match(position);
+        }
+
+        switch (group.getGroup()) {
+            case LOOKAHEAD:
+            case NEGATIVE_LOOKAHEAD: {
+                final boolean found = match(body, position, accepting);
+                return found == group.isGroup(Group.LOOKAHEAD) && next.match(position);
+            }
+            case LOOKBEHIND:
+            case NEGATIVE_LOOKBEHIND: {
+                boolean found = false;
+                for (int start = position; start >= 0 && !found; --start) {
+                    found = match(body, start, new Continuation() {
+                        @Override
+                        public boolean match(int end) {
+                            return end == position;
+                        }
+                    });
+                }
+                return found == group.isGroup(Group.LOOKBEHIND) && next.match(position);
+            }
+            case ATOMIC: {
+                final int[] end = new int[] {-1};
+                return match(body, position, recording(end)) && next.match(end[0]);
+            }
+            case OPTIONS: {
+                final int outer = options;
+                final int inner = applyOptions(outer, group.getText());
+                options         = inner;
+                final boolean matched = match(body, position, new Continuation() {
+                    @Override
+                    public boolean match(int end) {
+                        options               = outer;
+                        final boolean matched = next.match(end);
+                        options               = inner;
+                        return matched;
+                    }
+                });
+                options = outer;
+                return matched;
+            }
+            case CAPTURING:
+            case NAMED: {
+                final int number = groupNumbers.get(group);
+                return match(body, position, new Continuation() {
+                    @Override
+                    public boolean match(int end) {
+                        final int previousStart = captureStarts[number];
+                        final int previousEnd   = captureEnds[number];
+                        captureStarts[number]   = position;
+                        captureEnds[number]     = end;
+                        if (next.match(end)) {
+                            return true;
+                        }
+                        captureStarts[number] = previousStart;
+                        captureEnds[number]   = previousEnd;
+                        return false;
+                    }
+                });
+            }
+            default:
+                return match(body, position, next);
+        }
+    }
+
+    private boolean matchReference(@NotNull PcreNode reference, int position, @NotNull Continuation next) {
+        final int number = getReferenceNumber(reference.getText());
+        if (number >= captureStarts.length || -1 == captureStarts[number]) {
+            /* unset groups are failing the reference */
+            return false;
+        }
+
+        final int length = captureEnds[number] - captureStarts[number];
+        if (position + length > subject.length()) {
+            return false;
+        }
+        final boolean caseless = (options & CASELESS) != 0;
+        return subject.regionMatches(caseless, position, subject, captureStarts[number], length) && next.match(position + length);
+    }
+
+    @NotNull
+    private static Continuation recording(@NotNull final int[] end) {
+        return new Continuation() {
+            @Override
+            public boolean match(int position) {
+                end[0] = position;
+                return true;
+            }
+        };
+    }
+
+    private boolean isMatching(@NotNull PcreNode node, char character) {
+        CharacterSet set = characters.get(node);
+        if (null == set) {
+            final CharacterSet resolved = CharacterSet.of(node);
+            set                         = null == resolved ? CharacterSet.ANY : resolved;
+            characters.put(node, set);
+        }
+
+        if (set.contains(character)) {
+            return true;
+        }
+        if ((options & CASELESS) != 0 && character < 0x80 && Character.isLetter(character)) {
+            return set.contains(Character.isUpperCase(character) ? Character.toLowerCase(character) : Character.toUpperCase(character));
+        }
+        return false;
+    }
+
+    private boolean isAnchorMatching(@NotNull String anchor, int position) {
+        final int length = subject.length();
+        switch (anchor) {
+            case "^":
+                return 0 == position || ((options & MULTI_LINE) != 0 && '\n' == subject.charAt(position - 1));
+            case "$":
+                if ((options & MULTI_LINE) != 0) {
+                    return position == length || '\n' == subject.charAt(position);
+                }
+                return position == length || ((options & DOLLAR_END_ONLY) == 0 && isBeforeFinalNewLine(position));
+            case "\\A":
+                return 0 == position;
+            case "\\z":
+                return position == length;
+            case "\\Z":
+                return position == length || isBeforeFinalNewLine(position);
+            case "\\G":
+                return position == searchStart;
+            case "\\b":
+            case "\\B":
+                final boolean before = position > 0 && isWordCharacter(subject.charAt(position - 1));
+                final boolean after  = position < length && isWordCharacter(subject.charAt(position));
+                return (before != after) == anchor.equals("\\b");
+            default:
+                /* \K */
+                return true;
+        }
+    }
+
+    private boolean isBeforeFinalNewLine(int position) {
+        return position == subject.length() - 1 && '\n' == subject.charAt(position);
+    }
+
+    private static boolean isWordCharacter(char character) {
+        return CharacterSet.WORD.contains(character);
+    }
+
+    private static int applyOptions(int options, @NotNull String text) {
+        int result     = options;
+        boolean enable = true;
+        for (int index = 2; index < text.length(); ++index) {
+            final char option = text.charAt(index);
+            int flag          = 0;
+            switch (option) {
+                case 'i': flag = CASELESS;   break;
+                case 'm': flag = MULTI_LINE; break;
+                case 's': flag = DOT_ALL;    break;
+                case 'U': flag = UNGREEDY;   break;
+                case '-': enable = false;    break;
+                case '^':
+                    enable = false;
+                    result = result & ~(CASELESS | MULTI_LINE | DOT_ALL | UNGREEDY);
+                    break;
+                case ':':
+                case ')':
+                    return result;
+                default:
+                    break;
+            }
+            result = enable ? result | flag : result & ~flag;
+        }
+        return result;
+    }
+
+    /* \1, \g1, \g{1}; -1 for relative and named references */
+    private static int getReferenceNumber(@NotNull String text) {
+        String digits = text.startsWith("\\g") ? text.substring(2) : text.substring(1);
+        if (digits.startsWith("{") && digits.endsWith("}")) {
+            digits = digits.substring(1, digits.length() - 1);
+        }
+        if (digits.isEmpty()) {
+            return -1;
+        }
+        for (char digit : digits.toCharArray()) {
+            if (!Character.isDigit(digit)) {
+                return -1;
+            }
+        }
+        /* PCRE is limiting groups number to 65535: longer numbers are not valid references anyway */
+        return digits.length() > 5 ? -1 : Integer.parseInt(digits);
+    }
+
+    private static boolean isSupported(@NotNull PcreNode root) {
+        if (!root.findAll(Type.SUBROUTINE).isEmpty()) {
+            return false;
+        }
+        for (PcreNode group : root.findAll(Type.GROUP)) {
+            if (group.isGroup(Group.CONDITIONAL) || group.isGroup(Group.BRANCH_RESET)) {
+                return false;
+            }
+        }
+        for (PcreNode reference : root.findAll(Type.BACKREFERENCE)) {
+            if (getReferenceNumber(reference.getText()) <= 0) {
+                return false;
+            }
+        }
+        for (PcreNode verb : root.findAll(Type.VERB)) {
+            /* settings like (*UTF8) and (*FAIL) are supported, backtracking control verbs are not */
+            final String text = verb.getText();
+            if (text.contains("SKIP") || text.contains("PRUNE") || text.contains("COMMIT") || text.contains("THEN") || text.contains("ACCEPT")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* PCRE only tries the subject start for patterns starting with ^ (without /m) or \A in every branch */
+    private static boolean isAnchored(@NotNull PcreNode node, boolean multiLine) {
+        switch (node.getType()) {
+            case ALTERNATION:
+                for (PcreNode branch : node.getChildren()) {
+                    if (!isAnchored(branch, multiLine)) {
+                        return false;
+                    }
+                }
+                return !node.getChildren().isEmpty();
+            case SEQUENCE:
+                final PcreNode first = node.getFirstChild();
+                return null != first && isAnchored(first, multiLine);
+            case GROUP:
+                final PcreNode body = node.getFirstChild();
+                return !node.isLookaround() && !node.isGroup(Group.OPTIONS) && null != body && isAnchored(body, multiLine);
+            case ANCHOR:
+                return node.getText().equals("\\A") || (!multiLine && node.getText().equals("^"));
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Immutable set of characters stored as sorted, non-overlapping, non-adjacent inclusive ranges.
+ */
+final public class CharacterSet {
+    final static public CharacterSet EMPTY = new CharacterSet(new int[0]);
+    final static public CharacterSet ANY   = new CharacterSet(new int[] {0, Character.MAX_VALUE});
+
+    final static public CharacterSet DIGITS     = ranges('0', '9');
+    final static public CharacterSet WORD       = ranges('0', '9', 'A', 'Z', '_', '_', 'a', 'z');
+    final static public CharacterSet SPACES     = ranges('\t', '\r', ' ', ' ');
+    final static public CharacterSet HORIZONTAL = ranges('\t', '\t', ' ', ' ', 0xA0, 0xA0);
+    final static public CharacterSet VERTICAL   = ranges('\n', '\r', 0x85, 0x85);
+    final static public CharacterSet NEW_LINE   = ranges('\n', '\n');
+
+    /* [from, to, from, to, ...] */
+    @NotNull final private int[] bounds;
+
+    private CharacterSet(@NotNull int[] bounds) {
+        this.bounds = bounds;
+    }
+
+    @NotNull
+    public static CharacterSet of(char character) {
+        return new CharacterSet(new int[] {character, character});
+    }
+
+    @NotNull
+    public static CharacterSet range(char from, char to) {
+        return from <= to ? new CharacterSet(new int[] {from, to}) : EMPTY;
+    }
+
+    /** characters matched by LITERAL, ESCAPE, CLASS, RANGE and POSIX nodes, null for other nodes */
+    @Nullable
+    public static CharacterSet of(@NotNull PcreNode node) {
+        switch (node.getType()) {
+            case LITERAL:
+                return of(node.getCharacter());
+            case RANGE:
+                final CharacterSet from = of(node.getChildren().get(0));
+                final CharacterSet to   = of(node.getChildren().get(1));
+                if (null == from || null == to || from.isEmpty() || to.isEmpty()) {
+                    return ANY;
+                }
+                return range(from.getSample(), to.getSample());
+            case CLASS:
+                CharacterSet result = EMPTY;
+                for (PcreNode item : node.getChildren()) {
+                    final CharacterSet characters = of(item);
+                    result                        = result.union(null == characters ? ANY : characters);
+                }
+                return node.isNegated() ? result.negate() : result;
+            case POSIX:
+                return toPosixCharacters(node.getText());
+            case ESCAPE:
+                return toEscapeCharacters(node);
+            default:
+                return null;
+        }
+    }
+
+    @NotNull
+    private static CharacterSet toEscapeCharacters(@NotNull PcreNode escape) {
+        switch (escape.getEscape()) {
+            case 'd': return DIGITS;
+            case 'D': return DIGITS.negate();
+            case 'w': return WORD;
+            case 'W': return WORD.negate();
+            case 's': return SPACES;
+            case 'S': return SPACES.negate();
+            case 'h': return HORIZONTAL;
+            case 'H': return HORIZONTAL.negate();
+            case 'v': return VERTICAL;
+            case 'V': return VERTICAL.negate();
+            case 'R': return VERTICAL;
+            case 'N': return NEW_LINE.negate();
+            case 'n': return of('\n');
+            case 'r': return of('\r');
+            case 't': return of('\t');
+            case 'f': return of('\f');
+            case 'e': return of((char) 0x1B);
+            case 'a': return of((char) 0x07);
+            case 'b': return of('\b');
+            case 'x':
+            case 'o':
+            case '0': case '1': case '2': case '3': case '4': case '5': case '6': case '7':
+                final Character code = decodeCodePoint(escape);
+                return null == code ? ANY : of(code);
+            default:
+                /* \p{..}, \X, \C and others: anything */
+                return ANY;
+        }
+    }
+
+    @Nullable
+    private static Character decodeCodePoint(@NotNull PcreNode escape) {
+        String digits = escape.getText().substring(2);
+        int radix     = 16;
+        if ('x' != escape.getEscape()) {
+            radix  = 8;
+            digits = 'o' == escape.getEscape() ? digits : escape.getText().substring(1);
+        }
+        if (digits.startsWith("{") && digits.endsWith("}")) {
+            digits = digits.substring(1, digits.length() - 1);
+        }
+        if (digits.isEmpty()) {
+            return 'x' == escape.getEscape() ? (char) 0 : null;
+        }
+
+        try {
+            final int code = Integer.parseInt(digits, radix);
+            return code <= Character.MAX_VALUE ? (char) code : null;
+        } catch (NumberFormatException failure) {
+            return null;
+        }
+    }
+
+    @NotNull
+    private static CharacterSet toPosixCharacters(@NotNull String text) {
+        final boolean negated = text.startsWith("[:^");
+        final String name     = text.substring(negated ? 3 : 2, text.length() - 2);
+        CharacterSet result;
+        switch (name) {
+            case "digit":  result = DIGITS;                                               break;
+            case "word":   result = WORD;                                                 break;
+            case "space":  result = SPACES;                                               break;
+            case "blank":  result = HORIZONTAL;                                           break;
+            case "upper":  result = range('A', 'Z');                                      break;
+            case "lower":  result = range('a', 'z');                                      break;
+            case "alpha":  result = range('A', 'Z').union(range('a', 'z'));               break;
+            case "alnum":  result = WORD.intersection(of('_').negate());                  break;
+            case "xdigit": result = DIGITS.union(range('A', 'F')).union(range('a', 'f')); break;
+            default:       result = ANY;                                                  break;
+        }
+        return negated ? result.negate() : result;
+    }
+
+    @NotNull
+    private static CharacterSet ranges(int... bounds) {
+        CharacterSet result = EMPTY;
+        for (int index = 0; index + 1 < bounds.length; index += 2) {
+            result = result.union(new CharacterSet(new int[] {bounds[index], bounds[index + 1]}));
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return 0 == bounds.length;
+    }
+
+    public boolean contains(char character) {
+        for (int index = 0; index < bounds.length; index += 2) {
+            if (character >= bounds[index] && character <= bounds[index + 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean intersects(@NotNull CharacterSet other) {
+        int left  = 0;
+        int right = 0;
+        while (left < bounds.length && right < other.bounds.length) {
+            if (bounds[left + 1] < other.bounds[right]) {
+                left += 2;
+            } else if (other.bounds[right + 1] < bounds[left]) {
+                right += 2;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @NotNull
+    public CharacterSet union(@NotNull CharacterSet other) {
+        if (other.isEmpty() || this == other) {
+            return this;
+        }
+        if (this.isEmpty()) {
+            return other;
+        }
+
+        /* merge sorted ranges, gluing overlapping and adjacent ones */
+        final int[] merged = new int[bounds.length + other.bounds.length];
+        int size  = 0;
+        int left  = 0;
+        int right = 0;
+        while (left < bounds.length || right < other.bounds.length) {
+            final int[] source;
+            final int offset;
+            if (right >= other.bounds.length || (left < bounds.length && bounds[left] <= other.bounds[right])) {
+                source = bounds;
+                offset = left;
+                left  += 2;
+            } else {
+                source = other.bounds;
+                offset = right;
+                right += 2;
+            }
+
+            if (size > 0 && source[offset] <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], source[offset + 1]);
+            } else {
+                merged[size++] = source[offset];
+                merged[size++] = source[offset + 1];
+            }
+        }
+
+        return new CharacterSet(Arrays.copyOf(merged, size));
+    }
+
+    @NotNull
+    public CharacterSet intersection(@NotNull CharacterSet other) {
+        return this.negate().union(other.negate()).negate();
+    }
+
+    @NotNull
+    public CharacterSet negate() {
+        final int[] result = new int[bounds.length + 2];
+        int size           = 0;
+        int next           = 0;
+        for (int index = 0; index < bounds.length; index += 2) {
+            if (bounds[index] > next) {
+                result[size++] = next;
+                result[size++] = bounds[index] - 1;
+            }
+            next = bounds[index + 1] + 1;
+        }
+        if (next <= Character.MAX_VALUE) {
+            result[size++] = next;
+            result[size++] = Character.MAX_VALUE;
+        }
+
+        return new CharacterSet(Arrays.copyOf(result, size));
+    }
+
+    /** adds other case variants of ASCII letters (the /i modifier without /u) */
+    @NotNull
+    public CharacterSet withOtherCase() {
+        final CharacterSet upper = this.intersection(range('a', 'z'));
+        final CharacterSet lower = this.intersection(range('A', 'Z'));
+        return this.union(upper.shift('A' - 'a')).union(lower.shift('a' - 'A'));
+    }
+
+    @NotNull
+    private CharacterSet shift(int delta) {
+        final int[] shifted = new int[bounds.length];
+        for (int index = 0; index < bounds.length; ++index) {
+            shifted[index] = bounds[index] + delta;
+        }
+        return new CharacterSet(shifted);
+    }
+
+    /** a character for samples: letters, digits and punctuation are preferred over control characters */
+    public char getSample() {
+        for (char preferred : "a0 _-.,:;/A".toCharArray()) {
+            if (contains(preferred)) {
+                return preferred;
+            }
+        }
+        for (int index = 0; index < bounds.length; index += 2) {
+            if (bounds[index + 1] >= 0x21 && bounds[index] <= 0x7E) {
+                return (char) Math.max(bounds[index], 0x21);
+            }
+        }
+        return isEmpty() ? 0 : (char) bounds[0];
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CharacterSet && Arrays.equals(bounds, ((CharacterSet) other).bounds);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bounds);
+    }
+}
@@ -0,0 +1,393 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre;
+
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode.Group;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Epsilon-free NFA of a pattern, modelling paths a backtracking engine explores.
+ *
+ * Built by Thompson construction and epsilon elimination. Elimination keeps multiplicity of transitions: when the
+ * same character transition is reachable by two different epsilon paths (e.g. (a*)*), the engine will try it twice.
+ * Anchors and lookarounds are treated as (conditional) epsilon transitions; large bounded repetitions as unbounded
+ * ones. Atomic groups and possessive quantifiers are recorded as regions: the engine doesn't backtrack into them.
+ * Back-references, recursion and conditionals are not regular, such patterns are not modelled at all.
+ */
+final public class PcreAutomaton {
+    /* repetitions up to this bound are unrolled, larger ones are treated as unbounded */
+    private static final int maxUnrolledRepetitions = 10;
+    private static final int maxBuildingStates      = 2000;
+    private static final int maxStates              = 250;
+
+    final public static class Transition {
+        @NotNull final public CharacterSet characters;
+        final public int target;
+        /* amount of distinct epsilon paths leading to the transition, capped at 2 */
+        final public int multiplicity;
+
+        Transition(@NotNull CharacterSet characters, int target, int multiplicity) {
+            this.characters   = characters;
+            this.target       = target;
+            this.multiplicity = multiplicity;
+        }
+    }
+
+    @NotNull final private Transition[][] transitions;
+    @NotNull final private boolean[] accepting;
+    @NotNull final private boolean[] unconditionallyAccepting;
+    @NotNull final private int[] regions;
+    @NotNull final private int[] regionParents;
+
+    private PcreAutomaton(
+        @NotNull Transition[][] transitions,
+        @NotNull boolean[] accepting,
+        @NotNull boolean[] unconditionallyAccepting,
+        @NotNull int[] regions,
+        @NotNull int[] regionParents
+    ) {
+        this.transitions              = transitions;
+        this.accepting                = accepting;
+        this.unconditionallyAccepting = unconditionallyAccepting;
+        this.regions                  = regions;
+        this.regionParents            = regionParents;
+    }
+
+    /** returns null if the pattern is malformed, not regular or too large for analysis */
+    @Nullable
+    public static PcreAutomaton of(@NotNull PcrePattern pattern) {
+        final PcreNode root = pattern.getRoot();
+        if (null == root) {
+            return null;
+        }
+
+        final Builder builder = new Builder(pattern.hasModifier('i'), pattern.hasModifier('s'));
+        final int[] fragment  = builder.compile(root);
+        return null == fragment ? null : builder.eliminateEpsilons(fragment[0], fragment[1]);
+    }
+
+    /** the start state is always 0 */
+    public int getStatesCount() {
+        return transitions.length;
+    }
+
+    @NotNull
+    public Transition[] getTransitions(int state) {
+        return transitions[state];
+    }
+
+    public boolean isAccepting(int state) {
+        return accepting[state];
+    }
+
+    /** accepting without passing anchors and lookarounds: the engine stops on the first attempt reaching it */
+    public boolean isUnconditionallyAccepting(int state) {
+        return unconditionallyAccepting[state];
+    }
+
+    /** a backtracking engine doesn't explore alternative paths diverging inside of one atomic region */
+    public boolean isAtomicDivergence(int source, int first, int second) {
+        for (int region = regions[source]; region > 0; region = regionParents[region]) {
+            if (isInRegion(first, region) && isInRegion(second, region)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isInRegion(int state, int region) {
+        for (int current = regions[state]; current > 0; current = regionParents[current]) {
+            if (current == region) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Builder {
+        final private boolean caseless;
+        final private boolean dotAll;
+
+        /* epsilon transitions: target, "conditional" marker (anchors, lookarounds) and transition id */
+        final private List<List<int[]>> epsilons      = new ArrayList<>();
+        private int epsilonsCount                     = 0;
+        final private List<CharacterSet> characters   = new ArrayList<>();
+        /* character transition target per state, -1 if none: Thompson states have one transition at most */
+        final private List<Integer> characterTargets  = new ArrayList<>();
+        final private List<Integer> stateRegions      = new ArrayList<>();
+        final private List<Integer> regionParents     = new ArrayList<>();
+        private int currentRegion                     = 0;
+
+        Builder(boolean caseless, boolean dotAll) {
+            this.caseless = caseless;
+            this.dotAll   = dotAll;
+            regionParents.add(0);
+        }
+
+        private int newState() {
+            epsilons.add(new ArrayList<int[]>());
+            characters.add(null);
+            characterTargets.add(-1);
+            stateRegions.add(currentRegion);
+            return epsilons.size() - 1;
+        }
+
+        private void epsilon(int from, int to, boolean conditional) {
+            epsilons.get(from).add(new int[] {to, conditional ? 1 : 0, epsilonsCount++});
+        }
+
+        @Nullable
+        private int[] single(@Nullable CharacterSet set) {
+            if (null == set) {
+                return null;
+            }
+
+            final int start = newState();
+            final int end   = newState();
+            characters.set(start, caseless ? set.withOtherCase() : set);
+            characterTargets.set(start, end);
+            return new int[] {start, end};
+        }
+
+        @NotNull
+        private int[] empty(boolean conditional) {
+            final int start = newState();
+            final int end   = newState();
+            epsilon(start, end, conditional);
+            return new int[] {start, end};
+        }
+
+        @Nullable
+        int[] compile(@NotNull PcreNode node) {
+            if (epsilons.size() > maxBuildingStates) {
+                return null;
+            }
+
+            switch (node.getType()) {
+                case SEQUENCE: {
+                    final int[] result = empty(false);
+                    for (PcreNode child : node.getChildren()) {
+                        final int[] fragment = compile(child);
+                        if (null == fragment) {
+                            return null;
+                        }
+                        epsilon(result[1], fragment[0], false);
+                        result[1] = fragment[1];
+                    }
+                    return result;
+                }
+                case ALTERNATION: {
+                    final int start = newState();
+                    final int end   = newState();
+                    for (PcreNode branch : node.getChildren()) {
+                        final int[] fragment = compile(branch);
+                        if (null == fragment) {
+                            return null;
+                        }
+                        epsilon(start, fragment[0], false);
+                        epsilon(fragment[1], end, false);
+                    }
+                    return new int[] {start, end};
+                }
+                case GROUP:
+                    return compileGroup(node);
+                case QUANTIFIED:
+                    return node.isPossessive() ? compileAtomic(node) : compileQuantified(node);
+                case LITERAL:
+                    return single(CharacterSet.of(node.getCharacter()));
+                case DOT:
+                    return single(dotAll ? CharacterSet.ANY : CharacterSet.NEW_LINE.negate());
+                case ESCAPE:
+                case CLASS:
+                case POSIX:
+                    return single(CharacterSet.of(node));
+                case ANCHOR:
+                    /* \K is resetting the match start only */
+                    return empty(!node.getText().equals("\\K"));
+                case OPTIONS:
+                    return empty(false);
+                case VERB:
+                    /* (*UTF8), (*UCP), (*CRLF) and similar settings; (*SKIP), (*PRUNE) and others control backtracking */
+                    final String verb = node.getText();
+                    return verb.length() > 2 && Character.isUpperCase(verb.charAt(2)) && !verb.contains("SKIP") &&
+                           !verb.contains("PRUNE") && !verb.contains("COMMIT") && !verb.contains("THEN") &&
+                           !verb.contains("FAIL") && !verb.contains("ACCEPT") ? empty(false) : null;
+                default:
+                    /* back-references, recursion */
+                    return null;
+            }
+        }
+
+        @Nullable
+        private int[] compileGroup(@NotNull PcreNode group) {
+            if (group.isLookaround()) {
+                return empty(true);
+            }
+
+            final PcreNode body = group.getFirstChild();
+            if (null == body || Group.CONDITIONAL == group.getGroup()) {
+                return null;
+            }
+            return Group.ATOMIC == group.getGroup() ? compileAtomic(body) : compile(body);
+        }
+
+        @Nullable
+        private int[] compileAtomic(@NotNull PcreNode node) {
+            final int parent = currentRegion;
+            regionParents.add(parent);
+            currentRegion = regionParents.size() - 1;
+
+            final int[] fragment = PcreNode.Type.QUANTIFIED == node.getType() ? compileQuantified(node) : compile(node);
+
+            currentRegion = parent;
+            return fragment;
+        }
+
+        @Nullable
+        private int[] compileQuantified(@NotNull PcreNode quantified) {
+            final PcreNode atom = quantified.getFirstChild();
+            if (null == atom) {
+                return null;
+            }
+
+            final boolean unbounded = quantified.isUnbounded() || quantified.getMax() >= maxUnrolledRepetitions;
+            /* mandatory repetitions are only shaping samples, so they are capped for unbounded quantifiers */
+            final int min = unbounded ? Math.min(quantified.getMin(), 2) : quantified.getMin();
+
+            final int[] result = empty(false);
+            for (int index = 0; index < min; ++index) {
+                final int[] fragment = compile(atom);
+                if (null == fragment) {
+                    return null;
+                }
+                epsilon(result[1], fragment[0], false);
+                result[1] = fragment[1];
+            }
+
+            final int end = newState();
+            if (unbounded) {
+                final int[] fragment = compile(atom);
+                if (null == fragment) {
+                    return null;
+                }
+                final int loop = newState();
+                epsilon(result[1], loop, false);
+                epsilon(loop, fragment[0], false);
+                epsilon(fragment[1], loop, false);
+                epsilon(loop, end, false);
+            } else {
+                for (int index = min; index < quantified.getMax(); ++index) {
+                    final int[] fragment = compile(atom);
+                    if (null == fragment) {
+                        return null;
+                    }
+                    epsilon(result[1], fragment[0], false);
+                    epsilon(result[1], end, false);
+                    result[1] = fragment[1];
+                }
+                epsilon(result[1], end, false);
+            }
+            result[1] = end;
+
+            return result;
+        }
+
+        @Nullable
+        PcreAutomaton eliminateEpsilons(int start, int end) {
+            /* states of the automaton: the start and targets of character transitions */
+            final Map<Integer, Integer> mapping = new HashMap<>();
+            final List<Integer> states          = new ArrayList<>();
+            mapping.put(start, 0);
+            states.add(start);
+            for (int state = 0; state < characterTargets.size(); ++state) {
+                final int target = characterTargets.get(state);
+                if (target >= 0 && !mapping.containsKey(target)) {
+                    mapping.put(target, states.size());
+                    states.add(target);
+                }
+            }
+            if (states.size() > maxStates) {
+                return null;
+            }
+
+            final int count                    = states.size();
+            final Transition[][] transitions   = new Transition[count][];
+            final boolean[] accepting          = new boolean[count];
+            final boolean[] unconditional      = new boolean[count];
+            final int[] regions                = new int[count];
+            final int[] paths                  = new int[epsilons.size()];
+            final boolean[] onStack            = new boolean[epsilonsCount];
+            for (int index = 0; index < count; ++index) {
+                final int state = states.get(index);
+                Arrays.fill(paths, 0);
+                countPaths(state, paths, onStack);
+
+                final List<Transition> outgoing = new ArrayList<>();
+                for (int reached = 0; reached < paths.length; ++reached) {
+                    final int target = characterTargets.get(reached);
+                    if (paths[reached] > 0 && target >= 0) {
+                        outgoing.add(new Transition(characters.get(reached), mapping.get(target), paths[reached]));
+                    }
+                }
+                transitions[index]   = outgoing.toArray(new Transition[outgoing.size()]);
+                accepting[index]     = paths[end] > 0;
+                unconditional[index] = reachesUnconditionally(state, end, new boolean[epsilons.size()]);
+                regions[index]       = stateRegions.get(state);
+            }
+
+            final int[] parents = new int[regionParents.size()];
+            for (int index = 0; index < parents.length; ++index) {
+                parents[index] = regionParents.get(index);
+            }
+
+            return new PcreAutomaton(transitions, accepting, unconditional, regions, parents);
+        }
+
+        /*
+         * counts epsilon paths not repeating transitions (0, 1 or 2 meaning "several"), a node reached twice already
+         * is not expanded. Paths are allowed to revisit nodes: loops are re-entering the same states, e.g. in (a*)*
+         * the inner loop is reached directly and through an exit into the outer loop.
+         */
+        private void countPaths(int state, @NotNull int[] paths, @NotNull boolean[] onStack) {
+            if (paths[state] >= 2) {
+                return;
+            }
+            ++paths[state];
+
+            for (int[] epsilon : epsilons.get(state)) {
+                if (!onStack[epsilon[2]]) {
+                    onStack[epsilon[2]] = true;
+                    countPaths(epsilon[0], paths, onStack);
+                    onStack[epsilon[2]] = false;
+                }
+            }
+        }
+
+        private boolean reachesUnconditionally(int state, int end, @NotNull boolean[] visited) {
+            if (state == end) {
+                return true;
+            }
+            visited[state] = true;
+            for (int[] epsilon : epsilons.get(state)) {
+                if (0 == epsilon[1] && !visited[epsilon[0]] && reachesUnconditionally(epsilon[0], end, visited)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Node of a parsed PCRE pattern. Offsets are relative to the pattern body (without delimiters and modifiers).
+ *
+ * - ALTERNATION: branches as children (each branch is a SEQUENCE)
+ * - SEQUENCE: atoms as children
+ * - GROUP: single SEQUENCE/ALTERNATION child, kind is defined by getGroup()
+ * - QUANTIFIED: single quantified atom as child, getMin()/getMax()/isLazy()/isPossessive()
+ * - CLASS: items (LITERAL, ESCAPE, RANGE, POSIX) as children
+ * - RANGE: two children, range start and end
+ * - ESCAPE: \d, \w, \x41, \p{Lu} and similar, getEscape() returns the escape letter
+ * - LITERAL: single character (including escaped meta-characters), getCharacter() returns it
+ */
+final public class PcreNode {
+    public enum Type {
+        ALTERNATION, SEQUENCE, GROUP, QUANTIFIED, CLASS, RANGE, POSIX, LITERAL, ESCAPE, DOT, ANCHOR,
+        BACKREFERENCE, SUBROUTINE, OPTIONS, VERB
+    }
+
+    public enum Group {
+        CAPTURING, NAMED, NON_CAPTURING, ATOMIC, OPTIONS, BRANCH_RESET, CONDITIONAL,
+        LOOKAHEAD, NEGATIVE_LOOKAHEAD, LOOKBEHIND, NEGATIVE_LOOKBEHIND
+    }
+
+    final static public int UNBOUNDED = -1;
+
+    @NotNull final private Type type;
+    @NotNull final private String source;
+    final private int start;
+    int end;
+    final List<PcreNode> children = new ArrayList<>();
+
+    Group group;
+    boolean negated;
+    int min;
+    int max;
+    boolean lazy;
+    boolean possessive;
+    int quantifierStart;
+    int quantifierEnd;
+    char escape;
+    char character;
+
+    PcreNode(@NotNull Type type, @NotNull String source, int start) {
+        this.type   = type;
+        this.source = source;
+        this.start  = start;
+        this.end    = start;
+    }
+
+    @NotNull
+    public Type getType() {
+        return type;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    @NotNull
+    public String getText() {
+        return source.substring(start, end);
+    }
+
+    @NotNull
+    public List<PcreNode> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    @Nullable
+    public PcreNode getFirstChild() {
+        return children.isEmpty() ? null : children.get(0);
+    }
+
+    /** GROUP only */
+    @Nullable
+    public Group getGroup() {
+        return group;
+    }
+
+    /** CLASS only: [^...] */
+    public boolean isNegated() {
+        return negated;
+    }
+
+    /** QUANTIFIED only */
+    public int getMin() {
+        return min;
+    }
+
+    /** QUANTIFIED only: UNBOUNDED for *, + and {n,} */
+    public int getMax() {
+        return max;
+    }
+
+    public boolean isUnbounded() {
+        return UNBOUNDED == max;
+    }
+
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    public boolean isPossessive() {
+        return possessive;
+    }
+
+    /** QUANTIFIED only: the quantifier without lazy/possessive suffix, e.g. '+' or '{1,10}' */
+    @NotNull
+    public String getQuantifierText() {
+        return source.substring(quantifierStart, quantifierEnd);
+    }
+
+    /** ESCAPE only: the character following the backslash */
+    public char getEscape() {
+        return escape;
+    }
+
+    /** LITERAL only */
+    public char getCharacter() {
+        return character;
+    }
+
+    public boolean isGroup(@NotNull Group group) {
+        return Type.GROUP == this.type && group == this.group;
+    }
+
+    public boolean isLookaround() {
+        return Type.GROUP == type && (
+            Group.LOOKAHEAD == group || Group.NEGATIVE_LOOKAHEAD == group ||
+            Group.LOOKBEHIND == group || Group.NEGATIVE_LOOKBEHIND == group
+        );
+    }
+
+    /** nodes of the given type in the sub-tree (including this node), in the pattern order */
+    @NotNull
+    public List<PcreNode> findAll(@NotNull Type type) {
+        final List<PcreNode> result = new ArrayList<>();
+        collect(this, type, result);
+        return result;
+    }
+
+    /** anchors (e.g. "^", "$", "\A") in the sub-tree */
+    public boolean containsAnchor(@NotNull String anchor) {
+        for (PcreNode node : findAll(Type.ANCHOR)) {
+            if (anchor.equals(node.getText())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void collect(@NotNull PcreNode node, @NotNull Type type, @NotNull List<PcreNode> result) {
+        if (type == node.type) {
+            result.add(node);
+        }
+        for (PcreNode child : node.children) {
+            collect(child, type, result);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + getText() + ")";
+    }
+}
@@ -0,0 +1,610 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre;
+
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode.Group;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode.Type;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Recursive descent parser of PCRE pattern bodies. Malformed patterns (unbalanced groups and classes, nothing to
+ * repeat, trailing backslash) are not parsed at all: strategies are not reporting anything on them.
+ */
+final class PcreParser {
+    /* escapes denoting a single character, so they can be used as ranges boundaries */
+    private static final String singleCharacterEscapes = "abcefnrtxo01234567";
+    /* PCRE limit for quantifier bounds */
+    private static final int maxBound = 65535;
+
+    @NotNull final private String source;
+    final private int length;
+    private int position = 0;
+    private boolean extended;
+    private boolean failed = false;
+
+    private PcreParser(@NotNull String source, boolean extended) {
+        this.source   = source;
+        this.length   = source.length();
+        this.extended = extended;
+    }
+
+    @Nullable
+    static PcreNode parse(@NotNull String source, boolean extended) {
+        final PcreParser parser = new PcreParser(source, extended);
+        final PcreNode root     = parser.parseAlternation();
+        /* unbalanced ')' is stopping the parser before the end */
+        return parser.failed || parser.position < parser.length ? null : root;
+    }
+
+    @NotNull
+    private PcreNode parseAlternation() {
+        final int start      = position;
+        final PcreNode first = parseSequence();
+        if (failed || position >= length || '|' != source.charAt(position)) {
+            return first;
+        }
+
+        final PcreNode alternation = new PcreNode(Type.ALTERNATION, source, start);
+        alternation.children.add(first);
+        while (!failed && position < length && '|' == source.charAt(position)) {
+            ++position;
+            alternation.children.add(parseSequence());
+        }
+        alternation.end = position;
+
+        return alternation;
+    }
+
+    @NotNull
+    private PcreNode parseSequence() {
+        final PcreNode sequence = new PcreNode(Type.SEQUENCE, source, position);
+        while (!failed && position < length) {
+            final char current = source.charAt(position);
+            if ('|' == current || ')' == current) {
+                break;
+            }
+            if (extended && skipExtendedWhitespace()) {
+                continue;
+            }
+
+            final PcreNode atom;
+            if ('\\' == current && position + 1 < length && 'Q' == source.charAt(position + 1)) {
+                atom = parseQuoted(sequence);
+            } else {
+                atom = parseAtom();
+            }
+            if (null != atom) {
+                sequence.children.add(parseQuantifier(atom));
+            }
+        }
+        sequence.end = position;
+
+        return sequence;
+    }
+
+    /* \Q...\E: all characters are literals, the last one is returned as it can be quantified */
+    @Nullable
+    private PcreNode parseQuoted(@NotNull PcreNode sequence) {
+        position += 2;
+
+        PcreNode last = null;
+        while (position < length) {
+            if ('\\' == source.charAt(position) && position + 1 < length && 'E' == source.charAt(position + 1)) {
+                position += 2;
+                break;
+            }
+
+            if (null != last) {
+                sequence.children.add(last);
+            }
+            last = parseLiteral();
+        }
+
+        return last;
+    }
+
+    @Nullable
+    private PcreNode parseAtom() {
+        final char current = source.charAt(position);
+        switch (current) {
+            case '(':
+                return parseGroup();
+            case '[':
+                return parseClass();
+            case '\\':
+                return parseEscape(false);
+            case '.':
+                return parseSingle(Type.DOT);
+            case '^':
+            case '$':
+                return parseSingle(Type.ANCHOR);
+            case '*':
+            case '+':
+            case '?':
+                /* nothing to repeat */
+                failed = true;
+                return null;
+            case '{':
+                if (scanBounds(position) > 0) {
+                    failed = true;
+                    return null;
+                }
+                return parseLiteral();
+            default:
+                return parseLiteral();
+        }
+    }
+
+    @NotNull
+    private PcreNode parseQuantifier(@NotNull PcreNode atom) {
+        if (extended) {
+            while (position < length && skipExtendedWhitespace()) {
+                /* whitespaces and comments between atom and quantifier are ignored */
+            }
+        }
+        if (position >= length) {
+            return atom;
+        }
+
+        final int quantifierStart = position;
+        int min;
+        int max;
+        switch (source.charAt(position)) {
+            case '*':
+                min = 0;
+                max = PcreNode.UNBOUNDED;
+                ++position;
+                break;
+            case '+':
+                min = 1;
+                max = PcreNode.UNBOUNDED;
+                ++position;
+                break;
+            case '?':
+                min = 0;
+                max = 1;
+                ++position;
+                break;
+            case '{':
+                final int boundsEnd = scanBounds(position);
+                if (boundsEnd < 0) {
+                    return atom;
+                }
+
+                final int comma = source.indexOf(',', position);
+                if (comma < 0 || comma > boundsEnd) {
+                    min = max = parseNumber(position + 1, boundsEnd - 1);
+                } else {
+                    min = parseNumber(position + 1, comma);
+                    max = comma + 1 == boundsEnd - 1 ? PcreNode.UNBOUNDED : parseNumber(comma + 1, boundsEnd - 1);
+                }
+                position = boundsEnd;
+                break;
+            default:
+                return atom;
+        }
+
+        final PcreNode quantified = new PcreNode(Type.QUANTIFIED, source, atom.getStart());
+        quantified.children.add(atom);
+        quantified.min             = min;
+        quantified.max             = max;
+        quantified.quantifierStart = quantifierStart;
+        quantified.quantifierEnd   = position;
+        if (position < length && '?' == source.charAt(position)) {
+            quantified.lazy = true;
+            ++position;
+        } else if (position < length && '+' == source.charAt(position)) {
+            quantified.possessive = true;
+            ++position;
+        }
+        quantified.end = position;
+
+        return quantified;
+    }
+
+    @Nullable
+    private PcreNode parseGroup() {
+        final int start              = position;
+        final boolean extendedBefore = extended;
+        ++position;
+        if (position >= length) {
+            failed = true;
+            return null;
+        }
+
+        final PcreNode group = new PcreNode(Type.GROUP, source, start);
+        group.group          = Group.CAPTURING;
+        if ('*' == source.charAt(position)) {
+            /* (*UTF8), (*SKIP) and other verbs */
+            return skipPast(')') ? finish(new PcreNode(Type.VERB, source, start)) : null;
+        }
+        if ('?' == source.charAt(position)) {
+            ++position;
+            final char kind = position < length ? source.charAt(position) : 0;
+            final char next = position + 1 < length ? source.charAt(position + 1) : 0;
+            switch (kind) {
+                case ':':
+                    group.group = Group.NON_CAPTURING;
+                    ++position;
+                    break;
+                case '>':
+                    group.group = Group.ATOMIC;
+                    ++position;
+                    break;
+                case '|':
+                    group.group = Group.BRANCH_RESET;
+                    ++position;
+                    break;
+                case '=':
+                    group.group = Group.LOOKAHEAD;
+                    ++position;
+                    break;
+                case '!':
+                    group.group = Group.NEGATIVE_LOOKAHEAD;
+                    ++position;
+                    break;
+                case '#':
+                    /* comments are not a part of the tree */
+                    skipPast(')');
+                    return null;
+                case '<':
+                    if ('=' == next || '!' == next) {
+                        group.group = '=' == next ? Group.LOOKBEHIND : Group.NEGATIVE_LOOKBEHIND;
+                        position   += 2;
+                        break;
+                    }
+                    group.group = Group.NAMED;
+                    if (!skipPast('>')) {
+                        return null;
+                    }
+                    break;
+                case '\'':
+                    group.group = Group.NAMED;
+                    ++position;
+                    if (!skipPast('\'')) {
+                        return null;
+                    }
+                    break;
+                case 'P':
+                    if ('<' == next) {
+                        group.group = Group.NAMED;
+                        if (!skipPast('>')) {
+                            return null;
+                        }
+                        break;
+                    }
+                    /* (?P=name) and (?P>name) */
+                    final Type reference = '=' == next ? Type.BACKREFERENCE : Type.SUBROUTINE;
+                    return skipPast(')') ? finish(new PcreNode(reference, source, start)) : null;
+                case '(':
+                    group.group = Group.CONDITIONAL;
+                    if ('?' == next || '*' == next) {
+                        final PcreNode condition = parseGroup();
+                        if (null == condition) {
+                            return null;
+                        }
+                        group.children.add(condition);
+                    } else if (!skipPast(')')) {
+                        return null;
+                    }
+                    break;
+                default:
+                    /* (?R), (?1), (?-1), (?+1), (?&name) */
+                    if ('R' == kind || '&' == kind || Character.isDigit(kind) || (('-' == kind || '+' == kind) && Character.isDigit(next))) {
+                        return skipPast(')') ? finish(new PcreNode(Type.SUBROUTINE, source, start)) : null;
+                    }
+
+                    /* (?imsx-imsx) applies till the end of the enclosing group, (?imsx-imsx:...) to its body */
+                    boolean enable = true;
+                    while (position < length && -1 != "imsxnJUX-^".indexOf(source.charAt(position))) {
+                        final char option = source.charAt(position++);
+                        if ('-' == option || '^' == option) {
+                            extended = extended && '^' != option;
+                            enable   = false;
+                        } else if ('x' == option) {
+                            extended = enable;
+                        }
+                    }
+                    if (position < length && ')' == source.charAt(position)) {
+                        ++position;
+                        return finish(new PcreNode(Type.OPTIONS, source, start));
+                    }
+                    if (position >= length || ':' != source.charAt(position)) {
+                        failed = true;
+                        return null;
+                    }
+                    group.group = Group.OPTIONS;
+                    ++position;
+                    break;
+            }
+        }
+
+        group.children.add(parseAlternation());
+        if (failed || position >= length || ')' != source.charAt(position)) {
+            failed = true;
+            return null;
+        }
+        ++position;
+        extended = extendedBefore;
+
+        return finish(group);
+    }
+
+    @Nullable
+    private PcreNode parseClass() {
+        final PcreNode clazz = new PcreNode(Type.CLASS, source, position);
+        ++position;
+        if (position < length && '^' == source.charAt(position)) {
+            clazz.negated = true;
+            ++position;
+        }
+
+        /* ']' is a literal when it goes first */
+        boolean first = true;
+        while (true) {
+            if (position >= length) {
+                failed = true;
+                return null;
+            }
+
+            final char current = source.charAt(position);
+            if (']' == current && !first) {
+                ++position;
+                break;
+            }
+            first = false;
+
+            PcreNode item;
+            final int posixEnd = '[' == current ? scanPosix(position) : -1;
+            if (posixEnd > 0) {
+                item     = new PcreNode(Type.POSIX, source, position);
+                position = posixEnd;
+                finish(item);
+            } else if ('\\' == current) {
+                item = parseEscape(true);
+                if (null == item) {
+                    return null;
+                }
+            } else {
+                item = parseLiteral();
+            }
+
+            /* ranges: a-z, \x00-\x1f; "a-\d" is not a range, the dash is literal there */
+            if (isSingleCharacter(item) && position + 1 < length && '-' == source.charAt(position) && ']' != source.charAt(position + 1)) {
+                final PcreNode dash = parseLiteral();
+                final PcreNode to   = '\\' == source.charAt(position) ? parseEscape(true) : parseLiteral();
+                if (null == to) {
+                    return null;
+                }
+
+                if (isSingleCharacter(to)) {
+                    final PcreNode range = new PcreNode(Type.RANGE, source, item.getStart());
+                    range.children.add(item);
+                    range.children.add(to);
+                    item = finish(range);
+                } else {
+                    clazz.children.add(item);
+                    clazz.children.add(dash);
+                    item = to;
+                }
+            }
+
+            clazz.children.add(item);
+        }
+
+        return finish(clazz);
+    }
+
+    @Nullable
+    private PcreNode parseEscape(boolean inClass) {
+        final int start = position;
+        if (position + 1 >= length) {
+            failed = true;
+            return null;
+        }
+
+        final char escaped = source.charAt(position + 1);
+        position          += 2;
+        if (!inClass) {
+            if (-1 != "bBAzZGK".indexOf(escaped)) {
+                return finish(new PcreNode(Type.ANCHOR, source, start));
+            }
+            if (escaped >= '1' && escaped <= '9') {
+                skipDigits();
+                return finish(new PcreNode(Type.BACKREFERENCE, source, start));
+            }
+            if ('g' == escaped || 'k' == escaped) {
+                /* \g1, \g-1, \g{name}, \k<name>, \k'name', \k{name}; \g<name> and \g'name' are subroutine calls */
+                final char opening = position < length ? source.charAt(position) : 0;
+                Type type          = Type.BACKREFERENCE;
+                if ('{' == opening) {
+                    ++position;
+                    if (!skipPast('}')) {
+                        return null;
+                    }
+                } else if ('<' == opening || '\'' == opening) {
+                    type = 'g' == escaped ? Type.SUBROUTINE : Type.BACKREFERENCE;
+                    ++position;
+                    if (!skipPast('<' == opening ? '>' : '\'')) {
+                        return null;
+                    }
+                } else {
+                    if (position < length && ('-' == opening || '+' == opening)) {
+                        ++position;
+                    }
+                    skipDigits();
+                }
+                return finish(new PcreNode(type, source, start));
+            }
+        }
+
+        /* escaped meta-characters are literals */
+        if (!Character.isLetterOrDigit(escaped)) {
+            final PcreNode literal = new PcreNode(Type.LITERAL, source, start);
+            literal.character      = escaped;
+            return finish(literal);
+        }
+
+        final PcreNode escape = new PcreNode(Type.ESCAPE, source, start);
+        escape.escape         = escaped;
+        switch (escaped) {
+            case 'x':
+                if (position < length && '{' == source.charAt(position)) {
+                    if (!skipPast('}')) {
+                        return null;
+                    }
+                } else {
+                    for (int digits = 0; digits < 2 && position < length && isHexDigit(source.charAt(position)); ++digits) {
+                        ++position;
+                    }
+                }
+                break;
+            case 'o':
+            case 'p':
+            case 'P':
+                if (position < length && '{' == source.charAt(position)) {
+                    if (!skipPast('}')) {
+                        return null;
+                    }
+                } else if ('o' != escaped && position < length) {
+                    ++position;
+                }
+                break;
+            case 'c':
+                if (position < length) {
+                    ++position;
+                }
+                break;
+            default:
+                if (escaped >= '0' && escaped <= '7') {
+                    for (int digits = 0; digits < 2 && position < length && isOctalDigit(source.charAt(position)); ++digits) {
+                        ++position;
+                    }
+                }
+                break;
+        }
+
+        return finish(escape);
+    }
+
+    @NotNull
+    private PcreNode parseSingle(@NotNull Type type) {
+        final PcreNode node = new PcreNode(type, source, position);
+        ++position;
+        return finish(node);
+    }
+
+    @NotNull
+    private PcreNode parseLiteral() {
+        final PcreNode literal = new PcreNode(Type.LITERAL, source, position);
+        literal.character      = source.charAt(position);
+        ++position;
+        return finish(literal);
+    }
+
+    @NotNull
+    private PcreNode finish(@NotNull PcreNode node) {
+        node.end = position;
+        return node;
+    }
+
+    /* whitespaces and #-comments in extended mode */
+    private boolean skipExtendedWhitespace() {
+        final char current = source.charAt(position);
+        if (Character.isWhitespace(current)) {
+            ++position;
+            return true;
+        }
+        if ('#' == current) {
+            final int lineEnd = source.indexOf('\n', position);
+            position          = lineEnd < 0 ? length : lineEnd + 1;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean skipPast(char terminator) {
+        final int index = source.indexOf(terminator, position);
+        if (index < 0) {
+            failed = true;
+            return false;
+        }
+
+        position = index + 1;
+        return true;
+    }
+
+    private void skipDigits() {
+        while (position < length && Character.isDigit(source.charAt(position))) {
+            ++position;
+        }
+    }
+
+    /* {n}, {n,}, {n,m}: returns offset after '}' or -1 if it's not a quantifier */
+    private int scanBounds(int offset) {
+        int cursor = offset + 1;
+        final int minStart = cursor;
+        while (cursor < length && Character.isDigit(source.charAt(cursor))) {
+            ++cursor;
+        }
+        if (cursor == minStart || cursor >= length) {
+            return -1;
+        }
+
+        if (',' == source.charAt(cursor)) {
+            ++cursor;
+            while (cursor < length && Character.isDigit(source.charAt(cursor))) {
+                ++cursor;
+            }
+        }
+
+        return cursor < length && '}' == source.charAt(cursor) ? cursor + 1 : -1;
+    }
+
+    /* [:alpha:], [:^alpha:]: returns offset after ']' or -1 if it's not a POSIX class */
+    private int scanPosix(int offset) {
+        if (offset + 1 >= length || ':' != source.charAt(offset + 1)) {
+            return -1;
+        }
+
+        int cursor = offset + 2;
+        if (cursor < length && '^' == source.charAt(cursor)) {
+            ++cursor;
+        }
+        final int nameStart = cursor;
+        while (cursor < length && Character.isLetter(source.charAt(cursor))) {
+            ++cursor;
+        }
+
+        final boolean closed = cursor > nameStart && cursor + 1 < length && ':' == source.charAt(cursor) && ']' == source.charAt(cursor + 1);
+        return closed ? cursor + 2 : -1;
+    }
+
+    private int parseNumber(int from, int to) {
+        int result = 0;
+        for (int index = from; index < to; ++index) {
+            result = Math.min(maxBound + 1, result * 10 + (source.charAt(index) - '0'));
+        }
+        return result;
+    }
+
+    private static boolean isSingleCharacter(@NotNull PcreNode node) {
+        return Type.LITERAL == node.getType() || (Type.ESCAPE == node.getType() && -1 != singleCharacterEscapes.indexOf(node.getEscape()));
+    }
+
+    private static boolean isHexDigit(char character) {
+        return Character.isDigit(character) || (character >= 'a' && character <= 'f') || (character >= 'A' && character <= 'F');
+    }
+
+    private static boolean isOctalDigit(char character) {
+        return character >= '0' && character <= '7';
+    }
+}
@@ -0,0 +1,125 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre;
+
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentMap;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * PHP regular expression split into delimiters, body and modifiers, with the body parsed into a tree.
+ *
+ * Patterns are parsed once per text (the text includes modifiers) and shared between all strategies and literals:
+ * the same patterns are repeated across code bases a lot, so parsed patterns are softly cached application-wide.
+ */
+final public class PcrePattern {
+    private static final ConcurrentMap<String, PcrePattern> cache = ContainerUtil.createConcurrentSoftValueMap();
+    /* marker for texts without recognizable delimiters, as the cache is not accepting nulls */
+    private static final PcrePattern unrecognized = new PcrePattern("", "");
+
+    @NotNull final private String body;
+    @NotNull final private String modifiers;
+    @Nullable final private PcreNode root;
+
+    /* results are published by the volatile flags writes, concurrent analysis is idempotent */
+    @Nullable private BacktrackingAnalyzer.Vulnerability vulnerability = null;
+    private volatile boolean analyzed                                   = false;
+    @Nullable private BacktrackingSimulator.Probe costProbe             = null;
+    private volatile boolean probed                                     = false;
+
+    private PcrePattern(@NotNull String body, @NotNull String modifiers) {
+        this.body      = body;
+        this.modifiers = modifiers;
+        this.root      = PcreParser.parse(body, modifiers.indexOf('x') >= 0);
+    }
+
+    /** returns null if delimiters are not recognized */
+    @Nullable
+    public static PcrePattern of(@NotNull String regex) {
+        PcrePattern pattern = cache.get(regex);
+        if (null == pattern) {
+            final PcrePattern parsed = split(regex);
+            pattern                  = null == parsed ? unrecognized : parsed;
+            cache.put(regex, pattern);
+        }
+
+        return unrecognized == pattern ? null : pattern;
+    }
+
+    /* /body/modifiers and {body}modifiers: the closing delimiter is the last one followed by letters only */
+    @Nullable
+    private static PcrePattern split(@NotNull String regex) {
+        if (regex.length() < 2) {
+            return null;
+        }
+
+        final char opening = regex.charAt(0);
+        final char closing = '{' == opening ? '}' : opening;
+        for (int index = regex.length() - 1; index > 0; --index) {
+            final char current = regex.charAt(index);
+            if (closing == current) {
+                return new PcrePattern(regex.substring(1, index), regex.substring(index + 1));
+            }
+            if ((current < 'a' || current > 'z') && (current < 'A' || current > 'Z')) {
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    @NotNull
+    public String getBody() {
+        return body;
+    }
+
+    @NotNull
+    public String getModifiers() {
+        return modifiers;
+    }
+
+    public boolean hasModifier(char modifier) {
+        return modifiers.indexOf(modifier) >= 0;
+    }
+
+    /** offset of the body in the regex text (after the opening delimiter) */
+    public int getBodyOffset() {
+        return 1;
+    }
+
+    /** returns null if the body is malformed */
+    @Nullable
+    public PcreNode getRoot() {
+        return root;
+    }
+
+    /** returns null if the pattern is safe or the analysis is not possible; analyzed once per pattern */
+    @Nullable
+    public BacktrackingAnalyzer.Vulnerability getVulnerability() {
+        if (!analyzed) {
+            final PcreAutomaton automaton = PcreAutomaton.of(this);
+            vulnerability                 = null == automaton ? null : BacktrackingAnalyzer.analyze(automaton);
+            analyzed                      = true;
+        }
+        return vulnerability;
+    }
+
+    /** returns null if matching costs are growing linearly or the pattern can not be simulated; probed once per pattern */
+    @Nullable
+    public BacktrackingSimulator.Probe getCostProbe() {
+        if (!probed) {
+            costProbe = BacktrackingSimulator.probe(this);
+            probed    = true;
+        }
+        return costProbe;
+    }
+}
@@ -114,8 +114,7 @@ public class CurlSslServerSpoofingInspector extends LocalInspectionTool {
             private boolean isHostVerifyDisabled(@NotNull PsiElement value) {
                 boolean result = false;
 
-                final HashSet<PsiElement> processed  = new HashSet<>();
-                final HashSet<PsiElement> discovered = PossibleValuesDiscoveryUtil.discover(value, processed);
+                final HashSet<PsiElement> discovered = PossibleValuesDiscoveryUtil.discover(value);
                 if (discovered.size() > 0) {
                     int countDisables = 0;
                     int countEnables  = 0;
@@ -143,15 +142,13 @@ public class CurlSslServerSpoofingInspector extends LocalInspectionTool {
                     result = countDisables > 0 && 0 == countEnables;
                 }
 
-                processed.clear();
                 return result;
             }
 
             private boolean isPeerVerifyDisabled(@NotNull PsiElement _value) {
                 boolean result = false;
 
-                final HashSet<PsiElement> processed  = new HashSet<>();
-                final HashSet<PsiElement> discovered = PossibleValuesDiscoveryUtil.discover(_value, processed);
+                final HashSet<PsiElement> discovered = PossibleValuesDiscoveryUtil.discover(_value);
                 if (discovered.size() > 0) {
                     int countDisables = 0;
                     int countEnables  = 0;
@@ -180,7 +177,6 @@ public class CurlSslServerSpoofingInspector extends LocalInspectionTool {
                     result = countDisables > 0 && 0 == countEnables;
                 }
 
-                processed.clear();
                 return result;
             }
         };
@@ -11,7 +11,10 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.PossibleValuesDiscoveryUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -42,6 +45,12 @@ public class EncryptionInitializationVectorRandomnessInspector extends BasePhpIn
         return "EncryptionInitializationVectorRandomnessInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Arrays.asList("openssl_encrypt", "mcrypt_encrypt");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -57,8 +66,7 @@ public class EncryptionInitializationVectorRandomnessInspector extends BasePhpIn
                 /* variable functions are not supported, as we are checking 2 different extensions functions */
                 if (functionName.equals("openssl_encrypt") || functionName.equals("mcrypt_encrypt")) {
                     /* discover and inspect possible values */
-                    final HashSet<PsiElement> processed = new HashSet<>();
-                    final HashSet<PsiElement> values    = PossibleValuesDiscoveryUtil.discover(params[4], processed);
+                    final HashSet<PsiElement> values = PossibleValuesDiscoveryUtil.discover(params[4]);
                     if (values.size() > 0) {
                         List<String> reporting = new LinkedList<>();
 
@@ -89,7 +97,6 @@ public class EncryptionInitializationVectorRandomnessInspector extends BasePhpIn
                             reporting.clear();
                         }
                     }
-                    processed.clear();
                 }
             }
         };
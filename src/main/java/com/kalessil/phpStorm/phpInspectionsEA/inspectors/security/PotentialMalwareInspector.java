@@ -1,6 +1,5 @@
 package com.kalessil.phpStorm.phpInspectionsEA.inspectors.security;
 
-import com.intellij.codeInspection.LocalInspectionTool;
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.util.text.StringUtil;
@@ -9,13 +8,17 @@ import com.intellij.psi.PsiElementVisitor;
 import com.jetbrains.php.lang.lexer.PhpTokenTypes;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.PossibleValuesDiscoveryUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 
-public class PotentialMalwareInspector extends LocalInspectionTool {
+public class PotentialMalwareInspector extends BasePhpInspection {
     private static final String messageEval     = "This eval looks pretty much as some malware";
     private static final String messageFileHide = "This looks pretty much as some malware hiding files manipulation";
     private static final String messageDecode   = "This function looks pretty much as part of some malware";
@@ -39,6 +42,12 @@ public class PotentialMalwareInspector extends LocalInspectionTool {
         return "PotentialMalwareInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("touch");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -144,8 +153,7 @@ public class PotentialMalwareInspector extends LocalInspectionTool {
                 if (!(call.getFirstPsiChild() instanceof Variable)) {
                     return;
                 }
-                final HashSet<PsiElement> processed = new HashSet<>();
-                final HashSet<PsiElement> values    = PossibleValuesDiscoveryUtil.discover(call.getFirstPsiChild(), processed);
+                final HashSet<PsiElement> values = PossibleValuesDiscoveryUtil.discover(call.getFirstPsiChild());
                 if (values.size() > 0) {
                     for (PsiElement value : values) {
                         if (value instanceof StringLiteralExpression) {
@@ -159,7 +167,6 @@ public class PotentialMalwareInspector extends LocalInspectionTool {
                     }
                     values.clear();
                 }
-                processed.clear();
             }
         };
     }
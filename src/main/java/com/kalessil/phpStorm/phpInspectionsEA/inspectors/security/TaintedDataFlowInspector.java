@@ -0,0 +1,134 @@
+package com.kalessil.phpStorm.phpInspectionsEA.inspectors.security;
+
+import com.intellij.codeInspection.ProblemHighlightType;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.jetbrains.php.lang.psi.elements.Function;
+import com.jetbrains.php.lang.psi.elements.FunctionReference;
+import com.jetbrains.php.lang.psi.elements.Include;
+import com.jetbrains.php.lang.psi.elements.MethodReference;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.taint.LocalTaintFlow;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.taint.TaintSummariesUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Reports superglobals data reaching include/require, unserialize, extract and parse_str, directly or through
+ * user functions and methods (see TaintSummariesUtil).
+ */
+public class TaintedDataFlowInspector extends BasePhpInspection {
+    private static final String messageDirect = "Untrusted data from superglobals reaches '%k%' (%v% Vulnerability)";
+    private static final String messageCallee = "Untrusted data from superglobals reaches '%k%' in '%f%(...)' (%v% Vulnerability)";
+
+    private static final Map<String, String> vulnerabilities = new HashMap<>();
+    static {
+        vulnerabilities.put(LocalTaintFlow.INCLUDE, "File Inclusion");
+        vulnerabilities.put("unserialize",          "PHP Object Injection");
+        vulnerabilities.put("extract",              "Variable extract");
+        vulnerabilities.put("parse_str",            "Variable extract");
+    }
+
+    @NotNull
+    public String getShortName() {
+        return "TaintedDataFlowInspection";
+    }
+
+    @Override
+    @NotNull
+    public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
+        return new BasePhpElementVisitor() {
+            public void visitPhpInclude(Include include) {
+                final PsiElement argument = include.getArgument();
+                if (null != argument) {
+                    inspectSink(argument, include);
+                }
+            }
+
+            public void visitPhpFunctionCall(FunctionReference reference) {
+                final String name            = reference.getName();
+                final PsiElement[] arguments = reference.getParameters();
+                final String kind            = null == name ? null : LocalTaintFlow.sinkFunctions.get(name.toLowerCase());
+                /* extract and parse_str without further arguments are reported by NonSecure*UsageInspection */
+                if (null != kind && arguments.length > (kind.equals("unserialize") ? 0 : 1)) {
+                    inspectSink(arguments[0], reference);
+                }
+                inspectCall(reference);
+            }
+
+            public void visitPhpMethodReference(MethodReference reference) {
+                inspectCall(reference);
+            }
+
+            private void inspectSink(@NotNull PsiElement argument, @NotNull PsiElement context) {
+                final LocalTaintFlow flow      = getFlow(context);
+                final LocalTaintFlow.Sink sink = flow.getSink(argument);
+                if (null != sink && isTainted(flow, sink.atoms)) {
+                    final String message = messageDirect
+                        .replace("%k%", sink.kind)
+                        .replace("%v%", vulnerabilities.get(sink.kind));
+                    holder.registerProblem(argument, message, ProblemHighlightType.GENERIC_ERROR_OR_WARNING);
+                }
+            }
+
+            private void inspectCall(@NotNull FunctionReference reference) {
+                final LocalTaintFlow flow      = getFlow(reference);
+                final LocalTaintFlow.Call call = flow.getCall(reference);
+                if (null == call) {
+                    return;
+                }
+                final TaintSummariesUtil.Summary callee = TaintSummariesUtil.getSummary(holder.getProject(), call.callee);
+                if (null == callee || callee.sinkParameters.isEmpty()) {
+                    return;
+                }
+
+                /* one report per argument, sink kinds are ordered for stable messages */
+                final PsiElement[] arguments = reference.getParameters();
+                for (Map.Entry<String, Set<Integer>> entry : new TreeMap<>(callee.sinkParameters).entrySet()) {
+                    for (Integer parameter : entry.getValue()) {
+                        if (parameter >= arguments.length || null == arguments[parameter]) {
+                            continue;
+                        }
+                        if (isTainted(flow, call.arguments.get(parameter))) {
+                            final String message = messageCallee
+                                .replace("%k%", entry.getKey())
+                                .replace("%f%", reference.getName())
+                                .replace("%v%", vulnerabilities.get(entry.getKey()));
+                            holder.registerProblem(arguments[parameter], message, ProblemHighlightType.GENERIC_ERROR_OR_WARNING);
+                            arguments[parameter] = null;
+                        }
+                    }
+                }
+            }
+
+            /* functions and closures are own scopes, the rest is global code of the file */
+            @NotNull
+            private LocalTaintFlow getFlow(@NotNull PsiElement element) {
+                final Function scope = ExpressionSemanticUtil.getScope(element);
+                return LocalTaintFlow.of(null == scope ? element.getContainingFile() : scope);
+            }
+
+            private boolean isTainted(@NotNull LocalTaintFlow flow, @NotNull Set<String> atoms) {
+                final Project project = holder.getProject();
+                return TaintSummariesUtil.resolve(project, flow, atoms).contains(LocalTaintFlow.SOURCE);
+            }
+        };
+    }
+}
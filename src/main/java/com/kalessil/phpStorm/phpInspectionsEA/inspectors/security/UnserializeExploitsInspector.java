@@ -1,6 +1,5 @@
 package com.kalessil.phpStorm.phpInspectionsEA.inspectors.security;
 
-import com.intellij.codeInspection.LocalInspectionTool;
 import com.intellij.codeInspection.ProblemHighlightType;
 import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.util.text.StringUtil;
@@ -14,9 +13,12 @@ import com.jetbrains.php.lang.psi.elements.FunctionReference;
 import com.jetbrains.php.lang.psi.elements.Variable;
 import com.jetbrains.php.lang.psi.elements.impl.FunctionReferenceImpl;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.PossibleValuesDiscoveryUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -31,7 +33,7 @@ import java.util.List;
  * file that was distributed with this source code.
  */
 
-public class UnserializeExploitsInspector extends LocalInspectionTool {
+public class UnserializeExploitsInspector extends BasePhpInspection {
     private static final String messageUseSecondArgument = "Please specify classes allowed for unserialization in 2nd argument";
     private static final String messagePattern           = "It's possible to exploit the unserialize via: %e%";
 
@@ -49,6 +51,12 @@ public class UnserializeExploitsInspector extends LocalInspectionTool {
         return "UnserializeExploitsInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("unserialize");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -74,8 +82,7 @@ public class UnserializeExploitsInspector extends LocalInspectionTool {
             }
 
             private void inspectExploits(@NotNull ProblemsHolder holder, @NotNull PsiElement argument) {
-                final HashSet<PsiElement> processed = new HashSet<>();
-                final HashSet<PsiElement> values    = PossibleValuesDiscoveryUtil.discover(argument, processed);
+                final HashSet<PsiElement> values = PossibleValuesDiscoveryUtil.discover(argument);
                 if (values.size() > 0) {
                     List<String> reporting = new LinkedList<>();
 
@@ -125,7 +132,6 @@ public class UnserializeExploitsInspector extends LocalInspectionTool {
                         reporting.clear();
                     }
                 }
-                processed.clear();
             }
         };
     }
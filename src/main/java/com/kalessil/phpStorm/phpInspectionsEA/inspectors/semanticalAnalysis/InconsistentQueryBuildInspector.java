@@ -1,6 +1,5 @@
 package com.kalessil.phpStorm.phpInspectionsEA.inspectors.semanticalAnalysis;
 
-import com.intellij.codeInsight.PsiEquivalenceUtil;
 import com.intellij.codeInspection.LocalQuickFix;
 import com.intellij.codeInspection.ProblemDescriptor;
 import com.intellij.codeInspection.ProblemHighlightType;
@@ -9,17 +8,20 @@ import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
 import com.jetbrains.php.lang.psi.elements.Function;
 import com.jetbrains.php.lang.psi.elements.FunctionReference;
-import com.jetbrains.php.lang.psi.elements.impl.FunctionReferenceImpl;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.FileFactsUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.StructuralHashUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 public class InconsistentQueryBuildInspector extends BasePhpInspection {
     private static final String strProblemDescription = "'ksort(%a%, SORT_STRING)' should be used instead, " +
@@ -30,6 +32,12 @@ public class InconsistentQueryBuildInspector extends BasePhpInspection {
         return "InconsistentQueryBuildInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("ksort");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -42,9 +50,10 @@ public class InconsistentQueryBuildInspector extends BasePhpInspection {
 
                     final Function scope = ExpressionSemanticUtil.getScope(reference);
                     if (null != scope) {
-                        Collection<FunctionReferenceImpl> calls = PsiTreeUtil.findChildrenOfType(scope, FunctionReferenceImpl.class);
+                        /* http_build_query calls are looked up in the file facts instead of walking the scope */
+                        final List<FunctionReference> calls = FileFactsUtil.findFunctionCalls(scope, "http_build_query");
                         if (calls.size() > 0) {
-                            for (FunctionReferenceImpl oneCall : calls) {
+                            for (FunctionReference oneCall : calls) {
                                 /* skip inspected call and calls without arguments */
                                 if (oneCall == reference || 0 == oneCall.getParameters().length) {
                                     continue;
@@ -57,15 +66,13 @@ public class InconsistentQueryBuildInspector extends BasePhpInspection {
                                 }
 
                                 /* pattern match: ksort and http_build_query operating on the same expression */
-                                if (PsiEquivalenceUtil.areElementsEquivalent(oneCall.getParameters()[0], parameters[0])) {
+                                if (StructuralHashUtil.areEquivalent(oneCall.getParameters()[0], parameters[0])) {
                                     final String message = strProblemDescription.replace("%a%", parameters[0].getText());
                                     holder.registerProblem(reference, message, ProblemHighlightType.GENERIC_ERROR_OR_WARNING, new TheLocalFix());
 
                                     break;
                                 }
                             }
-
-                            calls.clear();
                         }
                     }
                 }
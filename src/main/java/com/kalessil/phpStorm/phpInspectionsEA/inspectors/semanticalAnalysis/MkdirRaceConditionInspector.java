@@ -15,8 +15,10 @@ import com.jetbrains.php.lang.psi.elements.impl.StatementImpl;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.Collections;
 
 public class MkdirRaceConditionInspector extends BasePhpInspection {
     private static final String strProblemMkdirDirectCall  = "Following construct shall be used: 'if (!@mkdir(...) && !is_dir(...)) { throw ...; }'";
@@ -27,6 +29,12 @@ public class MkdirRaceConditionInspector extends BasePhpInspection {
         return "MkdirRaceConditionInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("mkdir");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
@@ -7,10 +7,6 @@ import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.*;
-import com.jetbrains.php.codeInsight.PhpScopeHolder;
-import com.jetbrains.php.codeInsight.controlFlow.PhpControlFlowUtil;
-import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpAccessVariableInstruction;
-import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpEntryPointInstruction;
 import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocComment;
 import com.jetbrains.php.lang.lexer.PhpTokenTypes;
 import com.jetbrains.php.lang.psi.elements.*;
@@ -19,6 +15,7 @@ import com.jetbrains.php.lang.psi.elements.impl.PhpExpressionImpl;
 import com.jetbrains.php.lang.psi.elements.impl.StatementImpl;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.DefUseChainsUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -96,18 +93,9 @@ public class OneTimeUseVariablesInspector extends BasePhpInspection {
                         }
 
                         /* heavy part, find usage inside function/method to analyze multiple writes */
-                        final PhpScopeHolder parentScope = ExpressionSemanticUtil.getScope(assign);
-                        if (null != parentScope) {
-                            final PhpEntryPointInstruction objEntryPoint = parentScope.getControlFlow().getEntryPoint();
-                            final PhpAccessVariableInstruction[] usages  = PhpControlFlowUtil.getFollowingVariableAccessInstructions(objEntryPoint, variableName, false);
-
-                            int countWrites = 0;
-                            for (PhpAccessVariableInstruction oneCase: usages) {
-                                countWrites += oneCase.getAccess().isWrite() ? 1 : 0;
-                                if (countWrites > 1) {
-                                    return;
-                                }
-                            }
+                        final Function parentScope = ExpressionSemanticUtil.getScope(assign);
+                        if (null != parentScope && DefUseChainsUtil.getChains(parentScope).countWrites(variableName) > 1) {
+                            return;
                         }
 
                         final String message    = messagePattern.replace("%v%", variableName);
@@ -6,15 +6,13 @@ import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiWhiteSpace;
-import com.jetbrains.php.codeInsight.PhpScopeHolder;
-import com.jetbrains.php.codeInsight.controlFlow.PhpControlFlowUtil;
 import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpAccessInstruction;
 import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpAccessVariableInstruction;
-import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpEntryPointInstruction;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.utils.ExpressionCostEstimateUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.DefUseChainsUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import org.jetbrains.annotations.NotNull;
 
@@ -87,12 +85,12 @@ public class OnlyWritesOnParameterInspector extends BasePhpInspection {
                         }
 
                         /* verify variable usage */
-                        checkOneVariable(variableName, (PhpScopeHolder) parentScope);
+                        checkOneVariable(variableName, (Function) parentScope);
                     }
                 }
             }
 
-            private void checkParameters(Parameter[] arrParameters, PhpScopeHolder objScopeHolder) {
+            private void checkParameters(Parameter[] arrParameters, Function objScopeHolder) {
                 for (Parameter objParameter : arrParameters) {
                     if (objParameter.isPassByRef()) {
                         continue;
@@ -107,9 +105,8 @@ public class OnlyWritesOnParameterInspector extends BasePhpInspection {
                }
             }
 
-            private void checkOneVariable(String parameterName, PhpScopeHolder objScopeHolder) {
-                PhpEntryPointInstruction objEntryPoint = objScopeHolder.getControlFlow().getEntryPoint();
-                PhpAccessVariableInstruction[] arrUsages = PhpControlFlowUtil.getFollowingVariableAccessInstructions(objEntryPoint, parameterName, false);
+            private void checkOneVariable(String parameterName, Function objScopeHolder) {
+                PhpAccessVariableInstruction[] arrUsages = DefUseChainsUtil.getChains(objScopeHolder).getAccesses(parameterName);
                 if (arrUsages.length == 0) {
                     return;
                 }
@@ -6,9 +6,7 @@ import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiWhiteSpace;
-import com.jetbrains.php.codeInsight.controlFlow.PhpControlFlowUtil;
 import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpAccessVariableInstruction;
-import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpEntryPointInstruction;
 import com.jetbrains.php.config.PhpLanguageFeature;
 import com.jetbrains.php.config.PhpLanguageLevel;
 import com.jetbrains.php.config.PhpProjectConfigurationFacade;
@@ -18,11 +16,13 @@ import com.jetbrains.php.lang.psi.resolve.types.PhpType;
 import com.jetbrains.php.refactoring.PhpRefactoringUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.DefUseChainsUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ReportedElementsRegistry;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.HashSet;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 public class ReferenceMismatchInspector extends BasePhpInspection {
     final static private String strErrorForeachIntoReference = "Probable bug: variable should be renamed to prevent writing into already existing reference";
@@ -49,12 +49,6 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
         legalizedMismatchingFunctions.add("method_exists");
     }
 
-    private final static ConcurrentHashMap<Function, HashSet<PsiElement>> reportedIssues = new ConcurrentHashMap<>();
-    private static HashSet<PsiElement> getFunctionReportingRegistry(Function key) {
-        reportedIssues.putIfAbsent(key, new HashSet<>());
-        return reportedIssues.get(key);
-    }
-
     @NotNull
     public String getShortName() {
         return "ReferenceMismatchInspection";
@@ -64,6 +58,9 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
         return new BasePhpElementVisitor() {
+            /* reported items per function: lives as long as the visitor, PSI is weakly referenced */
+            private final ReportedElementsRegistry reportedIssues = new ReportedElementsRegistry(64);
+
             /**
              * TODO: checkReferenceReturnedByCallable - ternary operator, argument usages ?
              */
@@ -90,10 +87,7 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
                 this.checkParameters(function.getParameters(), function);
             }
             private void checkParameters(Parameter[] arrParameters, Function objScopeHolder) {
-                PhpEntryPointInstruction objEntryPoint = objScopeHolder.getControlFlow().getEntryPoint();
-
-                HashSet<PsiElement> emptyReportedItemsRegistry =
-                        ReferenceMismatchInspector.getFunctionReportingRegistry(objScopeHolder);
+                Set<PsiElement> emptyReportedItemsRegistry = reportedIssues.getReported(objScopeHolder);
 
                 for (Parameter parameter : arrParameters) {
                     /* skip un-discoverable and non-reference parameters */
@@ -102,7 +96,7 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
                         continue;
                     }
 
-                    inspectScopeForReferenceMissUsages(objEntryPoint, strParameterName, emptyReportedItemsRegistry);
+                    inspectScopeForReferenceMissUsages(objScopeHolder, strParameterName, emptyReportedItemsRegistry);
                 }
 
                 emptyReportedItemsRegistry.clear();
@@ -136,8 +130,8 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
                         Function scope = ExpressionSemanticUtil.getScope(assignmentExpression);
                         if (null != scope) {
                             // report items, but ensure no duplicated messages
-                            HashSet<PsiElement> reportedItemsRegistry = ReferenceMismatchInspector.getFunctionReportingRegistry(scope);
-                            inspectScopeForReferenceMissUsages(scope.getControlFlow().getEntryPoint(), strVariable, reportedItemsRegistry);
+                            Set<PsiElement> reportedItemsRegistry = reportedIssues.getReported(scope);
+                            inspectScopeForReferenceMissUsages(scope, strVariable, reportedItemsRegistry);
                         }
                     }
                 }
@@ -188,9 +182,9 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
                         Function scope = ExpressionSemanticUtil.getScope(foreach);
                         if (null != scope) {
                             // report items, but ensure no duplicated messages
-                            HashSet<PsiElement> reportedItemsRegistry = ReferenceMismatchInspector.getFunctionReportingRegistry(scope);
+                            Set<PsiElement> reportedItemsRegistry = reportedIssues.getReported(scope);
                             reportedItemsRegistry.add(objForeachValue);
-                            inspectScopeForReferenceMissUsages(scope.getControlFlow().getEntryPoint(), strVariable, reportedItemsRegistry);
+                            inspectScopeForReferenceMissUsages(scope, strVariable, reportedItemsRegistry);
                         }
                     }
                 }
@@ -198,12 +192,12 @@ public class ReferenceMismatchInspector extends BasePhpInspection {
 
 
             private void inspectScopeForReferenceMissUsages(
-                    PhpEntryPointInstruction objEntryPoint,
+                    Function scope,
                     String strParameterName,
-                    HashSet<PsiElement> reportedItemsRegistry
+                    Set<PsiElement> reportedItemsRegistry
             ) {
                 /* find usage inside scope */
-                PhpAccessVariableInstruction[] arrUsages = PhpControlFlowUtil.getFollowingVariableAccessInstructions(objEntryPoint, strParameterName, false);
+                PhpAccessVariableInstruction[] arrUsages = DefUseChainsUtil.getChains(scope).getAccesses(strParameterName);
                 for (PhpAccessVariableInstruction objInstruction : arrUsages) {
                     PsiElement objExpression = objInstruction.getAnchor().getParent();
 
@@ -5,18 +5,18 @@ import com.intellij.codeInspection.ProblemsHolder;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiElementVisitor;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.php.lang.psi.elements.Field;
 import com.jetbrains.php.lang.psi.elements.FieldReference;
 import com.jetbrains.php.lang.psi.elements.Method;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import com.jetbrains.php.lang.psi.visitors.PhpElementVisitor;
 import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.FileFactsUtil;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 
 public class UnusedConstructorDependenciesInspector extends BasePhpInspection {
     private static final String message = "Property is used only in constructor, perhaps we are dealing with dead code here";
@@ -60,7 +60,7 @@ public class UnusedConstructorDependenciesInspector extends BasePhpInspection {
                     return filteredReferences;
                 }
 
-                final Collection<FieldReference> references = PsiTreeUtil.findChildrenOfType(method, FieldReference.class);
+                final List<FieldReference> references = FileFactsUtil.findFieldReferences(method);
                 if (references.size() > 0) {
                     for (FieldReference ref : references) {
                         /* if field name not in given list, skip heavy resolving */
@@ -81,8 +81,6 @@ public class UnusedConstructorDependenciesInspector extends BasePhpInspection {
                         }
                         filteredReferences.get(fieldName).add(ref);
                     }
-
-                    references.clear();
                 }
 
                 return filteredReferences;
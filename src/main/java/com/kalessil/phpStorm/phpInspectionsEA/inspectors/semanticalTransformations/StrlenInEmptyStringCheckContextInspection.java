@@ -16,6 +16,10 @@ import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpInspection;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.strategy.ClassInStringContextStrategy;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Collections;
 
 public class StrlenInEmptyStringCheckContextInspection extends BasePhpInspection {
     private static final String strProblemDescription                      = "Can be replaced by comparing with empty string";
@@ -27,6 +31,12 @@ public class StrlenInEmptyStringCheckContextInspection extends BasePhpInspection
         return "StrlenInEmptyStringCheckContextInspection";
     }
 
+    @Override
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return Collections.singletonList("strlen");
+    }
+
     @Override
     @NotNull
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
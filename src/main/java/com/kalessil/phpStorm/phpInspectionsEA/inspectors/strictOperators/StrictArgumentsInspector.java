@@ -62,11 +62,11 @@ public class StrictArgumentsInspector extends BasePhpInspection {
             private void inspectArguments(final PsiElement[] args, final Parameter[] params) {
                 final int length = Math.min(args.length, params.length);
                 for (int i = 0; i < length; ++i) {
-                    PhpExpressionTypes argType = new PhpExpressionTypes(args[i], holder);
+                    PhpExpressionTypes argType = PhpExpressionTypes.of(args[i], holder);
                     if (argType.isUnknown() && (args[i] instanceof Variable)) {
-                        argType = new PhpExpressionTypes(((Variable) args[i]).getType().toString(), holder);
+                        argType = PhpExpressionTypes.of(((Variable) args[i]).getType().toString(), holder);
                     }
-                    final PhpExpressionTypes paramType = new PhpExpressionTypes(params[i].getType().toString(), holder);
+                    final PhpExpressionTypes paramType = PhpExpressionTypes.of(params[i].getType().toString(), holder);
 
                     if (!paramType.isMixed()
                             && !argType.equals(paramType)
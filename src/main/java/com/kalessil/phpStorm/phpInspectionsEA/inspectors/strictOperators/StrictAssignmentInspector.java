@@ -22,8 +22,8 @@ public class StrictAssignmentInspector extends BasePhpInspection {
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
         return new BasePhpElementVisitor() {
             public void visitPhpAssignmentExpression(final AssignmentExpression expr) {
-                final PhpExpressionTypes varT = new PhpExpressionTypes(expr.getVariable(), holder);
-                final PhpExpressionTypes valueT = new PhpExpressionTypes(expr.getValue(), holder);
+                final PhpExpressionTypes varT = PhpExpressionTypes.of(expr.getVariable(), holder);
+                final PhpExpressionTypes valueT = PhpExpressionTypes.of(expr.getValue(), holder);
                 if (varT.isMixed() || varT.equals(valueT) || valueT.instanceOf(varT)) {
                     return;
                 }
@@ -31,8 +31,8 @@ public class StrictComparisonInspector extends BasePhpInspection {
 
                 /* TODO: .getOperation().getNode().getElementType() + PhpTokenTypes.op* */
                 if (operation.equals("<") || operation.equals("<=") || operation.equals(">") || operation.equals(">=") || operation.equals("<=>")) {
-                    final PhpExpressionTypes leftT = new PhpExpressionTypes(expr.getLeftOperand(), holder);
-                    final PhpExpressionTypes rightT = new PhpExpressionTypes(expr.getRightOperand(), holder);
+                    final PhpExpressionTypes leftT = PhpExpressionTypes.of(expr.getLeftOperand(), holder);
+                    final PhpExpressionTypes rightT = PhpExpressionTypes.of(expr.getRightOperand(), holder);
                     inspectBinaryComparison(expr, leftT, rightT);
                 }
             }
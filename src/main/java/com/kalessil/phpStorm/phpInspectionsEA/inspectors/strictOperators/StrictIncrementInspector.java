@@ -30,7 +30,7 @@ public class StrictIncrementInspector extends BasePhpInspection {
 
                 /* TODO: .getOperation().getNode().getElementType() + PhpTokenTypes.op* */
                 if (operation.equals("++") || operation.equals("--")) {
-                    final PhpExpressionTypes type = new PhpExpressionTypes(expr, holder);
+                    final PhpExpressionTypes type = PhpExpressionTypes.of(expr, holder);
                     inspectUnaryIncrement(expr, type);
                 }
             }
@@ -32,8 +32,8 @@ public class StrictLogicalInspector extends BasePhpInspection {
 
                 /* TODO: .getOperation().getNode().getElementType() + PhpTokenTypes.op* */
                 if (operation.equals("&&") || operation.equals("and") || operation.equals("||") || operation.equals("or") || operation.equals("xor")) {
-                    final PhpExpressionTypes leftT = new PhpExpressionTypes(expr.getLeftOperand(), holder);
-                    final PhpExpressionTypes rightT = new PhpExpressionTypes(expr.getRightOperand(), holder);
+                    final PhpExpressionTypes leftT = PhpExpressionTypes.of(expr.getLeftOperand(), holder);
+                    final PhpExpressionTypes rightT = PhpExpressionTypes.of(expr.getRightOperand(), holder);
                     inspectBinaryLogical(expr, leftT, rightT);
                 }
             }
@@ -47,8 +47,8 @@ public class StrictLogicalInspector extends BasePhpInspection {
 
                 /* TODO: .getOperation().getNode().getElementType() + PhpTokenTypes.op* */
                 if (operation.equals("&&=") || operation.equals("||=")) {
-                    final PhpExpressionTypes leftT = new PhpExpressionTypes(expr.getFirstPsiChild(), holder);
-                    final PhpExpressionTypes rightT = new PhpExpressionTypes(expr.getValue(), holder);
+                    final PhpExpressionTypes leftT = PhpExpressionTypes.of(expr.getFirstPsiChild(), holder);
+                    final PhpExpressionTypes rightT = PhpExpressionTypes.of(expr.getValue(), holder);
                     inspectBinaryLogical(expr, leftT, rightT);
                 }
             }
@@ -22,8 +22,8 @@ public class StrictTernaryInspector extends BasePhpInspection {
     public PsiElementVisitor buildVisitor(@NotNull final ProblemsHolder holder, boolean isOnTheFly) {
         return new BasePhpElementVisitor() {
             public void visitPhpTernaryExpression(final TernaryExpression expr) {
-                final PhpExpressionTypes firstT = new PhpExpressionTypes(expr.getTrueVariant(), holder);
-                final PhpExpressionTypes secondT = new PhpExpressionTypes(expr.getFalseVariant(), holder);
+                final PhpExpressionTypes firstT = PhpExpressionTypes.of(expr.getTrueVariant(), holder);
+                final PhpExpressionTypes secondT = PhpExpressionTypes.of(expr.getFalseVariant(), holder);
                 if (firstT.equals(secondT)) {
                     return;
                 }
@@ -31,7 +31,7 @@ public class StrictUnaryPlusInspector extends BasePhpInspection {
                     return;
                 }
 
-                final PhpExpressionTypes type = new PhpExpressionTypes(expr, holder);
+                final PhpExpressionTypes type = PhpExpressionTypes.of(expr, holder);
 
                 final String strWarning = strProblemDescriptionUnaryPlus
                         .replace("%t%", type.toString());
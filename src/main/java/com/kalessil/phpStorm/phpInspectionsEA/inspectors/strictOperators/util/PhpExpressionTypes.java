@@ -1,78 +1,134 @@
 package com.kalessil.phpStorm.phpInspectionsEA.inspectors.strictOperators.util;
 
 import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.project.Project;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.psi.elements.Function;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.PhpTypeSet;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.TypeFromPsiResolvingUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.Types;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PhpExpressionTypes {
-    private final HashSet<String> types = new HashSet<>();
+    /* types of the strict operators are checked on every binary expression: kept compact and allocation-free */
+    private PhpTypeSet types;
     private boolean isMixed;
+    private final Project project;
     private final PhpIndex objIndex;
-    final static private String strTypeObject = "object";
-    final static private String strTypeStatic = "static";
-    final static private String strTypeTrue = "true";
-    final static private String strTypeFalse = "false";
-    final static private String strTypeNumber = "number";
     final static private String strTypeArrayAccess = "\\ArrayAccess";
 
-    public PhpExpressionTypes(final PsiElement expr, @NotNull final ProblemsHolder holder) {
-        objIndex = PhpIndex.getInstance(holder.getProject());
+    /* operands are shared by all strict operator inspections: types are resolved once per PSI revision */
+    private static final CachedValueProvider<ConcurrentHashMap<PsiElement, PhpExpressionTypes>> expressionsProvider =
+        new CachedValueProvider<ConcurrentHashMap<PsiElement, PhpExpressionTypes>>() {
+            @Nullable
+            @Override
+            public Result<ConcurrentHashMap<PsiElement, PhpExpressionTypes>> compute() {
+                return Result.create(new ConcurrentHashMap<PsiElement, PhpExpressionTypes>(), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        };
+    private static final CachedValueProvider<ConcurrentHashMap<String, PhpExpressionTypes>> signaturesProvider =
+        new CachedValueProvider<ConcurrentHashMap<String, PhpExpressionTypes>>() {
+            @Nullable
+            @Override
+            public Result<ConcurrentHashMap<String, PhpExpressionTypes>> compute() {
+                return Result.create(new ConcurrentHashMap<String, PhpExpressionTypes>(), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        };
+
+    /** types of the expression, computed once per file revision for all strict operator inspections */
+    @NotNull
+    public static PhpExpressionTypes of(@Nullable final PsiElement expr, @NotNull final ProblemsHolder holder) {
+        final PsiFile file = null == expr ? null : expr.getContainingFile();
+        if (null == file) {
+            return new PhpExpressionTypes(expr, holder);
+        }
+
+        final ConcurrentHashMap<PsiElement, PhpExpressionTypes> cache = CachedValuesManager.getCachedValue(file, expressionsProvider);
+        final PhpExpressionTypes cached = cache.get(expr);
+        if (null != cached) {
+            return cached;
+        }
+
+        final PhpExpressionTypes types = new PhpExpressionTypes(expr, holder);
+        final PhpExpressionTypes raced = cache.putIfAbsent(expr, types);
+        return null == raced ? types : raced;
+    }
+
+    /** types of the signature (e.g. declared parameter types), shared in the project */
+    @NotNull
+    public static PhpExpressionTypes of(@NotNull final String strTypes, @NotNull final ProblemsHolder holder) {
+        final Project project = holder.getProject();
+        final ConcurrentHashMap<String, PhpExpressionTypes> cache
+                = CachedValuesManager.getManager(project).getCachedValue(project, signaturesProvider);
+        final PhpExpressionTypes cached = cache.get(strTypes);
+        if (null != cached) {
+            return cached;
+        }
+
+        final PhpExpressionTypes types = new PhpExpressionTypes(strTypes, holder);
+        final PhpExpressionTypes raced = cache.putIfAbsent(strTypes, types);
+        return null == raced ? types : raced;
+    }
+
+    private PhpExpressionTypes(final PsiElement expr, @NotNull final ProblemsHolder holder) {
+        project  = holder.getProject();
+        objIndex = PhpIndex.getInstance(project);
 
         if (expr != null) {
             final Function objScope = ExpressionSemanticUtil.getScope(expr);
-            TypeFromPsiResolvingUtil.resolveExpressionType(expr, objScope, objIndex, types);
+            types = TypeFromPsiResolvingUtil.resolveExpressionTypes(expr, objScope, objIndex)
+                    .withoutClass(Types.strResolvingAbortedOnPsiLevel)
+                    .withoutClass(Types.strClassNotResolved);
+        } else {
+            types = PhpTypeSet.EMPTY;
         }
 
-        types.remove(Types.strResolvingAbortedOnPsiLevel);
-        types.remove(Types.strClassNotResolved);
-
         checkTypes();
     }
 
-    public PhpExpressionTypes(@NotNull final String strTypes, @NotNull final ProblemsHolder holder) {
-        objIndex = PhpIndex.getInstance(holder.getProject());
+    private PhpExpressionTypes(@NotNull final String strTypes, @NotNull final ProblemsHolder holder) {
+        project  = holder.getProject();
+        objIndex = PhpIndex.getInstance(project);
 
         if ((strTypes.indexOf('?') >= 0) || (strTypes.indexOf('#') >= 0)) {
-            types.add(Types.strMixed);
+            types = PhpTypeSet.EMPTY.with(PhpTypeSet.MIXED);
         } else {
-            for (final String str : strTypes.split("\\|")) {
-                if (!str.isEmpty()) {
-                    types.add(Types.getType(str));
-                }
-            }
+            types = PhpTypeSet.parse(project, strTypes);
         }
 
         checkTypes();
     }
 
     private void checkTypes() {
-        if (types.contains(Types.strCallable)) {
-            types.add(Types.strString);
+        if (types.contains(PhpTypeSet.CALLABLE)) {
+            types = types.with(PhpTypeSet.STRING);
         }
-        if (types.contains(strTypeStatic)) {
-            types.add(strTypeObject);
+        if (types.contains(PhpTypeSet.STATIC)) {
+            types = types.with(PhpTypeSet.OBJECT);
         }
-        if (types.contains(strTypeTrue) || types.contains(strTypeFalse)) {
-            types.add(Types.strBoolean);
+        if (types.contains(PhpTypeSet.TRUE | PhpTypeSet.FALSE)) {
+            types = types.with(PhpTypeSet.BOOLEAN);
         }
-        if (types.contains(strTypeNumber)) {
-            types.add(Types.strInteger);
-            types.add(Types.strFloat);
+        if (types.contains(PhpTypeSet.NUMBER)) {
+            types = types.with(PhpTypeSet.INTEGER | PhpTypeSet.FLOAT);
         }
         if (types.isEmpty()) {
-            types.add(Types.strMixed);
+            types = types.with(PhpTypeSet.MIXED);
         }
 
-        isMixed = types.contains(Types.strMixed);
+        isMixed = types.contains(PhpTypeSet.MIXED);
     }
 
     public boolean equals(@NotNull final PhpExpressionTypes another) {
@@ -83,35 +139,21 @@ public class PhpExpressionTypes {
             return true;
         }
 
-        final HashSet<String> copy = new HashSet<>(types);
-        copy.retainAll(another.types);
-        return !copy.isEmpty();
-
+        return types.intersects(another.types);
     }
 
     public String toString() {
-        switch (types.size()) {
-            case 0:
-                return "unknown";
-            case 1:
-                return types.iterator().next();
-            default:
-                final StringBuilder sb = new StringBuilder();
-                for (final String s : types) {
-                    sb.append(s);
-                    sb.append('|');
-                }
-                return sb.delete(sb.length() - 1, sb.length()).toString();
-        }
+        return types.isEmpty() ? "unknown" : types.toString();
     }
 
     public boolean contains(final String type) {
-        return types.contains(type);
+        final PhpTypeSet needle = PhpTypeSet.parse(project, type);
+        return !needle.isEmpty() && types.containsAll(needle);
     }
 
     public boolean instanceOf(final PhpExpressionTypes base) {
-        final boolean instanceOfObject = base.types.contains(strTypeObject);
-        for (final String type1 : types) {
+        final boolean instanceOfObject = base.types.contains(PhpTypeSet.OBJECT);
+        for (final String type1 : types.getClasses()) {
             if (type1.charAt(0) == '\\') {
                 if (instanceOfObject) {
                     return true;
@@ -120,7 +162,7 @@ public class PhpExpressionTypes {
                 final HashSet<String> extendsList = new HashSet<>();
                 getParentsList(type1, extendsList);
 
-                for (final String type2 : base.types) {
+                for (final String type2 : base.types.getClasses()) {
                     if (type2.charAt(0) == '\\') {
                         if (extendsList.contains(type2)) {
                             return true;
@@ -133,31 +175,31 @@ public class PhpExpressionTypes {
     }
 
     public boolean isInt() {
-        return isMixed || types.contains(Types.strInteger);
+        return isMixed || types.contains(PhpTypeSet.INTEGER);
     }
 
     public boolean isFloat() {
-        return isMixed || types.contains(Types.strFloat);
+        return isMixed || types.contains(PhpTypeSet.FLOAT);
     }
 
     public boolean isNumeric() {
-        return isMixed || types.contains(Types.strInteger) || types.contains(Types.strFloat);
+        return isMixed || types.contains(PhpTypeSet.INTEGER | PhpTypeSet.FLOAT);
     }
 
     public boolean isString() {
-        return isMixed || types.contains(Types.strString);
+        return isMixed || types.contains(PhpTypeSet.STRING);
     }
 
     public boolean isBoolean() {
-        return isMixed || types.contains(Types.strBoolean);
+        return isMixed || types.contains(PhpTypeSet.BOOLEAN);
     }
 
     public boolean isArray() {
-        return isMixed || types.contains(Types.strArray);
+        return isMixed || types.contains(PhpTypeSet.ARRAY);
     }
 
     public boolean isNull() {
-        return isMixed || types.contains(Types.strNull);
+        return isMixed || types.contains(PhpTypeSet.NULL);
     }
 
     public boolean isMixed() {
@@ -169,19 +211,21 @@ public class PhpExpressionTypes {
     }
 
     public boolean isObject() {
-        if (types.contains(strTypeObject)) {
+        if (types.contains(PhpTypeSet.OBJECT)) {
             return true;
         }
-        for (final String type : types) {
-            if (type.charAt(0) == '\\') {
-                return true;
+        if (types.hasClasses()) {
+            for (final String type : types.getClasses()) {
+                if (type.charAt(0) == '\\') {
+                    return true;
+                }
             }
         }
         return false;
     }
 
     public boolean isArrayAccess() {
-        for (final String type : types) {
+        for (final String type : types.getClasses()) {
             if (type.charAt(0) == '\\') {
                 final HashSet<String> extendsList = new HashSet<>();
                 getParentsList(type, extendsList);
@@ -194,7 +238,7 @@ public class PhpExpressionTypes {
     }
 
     public boolean isTrait() {
-        for (final String type : types) {
+        for (final String type : types.getClasses()) {
             if (type.charAt(0) == '\\') {
                 for (PhpClass typeClass : objIndex.getAnyByFQN(type)) {
                     if (typeClass.isTrait()) {
@@ -1,6 +1,29 @@
 package com.kalessil.phpStorm.phpInspectionsEA.openApi;
 
+import com.intellij.codeInspection.LocalInspectionToolSession;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElementVisitor;
 import com.jetbrains.php.lang.inspections.PhpInspection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
 
 public abstract class BasePhpInspection extends PhpInspection {
+    /**
+     * Names of functions visitPhpFunctionCall is interested in, used for routing function calls in batch runs.
+     * Null means that any function call can be reported.
+     */
+    @Nullable
+    public Collection<String> getTargetFunctions() {
+        return null;
+    }
+
+    /** highlighting and batch runs are building visitors here, so it's the single place to instrument them */
+    @NotNull
+    @Override
+    public PsiElementVisitor buildVisitor(@NotNull ProblemsHolder holder, boolean isOnTheFly, @NotNull LocalInspectionToolSession session) {
+        final PsiElementVisitor visitor = super.buildVisitor(holder, isOnTheFly, session);
+        return InspectionsProfiler.isEnabled() ? new ProfilingPhpElementVisitor(visitor, getShortName()) : visitor;
+    }
 }
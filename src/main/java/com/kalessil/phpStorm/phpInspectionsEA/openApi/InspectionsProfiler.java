@@ -0,0 +1,165 @@
+package com.kalessil.phpStorm.phpInspectionsEA.openApi;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Collects wall time, invocations count and allocated bytes per inspection and visited element type.
+ *
+ * When disabled, visitors are not instrumented at all: the only cost is checking the flag in buildVisitor.
+ * Enabling affects visitors built afterwards, so statistics are appearing with the next highlighting pass.
+ */
+final public class InspectionsProfiler {
+    private static volatile boolean enabled = false;
+    private static final ConcurrentHashMap<String, ConcurrentHashMap<String, Counters>> statistics = new ConcurrentHashMap<>();
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final boolean isAllocationSupported
+            = threads instanceof com.sun.management.ThreadMXBean &&
+              ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+
+    static class Counters {
+        final LongAdder invocations = new LongAdder();
+        final LongAdder nanos       = new LongAdder();
+        final LongAdder bytes       = new LongAdder();
+
+        void record(long spentNanos, long allocatedBytes) {
+            invocations.increment();
+            nanos.add(spentNanos);
+            bytes.add(allocatedBytes);
+        }
+    }
+
+    /** immutable statistics row */
+    public static class Entry {
+        public final String inspection;
+        public final String element;
+        public final long invocations;
+        public final long nanos;
+        public final long bytes;
+
+        Entry(@NotNull String inspection, @NotNull String element, long invocations, long nanos, long bytes) {
+            this.inspection  = inspection;
+            this.element     = element;
+            this.invocations = invocations;
+            this.nanos       = nanos;
+            this.bytes       = bytes;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean isEnabled) {
+        enabled = isEnabled;
+    }
+
+    public static void reset() {
+        statistics.clear();
+    }
+
+    @NotNull
+    static Counters getCounters(@NotNull String inspection, @NotNull String element) {
+        ConcurrentHashMap<String, Counters> perElement = statistics.get(inspection);
+        if (null == perElement) {
+            statistics.putIfAbsent(inspection, new ConcurrentHashMap<String, Counters>());
+            perElement = statistics.get(inspection);
+        }
+
+        Counters counters = perElement.get(element);
+        if (null == counters) {
+            perElement.putIfAbsent(element, new Counters());
+            counters = perElement.get(element);
+        }
+
+        return counters;
+    }
+
+    /** allocated by the current thread so far, 0 if JVM is not supporting the measurement */
+    static long getAllocatedBytes() {
+        return isAllocationSupported ? ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    /** rows per inspection and visited element, sorted by time spent */
+    @NotNull
+    public static List<Entry> getSnapshot(boolean groupByInspection) {
+        final List<Entry> entries = new ArrayList<>();
+        for (Map.Entry<String, ConcurrentHashMap<String, Counters>> inspection : statistics.entrySet()) {
+            long invocations = 0, nanos = 0, bytes = 0;
+            for (Map.Entry<String, Counters> element : inspection.getValue().entrySet()) {
+                final Counters counters = element.getValue();
+                if (groupByInspection) {
+                    invocations += counters.invocations.sum();
+                    nanos       += counters.nanos.sum();
+                    bytes       += counters.bytes.sum();
+                } else {
+                    entries.add(new Entry(inspection.getKey(), element.getKey(), counters.invocations.sum(), counters.nanos.sum(), counters.bytes.sum()));
+                }
+            }
+            if (groupByInspection) {
+                entries.add(new Entry(inspection.getKey(), "*", invocations, nanos, bytes));
+            }
+        }
+
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry first, Entry second) {
+                return Long.compare(second.nanos, first.nanos);
+            }
+        });
+
+        return entries;
+    }
+
+    /** inspection short names and element types are identifiers, so no escaping is needed */
+    @NotNull
+    public static String toJson() {
+        final StringBuilder json = new StringBuilder("{\n  \"allocationMeasured\": ").append(isAllocationSupported).append(",\n  \"inspections\": [");
+
+        String currentInspection = null;
+        for (Entry entry : sortByInspection(getSnapshot(false))) {
+            if (!entry.inspection.equals(currentInspection)) {
+                json.append(null == currentInspection ? "\n" : "\n    ]},\n")
+                    .append("    {\"name\": \"").append(entry.inspection).append("\", \"visits\": [");
+                currentInspection = entry.inspection;
+            } else {
+                json.append(',');
+            }
+            json.append("\n      {\"element\": \"").append(entry.element)
+                .append("\", \"invocations\": ").append(entry.invocations)
+                .append(", \"nanos\": ").append(entry.nanos)
+                .append(", \"bytes\": ").append(entry.bytes).append('}');
+        }
+        json.append(null == currentInspection ? "]\n}\n" : "\n    ]}\n  ]\n}\n");
+
+        return json.toString();
+    }
+
+    @NotNull
+    private static List<Entry> sortByInspection(@NotNull List<Entry> entries) {
+        /* stable sort: elements are remaining ordered by time spent */
+        Collections.sort(entries, new Comparator<Entry>() {
+            @Override
+            public int compare(Entry first, Entry second) {
+                return first.inspection.compareTo(second.inspection);
+            }
+        });
+
+        return entries;
+    }
+}
@@ -0,0 +1,197 @@
+package com.kalessil.phpStorm.phpInspectionsEA.openApi;
+
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.jetbrains.php.lang.psi.elements.FunctionReference;
+import com.jetbrains.php.lang.psi.elements.MethodReference;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Walks PSI tree once and fans each element out only to visitors which are interested in it.
+ *
+ * Interest is derived from visit-methods overridden in BasePhpElementVisitor descendants: element can only reach
+ * an overridden visitPhpXxx(T) if it is an instance of T. Other visitors are receiving everything.
+ *
+ * Function calls are additionally routed by lower-cased name, if the visitor declared functions it is targeting.
+ */
+public class MultiplexedPhpElementVisitor extends PsiElementVisitor {
+    private static final Class<?>[] everything = new Class<?>[]{PsiElement.class};
+    private static final ConcurrentHashMap<Class<?>, Class<?>[]> interestsCache = new ConcurrentHashMap<>();
+
+    private final List<PsiElementVisitor> visitors          = new ArrayList<>();
+    private final List<Class<?>[]> interests                = new ArrayList<>();
+    private final List<Boolean> routedByName                = new ArrayList<>();
+    private final HashMap<String, int[]> functionsRouting   = new HashMap<>();
+    private final HashMap<Class<?>, int[]> dispatchTable    = new HashMap<>();
+
+    public void register(@NotNull PsiElementVisitor visitor) {
+        register(visitor, null);
+    }
+
+    /** functions: names visitPhpFunctionCall is interested in, null if the visitor needs all calls */
+    public void register(@NotNull PsiElementVisitor visitor, @Nullable Collection<String> functions) {
+        /* profiled visitors are dispatching to the wrapped one, which defines interests */
+        final PsiElementVisitor target
+                = visitor instanceof ProfilingPhpElementVisitor ? ((ProfilingPhpElementVisitor) visitor).getVisitor() : visitor;
+
+        final int index             = visitors.size();
+        final Class<?>[] types      = getInterests(target.getClass());
+        final boolean isRoutable    = null != functions && isRoutableByName(types);
+
+        visitors.add(visitor);
+        interests.add(types);
+        routedByName.add(isRoutable);
+        if (isRoutable) {
+            for (String function : functions) {
+                final String key      = function.toLowerCase();
+                final int[] existing  = functionsRouting.get(key);
+                final int[] extended  = null == existing ? new int[1] : Arrays.copyOf(existing, existing.length + 1);
+                extended[extended.length - 1] = index;
+                functionsRouting.put(key, extended);
+            }
+        }
+        dispatchTable.clear();
+    }
+
+    /** visits the file and all its children, each element dispatched to interested visitors only */
+    public void walk(@NotNull PsiFile file) {
+        file.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(PsiElement element) {
+                MultiplexedPhpElementVisitor.this.visitElement(element);
+                super.visitElement(element);
+            }
+        });
+    }
+
+    @Override
+    public void visitElement(PsiElement element) {
+        for (int index : getTargets(element.getClass())) {
+            dispatch(element, index);
+        }
+
+        /* function calls: deliver to visitors targeting the function only */
+        if (!functionsRouting.isEmpty() && isFunctionCall(element.getClass())) {
+            final String name    = ((FunctionReference) element).getName();
+            final int[] targets  = null == name ? null : functionsRouting.get(name.toLowerCase());
+            if (null != targets) {
+                for (int index : targets) {
+                    dispatch(element, index);
+                }
+            }
+        }
+    }
+
+    private void dispatch(@NotNull PsiElement element, int index) {
+        final PsiElementVisitor visitor = visitors.get(index);
+        try {
+            element.accept(visitor);
+        } catch (ProcessCanceledException cancelled) {
+            throw cancelled;
+        } catch (RuntimeException failure) {
+            onFailure(visitor, element, failure);
+        }
+    }
+
+    /** failures are isolated per visitor: one broken inspection should not prevent others from running */
+    protected void onFailure(@NotNull PsiElementVisitor visitor, @NotNull PsiElement element, @NotNull RuntimeException failure) {
+        throw failure;
+    }
+
+    @NotNull
+    private int[] getTargets(@NotNull Class<?> elementClass) {
+        int[] targets = dispatchTable.get(elementClass);
+        if (null == targets) {
+            final boolean isFunctionCall = isFunctionCall(elementClass);
+            final List<Integer> matched  = new ArrayList<>();
+            for (int index = 0; index < interests.size(); ++index) {
+                /* function calls are delivered to such visitors via the routing table */
+                if (isFunctionCall && routedByName.get(index)) {
+                    continue;
+                }
+
+                for (Class<?> type : interests.get(index)) {
+                    if (type.isAssignableFrom(elementClass)) {
+                        matched.add(index);
+                        break;
+                    }
+                }
+            }
+
+            targets = new int[matched.size()];
+            for (int index = 0; index < targets.length; ++index) {
+                targets[index] = matched.get(index);
+            }
+            dispatchTable.put(elementClass, targets);
+        }
+
+        return targets;
+    }
+
+    private static boolean isFunctionCall(@NotNull Class<?> elementClass) {
+        return FunctionReference.class.isAssignableFrom(elementClass) && !MethodReference.class.isAssignableFrom(elementClass);
+    }
+
+    /** name routing is safe only if function calls can reach the visitor via visitPhpFunctionCall exclusively */
+    private static boolean isRoutableByName(@NotNull Class<?>[] types) {
+        for (Class<?> type : types) {
+            if (type != FunctionReference.class && type.isAssignableFrom(FunctionReference.class)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @NotNull
+    static Class<?>[] getInterests(@NotNull Class<?> visitorClass) {
+        Class<?>[] types = interestsCache.get(visitorClass);
+        if (null == types) {
+            types = collectInterests(visitorClass);
+            interestsCache.putIfAbsent(visitorClass, types);
+        }
+
+        return types;
+    }
+
+    @NotNull
+    private static Class<?>[] collectInterests(@NotNull Class<?> visitorClass) {
+        /* unknown dispatching logic, deliver everything */
+        if (!BasePhpElementVisitor.class.isAssignableFrom(visitorClass)) {
+            return everything;
+        }
+
+        final LinkedHashSet<Class<?>> types = new LinkedHashSet<>();
+        for (Class<?> current = visitorClass; current != BasePhpElementVisitor.class; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                final Class<?>[] parameters = method.getParameterTypes();
+                if (
+                    parameters.length == 1 && !method.isSynthetic() &&
+                    method.getName().startsWith("visit") && PsiElement.class.isAssignableFrom(parameters[0])
+                ) {
+                    /* visitElement(PsiElement) naturally makes the visitor interested in everything */
+                    types.add(parameters[0]);
+                }
+            }
+        }
+
+        return types.toArray(new Class<?>[types.size()]);
+    }
+}
@@ -0,0 +1,75 @@
+package com.kalessil.phpStorm.phpInspectionsEA.openApi;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Receives every element (it's not a PhpElementVisitor) and re-dispatches it to the wrapped visitor, measuring
+ * the visit. Elements the wrapped visitor has no visit-method for are skipped, as MultiplexedPhpElementVisitor does.
+ */
+final class ProfilingPhpElementVisitor extends PsiElementVisitor {
+    private static final InspectionsProfiler.Counters notInterested = new InspectionsProfiler.Counters();
+
+    private final PsiElementVisitor visitor;
+    private final String inspection;
+    private final Class<?>[] interests;
+    private final HashMap<Class<?>, InspectionsProfiler.Counters> counters = new HashMap<>();
+
+    ProfilingPhpElementVisitor(@NotNull PsiElementVisitor visitor, @NotNull String inspection) {
+        this.visitor    = visitor;
+        this.inspection = inspection;
+        this.interests  = MultiplexedPhpElementVisitor.getInterests(visitor.getClass());
+    }
+
+    @NotNull
+    PsiElementVisitor getVisitor() {
+        return visitor;
+    }
+
+    @Override
+    public void visitElement(PsiElement element) {
+        final InspectionsProfiler.Counters target = getCounters(element.getClass());
+        if (target == notInterested) {
+            return;
+        }
+
+        final long bytes = InspectionsProfiler.getAllocatedBytes();
+        final long start = System.nanoTime();
+        try {
+            element.accept(visitor);
+        } finally {
+            target.record(System.nanoTime() - start, InspectionsProfiler.getAllocatedBytes() - bytes);
+        }
+    }
+
+    @NotNull
+    private InspectionsProfiler.Counters getCounters(@NotNull Class<?> elementClass) {
+        InspectionsProfiler.Counters target = counters.get(elementClass);
+        if (null == target) {
+            /* the most specific type among matching visit-methods names the statistics row */
+            Class<?> visited = null;
+            for (Class<?> type : interests) {
+                if (type.isAssignableFrom(elementClass) && (null == visited || visited.isAssignableFrom(type))) {
+                    visited = type;
+                }
+            }
+
+            target = null == visited ? notInterested : InspectionsProfiler.getCounters(inspection, visited.getSimpleName());
+            counters.put(elementClass, target);
+        }
+
+        return target;
+    }
+}
@@ -0,0 +1,214 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpAccessVariableInstruction;
+import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpInstruction;
+import com.jetbrains.php.lang.psi.elements.Function;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Variables accesses of a function, built from its control flow in one pass and cached until the file is modified.
+ *
+ * Replaces PhpControlFlowUtil.getFollowingVariableAccessInstructions(entryPoint, name, false), which is walking
+ * the complete control flow for every variable. Def-use and use-def chains are computed on demand, per access.
+ */
+final public class DefUseChainsUtil {
+    private static final Key<CachedValue<Chains>> chainsKey        = Key.create("EA.DefUseChains");
+    private static final PhpAccessVariableInstruction[] noAccesses = new PhpAccessVariableInstruction[0];
+
+    public static class Chains {
+        private final HashMap<String, PhpAccessVariableInstruction[]> accesses;
+        private final ConcurrentHashMap<PhpAccessVariableInstruction, PhpAccessVariableInstruction[]> reachingWrites = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<PhpAccessVariableInstruction, PhpAccessVariableInstruction[]> reachedReads   = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<PhpAccessVariableInstruction, Boolean> reachedUnassigned                     = new ConcurrentHashMap<>();
+
+        Chains(@NotNull HashMap<String, PhpAccessVariableInstruction[]> accesses) {
+            this.accesses = accesses;
+        }
+
+        /** accesses reachable from the entry point, in control flow instructions order */
+        @NotNull
+        public PhpAccessVariableInstruction[] getAccesses(@NotNull String variableName) {
+            final PhpAccessVariableInstruction[] result = accesses.get(variableName);
+            return null == result ? noAccesses : result;
+        }
+
+        public int countWrites(@NotNull String variableName) {
+            int writes = 0;
+            for (PhpAccessVariableInstruction access : getAccesses(variableName)) {
+                writes += access.getAccess().isWrite() ? 1 : 0;
+            }
+
+            return writes;
+        }
+
+        /** use-def: writes which value can be observed by the access */
+        @NotNull
+        public PhpAccessVariableInstruction[] getReachingWrites(@NotNull PhpAccessVariableInstruction read) {
+            PhpAccessVariableInstruction[] writes = reachingWrites.get(read);
+            if (null == writes) {
+                writes = collect(read, false);
+                reachingWrites.putIfAbsent(read, writes);
+            }
+
+            return writes;
+        }
+
+        /** def-use: reads observing the value written by the access */
+        @NotNull
+        public PhpAccessVariableInstruction[] getReachedReads(@NotNull PhpAccessVariableInstruction write) {
+            PhpAccessVariableInstruction[] reads = reachedReads.get(write);
+            if (null == reads) {
+                reads = collect(write, true);
+                reachedReads.putIfAbsent(write, reads);
+            }
+
+            return reads;
+        }
+
+        /** true if the access can be reached from the entry point on a path without writes of the variable */
+        public boolean isReachedUnassigned(@NotNull PhpAccessVariableInstruction read) {
+            Boolean result = reachedUnassigned.get(read);
+            if (null == result) {
+                result = walkToEntryPoint(read);
+                reachedUnassigned.putIfAbsent(read, result);
+            }
+
+            return result;
+        }
+
+        private static boolean walkToEntryPoint(@NotNull PhpAccessVariableInstruction start) {
+            final String name = start.getVariableName().toString();
+
+            final HashSet<PhpInstruction> visited  = new HashSet<>();
+            final ArrayDeque<PhpInstruction> queue = new ArrayDeque<>(start.getPredecessors());
+            while (!queue.isEmpty()) {
+                final PhpInstruction instruction = queue.poll();
+                if (!visited.add(instruction)) {
+                    continue;
+                }
+
+                if (instruction instanceof PhpAccessVariableInstruction) {
+                    final PhpAccessVariableInstruction access = (PhpAccessVariableInstruction) instruction;
+                    if (access.getAccess().isWrite() && name.equals(access.getVariableName().toString())) {
+                        continue;
+                    }
+                }
+                /* only the entry point has no predecessors (dead code as well, which is a safe answer) */
+                if (instruction.getPredecessors().isEmpty()) {
+                    return true;
+                }
+
+                queue.addAll(instruction.getPredecessors());
+            }
+
+            return false;
+        }
+
+        /** walks the flow from the access until the variable is re-written, collecting reads or writes */
+        @NotNull
+        private static PhpAccessVariableInstruction[] collect(@NotNull PhpAccessVariableInstruction start, boolean isForward) {
+            final String name = start.getVariableName().toString();
+
+            final List<PhpAccessVariableInstruction> found = new ArrayList<>();
+            final HashSet<PhpInstruction> visited          = new HashSet<>();
+            final ArrayDeque<PhpInstruction> queue         = new ArrayDeque<>(isForward ? start.getSuccessors() : start.getPredecessors());
+            while (!queue.isEmpty()) {
+                final PhpInstruction instruction = queue.poll();
+                if (!visited.add(instruction)) {
+                    continue;
+                }
+
+                if (instruction instanceof PhpAccessVariableInstruction) {
+                    final PhpAccessVariableInstruction access = (PhpAccessVariableInstruction) instruction;
+                    if (name.equals(access.getVariableName().toString())) {
+                        if (isForward ? access.getAccess().isRead() : access.getAccess().isWrite()) {
+                            found.add(access);
+                        }
+                        /* the value is overridden here: stop following this path */
+                        if (access.getAccess().isWrite()) {
+                            continue;
+                        }
+                    }
+                }
+
+                queue.addAll(isForward ? instruction.getSuccessors() : instruction.getPredecessors());
+            }
+
+            return found.toArray(new PhpAccessVariableInstruction[found.size()]);
+        }
+    }
+
+    @NotNull
+    public static Chains getChains(@NotNull final Function function) {
+        return CachedValuesManager.getCachedValue(function, chainsKey, new CachedValueProvider<Chains>() {
+            @Nullable
+            @Override
+            public Result<Chains> compute() {
+                return Result.create(buildChains(function), function);
+            }
+        });
+    }
+
+    @NotNull
+    private static Chains buildChains(@NotNull Function function) {
+        /* one walk over instructions reachable from the entry point */
+        final List<PhpAccessVariableInstruction> reachable = new ArrayList<>();
+        final HashSet<PhpInstruction> visited              = new HashSet<>();
+        final ArrayDeque<PhpInstruction> queue             = new ArrayDeque<>();
+        queue.add(function.getControlFlow().getEntryPoint());
+        while (!queue.isEmpty()) {
+            final PhpInstruction instruction = queue.poll();
+            if (visited.add(instruction)) {
+                if (instruction instanceof PhpAccessVariableInstruction) {
+                    reachable.add((PhpAccessVariableInstruction) instruction);
+                }
+                queue.addAll(instruction.getSuccessors());
+            }
+        }
+        visited.clear();
+
+        /* instruction numbers are following the source code order */
+        Collections.sort(reachable, new Comparator<PhpAccessVariableInstruction>() {
+            @Override
+            public int compare(PhpAccessVariableInstruction first, PhpAccessVariableInstruction second) {
+                return Integer.compare(first.num(), second.num());
+            }
+        });
+
+        final HashMap<String, List<PhpAccessVariableInstruction>> grouped = new HashMap<>();
+        for (PhpAccessVariableInstruction access : reachable) {
+            final String name = access.getVariableName().toString();
+            if (!grouped.containsKey(name)) {
+                grouped.put(name, new ArrayList<PhpAccessVariableInstruction>());
+            }
+            grouped.get(name).add(access);
+        }
+        reachable.clear();
+
+        final HashMap<String, PhpAccessVariableInstruction[]> accesses = new HashMap<>(grouped.size());
+        for (Map.Entry<String, List<PhpAccessVariableInstruction>> entry : grouped.entrySet()) {
+            final List<PhpAccessVariableInstruction> list = entry.getValue();
+            accesses.put(entry.getKey(), list.toArray(new PhpAccessVariableInstruction[list.size()]));
+        }
+        grouped.clear();
+
+        return new Chains(accesses);
+    }
+}
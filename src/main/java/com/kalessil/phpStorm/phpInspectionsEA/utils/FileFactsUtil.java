@@ -0,0 +1,186 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.jetbrains.php.lang.psi.elements.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Per-file fact base: function calls by name, field references, variables, loops, assignments and try statements.
+ *
+ * The file is walked once, on the first query, and facts are kept until the file is modified. Elements are stored in
+ * document order together with their start offsets, so querying a scope is a binary search instead of a tree walk.
+ * Results are the same as PsiTreeUtil.findChildrenOfType(scope, ...) would return (the scope itself is excluded).
+ */
+final public class FileFactsUtil {
+    private static final Key<CachedValue<Facts>> factsKey = Key.create("EA.FileFacts");
+
+    /** elements of one kind in document order */
+    private static class OffsetIndex<T extends PsiElement> {
+        final ArrayList<T> elements = new ArrayList<>();
+        int[] offsets               = new int[16];
+
+        void add(@NotNull T element) {
+            if (elements.size() == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[elements.size()] = element.getTextRange().getStartOffset();
+            elements.add(element);
+        }
+
+        @NotNull
+        List<T> find(@NotNull PsiElement scope) {
+            final int start = scope.getTextRange().getStartOffset();
+            final int end   = scope.getTextRange().getEndOffset();
+
+            int from     = lowerBound(start);
+            final int to = lowerBound(end);
+            /* descendants are starting inside the scope; the scope itself can be there as well */
+            while (from < to && !isStrictDescendant(elements.get(from), scope)) {
+                ++from;
+            }
+
+            return from >= to ? Collections.<T>emptyList() : Collections.unmodifiableList(elements.subList(from, to));
+        }
+
+        private int lowerBound(int offset) {
+            int low  = 0;
+            int high = elements.size();
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (offsets[middle] < offset) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            return low;
+        }
+
+        private static boolean isStrictDescendant(@NotNull PsiElement element, @NotNull PsiElement scope) {
+            /* elements starting at the same offset might be the scope itself or its ancestors */
+            for (PsiElement parent = element.getParent(); null != parent; parent = parent.getParent()) {
+                if (parent == scope) {
+                    return true;
+                }
+                if (parent instanceof PsiFile) {
+                    break;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    private static class Facts {
+        final HashMap<String, OffsetIndex<FunctionReference>> callsByName = new HashMap<>();
+        final OffsetIndex<FieldReference> fieldReferences                 = new OffsetIndex<>();
+        final OffsetIndex<Variable> variables                             = new OffsetIndex<>();
+        final OffsetIndex<PhpPsiElement> loops                            = new OffsetIndex<>();
+        final OffsetIndex<AssignmentExpression> assignments               = new OffsetIndex<>();
+        final OffsetIndex<Try> tryStatements                              = new OffsetIndex<>();
+
+        void register(@NotNull PsiElement element) {
+            if (element instanceof FunctionReference) {
+                if (!(element instanceof MethodReference)) {
+                    final String name = ((FunctionReference) element).getName();
+                    if (null != name) {
+                        final String key                     = name.toLowerCase();
+                        OffsetIndex<FunctionReference> calls = callsByName.get(key);
+                        if (null == calls) {
+                            calls = new OffsetIndex<>();
+                            callsByName.put(key, calls);
+                        }
+                        calls.add((FunctionReference) element);
+                    }
+                }
+            } else if (element instanceof FieldReference) {
+                fieldReferences.add((FieldReference) element);
+            } else if (element instanceof Variable) {
+                variables.add((Variable) element);
+            } else if (element instanceof AssignmentExpression) {
+                assignments.add((AssignmentExpression) element);
+            } else if (element instanceof Try) {
+                tryStatements.add((Try) element);
+            } else if (
+                element instanceof ForeachStatement || element instanceof For ||
+                element instanceof While || element instanceof DoWhile
+            ) {
+                loops.add((PhpPsiElement) element);
+            }
+        }
+    }
+
+    /** calls of the function (case-insensitive name) inside the scope, method calls are not included */
+    @NotNull
+    public static List<FunctionReference> findFunctionCalls(@NotNull PsiElement scope, @NotNull String name) {
+        final OffsetIndex<FunctionReference> calls = getFacts(scope).callsByName.get(name.toLowerCase());
+        return null == calls ? Collections.<FunctionReference>emptyList() : calls.find(scope);
+    }
+
+    @NotNull
+    public static List<FieldReference> findFieldReferences(@NotNull PsiElement scope) {
+        return getFacts(scope).fieldReferences.find(scope);
+    }
+
+    @NotNull
+    public static List<Variable> findVariables(@NotNull PsiElement scope) {
+        return getFacts(scope).variables.find(scope);
+    }
+
+    /** foreach, for, while and do-while statements */
+    @NotNull
+    public static List<PhpPsiElement> findLoops(@NotNull PsiElement scope) {
+        return getFacts(scope).loops.find(scope);
+    }
+
+    @NotNull
+    public static List<AssignmentExpression> findAssignments(@NotNull PsiElement scope) {
+        return getFacts(scope).assignments.find(scope);
+    }
+
+    @NotNull
+    public static List<Try> findTryStatements(@NotNull PsiElement scope) {
+        return getFacts(scope).tryStatements.find(scope);
+    }
+
+    @NotNull
+    private static Facts getFacts(@NotNull PsiElement scope) {
+        final PsiFile file = scope.getContainingFile();
+        return CachedValuesManager.getCachedValue(file, factsKey, new CachedValueProvider<Facts>() {
+            @Nullable
+            @Override
+            public Result<Facts> compute() {
+                final Facts facts = new Facts();
+                file.accept(new PsiRecursiveElementWalkingVisitor() {
+                    @Override
+                    public void visitElement(PsiElement element) {
+                        facts.register(element);
+                        super.visitElement(element);
+                    }
+                });
+
+                /* the file is the dependency: facts are dropped on any change of the file */
+                return Result.create(facts, file);
+            }
+        });
+    }
+}
@@ -0,0 +1,284 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpAccessVariableInstruction;
+import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpInstruction;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.psi.elements.*;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Flow-sensitive types of local variables: assigned types are propagated over the function control flow
+ * (branches and loops) until the fixpoint, the result is cached per function until any PSI change.
+ *
+ * Variables are inferred at reads only. A variable not assigned on some path (parameters, globals, foreach
+ * and list() targets, by-reference writes) contributes "mixed", so callers are adding signature-based types.
+ */
+final public class LocalTypesInferenceUtil {
+    private static final Key<CachedValue<LocalTypes>> typesKey = Key.create("EA.LocalTypes");
+    private static final LocalTypes noTypes                     = new LocalTypes(new HashMap<PsiElement, PhpTypeSet>());
+
+    /* degenerated control flows are not analyzed, the fixpoint is normally reached in 2-3 passes */
+    private static final int maxVisitsPerInstruction = 32;
+
+    /* resolving assigned values is re-entering TypeFromPsiResolvingUtil, it must not query the inference again */
+    private static final ThreadLocal<Integer> inferring = new ThreadLocal<Integer>() {
+        @Override
+        protected Integer initialValue() {
+            return 0;
+        }
+    };
+
+    public static class LocalTypes {
+        private final HashMap<PsiElement, PhpTypeSet> types;
+
+        LocalTypes(@NotNull HashMap<PsiElement, PhpTypeSet> types) {
+            this.types = types;
+        }
+
+        /** types of the variable at the read, null if not inferred */
+        @Nullable
+        public PhpTypeSet get(@NotNull Variable variable) {
+            return types.get(variable);
+        }
+    }
+
+    /** types of the local variable at the read, null if not inferred */
+    @Nullable
+    public static PhpTypeSet getType(@NotNull Variable variable) {
+        if (isInferring()) {
+            return null;
+        }
+
+        final Function scope = ExpressionSemanticUtil.getScope(variable);
+        return null == scope ? null : getTypes(scope).get(variable);
+    }
+
+    @NotNull
+    public static LocalTypes getTypes(@NotNull final Function function) {
+        /* assigned values are resolved using other files as well, hence the global modification tracker */
+        return CachedValuesManager.getCachedValue(function, typesKey, new CachedValueProvider<LocalTypes>() {
+            @Nullable
+            @Override
+            public Result<LocalTypes> compute() {
+                inferring.set(inferring.get() + 1);
+                try {
+                    return Result.create(infer(function), PsiModificationTracker.MODIFICATION_COUNT);
+                } finally {
+                    inferring.set(inferring.get() - 1);
+                }
+            }
+        });
+    }
+
+    static boolean isInferring() {
+        return inferring.get() > 0;
+    }
+
+    @NotNull
+    private static LocalTypes infer(@NotNull Function function) {
+        final PhpIndex index = PhpIndex.getInstance(function.getProject());
+
+        final HashMap<PhpInstruction, HashMap<String, PhpTypeSet>> states = new HashMap<>();
+        final HashMap<PhpInstruction, Integer> visits                   = new HashMap<>();
+        final HashSet<String> aliased                                   = new HashSet<>();
+        final ArrayDeque<PhpInstruction> queue                          = new ArrayDeque<>();
+        final HashSet<PhpInstruction> queued                            = new HashSet<>();
+
+        final PhpInstruction entry = function.getControlFlow().getEntryPoint();
+        states.put(entry, new HashMap<String, PhpTypeSet>());
+        queue.add(entry);
+        queued.add(entry);
+        while (!queue.isEmpty()) {
+            final PhpInstruction instruction = queue.poll();
+            queued.remove(instruction);
+
+            final Integer visited = visits.get(instruction);
+            if (null != visited && visited >= maxVisitsPerInstruction) {
+                return noTypes;
+            }
+            visits.put(instruction, null == visited ? 1 : visited + 1);
+
+            final HashMap<String, PhpTypeSet> out = transfer(instruction, states.get(instruction), function, index, aliased);
+            for (PhpInstruction successor : instruction.getSuccessors()) {
+                final HashMap<String, PhpTypeSet> known  = states.get(successor);
+                final HashMap<String, PhpTypeSet> merged = null == known ? out : join(known, out);
+                if (merged != known) {
+                    states.put(successor, merged);
+                    if (queued.add(successor)) {
+                        queue.add(successor);
+                    }
+                }
+            }
+        }
+        visits.clear();
+
+        /* the fixpoint is reached: types at reads are final now */
+        final HashMap<PsiElement, PhpTypeSet> types = new HashMap<>();
+        for (Map.Entry<PhpInstruction, HashMap<String, PhpTypeSet>> entry : states.entrySet()) {
+            if (entry.getKey() instanceof PhpAccessVariableInstruction) {
+                final PhpAccessVariableInstruction access = (PhpAccessVariableInstruction) entry.getKey();
+                final String name                         = access.getVariableName().toString();
+                final PhpTypeSet inferred                 = entry.getValue().get(name);
+                if (null != inferred && access.getAccess().isRead() && !aliased.contains(name) && access.getAnchor() instanceof Variable) {
+                    types.put(access.getAnchor(), inferred);
+                }
+            }
+        }
+        states.clear();
+
+        return new LocalTypes(types);
+    }
+
+    /** the state after the instruction: only writes into variables are changing it */
+    @NotNull
+    private static HashMap<String, PhpTypeSet> transfer(
+            @NotNull PhpInstruction instruction,
+            @NotNull HashMap<String, PhpTypeSet> state,
+            @NotNull Function function,
+            @NotNull PhpIndex index,
+            @NotNull HashSet<String> aliased
+    ) {
+        if (!(instruction instanceof PhpAccessVariableInstruction)) {
+            return state;
+        }
+        final PhpAccessVariableInstruction access = (PhpAccessVariableInstruction) instruction;
+        if (!access.getAccess().isWrite()) {
+            return state;
+        }
+
+        final String name       = access.getVariableName().toString();
+        final PsiElement anchor = access.getAnchor();
+        final PsiElement parent = null == anchor ? null : anchor.getParent();
+
+        PhpTypeSet written = null;
+        if (parent instanceof AssignmentExpression && ((AssignmentExpression) parent).getVariable() == anchor) {
+            final AssignmentExpression assignment = (AssignmentExpression) parent;
+            final PsiElement value                = assignment.getValue();
+            if (isAssignedByReference(value)) {
+                /* both variables are changed by writes into any of them */
+                aliased.add(name);
+                if (value instanceof Variable) {
+                    aliased.add(((Variable) value).getName());
+                }
+            } else if (assignment instanceof SelfAssignmentExpression) {
+                written = resolve(assignment, function, index);
+            } else if (null != value) {
+                written = evaluate(value, state, function, index);
+            }
+        } else if (parent instanceof ArrayAccessExpression) {
+            /* $variable[...] = ...: the variable remains or becomes an array */
+            final PhpTypeSet previous = state.get(name);
+            written                   = null == previous ? null : previous.with(PhpTypeSet.ARRAY);
+        }
+
+        final HashMap<String, PhpTypeSet> result = new HashMap<>(state);
+        if (null == written || written.isEmpty()) {
+            result.remove(name);
+        } else {
+            result.put(name, written);
+        }
+
+        return result;
+    }
+
+    /** returns the known state when nothing has changed, so the successor is not re-visited */
+    @NotNull
+    private static HashMap<String, PhpTypeSet> join(@NotNull HashMap<String, PhpTypeSet> known, @NotNull HashMap<String, PhpTypeSet> incoming) {
+        HashMap<String, PhpTypeSet> result = null;
+
+        for (Map.Entry<String, PhpTypeSet> entry : known.entrySet()) {
+            final PhpTypeSet other  = incoming.get(entry.getKey());
+            final PhpTypeSet joined = null == other ? entry.getValue().with(PhpTypeSet.MIXED) : entry.getValue().union(other);
+            if (joined != entry.getValue()) {
+                if (null == result) {
+                    result = new HashMap<>(known);
+                }
+                result.put(entry.getKey(), joined);
+            }
+        }
+        for (Map.Entry<String, PhpTypeSet> entry : incoming.entrySet()) {
+            if (!known.containsKey(entry.getKey())) {
+                if (null == result) {
+                    result = new HashMap<>(known);
+                }
+                /* the variable is not assigned on some of paths */
+                result.put(entry.getKey(), entry.getValue().with(PhpTypeSet.MIXED));
+            }
+        }
+
+        return null == result ? known : result;
+    }
+
+    /** types of the assigned value, null if not resolved */
+    @Nullable
+    private static PhpTypeSet evaluate(
+            @NotNull PsiElement expression,
+            @NotNull HashMap<String, PhpTypeSet> state,
+            @NotNull Function function,
+            @NotNull PhpIndex index
+    ) {
+        final PsiElement value = ExpressionSemanticUtil.getExpressionTroughParenthesis(expression);
+        if (value instanceof Variable) {
+            final PhpTypeSet types = state.get(((Variable) value).getName());
+            if (null != types) {
+                return types;
+            }
+        }
+
+        /* chained assignments, e.g. $first = $second = []; */
+        if (value instanceof AssignmentExpression && !(value instanceof SelfAssignmentExpression)) {
+            final PsiElement assigned = ((AssignmentExpression) value).getValue();
+            return null == assigned ? null : evaluate(assigned, state, function, index);
+        }
+
+        if (value instanceof TernaryExpression) {
+            final PsiElement trueVariant  = ((TernaryExpression) value).getTrueVariant();
+            final PsiElement falseVariant = ((TernaryExpression) value).getFalseVariant();
+            if (null != trueVariant && null != falseVariant) {
+                final PhpTypeSet trueTypes  = evaluate(trueVariant, state, function, index);
+                final PhpTypeSet falseTypes = null == trueTypes ? null : evaluate(falseVariant, state, function, index);
+                return null == falseTypes ? null : trueTypes.union(falseTypes);
+            }
+        }
+
+        return null == value ? null : resolve(value, function, index);
+    }
+
+    @Nullable
+    private static PhpTypeSet resolve(@NotNull PsiElement expression, @NotNull Function function, @NotNull PhpIndex index) {
+        final PhpTypeSet result = TypeFromPsiResolvingUtil.resolveExpressionTypes(expression, function, index);
+        return result.isEmpty() ? null : result;
+    }
+
+    private static boolean isAssignedByReference(@Nullable PsiElement value) {
+        PsiElement operation = null == value ? null : value.getPrevSibling();
+        if (operation instanceof PsiWhiteSpace) {
+            operation = operation.getPrevSibling();
+        }
+
+        return null != operation && PhpTokenTypes.opBIT_AND == operation.getNode().getElementType();
+    }
+}
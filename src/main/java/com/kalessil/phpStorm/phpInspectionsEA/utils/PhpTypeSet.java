@@ -0,0 +1,436 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Immutable set of normalized types: primitive types are stored as bits, classes as a sorted array of interned ids.
+ *
+ * Queries (contains, intersects) are allocation-free; union and intersection are returning one of operands when
+ * the result equals to it, so merging already known types doesn't allocate either. Class ids are interned per
+ * project: sets are keeping the ids they were built with and are re-interned only when mixed across resets.
+ */
+final public class PhpTypeSet {
+    final static public int ARRAY    = 1;
+    final static public int STRING   = 1 << 1;
+    final static public int BOOLEAN  = 1 << 2;
+    final static public int INTEGER  = 1 << 3;
+    final static public int FLOAT    = 1 << 4;
+    final static public int NULL     = 1 << 5;
+    final static public int VOID     = 1 << 6;
+    final static public int MIXED    = 1 << 7;
+    final static public int CALLABLE = 1 << 8;
+    final static public int RESOURCE = 1 << 9;
+    final static public int STATIC   = 1 << 10;
+    final static public int SELF     = 1 << 11;
+    final static public int OBJECT   = 1 << 12;
+    /* pseudo-types used in signatures and doc-blocks */
+    final static public int TRUE     = 1 << 13;
+    final static public int FALSE    = 1 << 14;
+    final static public int NUMBER   = 1 << 15;
+
+    /* names are indexed by bit position, toString() follows this order */
+    final static private String[] primitiveNames = {
+        Types.strArray, Types.strString, Types.strBoolean, Types.strInteger, Types.strFloat, Types.strNull,
+        Types.strVoid, Types.strMixed, Types.strCallable, Types.strResource, Types.strStatic, Types.strSelf,
+        Types.strObject, "true", "false", "number"
+    };
+    final static private HashMap<String, Integer> primitiveBits = new HashMap<>();
+    static {
+        for (int bit = 0; bit < primitiveNames.length; ++bit) {
+            primitiveBits.put(primitiveNames[bit], 1 << bit);
+        }
+    }
+
+    /* class FQNs are interned into ids per project, the ids are dropped on out-of-code-block changes */
+    final static private CachedValueProvider<ClassIds> classIdsProvider = new CachedValueProvider<ClassIds>() {
+        @Nullable
+        @Override
+        public Result<ClassIds> compute() {
+            return Result.create(new ClassIds(), PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT);
+        }
+    };
+
+    /** ids are never reused within the registry, so it is bounded by classes of the project */
+    private static class ClassIds {
+        final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+        volatile String[] names                      = new String[64];
+
+        int intern(@NotNull String fqn) {
+            final Integer known = ids.get(fqn);
+            if (null != known) {
+                return known;
+            }
+
+            synchronized (this) {
+                final Integer registered = ids.get(fqn);
+                if (null != registered) {
+                    return registered;
+                }
+
+                final int id            = ids.size();
+                final String[] extended = id == names.length ? Arrays.copyOf(names, id * 2) : names;
+                extended[id]            = fqn;
+                /* the volatile write publishes the name before the id becomes visible to other threads */
+                names = extended;
+                ids.put(fqn, id);
+
+                return id;
+            }
+        }
+    }
+
+    final static private int[] noClasses  = new int[0];
+    final static public PhpTypeSet EMPTY = new PhpTypeSet(null, 0, noClasses);
+
+    /* null when the set has no classes */
+    private final ClassIds classIds;
+    private final int primitives;
+    private final int[] classes;
+
+    private PhpTypeSet(@Nullable ClassIds classIds, int primitives, @NotNull int[] classes) {
+        this.classIds   = 0 == classes.length ? null : classIds;
+        this.primitives = primitives;
+        this.classes    = classes;
+    }
+
+    @NotNull
+    private static ClassIds getClassIds(@NotNull Project project) {
+        return CachedValuesManager.getManager(project).getCachedValue(project, classIdsProvider);
+    }
+
+    /** builds the set from types, normalizing them with Types.getType */
+    @NotNull
+    public static PhpTypeSet of(@NotNull Project project, @NotNull Collection<String> types) {
+        ClassIds classIds = null;
+        int primitives    = 0;
+        int[] ids         = new int[types.size()];
+        int idsCount      = 0;
+        for (String type : types) {
+            if (null == type || type.isEmpty()) {
+                continue;
+            }
+
+            final String normalized = Types.getType(type);
+            final Integer bit       = primitiveBits.get(normalized);
+            if (null != bit) {
+                primitives |= bit;
+            } else {
+                if (null == classIds) {
+                    classIds = getClassIds(project);
+                }
+                ids[idsCount++] = classIds.intern(normalized);
+            }
+        }
+
+        return create(classIds, primitives, ids, idsCount);
+    }
+
+    /** builds the set from "|"-separated signature, e.g. "\Foo|int[]|null" */
+    @NotNull
+    public static PhpTypeSet parse(@NotNull Project project, @NotNull String signature) {
+        ClassIds classIds = null;
+        int primitives    = 0;
+        int[] ids         = null;
+        int idsCount      = 0;
+
+        int start = 0;
+        while (start < signature.length()) {
+            int end = signature.indexOf('|', start);
+            if (end < 0) {
+                end = signature.length();
+            }
+
+            if (end > start) {
+                final String normalized = Types.getType(signature.substring(start, end));
+                final Integer bit       = primitiveBits.get(normalized);
+                if (null != bit) {
+                    primitives |= bit;
+                } else {
+                    if (null == ids) {
+                        classIds = getClassIds(project);
+                        ids      = new int[4];
+                    } else if (idsCount == ids.length) {
+                        ids = Arrays.copyOf(ids, idsCount * 2);
+                    }
+                    ids[idsCount++] = classIds.intern(normalized);
+                }
+            }
+            start = end + 1;
+        }
+
+        return null == ids ? create(null, primitives, noClasses, 0) : create(classIds, primitives, ids, idsCount);
+    }
+
+    @NotNull
+    private static PhpTypeSet create(@Nullable ClassIds classIds, int primitives, @NotNull int[] ids, int idsCount) {
+        if (0 == primitives && 0 == idsCount) {
+            return EMPTY;
+        }
+        if (0 == idsCount) {
+            return new PhpTypeSet(null, primitives, noClasses);
+        }
+
+        /* sort and remove duplicates in place */
+        Arrays.sort(ids, 0, idsCount);
+        int unique = 1;
+        for (int index = 1; index < idsCount; ++index) {
+            if (ids[index] != ids[unique - 1]) {
+                ids[unique++] = ids[index];
+            }
+        }
+
+        return new PhpTypeSet(classIds, primitives, unique == ids.length ? ids : Arrays.copyOf(ids, unique));
+    }
+
+    /** the same set with ids of the given registry: allocates only for sets built before the project ids were reset */
+    @NotNull
+    private PhpTypeSet rebase(@Nullable ClassIds target) {
+        if (null == classIds || classIds == target || null == target) {
+            return this;
+        }
+
+        final String[] names = classIds.names;
+        final int[] ids      = new int[classes.length];
+        for (int index = 0; index < classes.length; ++index) {
+            ids[index] = target.intern(names[classes[index]]);
+        }
+
+        return create(target, primitives, ids, ids.length);
+    }
+
+    /** checks if any of given primitive type bits is present */
+    public boolean contains(int primitive) {
+        return 0 != (primitives & primitive);
+    }
+
+    public boolean containsClass(@NotNull String fqn) {
+        final Integer id = null == classIds ? null : classIds.ids.get(fqn);
+        return null != id && Arrays.binarySearch(classes, id) >= 0;
+    }
+
+    public boolean hasClasses() {
+        return classes.length > 0;
+    }
+
+    public boolean isEmpty() {
+        return 0 == primitives && 0 == classes.length;
+    }
+
+    public int size() {
+        return Integer.bitCount(primitives) + classes.length;
+    }
+
+    public boolean intersects(@NotNull PhpTypeSet another) {
+        if (0 != (primitives & another.primitives)) {
+            return true;
+        }
+        another = another.rebase(classIds);
+
+        int left  = 0;
+        int right = 0;
+        while (left < classes.length && right < another.classes.length) {
+            final int difference = classes[left] - another.classes[right];
+            if (0 == difference) {
+                return true;
+            }
+            if (difference < 0) {
+                ++left;
+            } else {
+                ++right;
+            }
+        }
+
+        return false;
+    }
+
+    public boolean containsAll(@NotNull PhpTypeSet another) {
+        if ((primitives & another.primitives) != another.primitives || classes.length < another.classes.length) {
+            return false;
+        }
+        another = another.rebase(classIds);
+
+        int left = 0;
+        for (int id : another.classes) {
+            while (left < classes.length && classes[left] < id) {
+                ++left;
+            }
+            if (left == classes.length || classes[left] != id) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @NotNull
+    public PhpTypeSet union(@NotNull PhpTypeSet another) {
+        another = another.rebase(classIds);
+        if (containsAll(another)) {
+            return this;
+        }
+        if (another.containsAll(this)) {
+            return another;
+        }
+
+        final int[] merged = new int[classes.length + another.classes.length];
+        int count          = 0;
+        int left           = 0;
+        int right          = 0;
+        while (left < classes.length || right < another.classes.length) {
+            if (right == another.classes.length || (left < classes.length && classes[left] < another.classes[right])) {
+                merged[count++] = classes[left++];
+            } else if (left == classes.length || another.classes[right] < classes[left]) {
+                merged[count++] = another.classes[right++];
+            } else {
+                merged[count++] = classes[left++];
+                ++right;
+            }
+        }
+
+        final ClassIds ids = null == classIds ? another.classIds : classIds;
+        return new PhpTypeSet(ids, primitives | another.primitives, count == merged.length ? merged : Arrays.copyOf(merged, count));
+    }
+
+    @NotNull
+    public PhpTypeSet intersection(@NotNull PhpTypeSet another) {
+        another = another.rebase(classIds);
+        if (another.containsAll(this)) {
+            return this;
+        }
+        if (containsAll(another)) {
+            return another;
+        }
+
+        final int[] common = new int[Math.min(classes.length, another.classes.length)];
+        int count          = 0;
+        int left           = 0;
+        int right          = 0;
+        while (left < classes.length && right < another.classes.length) {
+            final int difference = classes[left] - another.classes[right];
+            if (0 == difference) {
+                common[count++] = classes[left];
+                ++left;
+                ++right;
+            } else if (difference < 0) {
+                ++left;
+            } else {
+                ++right;
+            }
+        }
+
+        return create(classIds, primitives & another.primitives, common, count);
+    }
+
+    @NotNull
+    public PhpTypeSet with(int primitive) {
+        return (primitives | primitive) == primitives ? this : new PhpTypeSet(classIds, primitives | primitive, classes);
+    }
+
+    @NotNull
+    public PhpTypeSet without(int primitive) {
+        return 0 == (primitives & primitive) ? this : create(classIds, primitives & ~primitive, classes, classes.length);
+    }
+
+    @NotNull
+    public PhpTypeSet withoutClass(@NotNull String fqn) {
+        final Integer id = null == classIds ? null : classIds.ids.get(fqn);
+        final int index  = null == id ? -1 : Arrays.binarySearch(classes, id);
+        if (index < 0) {
+            return this;
+        }
+
+        final int[] remaining = new int[classes.length - 1];
+        System.arraycopy(classes, 0, remaining, 0, index);
+        System.arraycopy(classes, index + 1, remaining, index, remaining.length - index);
+
+        return create(classIds, primitives, remaining, remaining.length);
+    }
+
+    /** returns FQNs of classes in the set (allocates, use only on reporting and resolving paths) */
+    @NotNull
+    public String[] getClasses() {
+        final String[] names = null == classIds ? null : classIds.names;
+        final String[] fqns  = new String[classes.length];
+        for (int index = 0; index < classes.length; ++index) {
+            fqns[index] = names[classes[index]];
+        }
+
+        return fqns;
+    }
+
+    /** adds names of all types in the set, for the HashSet<String> based resolving APIs */
+    public void addTo(@NotNull Collection<String> types) {
+        for (int bit = 0; bit < primitiveNames.length; ++bit) {
+            if (0 != (primitives & (1 << bit))) {
+                types.add(primitiveNames[bit]);
+            }
+        }
+        final String[] names = null == classIds ? null : classIds.names;
+        for (int id : classes) {
+            types.add(names[id]);
+        }
+    }
+
+    @Override
+    public boolean equals(Object another) {
+        if (this == another) {
+            return true;
+        }
+        if (!(another instanceof PhpTypeSet)) {
+            return false;
+        }
+
+        final PhpTypeSet set = ((PhpTypeSet) another).rebase(classIds);
+        return primitives == set.primitives && Arrays.equals(classes, set.classes);
+    }
+
+    /** based on names, so sets with ids of different registries are hashed the same */
+    @Override
+    public int hashCode() {
+        int hash = 31 * primitives;
+        if (null != classIds) {
+            final String[] names = classIds.names;
+            for (int id : classes) {
+                hash += names[id].hashCode();
+            }
+        }
+
+        return hash;
+    }
+
+    /** "|"-separated types: primitives first, then classes */
+    @Override
+    public String toString() {
+        final StringBuilder result = new StringBuilder();
+        for (int bit = 0; bit < primitiveNames.length; ++bit) {
+            if (0 != (primitives & (1 << bit))) {
+                result.append(result.length() > 0 ? "|" : "").append(primitiveNames[bit]);
+            }
+        }
+        final String[] names = null == classIds ? null : classIds.names;
+        for (int id : classes) {
+            result.append(result.length() > 0 ? "|" : "").append(names[id]);
+        }
+
+        return result.toString();
+    }
+}
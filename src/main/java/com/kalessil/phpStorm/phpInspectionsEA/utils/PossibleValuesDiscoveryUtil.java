@@ -3,11 +3,22 @@ package com.kalessil.phpStorm.phpInspectionsEA.utils;
 import com.intellij.codeInsight.PsiEquivalenceUtil;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpAccessVariableInstruction;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.parser.PhpElementTypes;
 import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.ConstantValuesIndexer;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.HashSet;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /*
  * This file is part of the Php Inspections (EA Extended) package.
@@ -19,6 +30,363 @@ import java.util.HashSet;
  */
 
 public class PossibleValuesDiscoveryUtil {
+    /* folded sets larger than this are not finite for our purposes */
+    private static final int maxFoldedValues = 16;
+    private static final int maxFoldingDepth = 16;
+
+    /* results are shared by all inspections, until any PSI change: class constants are taken from other files */
+    private static final String[] notFolded = new String[0];
+    private static final CachedValueProvider<ConcurrentHashMap<PsiElement, PsiElement[]>> discoveredProvider =
+        new CachedValueProvider<ConcurrentHashMap<PsiElement, PsiElement[]>>() {
+            @Nullable
+            @Override
+            public Result<ConcurrentHashMap<PsiElement, PsiElement[]>> compute() {
+                return Result.create(new ConcurrentHashMap<PsiElement, PsiElement[]>(), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        };
+    private static final CachedValueProvider<ConcurrentHashMap<PsiElement, String[]>> foldedProvider =
+        new CachedValueProvider<ConcurrentHashMap<PsiElement, String[]>>() {
+            @Nullable
+            @Override
+            public Result<ConcurrentHashMap<PsiElement, String[]>> compute() {
+                return Result.create(new ConcurrentHashMap<PsiElement, String[]>(), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        };
+
+    /** memoized discovery, the result is a copy: callers are free to modify it */
+    @NotNull
+    static public HashSet<PsiElement> discover(@NotNull PsiElement expression) {
+        final PsiFile file = expression.getContainingFile();
+        if (null == file) {
+            return discover(expression, new HashSet<PsiElement>());
+        }
+
+        final ConcurrentHashMap<PsiElement, PsiElement[]> cache = CachedValuesManager.getCachedValue(file, discoveredProvider);
+        PsiElement[] discovered = cache.get(expression);
+        if (null == discovered) {
+            final HashSet<PsiElement> result = discover(expression, new HashSet<PsiElement>());
+            discovered                       = result.toArray(new PsiElement[result.size()]);
+            cache.put(expression, discovered);
+        }
+
+        final HashSet<PsiElement> result = new HashSet<>(discovered.length);
+        Collections.addAll(result, discovered);
+        return result;
+    }
+
+    /**
+     * Folds the expression into a finite set of string values: literals, numbers, concatenations, sprintf() with
+     * folded arguments, class and global constants (define() as well), ternaries and local variables writes.
+     *
+     * Returns null if any of values can not be folded (e.g. parameters or calls) or there are too many of them.
+     */
+    @Nullable
+    static public Set<String> discoverStrings(@NotNull PsiElement expression) {
+        final PsiFile file = expression.getContainingFile();
+        if (null == file) {
+            final List<String> folded = fold(expression, new HashSet<PsiElement>());
+            return null == folded ? null : Collections.unmodifiableSet(new LinkedHashSet<>(folded));
+        }
+
+        final ConcurrentHashMap<PsiElement, String[]> cache = CachedValuesManager.getCachedValue(file, foldedProvider);
+        String[] folded = cache.get(expression);
+        if (null == folded) {
+            final List<String> values = fold(expression, new HashSet<PsiElement>());
+            folded                    = null == values ? notFolded : values.toArray(new String[values.size()]);
+            cache.put(expression, folded);
+        }
+
+        return notFolded == folded ? null : Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(folded)));
+    }
+
+    @Nullable
+    static private List<String> fold(@Nullable PsiElement expression, @NotNull HashSet<PsiElement> visiting) {
+        expression = ExpressionSemanticUtil.getExpressionTroughParenthesis(expression);
+        if (null == expression || visiting.size() >= maxFoldingDepth || !visiting.add(expression)) {
+            return null;
+        }
+
+        final List<String> result = foldUncached(expression, visiting);
+        visiting.remove(expression);
+
+        return null == result || result.size() > maxFoldedValues ? null : result;
+    }
+
+    @Nullable
+    static private List<String> foldUncached(@NotNull PsiElement expression, @NotNull HashSet<PsiElement> visiting) {
+        if (expression instanceof StringLiteralExpression) {
+            final StringLiteralExpression literal = (StringLiteralExpression) expression;
+            final String content                  = literal.getContents();
+            /* interpolated strings are not constant */
+            if (!literal.isSingleQuote() && content.indexOf('$') >= 0) {
+                return null;
+            }
+            return Collections.singletonList(content);
+        }
+
+        if (expression instanceof PhpExpression && PhpElementTypes.NUMBER == expression.getNode().getElementType()) {
+            final String number = foldNumber(expression.getText());
+            return null == number ? null : Collections.singletonList(number);
+        }
+
+        if (expression instanceof BinaryExpression) {
+            final BinaryExpression binary = (BinaryExpression) expression;
+            final PsiElement operation    = binary.getOperation();
+            if (null == operation || PhpTokenTypes.opCONCAT != operation.getNode().getElementType()) {
+                return null;
+            }
+
+            final List<String> left  = fold(binary.getLeftOperand(), visiting);
+            final List<String> right = null == left ? null : fold(binary.getRightOperand(), visiting);
+            if (null == right || left.size() * right.size() > maxFoldedValues) {
+                return null;
+            }
+
+            final List<String> result = new ArrayList<>(left.size() * right.size());
+            for (String leftValue : left) {
+                for (String rightValue : right) {
+                    result.add(leftValue + rightValue);
+                }
+            }
+            return result;
+        }
+
+        if (expression instanceof TernaryExpression) {
+            final TernaryExpression ternary = (TernaryExpression) expression;
+            final List<String> trueValues   = fold(ternary.getTrueVariant(), visiting);
+            final List<String> falseValues  = null == trueValues ? null : fold(ternary.getFalseVariant(), visiting);
+            return null == falseValues ? null : union(trueValues, falseValues);
+        }
+
+        if (expression instanceof ClassConstantReference) {
+            final ClassConstantReference reference = (ClassConstantReference) expression;
+            final PsiElement classReference        = reference.getClassReference();
+            if (classReference instanceof ClassReference && null != reference.getName()) {
+                final String className = classReference.getText();
+                final PhpClass clazz   = PsiTreeUtil.getParentOfType(reference, PhpClass.class);
+                final String classFqn  = !className.equalsIgnoreCase("self") ? ((ClassReference) classReference).getFQN()
+                                         : (null == clazz ? null : clazz.getFQN());
+                final String value     = className.equalsIgnoreCase("static") || null == classFqn ? null :
+                                         ConstantValuesIndexer.getValue(reference.getProject(), classFqn + "::" + reference.getName());
+                if (null != value) {
+                    return Collections.singletonList(value);
+                }
+            }
+
+            /* inherited constants are not indexed under the referenced class */
+            final PsiElement resolved = reference.resolve();
+            return resolved instanceof Field ? fold(((Field) resolved).getDefaultValue(), visiting) : null;
+        }
+
+        if (expression instanceof ConstantReference) {
+            final String fqn   = ((ConstantReference) expression).getFQN();
+            final String value = null == fqn ? null : ConstantValuesIndexer.getValue(expression.getProject(), fqn);
+            if (null != value) {
+                return Collections.singletonList(value);
+            }
+
+            /* const X = ...; and define('X', ...); are both resolved into constants */
+            final Collection<? extends PhpNamedElement> constants = ((ConstantReference) expression).resolveGlobal(false);
+            List<String> result = null;
+            for (PhpNamedElement constant : constants) {
+                final List<String> values = constant instanceof Constant ? fold(((Constant) constant).getValue(), visiting) : null;
+                if (null == values) {
+                    return null;
+                }
+                result = null == result ? values : union(result, values);
+            }
+            return result;
+        }
+
+        if (expression instanceof FunctionReference && !(expression instanceof MethodReference)) {
+            final FunctionReference call = (FunctionReference) expression;
+            return "sprintf".equals(call.getName()) ? foldSprintf(call.getParameters(), visiting) : null;
+        }
+
+        if (expression instanceof Variable) {
+            return foldVariable((Variable) expression, visiting);
+        }
+
+        return null;
+    }
+
+    /** the number as PHP is converting it into a string, null if it's not obvious (e.g. large floats) */
+    @Nullable
+    static private String foldNumber(@NotNull String text) {
+        final String number = text.toLowerCase();
+        try {
+            if (number.startsWith("0x")) {
+                return String.valueOf(Long.parseLong(number.substring(2), 16));
+            }
+            if (number.startsWith("0b")) {
+                return String.valueOf(Long.parseLong(number.substring(2), 2));
+            }
+            if (number.indexOf('.') < 0 && number.indexOf('e') < 0) {
+                return String.valueOf(number.length() > 1 && number.startsWith("0") ? Long.parseLong(number, 8) : Long.parseLong(number));
+            }
+
+            /* floats are printed with 14 significant digits, and in exponential form outside of [1e-4, 1e14) */
+            final BigDecimal value = new BigDecimal(number).stripTrailingZeros();
+            if (0 == value.signum()) {
+                return "0";
+            }
+            final boolean isPlain = value.precision() <= 14 &&
+                                    value.compareTo(new BigDecimal("0.0001")) >= 0 && value.compareTo(new BigDecimal("1e14")) < 0;
+            return isPlain ? value.toPlainString() : null;
+        } catch (NumberFormatException overflow) {
+            /* integers overflows are turning into floats */
+            return null;
+        }
+    }
+
+    /** values of writes reaching the variable read: parameters, by-reference and foreach writes are not finite */
+    @Nullable
+    static private List<String> foldVariable(@NotNull Variable variable, @NotNull HashSet<PsiElement> visiting) {
+        final String name       = variable.getName();
+        final Function callable = StringUtil.isEmpty(name) ? null : ExpressionSemanticUtil.getScope(variable);
+        if (null == callable) {
+            return null;
+        }
+        for (Parameter parameter : callable.getParameters()) {
+            if (parameter.getName().equals(name)) {
+                return null;
+            }
+        }
+
+        final DefUseChainsUtil.Chains chains = DefUseChainsUtil.getChains(callable);
+        for (PhpAccessVariableInstruction access : chains.getAccesses(name)) {
+            if (access.getAnchor() != variable) {
+                continue;
+            }
+            /* not assigned on some of paths: the value is not known there */
+            if (chains.isReachedUnassigned(access)) {
+                return null;
+            }
+
+            List<String> result = null;
+            for (PhpAccessVariableInstruction write : chains.getReachingWrites(access)) {
+                final PsiElement anchor = write.getAnchor();
+                final PsiElement parent = null == anchor ? null : anchor.getParent();
+                if (
+                    !(parent instanceof AssignmentExpression) || parent instanceof SelfAssignmentExpression ||
+                    ((AssignmentExpression) parent).getVariable() != anchor
+                ) {
+                    return null;
+                }
+
+                final List<String> values = fold(((AssignmentExpression) parent).getValue(), visiting);
+                if (null == values) {
+                    return null;
+                }
+                result = null == result ? values : union(result, values);
+            }
+            return result;
+        }
+
+        return null;
+    }
+
+    /** sprintf() with folded format and arguments, only %s, %d and %% (optionally positional) are supported */
+    @Nullable
+    static private List<String> foldSprintf(@NotNull PsiElement[] arguments, @NotNull HashSet<PsiElement> visiting) {
+        if (0 == arguments.length) {
+            return null;
+        }
+
+        final List<List<String>> folded = new ArrayList<>(arguments.length);
+        int combinations                = 1;
+        for (PsiElement argument : arguments) {
+            final List<String> values = fold(argument, visiting);
+            if (null == values || (combinations *= values.size()) > maxFoldedValues) {
+                return null;
+            }
+            folded.add(values);
+        }
+
+        /* the cartesian product of arguments values */
+        List<List<String>> variants = Collections.singletonList(Collections.<String>emptyList());
+        for (List<String> values : folded) {
+            final List<List<String>> extended = new ArrayList<>(variants.size() * values.size());
+            for (List<String> variant : variants) {
+                for (String value : values) {
+                    final List<String> copy = new ArrayList<>(variant);
+                    copy.add(value);
+                    extended.add(copy);
+                }
+            }
+            variants = extended;
+        }
+
+        final List<String> result = new ArrayList<>(variants.size());
+        for (List<String> variant : variants) {
+            final String formatted = format(variant);
+            if (null == formatted) {
+                return null;
+            }
+            result.add(formatted);
+        }
+        return result;
+    }
+
+    @Nullable
+    static private String format(@NotNull List<String> arguments) {
+        final String pattern       = arguments.get(0);
+        final StringBuilder result = new StringBuilder();
+        int nextArgument           = 1;
+        for (int index = 0; index < pattern.length(); ++index) {
+            final char current = pattern.charAt(index);
+            if ('%' != current) {
+                result.append(current);
+                continue;
+            }
+            if (++index == pattern.length()) {
+                return null;
+            }
+            if ('%' == pattern.charAt(index)) {
+                result.append('%');
+                continue;
+            }
+
+            /* positional arguments: %1$s */
+            int argument = nextArgument++;
+            int digits   = index;
+            while (digits < pattern.length() && Character.isDigit(pattern.charAt(digits))) {
+                ++digits;
+            }
+            if (digits > index && digits < pattern.length() && '$' == pattern.charAt(digits)) {
+                /* positions beyond arguments are failing formatting anyway */
+                if (digits - index > 9) {
+                    return null;
+                }
+                argument = Integer.parseInt(pattern.substring(index, digits));
+                index    = digits + 1;
+                --nextArgument;
+            }
+
+            if (index >= pattern.length() || argument >= arguments.size()) {
+                return null;
+            }
+            final char type    = pattern.charAt(index);
+            final String value = arguments.get(argument);
+            if ('s' == type) {
+                result.append(value);
+            } else if ('d' == type && value.matches("-?\\d+")) {
+                result.append(value);
+            } else {
+                return null;
+            }
+        }
+
+        return result.toString();
+    }
+
+    @NotNull
+    static private List<String> union(@NotNull List<String> first, @NotNull List<String> second) {
+        final LinkedHashSet<String> result = new LinkedHashSet<>(first);
+        result.addAll(second);
+        return new ArrayList<>(result);
+    }
+
     @NotNull
     static public HashSet<PsiElement> discover(@NotNull PsiElement expression, @NotNull HashSet<PsiElement> processed) {
         /* un-wrap parenthesises to avoid false-positives */
@@ -0,0 +1,96 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils;
+
+import com.intellij.psi.PsiElement;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * "Report once" registry: elements already reported, grouped by scope (e.g. function).
+ *
+ * Intended to live as long as an inspection session (create it in buildVisitor): scopes and elements are weakly
+ * referenced, so PSI is never retained, and least recently used scopes are evicted above the limit.
+ * Not thread-safe, as visitors are not shared between threads.
+ */
+final public class ReportedElementsRegistry {
+    private final ReferenceQueue<PsiElement> collectedScopes = new ReferenceQueue<>();
+    private final LinkedHashMap<ScopeKey, Set<PsiElement>> scopes;
+
+    /** weak reference with identity semantics, so it can be used as a map key */
+    private static class ScopeKey extends WeakReference<PsiElement> {
+        private final int hash;
+
+        ScopeKey(@NotNull PsiElement scope, @Nullable ReferenceQueue<PsiElement> queue) {
+            super(scope, queue);
+            this.hash = System.identityHashCode(scope);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+
+            final PsiElement scope = get();
+            return other instanceof ScopeKey && null != scope && scope == ((ScopeKey) other).get();
+        }
+    }
+
+    public ReportedElementsRegistry(final int maxScopes) {
+        this.scopes = new LinkedHashMap<ScopeKey, Set<PsiElement>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ScopeKey, Set<PsiElement>> eldest) {
+                return size() > maxScopes;
+            }
+        };
+    }
+
+    /** live set of elements reported in the scope, it can be modified directly */
+    @NotNull
+    public Set<PsiElement> getReported(@NotNull PsiElement scope) {
+        expungeCollectedScopes();
+
+        Set<PsiElement> reported = scopes.get(new ScopeKey(scope, null));
+        if (null == reported) {
+            reported = Collections.newSetFromMap(new WeakHashMap<PsiElement, Boolean>());
+            scopes.put(new ScopeKey(scope, collectedScopes), reported);
+        }
+
+        return reported;
+    }
+
+    /** returns false if the element has been already reported in the scope */
+    public boolean markReported(@NotNull PsiElement scope, @NotNull PsiElement element) {
+        return getReported(scope).add(element);
+    }
+
+    public int countScopes() {
+        expungeCollectedScopes();
+        return scopes.size();
+    }
+
+    private void expungeCollectedScopes() {
+        Reference<? extends PsiElement> collected;
+        while (null != (collected = collectedScopes.poll())) {
+            scopes.remove(collected);
+        }
+    }
+}
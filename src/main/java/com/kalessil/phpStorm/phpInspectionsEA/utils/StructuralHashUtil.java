@@ -0,0 +1,121 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils;
+
+import com.intellij.codeInsight.PsiEquivalenceUtil;
+import com.intellij.lang.ASTNode;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.PsiComment;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiWhiteSpace;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.jetbrains.php.lang.psi.elements.ParenthesizedExpression;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Structural hash of PSI: element types and leaves text, whitespace and comments are ignored, parentheses unwrapped.
+ *
+ * Elements equivalent in terms of PsiEquivalenceUtil are always having the same hash, so different hashes are
+ * proving elements are different, and the expensive tree comparison is only needed on hash collisions.
+ */
+final public class StructuralHashUtil {
+    private static final Key<CachedValue<Integer>> hashKey = Key.create("EA.StructuralHash");
+
+    public static int getHash(@NotNull final PsiElement element) {
+        return CachedValuesManager.getCachedValue(element, hashKey, new CachedValueProvider<Integer>() {
+            @Nullable
+            @Override
+            public Result<Integer> compute() {
+                return Result.create(computeHash(element), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        });
+    }
+
+    /** PsiEquivalenceUtil.areElementsEquivalent with a cheap rejection of different elements */
+    public static boolean areEquivalent(@NotNull PsiElement first, @NotNull PsiElement second) {
+        return first == second || (getHash(first) == getHash(second) && PsiEquivalenceUtil.areElementsEquivalent(first, second));
+    }
+
+    /**
+     * Groups equivalent elements (nulls are skipped). Groups are ordered by their first elements occurrence,
+     * elements inside a group are keeping the original order as well.
+     */
+    @NotNull
+    public static List<List<PsiElement>> groupEquivalent(@NotNull Collection<? extends PsiElement> elements) {
+        final List<List<PsiElement>> groups                    = new ArrayList<>();
+        final HashMap<Integer, List<List<PsiElement>>> buckets = new HashMap<>();
+        for (PsiElement element : elements) {
+            if (null == element) {
+                continue;
+            }
+
+            final int hash                = getHash(element);
+            List<List<PsiElement>> bucket = buckets.get(hash);
+            if (null == bucket) {
+                bucket = new ArrayList<>(1);
+                buckets.put(hash, bucket);
+            }
+
+            /* same hash: compare with the first element of each group, normally there is one group only */
+            List<PsiElement> target = null;
+            for (List<PsiElement> group : bucket) {
+                if (PsiEquivalenceUtil.areElementsEquivalent(group.get(0), element)) {
+                    target = group;
+                    break;
+                }
+            }
+            if (null == target) {
+                target = new ArrayList<>(2);
+                bucket.add(target);
+                groups.add(target);
+            }
+            target.add(element);
+        }
+        buckets.clear();
+
+        return groups;
+    }
+
+    private static int computeHash(@NotNull PsiElement element) {
+        if (element instanceof ParenthesizedExpression) {
+            final PsiElement inner = ((ParenthesizedExpression) element).getArgument();
+            if (null != inner) {
+                return computeHash(inner);
+            }
+        }
+
+        final ASTNode node = element.getNode();
+        int hash           = null == node ? 0 : node.getElementType().hashCode();
+
+        boolean hasChildren = false;
+        for (PsiElement child = element.getFirstChild(); null != child; child = child.getNextSibling()) {
+            if (child instanceof PsiWhiteSpace || child instanceof PsiComment) {
+                continue;
+            }
+
+            hasChildren = true;
+            hash        = 31 * hash + computeHash(child);
+        }
+        if (!hasChildren) {
+            hash = 31 * hash + element.getText().hashCode();
+        }
+
+        return hash;
+    }
+}
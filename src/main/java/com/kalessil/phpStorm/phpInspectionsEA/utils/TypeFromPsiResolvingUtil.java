@@ -1,8 +1,13 @@
 package com.kalessil.phpStorm.phpInspectionsEA.utils;
 
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiReference;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.tree.IElementType;
 import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.lexer.PhpTokenTypes;
@@ -10,18 +15,63 @@ import com.jetbrains.php.lang.psi.elements.*;
 import com.jetbrains.php.lang.psi.elements.impl.FunctionImpl;
 import com.jetbrains.php.lang.psi.resolve.types.PhpType;
 import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.utils.ExpressionCostEstimateUtil;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 final public class TypeFromPsiResolvingUtil {
+    /* resolved types are shared by all inspections, until any PSI change in the project */
+    private static final AtomicLong cacheHits   = new AtomicLong();
+    private static final AtomicLong cacheMisses = new AtomicLong();
+    private static final CachedValueProvider<ConcurrentHashMap<PsiElement, ResolvedTypes>> cacheProvider =
+        new CachedValueProvider<ConcurrentHashMap<PsiElement, ResolvedTypes>>() {
+            @Nullable
+            @Override
+            public Result<ConcurrentHashMap<PsiElement, ResolvedTypes>> compute() {
+                return Result.create(new ConcurrentHashMap<PsiElement, ResolvedTypes>(), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        };
+
+    private static class ResolvedTypes {
+        final Function scope;
+        final String[] types;
+        /* the compact form is built once, on the first request */
+        volatile PhpTypeSet set;
+
+        ResolvedTypes(@Nullable Function scope, @NotNull HashSet<String> types) {
+            this.scope = scope;
+            this.types = types.toArray(new String[types.size()]);
+        }
+    }
+
+    public static long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public static long getCacheMisses() {
+        return cacheMisses.get();
+    }
 
     /** adds type, handling | and #, invoking signatures resolving */
     private static void storeAsTypeWithSignaturesImport(String strTypeToImport, @Nullable Function objScope, PhpIndex objIndex, HashSet<String> objTypesSet) {
-        if (strTypeToImport.contains("|")) {
-            for (String strOneType : strTypeToImport.split("\\|")) {
-                storeAsTypeWithSignaturesImport(Types.getType(strOneType), objScope, objIndex, objTypesSet);
+        int separator = strTypeToImport.indexOf('|');
+        if (separator >= 0) {
+            /* no regex-based split here: this is a hot path */
+            int start = 0;
+            while (start <= strTypeToImport.length()) {
+                if (separator < 0) {
+                    separator = strTypeToImport.length();
+                }
+                if (separator > start) {
+                    storeAsTypeWithSignaturesImport(Types.getType(strTypeToImport.substring(start, separator)), objScope, objIndex, objTypesSet);
+                }
+                start     = separator + 1;
+                separator = strTypeToImport.indexOf('|', start);
             }
             return;
         }
@@ -38,8 +88,65 @@ final public class TypeFromPsiResolvingUtil {
         objTypesSet.add(Types.getType(strTypeToImport));
     }
 
-    /** high-level resolving logic */
+    /** high-level resolving logic, results are memoized per file revision */
     public static void resolveExpressionType(PsiElement objSubjectExpression, @Nullable Function objScope, PhpIndex objIndex, HashSet<String> objTypesSet) {
+        final ResolvedTypes resolved = getResolvedTypes(objSubjectExpression, objScope, objIndex);
+        if (null == resolved) {
+            resolveExpressionTypeUncached(objSubjectExpression, objScope, objIndex, objTypesSet);
+            return;
+        }
+
+        for (String type : resolved.types) {
+            objTypesSet.add(type);
+        }
+    }
+
+    /** same as above, but memoized results are returned as is, without copying into intermediate collections */
+    @NotNull
+    public static PhpTypeSet resolveExpressionTypes(@NotNull PsiElement objSubjectExpression, @Nullable Function objScope, PhpIndex objIndex) {
+        final Project project        = objSubjectExpression.getProject();
+        final ResolvedTypes resolved = getResolvedTypes(objSubjectExpression, objScope, objIndex);
+        if (null == resolved) {
+            final HashSet<String> types = new HashSet<>();
+            resolveExpressionTypeUncached(objSubjectExpression, objScope, objIndex, types);
+            return PhpTypeSet.of(project, types);
+        }
+
+        PhpTypeSet set = resolved.set;
+        if (null == set) {
+            set          = PhpTypeSet.of(project, Arrays.asList(resolved.types));
+            resolved.set = set;
+        }
+        return set;
+    }
+
+    /** memoized types of the expression, null if results can not be shared */
+    @Nullable
+    private static ResolvedTypes getResolvedTypes(PsiElement objSubjectExpression, @Nullable Function objScope, PhpIndex objIndex) {
+        final PsiFile file = null == objSubjectExpression ? null : objSubjectExpression.getContainingFile();
+        /* while local types are inferred, variables are resolved by signatures only: such results are not shared */
+        if (null == file || LocalTypesInferenceUtil.isInferring()) {
+            return null;
+        }
+
+        final ConcurrentHashMap<PsiElement, ResolvedTypes> cache = CachedValuesManager.getCachedValue(file, cacheProvider);
+        final ResolvedTypes cached = cache.get(objSubjectExpression);
+        if (null != cached && cached.scope == objScope) {
+            cacheHits.incrementAndGet();
+            return cached;
+        }
+
+        /* resolve into a clean set: callers are accumulating types of several expressions */
+        cacheMisses.incrementAndGet();
+        final HashSet<String> types = new HashSet<>();
+        resolveExpressionTypeUncached(objSubjectExpression, objScope, objIndex, types);
+        final ResolvedTypes resolved = new ResolvedTypes(objScope, types);
+        cache.put(objSubjectExpression, resolved);
+
+        return resolved;
+    }
+
+    private static void resolveExpressionTypeUncached(PsiElement objSubjectExpression, @Nullable Function objScope, PhpIndex objIndex, HashSet<String> objTypesSet) {
         objSubjectExpression = ExpressionSemanticUtil.getExpressionTroughParenthesis(objSubjectExpression);
 
         if (objSubjectExpression instanceof ArrayCreationExpression) {
@@ -85,14 +192,15 @@ final public class TypeFromPsiResolvingUtil {
                 storeAsTypeWithSignaturesImport(Types.strArray, objScope, objIndex, objTypesSet);
                 return;
             }
-//
-//            PsiElement var = ((Variable) objSubjectExpression).resolve();
-//            if (var instanceof Variable && var.getParent() instanceof AssignmentExpression) {
-//                AssignmentExpression decl = (AssignmentExpression) var.getParent();
-//                if (decl.getValue() instanceof  ArrayCreationExpression) {
-//                    checkCallables((ArrayCreationExpression) decl.getValue(), objScope, objIndex, objTypesSet);
-//                }
-//            }
+
+            /* flow-sensitive types of locals; "mixed" means the variable is not assigned on some of paths */
+            final PhpTypeSet inferred = LocalTypesInferenceUtil.getType((Variable) objSubjectExpression);
+            if (null != inferred) {
+                inferred.without(PhpTypeSet.MIXED).addTo(objTypesSet);
+                if (!inferred.contains(PhpTypeSet.MIXED)) {
+                    return;
+                }
+            }
 
             storeAsTypeWithSignaturesImport(((Variable) objSubjectExpression).getSignature(), objScope, objIndex, objTypesSet);
             return;
@@ -1,17 +1,77 @@
 package com.kalessil.phpStorm.phpInspectionsEA.utils;
 
+import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.ReturnTypesIndexer;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 final public class TypeFromSignatureResolvingUtil {
+    /* frameworks are producing deep signature chains, deeper ones are not resolved (and not cached) */
+    private static final int maxDepth = 32;
+
+    /* single-variant signatures resolved independently of scope, until any PSI change in the project */
+    private static final AtomicLong cacheHits   = new AtomicLong();
+    private static final AtomicLong cacheMisses = new AtomicLong();
+    private static final CachedValueProvider<ConcurrentHashMap<String, String[]>> cacheProvider =
+        new CachedValueProvider<ConcurrentHashMap<String, String[]>>() {
+            @Nullable
+            @Override
+            public Result<ConcurrentHashMap<String, String[]>> compute() {
+                return Result.create(new ConcurrentHashMap<String, String[]>(), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        };
+
+    /** state of one top-level resolving: signatures being resolved and what affected results */
+    private static class ResolvingContext {
+        final Project project;
+        final ConcurrentHashMap<String, String[]> cache;
+        final HashSet<String> stack       = new HashSet<>();
+        final HashSet<String> cycleHeads  = new HashSet<>();
+        boolean isTruncated;
+        boolean isScopeDependent;
+
+        ResolvingContext(@Nullable Project project, @Nullable ConcurrentHashMap<String, String[]> cache) {
+            this.project = project;
+            this.cache   = cache;
+        }
+    }
+
+    public static long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    public static long getCacheMisses() {
+        return cacheMisses.get();
+    }
 
     static public void resolveSignature (String strSignatureToResolve, @Nullable Function objScope, PhpIndex objIndex, HashSet<String> extractedTypesSet) {
+        /* the project is taken from scope: the index doesn't expose it, global code is resolved without cache */
+        final Project project = null == objScope ? null : objScope.getProject();
+        final ConcurrentHashMap<String, String[]> cache
+                = null == project ? null : CachedValuesManager.getManager(project).getCachedValue(project, cacheProvider);
+
+        resolveSignature(strSignatureToResolve, objScope, objIndex, extractedTypesSet, new ResolvingContext(project, cache));
+    }
+
+    static private void resolveSignature (
+            String strSignatureToResolve,
+            @Nullable Function objScope,
+            PhpIndex objIndex,
+            HashSet<String> extractedTypesSet,
+            @NotNull ResolvingContext context
+    ) {
         /* do nothing with empty signatures */
         if (StringUtil.isEmpty(strSignatureToResolve)) {
             return;
@@ -20,7 +80,7 @@ final public class TypeFromSignatureResolvingUtil {
         /* re-dispatch poly-variants to single-variant processing */
         if (strSignatureToResolve.contains("|")) {
             for (String strOneVariantFromSplitToResolve : strSignatureToResolve.split("\\|")) {
-                resolveSignature(strOneVariantFromSplitToResolve, objScope, objIndex, extractedTypesSet);
+                resolveSignature(strOneVariantFromSplitToResolve, objScope, objIndex, extractedTypesSet, context);
             }
             return;
         }
@@ -31,7 +91,55 @@ final public class TypeFromSignatureResolvingUtil {
             return;
         }
 
+        /* reuse results of previous resolving */
+        final String[] cached = null == context.cache ? null : context.cache.get(strSignatureToResolve);
+        if (null != cached) {
+            cacheHits.incrementAndGet();
+            Collections.addAll(extractedTypesSet, cached);
+            return;
+        }
+
+        /* cycles: the signature is already being resolved, what is resolved there is the result */
+        if (context.stack.contains(strSignatureToResolve)) {
+            context.cycleHeads.add(strSignatureToResolve);
+            return;
+        }
+        if (context.stack.size() >= maxDepth) {
+            context.isTruncated = true;
+            return;
+        }
+
+        final boolean isOuterTruncated      = context.isTruncated;
+        final boolean isOuterScopeDependent = context.isScopeDependent;
+        context.isTruncated      = false;
+        context.isScopeDependent = false;
+        context.stack.add(strSignatureToResolve);
+
+        final HashSet<String> resolved = new HashSet<>();
+        resolveSingleVariantSignature(strSignatureToResolve, objScope, objIndex, resolved, context);
+
+        context.stack.remove(strSignatureToResolve);
+        context.cycleHeads.remove(strSignatureToResolve);
+
+        /* results inside of a cycle are partial, as well as truncated or scope-specific ones */
+        final boolean isCacheable = context.cycleHeads.isEmpty() && !context.isTruncated && !context.isScopeDependent;
+        if (null != context.cache && isCacheable) {
+            cacheMisses.incrementAndGet();
+            context.cache.put(strSignatureToResolve, resolved.toArray(new String[resolved.size()]));
+        }
+        extractedTypesSet.addAll(resolved);
+
+        context.isTruncated      |= isOuterTruncated;
+        context.isScopeDependent |= isOuterScopeDependent;
+    }
 
+    static private void resolveSingleVariantSignature (
+            String strSignatureToResolve,
+            @Nullable Function objScope,
+            PhpIndex objIndex,
+            HashSet<String> extractedTypesSet,
+            @NotNull ResolvingContext context
+    ) {
         char charTypeOfSignature = ((strSignatureToResolve.length()) >= 2 ? strSignatureToResolve.charAt(1) : '?');
         if (
             charTypeOfSignature == 'D' || /* pre-defined constants type is not resolved */
@@ -46,6 +154,19 @@ final public class TypeFromSignatureResolvingUtil {
         /* resolve functions */
         if (charTypeOfSignature == 'F') {
             String strFunctionName = strSignatureToResolve.replace("#F", "");
+
+            /* return types are pre-computed when indexing, so functions PSI is not even loaded */
+            if (null != context.project && !strFunctionName.isEmpty()) {
+                final String indexed = ReturnTypesIndexer.getReturnTypes(
+                    context.project,
+                    strFunctionName.charAt(0) == '\\' ? strFunctionName : '\\' + strFunctionName
+                );
+                if (null != indexed) {
+                    resolveSignature(indexed, objScope, objIndex, extractedTypesSet, context);
+                    return;
+                }
+            }
+
             Collection<Function> objFunctionsCollection = objIndex.getFunctionsByName(strFunctionName);
             for (Function objFunction : objFunctionsCollection) {
                 /*
@@ -53,7 +174,7 @@ final public class TypeFromSignatureResolvingUtil {
                  * IDE for some reason resolved type including self-reference of this function
                  */
                 String strTypeWithoutLoop = objFunction.getType().toString().replace("#F" + strFunctionName, "");
-                resolveSignature(strTypeWithoutLoop, objScope, objIndex, extractedTypesSet);
+                resolveSignature(strTypeWithoutLoop, objScope, objIndex, extractedTypesSet, context);
             }
             objFunctionsCollection.clear();
 
@@ -62,17 +183,19 @@ final public class TypeFromSignatureResolvingUtil {
 
         /* resolve params and scope variables */
         if (charTypeOfSignature == 'V'){
+            context.isScopeDependent = true;
+
             String strParameterOrVariableName = strSignatureToResolve.replace("#V", "");
             if (null != objScope) {
                 for (Parameter objParam : objScope.getParameters()) {
                     if (objParam.getName().equals(strParameterOrVariableName)) {
-                        resolveSignature(objParam.getType().toString(), objScope, objIndex, extractedTypesSet);
+                        resolveSignature(objParam.getType().toString(), objScope, objIndex, extractedTypesSet, context);
                         return;
                     }
                 }
             }
 
-            /* TODO: resolve local vars - find assignments */
+            /* local variables: signatures are position-less, see LocalTypesInferenceUtil for flow-sensitive types */
 
             return;
         }
@@ -80,6 +203,9 @@ final public class TypeFromSignatureResolvingUtil {
         /* classes and core types */
         if (charTypeOfSignature == 'C') {
             String typeName = strSignatureToResolve.replace("#C", "");
+            if (typeName.equals("static")) {
+                context.isScopeDependent = true;
+            }
             if (objScope instanceof Method && typeName.equals("static")) {
                 final PhpClass container = ((Method) objScope).getContainingClass();
                 if (container != null) {
@@ -174,7 +300,7 @@ final public class TypeFromSignatureResolvingUtil {
             if (null != typesOfSlotSet && typesOfSlotSet.size() > 0) {
                 /* store resolved types by re-running resolving */
                 for (String strType : typesOfSlotSet) {
-                    resolveSignature(strType, objScope, objIndex, extractedTypesSet);
+                    resolveSignature(strType, objScope, objIndex, extractedTypesSet, context);
                 }
                 typesOfSlotSet.clear();
             }
@@ -205,9 +331,9 @@ final public class TypeFromSignatureResolvingUtil {
 
                     /* match first chars and then complete names */
                     if (!StringUtil.isEmpty(strMethodName) && strMethodName.charAt(0) == charSlotFirst && strMethodName.equals(strSlot)) {
-                         /* exclude recursive definition in own signature */
-                        strTypeExtracted = objMethod
-                                .getType().toString()
+                        /* indexed return types are not requiring types inference; exclude recursive definition */
+                        final String indexed = ReturnTypesIndexer.getReturnTypes(objClass.getProject(), objMethod.getFQN());
+                        strTypeExtracted = (null == indexed ? objMethod.getType().toString() : indexed)
                                 .replace("#" + type + "#C" + strClass + "." + strSlot, "");
 
                         Collections.addAll(resolvedTypesSet, strTypeExtracted.split("\\|"));
@@ -22,58 +22,53 @@ final public class Types {
     final static public String strResolvingAbortedOnPsiLevel = "\\aborted-on-psi-level";
     final static public String strClassNotResolved           = "\\class-not-resolved";
 
-    static private HashMap<String, String> mapTypes = null;
-    static private HashMap<String, String> getTypesMap () {
-        if (null == mapTypes) {
-            mapTypes = new HashMap<>();
+    /* built eagerly: inspections are running in parallel, lazy initialization was racy */
+    static private final HashMap<String, String> mapTypes = new HashMap<>();
+    static {
+        mapTypes.put(strArray,     strArray);
+        mapTypes.put("\\array",    strArray);
 
-            mapTypes.put(strArray,     strArray);
-            mapTypes.put("\\array",    strArray);
+        mapTypes.put(strString,    strString);
+        mapTypes.put("\\string",   strString);
 
-            mapTypes.put(strString,    strString);
-            mapTypes.put("\\string",   strString);
+        mapTypes.put(strBoolean,   strBoolean);
+        mapTypes.put("\\bool",     strBoolean);
+        mapTypes.put("boolean",    strBoolean);
+        mapTypes.put("\\boolean",  strBoolean);
 
-            mapTypes.put(strBoolean,   strBoolean);
-            mapTypes.put("\\bool",     strBoolean);
-            mapTypes.put("boolean",    strBoolean);
-            mapTypes.put("\\boolean",  strBoolean);
+        mapTypes.put(strInteger,   strInteger);
+        mapTypes.put("\\int",      strInteger);
+        mapTypes.put("integer",    strInteger);
+        mapTypes.put("\\integer",  strInteger);
 
-            mapTypes.put(strInteger,   strInteger);
-            mapTypes.put("\\int",      strInteger);
-            mapTypes.put("integer",    strInteger);
-            mapTypes.put("\\integer",  strInteger);
+        mapTypes.put(strFloat,     strFloat);
+        mapTypes.put("\\float",    strFloat);
 
-            mapTypes.put(strFloat,     strFloat);
-            mapTypes.put("\\float",    strFloat);
+        mapTypes.put(strNull,      strNull);
+        mapTypes.put("\\null",     strNull);
 
-            mapTypes.put(strNull,      strNull);
-            mapTypes.put("\\null",     strNull);
+        mapTypes.put(strVoid,      strVoid);
+        mapTypes.put("\\void",     strVoid);
 
-            mapTypes.put(strVoid,      strVoid);
-            mapTypes.put("\\void",     strVoid);
+        mapTypes.put(strMixed,     strMixed);
+        mapTypes.put("\\mixed",    strMixed);
 
-            mapTypes.put(strMixed,     strMixed);
-            mapTypes.put("\\mixed",    strMixed);
+        mapTypes.put(strCallable,  strCallable);
+        mapTypes.put("\\callable", strCallable);
+        mapTypes.put("\\closure",  strCallable);
 
-            mapTypes.put(strCallable,  strCallable);
-            mapTypes.put("\\callable", strCallable);
-            mapTypes.put("\\closure",  strCallable);
+        mapTypes.put(strResource,  strResource);
+        mapTypes.put("\\resource", strResource);
 
-            mapTypes.put(strResource,  strResource);
-            mapTypes.put("\\resource", strResource);
+        mapTypes.put(strStatic,    strStatic);
+        mapTypes.put("\\static",   strStatic);
+        mapTypes.put("$this",      strStatic);
 
-            mapTypes.put(strStatic,    strStatic);
-            mapTypes.put("\\static",   strStatic);
-            mapTypes.put("$this",      strStatic);
+        mapTypes.put(strSelf,      strSelf);
+        mapTypes.put("\\self",     strSelf);
 
-            mapTypes.put(strSelf,      strSelf);
-            mapTypes.put("\\self",     strSelf);
-
-            mapTypes.put(strObject,    strObject);
-            mapTypes.put("\\object",   strObject);
-        }
-
-        return mapTypes;
+        mapTypes.put(strObject,    strObject);
+        mapTypes.put("\\object",   strObject);
     }
 
     public static String getType (@NotNull String strGivenType) {
@@ -82,8 +77,7 @@ final public class Types {
             return strArray;
         }
 
-        HashMap<String, String> mapping = getTypesMap();
-        String strResolvedType = mapping.get(strGivenType.toLowerCase());
+        String strResolvedType = mapTypes.get(strGivenType.toLowerCase());
         if (null != strResolvedType) {
             return strResolvedType;
         }
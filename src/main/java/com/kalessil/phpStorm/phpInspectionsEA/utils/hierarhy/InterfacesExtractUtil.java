@@ -1,54 +1,132 @@
 package com.kalessil.phpStorm.phpInspectionsEA.utils.hierarhy;
 
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Key;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
-import java.security.InvalidParameterException;
+import java.util.BitSet;
 import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 final public class InterfacesExtractUtil {
+    private static final Key<CachedValue<Closure>> closureKey = Key.create("EA.InheritanceClosure");
+
+    /* FQNs are interned into ids per project, so ancestors of a class are stored as a bit set */
+    private static final CachedValueProvider<FqnIds> fqnIdsProvider = new CachedValueProvider<FqnIds>() {
+        @Nullable
+        @Override
+        public Result<FqnIds> compute() {
+            return Result.create(new FqnIds(), PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT);
+        }
+    };
+
+    /** ids are dropped together with closures, so the map is bounded by classes of the project */
+    private static class FqnIds {
+        final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+        final AtomicInteger nextId                   = new AtomicInteger();
+
+        int intern(@NotNull String fqn) {
+            Integer id = ids.get(fqn);
+            if (null == id) {
+                ids.putIfAbsent(fqn, nextId.getAndIncrement());
+                id = ids.get(fqn);
+            }
+            return id;
+        }
+    }
+
+    /** complete inheritance tree of a class, including the class itself */
+    private static class Closure {
+        final HashSet<PhpClass> classes    = new HashSet<>();
+        final HashSet<PhpClass> interfaces = new HashSet<>();
+        final BitSet ancestors             = new BitSet();
+        /* ids the ancestors were interned with, as the project ids can be reset meanwhile */
+        final FqnIds fqnIds;
+
+        Closure(@NotNull FqnIds fqnIds) {
+            this.fqnIds = fqnIds;
+        }
+    }
+
+    /** returns a copy: callers are free to modify it */
     @NotNull
     public static HashSet<PhpClass> getCrawlCompleteInheritanceTree(@NotNull PhpClass objClass, boolean withClasses) {
-        HashSet<PhpClass> processedItems = new HashSet<>();
+        final Closure closure = getClosure(objClass);
+        return new HashSet<>(withClasses ? closure.classes : closure.interfaces);
+    }
 
-        if (objClass.isInterface()) {
-            processInterface(objClass, processedItems, withClasses);
-        } else {
-            processClass(objClass, processedItems, withClasses);
+    /** checks if the class is the parent class or implements it (directly or via parents) */
+    public static boolean isSubType(@NotNull PhpClass objClass, @NotNull PhpClass parent) {
+        if (objClass == parent) {
+            return true;
         }
 
-        return processedItems;
+        final Closure closure  = getClosure(objClass);
+        final Integer parentId = closure.fqnIds.ids.get(parent.getFQN());
+        return null != parentId && closure.ancestors.get(parentId);
     }
 
-    private static void processClass(PhpClass objClass, HashSet<PhpClass> processedItems, boolean withClasses) {
-        if (objClass.isInterface()) {
-            throw new InvalidParameterException("Interface shall not be provided");
-        }
+    @NotNull
+    private static Closure getClosure(@NotNull final PhpClass objClass) {
+        /* the hierarchy can only be changed outside of code blocks */
+        return CachedValuesManager.getCachedValue(objClass, closureKey, new CachedValueProvider<Closure>() {
+            @Nullable
+            @Override
+            public Result<Closure> compute() {
+                final Project project = objClass.getProject();
+                final Closure closure = new Closure(CachedValuesManager.getManager(project).getCachedValue(project, fqnIdsProvider));
+                if (objClass.isInterface()) {
+                    processInterface(objClass, closure);
+                } else {
+                    processClass(objClass, closure);
+                }
+
+                return Result.create(closure, PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT);
+            }
+        });
+    }
 
-        if (withClasses) {
-            processedItems.add(objClass);
+    private static void processClass(@NotNull PhpClass objClass, @NotNull Closure closure) {
+        /* cyclic inheritance is possible in broken code */
+        if (!register(objClass, closure)) {
+            return;
         }
 
         /* re-delegate interface handling */
         for (PhpClass objInterface : objClass.getImplementedInterfaces()) {
-            processInterface(objInterface, processedItems, withClasses);
+            processInterface(objInterface, closure);
         }
 
         /* handle parent class */
-        if (null != objClass.getSuperClass()) {
-            processClass(objClass.getSuperClass(), processedItems, withClasses);
+        final PhpClass parent = objClass.getSuperClass();
+        if (null != parent) {
+            processClass(parent, closure);
         }
     }
 
-    private static void processInterface(PhpClass objClass, HashSet<PhpClass> processedItems, boolean withClasses) {
-        if (!objClass.isInterface()) {
-            throw new InvalidParameterException("Class shall not be provided");
-        }
-
-        if (processedItems.add(objClass)) {
+    private static void processInterface(@NotNull PhpClass objClass, @NotNull Closure closure) {
+        if (register(objClass, closure)) {
+            closure.interfaces.add(objClass);
             for (PhpClass objParentInterface : objClass.getImplementedInterfaces()) {
-                processInterface(objParentInterface, processedItems, withClasses);
+                processInterface(objParentInterface, closure);
             }
         }
     }
+
+    private static boolean register(@NotNull PhpClass objClass, @NotNull Closure closure) {
+        if (!closure.classes.add(objClass)) {
+            return false;
+        }
+
+        closure.ancestors.set(closure.fqnIds.intern(objClass.getFQN()));
+
+        return true;
+    }
 }
@@ -1,7 +1,12 @@
 package com.kalessil.phpStorm.phpInspectionsEA.utils.phpDoc;
 
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.php.lang.documentation.phpdoc.psi.PhpDocComment;
 import com.jetbrains.php.lang.documentation.phpdoc.psi.impl.PhpDocTypeImpl;
@@ -11,18 +16,49 @@ import com.jetbrains.php.lang.psi.elements.Method;
 import com.jetbrains.php.lang.psi.elements.PhpClass;
 import com.jetbrains.php.lang.psi.elements.PhpPsiElement;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 
 final public class ThrowsResolveUtil {
 
     public enum ResolveType { RESOLVED, RESOLVED_INHERIT_DOC, NOT_RESOLVED }
 
+    private static final Key<CachedValue<ThrowsSummary>> summaryKey = Key.create("EA.DeclaredThrows");
+
+    /** declared exceptions of a method, shared by all callers until any PSI change in the project */
+    private static class ThrowsSummary {
+        final ResolveType type;
+        final PhpClass[] exceptions;
+
+        ThrowsSummary(@NotNull ResolveType type, @NotNull HashSet<PhpClass> exceptions) {
+            this.type       = type;
+            this.exceptions = exceptions.toArray(new PhpClass[exceptions.size()]);
+        }
+    }
+
     /**
      * Return false if doc-block is not defined
      */
     static public ResolveType resolveThrownExceptions(@NotNull final Method method, @NotNull HashSet<PhpClass> declaredExceptions) {
+        /* inherit doc makes the summary dependent on other files, hence the project-wide modification tracker */
+        final ThrowsSummary summary = CachedValuesManager.getCachedValue(method, summaryKey, new CachedValueProvider<ThrowsSummary>() {
+            @Nullable
+            @Override
+            public Result<ThrowsSummary> compute() {
+                final HashSet<PhpClass> exceptions = new HashSet<>();
+                final ResolveType type             = resolveThrownExceptionsUncached(method, exceptions);
+                return Result.create(new ThrowsSummary(type, exceptions), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        });
+
+        Collections.addAll(declaredExceptions, summary.exceptions);
+        return summary.type;
+    }
+
+    static private ResolveType resolveThrownExceptionsUncached(@NotNull final Method method, @NotNull HashSet<PhpClass> declaredExceptions) {
         /* TODO: use method.getDocComment() */
         PhpPsiElement previous = method.getPrevPsiSibling();
         if (!(previous instanceof PhpDocComment)) {
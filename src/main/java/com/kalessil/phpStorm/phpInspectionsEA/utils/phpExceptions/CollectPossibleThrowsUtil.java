@@ -1,7 +1,12 @@
 package com.kalessil.phpStorm.phpInspectionsEA.utils.phpExceptions;
 
 import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.openapi.util.Key;
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.lang.psi.elements.*;
@@ -9,14 +14,87 @@ import com.kalessil.phpStorm.phpInspectionsEA.utils.TypeFromPlatformResolverUtil
 import com.kalessil.phpStorm.phpInspectionsEA.utils.hierarhy.InterfacesExtractUtil;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.phpDoc.ThrowsResolveUtil;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 
 final public class CollectPossibleThrowsUtil {
+    private static final Key<CachedValue<MethodSummary>> summaryKey = Key.create("EA.PossibleThrows");
+
+    /** exceptions escaping a method body with blamed expressions, and what the walk marked as processed */
+    private static class MethodSummary {
+        final HashMap<PhpClass, PsiElement[]> exceptions = new HashMap<>();
+        final PsiElement[] processed;
+
+        MethodSummary(@NotNull HashMap<PhpClass, HashSet<PsiElement>> exceptions, @NotNull HashSet<PsiElement> processed) {
+            for (Map.Entry<PhpClass, HashSet<PsiElement>> pair : exceptions.entrySet()) {
+                this.exceptions.put(pair.getKey(), pair.getValue().toArray(new PsiElement[pair.getValue().size()]));
+            }
+            this.processed = processed.toArray(new PsiElement[processed.size()]);
+        }
+    }
+
     static public HashMap<PhpClass, HashSet<PsiElement>> collectNestedAndWorkflowExceptions(PsiElement scope, HashSet<PsiElement> processed, @NotNull final ProblemsHolder holder) {
+        final PhpIndex index = PhpIndex.getInstance(holder.getProject());
+        if (scope instanceof Method && processed.isEmpty()) {
+            return getMethodExceptions((Method) scope, processed, index);
+        }
+
+        return collectNestedAndWorkflowExceptions(scope, processed, index, null);
+    }
+
+    /**
+     * Walks a method body once and shares the result until any PSI change in the project (callees annotations
+     * are part of it). Callers are modifying results, so they are getting copies.
+     */
+    @NotNull
+    static private HashMap<PhpClass, HashSet<PsiElement>> getMethodExceptions(
+            @NotNull final Method method,
+            @NotNull HashSet<PsiElement> processed,
+            @NotNull final PhpIndex objIndex
+    ) {
+        final MethodSummary summary = CachedValuesManager.getCachedValue(method, summaryKey, new CachedValueProvider<MethodSummary>() {
+            @Nullable
+            @Override
+            public Result<MethodSummary> compute() {
+                final HashSet<PsiElement> walked                        = new HashSet<>();
+                final HashMap<PhpClass, HashSet<PsiElement>> exceptions = collectNestedAndWorkflowExceptions(method, walked, objIndex, null);
+                return Result.create(new MethodSummary(exceptions, walked), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        });
+
+        final HashMap<PhpClass, HashSet<PsiElement>> exceptions = new HashMap<>();
+        for (Map.Entry<PhpClass, PsiElement[]> pair : summary.exceptions.entrySet()) {
+            final HashSet<PsiElement> expressions = new HashSet<>();
+            Collections.addAll(expressions, pair.getValue());
+            exceptions.put(pair.getKey(), expressions);
+        }
+        Collections.addAll(processed, summary.processed);
+
+        return exceptions;
+    }
+
+    /** same as above, but exceptions of non-annotated methods are inferred by the propagation engine */
+    static public HashMap<PhpClass, HashSet<PsiElement>> collectNestedAndWorkflowExceptions(
+            PsiElement scope,
+            HashSet<PsiElement> processed,
+            @NotNull final ProblemsHolder holder,
+            @NotNull ExceptionsPropagationUtil.Budget budget
+    ) {
+        final PhpIndex index = PhpIndex.getInstance(holder.getProject());
+        return collectNestedAndWorkflowExceptions(scope, processed, index, ExceptionsPropagationUtil.createContext(holder.getProject(), index, budget));
+    }
+
+    static HashMap<PhpClass, HashSet<PsiElement>> collectNestedAndWorkflowExceptions(
+            PsiElement scope,
+            HashSet<PsiElement> processed,
+            @NotNull PhpIndex objIndex,
+            @Nullable ExceptionsPropagationUtil.Context propagation
+    ) {
         final HashMap<PhpClass, HashSet<PsiElement>> exceptions = new HashMap<>();
 
         /* recursively invoke and analyse nested try-catches checks */
@@ -25,7 +103,7 @@ final public class CollectPossibleThrowsUtil {
             for (Try nestedTry : tryStatements) {
                 if (!processed.contains(nestedTry)) {
                     /* process nested workflow */
-                    final HashMap<PhpClass, HashSet<PsiElement>> nestedTryExceptions = collectNestedAndWorkflowExceptions(nestedTry, processed, holder);
+                    final HashMap<PhpClass, HashSet<PsiElement>> nestedTryExceptions = collectNestedAndWorkflowExceptions(nestedTry, processed, objIndex, propagation);
 //holder.registerProblem(nestedTry.getFirstChild(), "Nested: " + nestedTryExceptions.toString(), ProblemHighlightType.WEAK_WARNING);
                     if (nestedTryExceptions.size() > 0) {
                         for (Map.Entry<PhpClass, HashSet<PsiElement>> nestedTryExceptionsPair : nestedTryExceptions.entrySet()) {
@@ -52,7 +130,7 @@ final public class CollectPossibleThrowsUtil {
         /* process try-catch */
         if (scope instanceof Try) {
             /* extract workflow exceptions */
-            HashMap<PhpClass, HashSet<PsiElement>> tryWorkflowExceptions = collectTryWorkflowExceptions((Try) scope, processed, holder);
+            HashMap<PhpClass, HashSet<PsiElement>> tryWorkflowExceptions = collectTryWorkflowExceptions((Try) scope, processed, objIndex, propagation);
 //holder.registerProblem(scope.getFirstChild(), "Throws: " + tryWorkflowExceptions.toString(), ProblemHighlightType.WEAK_WARNING);
 
             /* mark processed and exit, as try-catch handled in special way */
@@ -108,7 +186,12 @@ final public class CollectPossibleThrowsUtil {
 //holder.registerProblem(newExpression, "Constructor found", ProblemHighlightType.WEAK_WARNING);
                     /* lookup for annotated exceptions */
                     final HashSet<PhpClass> constructorExceptions = new HashSet<>();
-                    ThrowsResolveUtil.resolveThrownExceptions(constructor, constructorExceptions);
+                    if (ThrowsResolveUtil.ResolveType.NOT_RESOLVED == ThrowsResolveUtil.resolveThrownExceptions(constructor, constructorExceptions)) {
+                        /* not annotated: infer if requested */
+                        if (null != propagation) {
+                            constructorExceptions.addAll(ExceptionsPropagationUtil.getThrownExceptions(constructor, propagation));
+                        }
+                    }
 
                     /* link expression with each possible exception */
                     if (constructorExceptions.size() > 0) {
@@ -129,7 +212,6 @@ final public class CollectPossibleThrowsUtil {
         }
 
         /* process throws - some of them might not use new-expression */
-        PhpIndex objIndex = PhpIndex.getInstance(holder.getProject());
         Collection<PhpThrow> throwExpressions = PsiTreeUtil.findChildrenOfType(scope, PhpThrow.class);
         if (throwExpressions.size() > 0) {
             for (PhpThrow throwExpression : throwExpressions) {
@@ -188,7 +270,12 @@ final public class CollectPossibleThrowsUtil {
                 if (methodResolved instanceof Method) {
                     /* lookup for annotated exceptions */
                     final HashSet<PhpClass> methodExceptions = new HashSet<>();
-                    ThrowsResolveUtil.resolveThrownExceptions((Method) methodResolved, methodExceptions);
+                    if (ThrowsResolveUtil.ResolveType.NOT_RESOLVED == ThrowsResolveUtil.resolveThrownExceptions((Method) methodResolved, methodExceptions)) {
+                        /* not annotated: infer if requested */
+                        if (null != propagation) {
+                            methodExceptions.addAll(ExceptionsPropagationUtil.getThrownExceptions((Method) methodResolved, propagation));
+                        }
+                    }
 
                     /* link expression with each possible exception */
                     if (methodExceptions.size() > 0) {
@@ -211,11 +298,16 @@ final public class CollectPossibleThrowsUtil {
         return exceptions;
     }
 
-    static private HashMap<PhpClass, HashSet<PsiElement>> collectTryWorkflowExceptions(Try scope, HashSet<PsiElement> processed, @NotNull final ProblemsHolder holder) {
+    static private HashMap<PhpClass, HashSet<PsiElement>> collectTryWorkflowExceptions(
+            Try scope,
+            HashSet<PsiElement> processed,
+            @NotNull PhpIndex objIndex,
+            @Nullable ExceptionsPropagationUtil.Context propagation
+    ) {
         final HashMap<PhpClass, HashSet<PsiElement>> exceptions = new HashMap<>();
 
         /* resolve try-body */
-        final HashMap<PhpClass, HashSet<PsiElement>> unhandledInTry = collectNestedAndWorkflowExceptions(scope.getStatement(), processed, holder);
+        final HashMap<PhpClass, HashSet<PsiElement>> unhandledInTry = collectNestedAndWorkflowExceptions(scope.getStatement(), processed, objIndex, propagation);
 
         /* resolve all catches */
         final HashMap<PhpClass, HashSet<PsiElement>> unhandledInCatches = new HashMap<>();
@@ -236,13 +328,9 @@ final public class CollectPossibleThrowsUtil {
 
                 for (PhpClass unhandled : unhandledInTry.keySet()) {
                     /* each potential exception can be caught as a parent as well */
-                    HashSet<PhpClass> unhandledVariants = InterfacesExtractUtil.getCrawlCompleteInheritanceTree(unhandled, true);
-                    unhandledVariants.add(unhandled);
-//holder.registerProblem(catchInTry.getFirstChild(), "Match against: " + unhandledVariants.toString(), ProblemHighlightType.WEAK_WARNING);
-                    if (unhandledVariants.contains(caughtClass)) {
+                    if (InterfacesExtractUtil.isSubType(unhandled, caughtClass)) {
                         handledInCurrentCatch.add(unhandled);
                     }
-                    unhandledVariants.clear();
                 }
 
                 /* actualize unhandled in try, they will remain here */
@@ -262,7 +350,7 @@ final public class CollectPossibleThrowsUtil {
             catchClassReferences.clear();
 
             /* resolve catch-body and mark as processed */
-            final HashMap<PhpClass, HashSet<PsiElement>> catchBodyExceptions = collectNestedAndWorkflowExceptions(catchInTry, processed, holder);
+            final HashMap<PhpClass, HashSet<PsiElement>> catchBodyExceptions = collectNestedAndWorkflowExceptions(catchInTry, processed, objIndex, propagation);
             if (catchBodyExceptions.size() > 0) {
                 for (Map.Entry<PhpClass, HashSet<PsiElement>> catchBodyExceptionsPair : catchBodyExceptions.entrySet()) {
                     /* extract pairs Exception class => source expressions */
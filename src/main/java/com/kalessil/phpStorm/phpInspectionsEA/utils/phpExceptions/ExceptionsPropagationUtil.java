@@ -0,0 +1,162 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils.phpExceptions;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.psi.elements.Method;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Infers exceptions escaping non-annotated methods: thrown directly, declared by callees or inferred for
+ * non-annotated callees in turn. Summaries are computed on demand, following resolved method references,
+ * and published in a project-wide cache, so every further lookup is O(1).
+ *
+ * Call graph traversal is bounded by depth and time budget; recursive calls are contributing what is known at
+ * the moment (least fixpoint), so only complete summaries (not cut by cycles or budget) are published. Results
+ * cut by the time budget are flagged in the budget, as they are depending on the machine load.
+ *
+ * Published summaries are keeping the depth of call chains they were built from and are reused only where these
+ * chains fit into the depth limit, so results are not depending on which methods were analyzed first.
+ */
+final public class ExceptionsPropagationUtil {
+    private static final CachedValueProvider<ConcurrentHashMap<Method, Summary>> cacheProvider =
+        new CachedValueProvider<ConcurrentHashMap<Method, Summary>>() {
+            @Nullable
+            @Override
+            public Result<ConcurrentHashMap<Method, Summary>> compute() {
+                return Result.create(new ConcurrentHashMap<Method, Summary>(), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        };
+
+    /** exceptions of a method and the depth of the call graph below it (1 if no callees were followed) */
+    private static class Summary {
+        final PhpClass[] exceptions;
+        final int height;
+
+        Summary(@NotNull PhpClass[] exceptions, int height) {
+            this.exceptions = exceptions;
+            this.height     = height;
+        }
+    }
+
+    /** limits of the call graph traversal for one analyzed method */
+    public static class Budget {
+        final int maxDepth;
+        final long maxNanos;
+        /* running out of time depends on the machine load, such results are not reproducible */
+        boolean isExhausted;
+
+        public Budget(int maxDepth, long maxMillis) {
+            this.maxDepth = maxDepth;
+            this.maxNanos = maxMillis * 1000000L;
+        }
+
+        /** true if the traversal was cut by the time limit: results are incomplete and shall not be reported */
+        public boolean isExhausted() {
+            return isExhausted;
+        }
+    }
+
+    /** traversal state: not thread-safe, created for every analyzed method */
+    static class Context {
+        final ConcurrentHashMap<Method, Summary> summaries;
+        final PhpIndex index;
+        final Budget budget;
+        final long deadline;
+        final HashSet<Method> stack      = new HashSet<>();
+        final HashSet<Method> cycleHeads = new HashSet<>();
+        boolean isTruncated;
+        /* the deepest stack level reached by the current traversal, including heights of reused summaries */
+        int deepestLevel;
+
+        Context(@NotNull ConcurrentHashMap<Method, Summary> summaries, @NotNull PhpIndex index, @NotNull Budget budget) {
+            this.summaries = summaries;
+            this.index     = index;
+            this.budget    = budget;
+            this.deadline  = System.nanoTime() + budget.maxNanos;
+        }
+    }
+
+    @NotNull
+    static Context createContext(@NotNull Project project, @NotNull PhpIndex index, @NotNull Budget budget) {
+        return new Context(CachedValuesManager.getManager(project).getCachedValue(project, cacheProvider), index, budget);
+    }
+
+    @NotNull
+    static Set<PhpClass> getThrownExceptions(@NotNull Method method, @NotNull Context context) {
+        /* summaries reaching beyond the depth limit from here are not reused: the traversal is cut there */
+        final Summary published = context.summaries.get(method);
+        if (null != published && context.stack.size() + published.height <= context.budget.maxDepth) {
+            context.deepestLevel = Math.max(context.deepestLevel, context.stack.size() + published.height);
+            return asSet(published.exceptions);
+        }
+
+        /* recursion: the method is being analyzed, what is already known is the answer */
+        if (context.stack.contains(method)) {
+            context.cycleHeads.add(method);
+            return Collections.emptySet();
+        }
+        if (context.stack.size() >= context.budget.maxDepth) {
+            context.isTruncated = true;
+            return Collections.emptySet();
+        }
+        if (System.nanoTime() > context.deadline) {
+            context.isTruncated        = true;
+            context.budget.isExhausted = true;
+            return Collections.emptySet();
+        }
+
+        final boolean isOuterTruncated = context.isTruncated;
+        final int outerDeepestLevel    = context.deepestLevel;
+        context.isTruncated            = false;
+        context.stack.add(method);
+        context.deepestLevel           = context.stack.size();
+
+        /* abstract methods are not throwing anything on their own */
+        final HashSet<PhpClass> exceptions = new HashSet<>();
+        if (!method.isAbstract()) {
+            final HashMap<PhpClass, HashSet<PsiElement>> thrown = CollectPossibleThrowsUtil
+                    .collectNestedAndWorkflowExceptions(method, new HashSet<PsiElement>(), context.index, context);
+            exceptions.addAll(thrown.keySet());
+            thrown.clear();
+        }
+
+        context.stack.remove(method);
+        context.cycleHeads.remove(method);
+        if (context.cycleHeads.isEmpty() && !context.isTruncated) {
+            final int height = context.deepestLevel - context.stack.size();
+            context.summaries.put(method, new Summary(exceptions.toArray(new PhpClass[exceptions.size()]), height));
+        }
+        context.isTruncated |= isOuterTruncated;
+        context.deepestLevel = Math.max(context.deepestLevel, outerDeepestLevel);
+
+        return exceptions;
+    }
+
+    @NotNull
+    private static Set<PhpClass> asSet(@NotNull PhpClass[] exceptions) {
+        final HashSet<PhpClass> set = new HashSet<>(exceptions.length);
+        Collections.addAll(set, exceptions);
+        return set;
+    }
+}
@@ -0,0 +1,495 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils.taint;
+
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.lexer.PhpTokenTypes;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.ifs.utils.ExpressionCostEstimateUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Intra-procedural taint flow of a function or of the global code of a file: which superglobals, parameters and
+ * call results are reaching the returned value, sinks and arguments of calls. Assignments are joined regardless
+ * of their order (flow-insensitive), so once a variable is assigned with untrusted data it's tainted in the scope.
+ *
+ * Callees are not analyzed here: their results are kept as atoms and composed by TaintSummariesUtil from the
+ * summaries of TaintSummariesIndexer, which is storing flows of functions in the serialized form below:
+ * "R <atoms>;C <callee> <atoms>|<atoms>;K <kind> <atoms>", atoms are comma-separated and "-" stands for none.
+ */
+final public class LocalTaintFlow {
+    private static final Key<CachedValue<LocalTaintFlow>> flowKey = Key.create("EA.LocalTaintFlow");
+
+    /* atoms: superglobals, a parameter by position ("P0") and a call result by position in calls ("C0") */
+    public static final String SOURCE  = "S";
+    public static final char PARAMETER = 'P';
+    public static final char CALL      = 'C';
+
+    /* sink kinds by lower-cased function name, include and require constructs are "include" sinks */
+    public static final String INCLUDE                    = "include";
+    public static final Map<String, String> sinkFunctions = new HashMap<>();
+    static {
+        sinkFunctions.put("unserialize",  "unserialize");
+        sinkFunctions.put("extract",      "extract");
+        sinkFunctions.put("parse_str",    "parse_str");
+        sinkFunctions.put("mb_parse_str", "parse_str");
+    }
+
+    /* functions (lower-cased names) which results are not carrying arguments data: numbers, booleans and hashes */
+    private static final Set<String> sanitizers = new HashSet<>();
+    static {
+        sanitizers.add("intval");
+        sanitizers.add("floatval");
+        sanitizers.add("boolval");
+        sanitizers.add("count");
+        sanitizers.add("strlen");
+        sanitizers.add("mb_strlen");
+        sanitizers.add("md5");
+        sanitizers.add("sha1");
+        sanitizers.add("crc32");
+        sanitizers.add("hash");
+        sanitizers.add("in_array");
+        sanitizers.add("array_key_exists");
+        sanitizers.add("is_numeric");
+        sanitizers.add("ctype_digit");
+        sanitizers.add("ctype_alnum");
+    }
+    private static final Set<IElementType> sanitizingCasts = new HashSet<>();
+    static {
+        sanitizingCasts.add(PhpTokenTypes.opINTEGER_CAST);
+        sanitizingCasts.add(PhpTokenTypes.opFLOAT_CAST);
+        sanitizingCasts.add(PhpTokenTypes.opBOOLEAN_CAST);
+        sanitizingCasts.add(PhpTokenTypes.opUNSET_CAST);
+    }
+
+    /* assignments are re-evaluated until variables are stable, loops are bounded for safety */
+    private static final int maxRounds = 64;
+
+    final public static class Call {
+        /* FQN of a function or "\Class.method", as keys of TaintSummariesIndexer */
+        @NotNull final public String callee;
+        @NotNull final public List<Set<String>> arguments;
+        /* null for flows restored from the index */
+        @Nullable final public FunctionReference reference;
+
+        Call(@NotNull String callee, @NotNull List<Set<String>> arguments, @Nullable FunctionReference reference) {
+            this.callee    = callee;
+            this.arguments = arguments;
+            this.reference = reference;
+        }
+    }
+
+    final public static class Sink {
+        @NotNull final public String kind;
+        @NotNull final public Set<String> atoms;
+        /* null for flows restored from the index */
+        @Nullable final public PsiElement argument;
+
+        Sink(@NotNull String kind, @NotNull Set<String> atoms, @Nullable PsiElement argument) {
+            this.kind     = kind;
+            this.atoms    = atoms;
+            this.argument = argument;
+        }
+    }
+
+    @NotNull final public Set<String> returned;
+    @NotNull final public List<Call> calls;
+    @NotNull final public List<Sink> sinks;
+
+    /* inspections are looking up calls and sinks per visited element */
+    private final Map<PsiElement, Call> callsByReference = new IdentityHashMap<>();
+    private final Map<PsiElement, Sink> sinksByArgument  = new IdentityHashMap<>();
+
+    private LocalTaintFlow(@NotNull Set<String> returned, @NotNull List<Call> calls, @NotNull List<Sink> sinks) {
+        this.returned = returned;
+        this.calls    = calls;
+        this.sinks    = sinks;
+
+        for (Call call : calls) {
+            if (null != call.reference) {
+                callsByReference.put(call.reference, call);
+            }
+        }
+        for (Sink sink : sinks) {
+            if (null != sink.argument) {
+                sinksByArgument.put(sink.argument, sink);
+            }
+        }
+    }
+
+    /** flow of a function (or the global code if the scope is a file), cached until the scope is modified */
+    @NotNull
+    public static LocalTaintFlow of(@NotNull final PsiElement scope) {
+        return CachedValuesManager.getCachedValue(scope, flowKey, new CachedValueProvider<LocalTaintFlow>() {
+            @Nullable
+            @Override
+            public Result<LocalTaintFlow> compute() {
+                return Result.create(analyze(scope), scope);
+            }
+        });
+    }
+
+    /** the call registered for the reference, null if it's not a call of a named function or method */
+    @Nullable
+    public Call getCall(@NotNull PsiElement reference) {
+        return callsByReference.get(reference);
+    }
+
+    /** the sink registered for the argument, null if the argument is not reached by atoms */
+    @Nullable
+    public Sink getSink(@NotNull PsiElement argument) {
+        return sinksByArgument.get(argument);
+    }
+
+    /** not cached: indexing is building flows once per file revision */
+    @NotNull
+    public static LocalTaintFlow analyze(@NotNull PsiElement scope) {
+        final Analysis analysis = new Analysis(scope);
+        analysis.run();
+
+        return new LocalTaintFlow(analysis.returned, analysis.calls, analysis.sinks);
+    }
+
+    @NotNull
+    public String serialize() {
+        final StringBuilder result = new StringBuilder("R ").append(join(returned));
+        for (Call call : calls) {
+            result.append(";C ").append(call.callee);
+            for (int index = 0; index < call.arguments.size(); ++index) {
+                result.append(0 == index ? " " : "|").append(join(call.arguments.get(index)));
+            }
+        }
+        for (Sink sink : sinks) {
+            result.append(";K ").append(sink.kind).append(' ').append(join(sink.atoms));
+        }
+
+        return result.toString();
+    }
+
+    /** restores a serialized flow, malformed records are skipped */
+    @NotNull
+    public static LocalTaintFlow parse(@NotNull String serialized) {
+        Set<String> returned    = new HashSet<>();
+        final List<Call> calls  = new ArrayList<>();
+        final List<Sink> sinks  = new ArrayList<>();
+        for (String record : StringUtil.split(serialized, ";")) {
+            final List<String> fields = StringUtil.split(record, " ");
+            if (fields.size() < 2) {
+                continue;
+            }
+
+            switch (fields.get(0)) {
+                case "R":
+                    returned = atoms(fields.get(1));
+                    break;
+                case "C":
+                    final List<Set<String>> arguments = new ArrayList<>();
+                    if (fields.size() > 2) {
+                        for (String argument : StringUtil.split(fields.get(2), "|", true, false)) {
+                            arguments.add(atoms(argument));
+                        }
+                    }
+                    calls.add(new Call(fields.get(1), arguments, null));
+                    break;
+                case "K":
+                    if (fields.size() > 2) {
+                        sinks.add(new Sink(fields.get(1), atoms(fields.get(2)), null));
+                    }
+                    break;
+            }
+        }
+
+        return new LocalTaintFlow(returned, calls, sinks);
+    }
+
+    @NotNull
+    private static String join(@NotNull Set<String> atoms) {
+        return atoms.isEmpty() ? "-" : StringUtil.join(new TreeSet<>(atoms), ",");
+    }
+
+    @NotNull
+    private static Set<String> atoms(@NotNull String joined) {
+        return "-".equals(joined) ? new HashSet<String>() : new HashSet<>(StringUtil.split(joined, ","));
+    }
+
+    private static class Analysis {
+        final PsiElement scope;
+        final String classFqn;
+
+        final List<AssignmentExpression> assignments = new ArrayList<>();
+        final List<ForeachStatement> loops           = new ArrayList<>();
+        final List<PhpReturn> returns                = new ArrayList<>();
+        final List<Include> includes                 = new ArrayList<>();
+        final List<FunctionReference> references     = new ArrayList<>();
+
+        final Map<String, Set<String>> variables            = new HashMap<>();
+        final Map<FunctionReference, Integer> callPositions = new HashMap<>();
+        final Set<String> returned                          = new HashSet<>();
+        final List<Call> calls                              = new ArrayList<>();
+        final List<Sink> sinks                              = new ArrayList<>();
+        boolean isChanged;
+
+        Analysis(@NotNull PsiElement scope) {
+            this.scope = scope;
+
+            final PhpClass clazz = scope instanceof PhpClass ? null : PsiTreeUtil.getParentOfType(scope, PhpClass.class);
+            this.classFqn        = null == clazz ? null : clazz.getFQN();
+        }
+
+        void run() {
+            if (scope instanceof Function) {
+                final Parameter[] parameters = ((Function) scope).getParameters();
+                for (int index = 0; index < parameters.length; ++index) {
+                    final Set<String> atoms = new HashSet<>();
+                    atoms.add(PARAMETER + String.valueOf(index));
+                    variables.put(parameters[index].getName(), atoms);
+                }
+            }
+            collect(scope);
+
+            int rounds = 0;
+            do {
+                isChanged = false;
+                for (AssignmentExpression assignment : assignments) {
+                    final Set<String> atoms = taint(assignment.getValue());
+                    if (assignment instanceof MultiassignmentExpression) {
+                        for (PhpPsiElement variable : ((MultiassignmentExpression) assignment).getVariables()) {
+                            assign(variable, atoms);
+                        }
+                    } else {
+                        assign(assignment.getVariable(), atoms);
+                    }
+                }
+                for (ForeachStatement loop : loops) {
+                    final Set<String> atoms = taint(loop.getArray());
+                    assign(loop.getKey(), atoms);
+                    assign(loop.getValue(), atoms);
+                }
+            } while (isChanged && ++rounds < maxRounds);
+
+            if (scope instanceof Function) {
+                for (PhpReturn returnStatement : returns) {
+                    returned.addAll(taint(ExpressionSemanticUtil.getReturnValue(returnStatement)));
+                }
+            }
+            for (Include include : includes) {
+                addSink(INCLUDE, include.getArgument());
+            }
+            for (FunctionReference reference : references) {
+                final String name = reference instanceof MethodReference ? null : reference.getName();
+                final String kind = null == name ? null : sinkFunctions.get(name.toLowerCase());
+                if (null != kind) {
+                    final PsiElement[] arguments = reference.getParameters();
+                    addSink(kind, arguments.length > 0 ? arguments[0] : null);
+                }
+                /* registers calls which results are not used, arguments can reach sinks in callees */
+                taint(reference);
+            }
+        }
+
+        /* nested functions, closures and classes are own scopes */
+        private void collect(@NotNull PsiElement element) {
+            for (PsiElement child : element.getChildren()) {
+                if (child instanceof Function || child instanceof PhpClass) {
+                    continue;
+                }
+
+                if (child instanceof AssignmentExpression) {
+                    assignments.add((AssignmentExpression) child);
+                } else if (child instanceof ForeachStatement) {
+                    loops.add((ForeachStatement) child);
+                } else if (child instanceof PhpReturn) {
+                    returns.add((PhpReturn) child);
+                } else if (child instanceof Include) {
+                    includes.add((Include) child);
+                } else if (child instanceof FunctionReference) {
+                    references.add((FunctionReference) child);
+                }
+                collect(child);
+            }
+        }
+
+        private void addSink(@NotNull String kind, @Nullable PsiElement argument) {
+            final Set<String> atoms = taint(argument);
+            if (null != argument && !atoms.isEmpty()) {
+                sinks.add(new Sink(kind, atoms, argument));
+            }
+        }
+
+        /* array elements are tainting the array variable */
+        private void assign(@Nullable PsiElement target, @NotNull Set<String> atoms) {
+            while (target instanceof ArrayAccessExpression) {
+                target = ((ArrayAccessExpression) target).getValue();
+            }
+            if (!(target instanceof Variable) || atoms.isEmpty()) {
+                return;
+            }
+
+            final String name = ((Variable) target).getName();
+            if (StringUtil.isEmpty(name) || ExpressionCostEstimateUtil.predefinedVars.contains(name)) {
+                return;
+            }
+
+            Set<String> current = variables.get(name);
+            if (null == current) {
+                current = new HashSet<>();
+                variables.put(name, current);
+            }
+            isChanged = current.addAll(atoms) || isChanged;
+        }
+
+        @NotNull
+        private Set<String> taint(@Nullable PsiElement expression) {
+            expression = ExpressionSemanticUtil.getExpressionTroughParenthesis(expression);
+            if (null == expression || expression instanceof Function || expression instanceof PhpClass) {
+                return new HashSet<>();
+            }
+
+            if (expression instanceof Variable) {
+                final String name = ((Variable) expression).getName();
+                if (!StringUtil.isEmpty(name) && ExpressionCostEstimateUtil.predefinedVars.contains(name)) {
+                    final Set<String> atoms = new HashSet<>();
+                    atoms.add(SOURCE);
+                    return atoms;
+                }
+                final Set<String> atoms = null == name ? null : variables.get(name);
+                return null == atoms ? new HashSet<String>() : new HashSet<>(atoms);
+            }
+            if (expression instanceof ArrayAccessExpression) {
+                return taint(((ArrayAccessExpression) expression).getValue());
+            }
+            if (expression instanceof AssignmentExpression) {
+                return taint(((AssignmentExpression) expression).getValue());
+            }
+            if (expression instanceof UnaryExpression) {
+                final PsiElement operation = ((UnaryExpression) expression).getOperation();
+                if (null != operation && sanitizingCasts.contains(operation.getNode().getElementType())) {
+                    return new HashSet<>();
+                }
+            }
+            if (expression instanceof BinaryExpression) {
+                /* only concatenation and null coalescing are keeping strings */
+                final BinaryExpression binary = (BinaryExpression) expression;
+                final PsiElement operation    = binary.getOperation();
+                final String operator         = null == operation ? "" : operation.getText();
+                final Set<String> atoms       = new HashSet<>();
+                if (operator.equals(".") || operator.equals("??")) {
+                    atoms.addAll(taint(binary.getLeftOperand()));
+                    atoms.addAll(taint(binary.getRightOperand()));
+                }
+                return atoms;
+            }
+            if (expression instanceof TernaryExpression) {
+                final TernaryExpression ternary = (TernaryExpression) expression;
+                final Set<String> atoms         = taint(ternary.isShort() ? ternary.getCondition() : ternary.getTrueVariant());
+                atoms.addAll(taint(ternary.getFalseVariant()));
+                return atoms;
+            }
+            if (expression instanceof FunctionReference) {
+                return taintOfCall((FunctionReference) expression);
+            }
+
+            /* strings interpolation, arrays, new expressions and alike: the result contains children data */
+            final Set<String> atoms = new HashSet<>();
+            for (PsiElement child : expression.getChildren()) {
+                atoms.addAll(taint(child));
+            }
+            return atoms;
+        }
+
+        @NotNull
+        private Set<String> taintOfCall(@NotNull FunctionReference reference) {
+            final String name = reference.getName();
+            if (!(reference instanceof MethodReference) && null != name && sanitizers.contains(name.toLowerCase())) {
+                return new HashSet<>();
+            }
+
+            final List<Set<String>> arguments = new ArrayList<>();
+            for (PsiElement argument : reference.getParameters()) {
+                arguments.add(taint(argument));
+            }
+
+            final String callee = StringUtil.isEmpty(name) ? null : getCallee(reference, name);
+            if (null == callee) {
+                /* unknown callees (dynamic calls, methods of arbitrary objects) are passing their data through */
+                final Set<String> atoms = new HashSet<>();
+                for (Set<String> argument : arguments) {
+                    atoms.addAll(argument);
+                }
+                if (reference instanceof MethodReference) {
+                    atoms.addAll(taint(((MethodReference) reference).getClassReference()));
+                }
+                return atoms;
+            }
+
+            Integer position = callPositions.get(reference);
+            if (null == position) {
+                position = calls.size();
+                callPositions.put(reference, position);
+                calls.add(null);
+            }
+            /* arguments are growing while assignments are re-evaluated, the last evaluation is complete */
+            calls.set(position, new Call(callee, arguments, reference));
+
+            final Set<String> atoms = new HashSet<>();
+            atoms.add(CALL + String.valueOf(position));
+            return atoms;
+        }
+
+        /* functions, own methods and methods of named or instantiated classes can be resolved without an index */
+        @Nullable
+        private String getCallee(@NotNull FunctionReference reference, @NotNull String name) {
+            /* PHP resolves functions, methods and classes case-insensitively, so are the indexed summaries */
+            final String callee = getCalleeFqn(reference, name);
+            return null == callee ? null : callee.toLowerCase();
+        }
+
+        @Nullable
+        private String getCalleeFqn(@NotNull FunctionReference reference, @NotNull String name) {
+            if (!(reference instanceof MethodReference)) {
+                return reference.getFQN();
+            }
+
+            PsiElement classReference = ((MethodReference) reference).getClassReference();
+            classReference            = ExpressionSemanticUtil.getExpressionTroughParenthesis(classReference);
+            if (classReference instanceof Variable) {
+                final boolean isThis = "this".equals(((Variable) classReference).getName());
+                return isThis && null != classFqn ? classFqn + '.' + name : null;
+            }
+            /* (new Controller())->render(...) */
+            if (classReference instanceof NewExpression) {
+                classReference = ((NewExpression) classReference).getClassReference();
+            }
+            if (classReference instanceof ClassReference) {
+                final String className = ((ClassReference) classReference).getName();
+                if ("self".equals(className) || "static".equals(className)) {
+                    return null == classFqn ? null : classFqn + '.' + name;
+                }
+                final String fqn = ((ClassReference) classReference).getFQN();
+                if (!StringUtil.isEmpty(fqn) && !"parent".equals(className)) {
+                    return fqn + '.' + name;
+                }
+            }
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.kalessil.phpStorm.phpInspectionsEA.utils.taint;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.TaintSummariesIndexer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Inter-procedural taint analysis: local flows are composed with summaries of callees (parameters reaching the
+ * returned value and sinks), and summaries are built from indexed flows the same way, once per function until
+ * any PSI change in the project. Callees are never re-analyzed per call site, so costs are linear in code size.
+ *
+ * Recursive functions are summarized until stable: recursive calls are using the summary of the previous round,
+ * at first passing their arguments through. Only the function where recursion was entered is cached, summaries of
+ * other functions of the cycle are depending on it. Unknown callees (internal functions, methods of arbitrary
+ * objects) are passing their arguments through as well.
+ */
+final public class TaintSummariesUtil {
+    /* deeper call chains are not composed (and not cached) */
+    private static final int maxDepth = 32;
+    /* recursive functions are not cached if their summary is not stable after this number of rounds */
+    private static final int maxRounds = 8;
+
+    private static final Summary absent = new Summary();
+    private static final CachedValueProvider<ConcurrentHashMap<String, Summary>> cacheProvider =
+        new CachedValueProvider<ConcurrentHashMap<String, Summary>>() {
+            @Nullable
+            @Override
+            public Result<ConcurrentHashMap<String, Summary>> compute() {
+                return Result.create(new ConcurrentHashMap<String, Summary>(), PsiModificationTracker.MODIFICATION_COUNT);
+            }
+        };
+
+    final public static class Summary {
+        public boolean isReturningSource                      = false;
+        @NotNull final public Set<Integer> returnedParameters = new HashSet<>();
+        /* positions of parameters reaching sinks, by sink kind */
+        @NotNull final public Map<String, Set<Integer>> sinkParameters = new HashMap<>();
+
+        private boolean isSameAs(@Nullable Summary other) {
+            return null != other && isReturningSource == other.isReturningSource &&
+                   returnedParameters.equals(other.returnedParameters) && sinkParameters.equals(other.sinkParameters);
+        }
+
+        private void addSinkParameters(@NotNull String kind, @NotNull Set<String> atoms) {
+            for (String atom : atoms) {
+                if (LocalTaintFlow.PARAMETER == atom.charAt(0)) {
+                    Set<Integer> parameters = sinkParameters.get(kind);
+                    if (null == parameters) {
+                        parameters = new HashSet<>();
+                        sinkParameters.put(kind, parameters);
+                    }
+                    parameters.add(Integer.parseInt(atom.substring(1)));
+                }
+            }
+        }
+    }
+
+    /** state of one top-level composition: functions being summarized and what affected results */
+    private static class Context {
+        final Project project;
+        final ConcurrentHashMap<String, Summary> cache;
+        final HashSet<String> stack                = new HashSet<>();
+        final HashSet<String> cycleHeads           = new HashSet<>();
+        final HashMap<String, Summary> provisional = new HashMap<>();
+        boolean isTruncated;
+
+        Context(@NotNull Project project) {
+            this.project = project;
+            this.cache   = CachedValuesManager.getManager(project).getCachedValue(project, cacheProvider);
+        }
+    }
+
+    /** summary of an indexed function or method, null if it's not indexed (e.g. internal functions) */
+    @Nullable
+    public static Summary getSummary(@NotNull Project project, @NotNull String fqn) {
+        /* callees of flows are lower-cased already, summaries are cached by the same keys */
+        return getSummary(fqn.toLowerCase(), new Context(project));
+    }
+
+    /** superglobals and parameters ("S", "P0", ...) reaching the atoms of the flow, callees are composed */
+    @NotNull
+    public static Set<String> resolve(@NotNull Project project, @NotNull LocalTaintFlow flow, @NotNull Set<String> atoms) {
+        return new Composition(flow, new Context(project)).resolve(atoms);
+    }
+
+    @Nullable
+    private static Summary getSummary(@NotNull String fqn, @NotNull Context context) {
+        final Summary cached = context.cache.get(fqn);
+        if (null != cached) {
+            return absent == cached ? null : cached;
+        }
+        /* recursion: the summary of the previous round, the function is summarized again until it's stable */
+        if (context.stack.contains(fqn)) {
+            context.cycleHeads.add(fqn);
+            return context.provisional.get(fqn);
+        }
+        if (context.stack.size() >= maxDepth) {
+            context.isTruncated = true;
+            return null;
+        }
+
+        List<String> flows = TaintSummariesIndexer.getFlows(context.project, fqn);
+        if (flows.isEmpty() && fqn.indexOf('.') < 0 && fqn.lastIndexOf('\\') > 0) {
+            /* namespaced function calls are falling back to global functions */
+            flows = TaintSummariesIndexer.getFlows(context.project, fqn.substring(fqn.lastIndexOf('\\')));
+        }
+
+        final boolean wasTruncated = context.isTruncated;
+        context.isTruncated        = false;
+        context.stack.add(fqn);
+
+        Summary summary = absent;
+        if (!flows.isEmpty()) {
+            for (int round = 1; ; ++round) {
+                context.cycleHeads.remove(fqn);
+                summary = summarize(flows, context);
+                if (!context.cycleHeads.contains(fqn) || summary.isSameAs(context.provisional.put(fqn, summary))) {
+                    break;
+                }
+                if (maxRounds == round) {
+                    context.isTruncated = true;
+                    break;
+                }
+            }
+            context.provisional.remove(fqn);
+        }
+
+        context.stack.remove(fqn);
+        context.cycleHeads.remove(fqn);
+        if (context.cycleHeads.isEmpty() && !context.isTruncated) {
+            context.cache.put(fqn, summary);
+        }
+        context.isTruncated = context.isTruncated || wasTruncated;
+
+        return absent == summary ? null : summary;
+    }
+
+    @NotNull
+    private static Summary summarize(@NotNull List<String> flows, @NotNull Context context) {
+        final Summary summary = new Summary();
+        for (String serialized : flows) {
+            final LocalTaintFlow flow     = LocalTaintFlow.parse(serialized);
+            final Composition composition = new Composition(flow, context);
+            final Set<String> returned    = composition.resolve(flow.returned);
+            summary.isReturningSource     = summary.isReturningSource || returned.contains(LocalTaintFlow.SOURCE);
+            for (String atom : returned) {
+                if (LocalTaintFlow.PARAMETER == atom.charAt(0)) {
+                    summary.returnedParameters.add(Integer.parseInt(atom.substring(1)));
+                }
+            }
+
+            for (LocalTaintFlow.Sink sink : flow.sinks) {
+                summary.addSinkParameters(sink.kind, composition.resolve(sink.atoms));
+            }
+            for (int position = 0; position < flow.calls.size(); ++position) {
+                final LocalTaintFlow.Call call = flow.calls.get(position);
+                final Summary callee           = getSummary(call.callee, context);
+                if (null != callee) {
+                    for (Map.Entry<String, Set<Integer>> entry : callee.sinkParameters.entrySet()) {
+                        for (Integer parameter : entry.getValue()) {
+                            if (parameter < call.arguments.size()) {
+                                summary.addSinkParameters(entry.getKey(), composition.resolve(call.arguments.get(parameter)));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        return summary;
+    }
+
+    /** resolves atoms of one flow, results of its calls are composed once */
+    private static class Composition {
+        final LocalTaintFlow flow;
+        final Context context;
+        final Map<Integer, Set<String>> callResults = new HashMap<>();
+
+        Composition(@NotNull LocalTaintFlow flow, @NotNull Context context) {
+            this.flow    = flow;
+            this.context = context;
+        }
+
+        @NotNull
+        Set<String> resolve(@NotNull Set<String> atoms) {
+            final Set<String> result = new HashSet<>();
+            for (String atom : atoms) {
+                if (LocalTaintFlow.CALL == atom.charAt(0)) {
+                    result.addAll(resolveCall(Integer.parseInt(atom.substring(1))));
+                } else {
+                    result.add(atom);
+                }
+            }
+
+            return result;
+        }
+
+        @NotNull
+        private Set<String> resolveCall(int position) {
+            Set<String> result = callResults.get(position);
+            if (null != result) {
+                return result;
+            }
+            result = new HashSet<>();
+            /* arguments are referencing earlier calls only, but malformed flows shall not loop */
+            callResults.put(position, result);
+            if (position >= flow.calls.size()) {
+                return result;
+            }
+
+            final LocalTaintFlow.Call call = flow.calls.get(position);
+            final Summary callee           = getSummary(call.callee, context);
+            if (null == callee) {
+                for (Set<String> argument : call.arguments) {
+                    result.addAll(resolve(argument));
+                }
+            } else {
+                if (callee.isReturningSource) {
+                    result.add(LocalTaintFlow.SOURCE);
+                }
+                for (Integer parameter : callee.returnedParameters) {
+                    if (parameter < call.arguments.size()) {
+                        result.addAll(resolve(call.arguments.get(parameter)));
+                    }
+                }
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.kalessil.phpStorm.phpInspectionsEA.benchmarks;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.impl.PsiModificationTrackerImpl;
+import com.intellij.testFramework.fixtures.CodeInsightTestFixture;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/**
+ * Measures operations per second and allocated bytes per operation inside the light test project.
+ *
+ * Benchmarks are skipped unless started with -Dea.benchmarks=true. Other options:
+ *   -Dea.benchmarks.report=<file>      stores results (tab-separated: name, ops/sec, bytes/op)
+ *   -Dea.benchmarks.baseline=<file>    fails on results slower than baseline more than the tolerance
+ *   -Dea.benchmarks.tolerance=<int>    allowed slowdown in percents, 20 by default
+ *   -Dea.benchmarks.corpus=<folder>    PHP files to load, "php" by default
+ */
+final class BenchmarkRunner {
+    private static final long warmupNanos  = 1000000000L;
+    private static final long measureNanos = 3000000000L;
+
+    static class Result {
+        final String name;
+        final double opsPerSecond;
+        final long bytesPerOp;
+
+        Result(@NotNull String name, double opsPerSecond, long bytesPerOp) {
+            this.name         = name;
+            this.opsPerSecond = opsPerSecond;
+            this.bytesPerOp   = bytesPerOp;
+        }
+    }
+
+    private final Project project;
+    private final List<Result> results = new ArrayList<>();
+
+    BenchmarkRunner(@NotNull Project project) {
+        this.project = project;
+    }
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean("ea.benchmarks");
+    }
+
+    @NotNull
+    static File getCorpus() {
+        return new File(System.getProperty("ea.benchmarks.corpus", "php"));
+    }
+
+    /** loads the corpus and synthetic files into the test project */
+    @NotNull
+    static List<PsiFile> loadCorpus(@NotNull CodeInsightTestFixture fixture) throws IOException {
+        final List<PsiFile> files = new ArrayList<>();
+
+        final File corpus = getCorpus();
+        for (File file : FileUtil.findFilesByMask(Pattern.compile(".*\\.php"), corpus)) {
+            final String path = FileUtil.getRelativePath(corpus, file);
+            files.add(fixture.addFileToProject("corpus/" + FileUtil.toSystemIndependentName(path), FileUtil.loadFile(file)));
+        }
+
+        /* large files are stressing PSI walking and per-file caches */
+        for (int index = 0; index < 3; ++index) {
+            files.add(fixture.addFileToProject("synthetic/file" + index + ".php", generateSyntheticFile(index, 200)));
+        }
+
+        return files;
+    }
+
+    @NotNull
+    private static String generateSyntheticFile(int seed, int classesCount) {
+        final StringBuilder code = new StringBuilder("<?php\n\nnamespace Synthetic\\File").append(seed).append(";\n\n");
+        for (int index = 0; index < classesCount; ++index) {
+            final String parent = 0 == index ? "\\Exception" : "Entity" + (index - 1);
+            code.append("class Entity").append(index).append(" extends ").append(parent).append(" {\n")
+                .append("    private $items = [];\n")
+                .append("    /** @throws \\InvalidArgumentException */\n")
+                .append("    public function process($input, array $options = []) {\n")
+                .append("        if ($input === null || !is_array($input) && !is_string($input)) {\n")
+                .append("            throw new \\InvalidArgumentException('input' . ").append(index).append(");\n")
+                .append("        }\n")
+                .append("        foreach ((array) $input as $key => $value) {\n")
+                .append("            $this->items = array_merge($this->items, [$key => strlen($value) > 0 ? $value : null]);\n")
+                .append("            if (in_array($value, $options) && preg_match('/^[a-z]+\\d*$/i', $value)) {\n")
+                .append("                $this->items[] = substr($value, 0, 1) == 'a' ? $this->process([$value]) : count($this->items);\n")
+                .append("            }\n")
+                .append("        }\n")
+                .append("        return $this->items + ['total' => sizeof($this->items)];\n")
+                .append("    }\n")
+                .append("}\n\n");
+        }
+
+        return code.toString();
+    }
+
+    /** runs the operation with PSI caches dropped before each invocation, as in a fresh highlighting pass */
+    @NotNull
+    Result measure(@NotNull String name, @NotNull Runnable operation) {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        final boolean isAllocationSupported
+                = threads instanceof com.sun.management.ThreadMXBean &&
+                  ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported();
+        final long threadId = Thread.currentThread().getId();
+
+        /* warm up: JIT and class loading */
+        final long warmupEnd = System.nanoTime() + warmupNanos;
+        while (System.nanoTime() < warmupEnd) {
+            dropCaches();
+            operation.run();
+        }
+
+        long operations = 0;
+        long nanos      = 0;
+        long allocated  = 0;
+        while (nanos < measureNanos) {
+            dropCaches();
+
+            final long bytesBefore = isAllocationSupported ? ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId) : 0;
+            final long start       = System.nanoTime();
+            operation.run();
+            nanos += System.nanoTime() - start;
+            if (isAllocationSupported) {
+                allocated += ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(threadId) - bytesBefore;
+            }
+            ++operations;
+        }
+
+        final Result result = new Result(name, operations / (nanos / 1e9), allocated / operations);
+        results.add(result);
+
+        return result;
+    }
+
+    void report(@NotNull PrintStream output) throws IOException {
+        final StringBuilder table = new StringBuilder();
+        for (Result result : results) {
+            output.println(String.format("%-60s %12.2f ops/sec %14d bytes/op", result.name, result.opsPerSecond, result.bytesPerOp));
+            table.append(result.name).append('\t').append(result.opsPerSecond).append('\t').append(result.bytesPerOp).append('\n');
+        }
+
+        final String reportPath = System.getProperty("ea.benchmarks.report");
+        if (null != reportPath) {
+            final File report = new File(reportPath);
+            /* several benchmark classes are appending into the same report */
+            final String existing = report.exists() ? FileUtil.loadFile(report) : "";
+            FileUtil.writeToFile(report, existing + table.toString());
+        }
+    }
+
+    /** returns descriptions of results slower than the baseline more than allowed */
+    @NotNull
+    List<String> findRegressions() throws IOException {
+        final List<String> regressions = new ArrayList<>();
+        final String baselinePath      = System.getProperty("ea.benchmarks.baseline");
+        if (null == baselinePath) {
+            return regressions;
+        }
+
+        final Map<String, Double> baseline = new HashMap<>();
+        for (String line : FileUtil.loadLines(baselinePath)) {
+            final String[] columns = line.split("\t");
+            if (columns.length >= 2) {
+                baseline.put(columns[0], Double.parseDouble(columns[1]));
+            }
+        }
+
+        final int tolerance = Integer.getInteger("ea.benchmarks.tolerance", 20);
+        for (Result result : results) {
+            final Double expected = baseline.get(result.name);
+            if (null != expected && result.opsPerSecond < expected * (100 - tolerance) / 100) {
+                regressions.add(String.format("%s: %.2f ops/sec, baseline %.2f ops/sec", result.name, result.opsPerSecond, expected));
+            }
+        }
+
+        return regressions;
+    }
+
+    private void dropCaches() {
+        /* invalidates CachedValues depending on PSI modification count, e.g. expression types */
+        ((PsiModificationTrackerImpl) PsiManager.getInstance(project).getModificationTracker()).incCounter();
+    }
+}
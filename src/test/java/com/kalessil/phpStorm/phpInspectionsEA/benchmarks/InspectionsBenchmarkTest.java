@@ -0,0 +1,70 @@
+package com.kalessil.phpStorm.phpInspectionsEA.benchmarks;
+
+import com.intellij.codeInspection.InspectionManager;
+import com.intellij.codeInspection.InspectionProfileEntry;
+import com.intellij.codeInspection.LocalInspectionEP;
+import com.intellij.codeInspection.LocalInspectionTool;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiElementVisitor;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+
+import java.util.List;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/** visitor throughput of every plugin inspection over the corpus, see BenchmarkRunner for options */
+final public class InspectionsBenchmarkTest extends CodeInsightFixtureTestCase {
+    private static final String pluginPackage = "com.kalessil.phpStorm.phpInspectionsEA.";
+
+    public void testVisitorsThroughput() throws Exception {
+        if (!BenchmarkRunner.isEnabled()) {
+            return;
+        }
+
+        final List<PsiFile> files       = BenchmarkRunner.loadCorpus(myFixture);
+        final InspectionManager manager = InspectionManager.getInstance(myFixture.getProject());
+        final BenchmarkRunner runner    = new BenchmarkRunner(myFixture.getProject());
+
+        for (LocalInspectionEP extension : LocalInspectionEP.LOCAL_INSPECTION.getExtensions()) {
+            final String implementation = extension.implementationClass;
+            if (null == implementation || !implementation.startsWith(pluginPackage)) {
+                continue;
+            }
+
+            final InspectionProfileEntry tool = extension.instantiateTool();
+            if (tool instanceof LocalInspectionTool) {
+                final LocalInspectionTool inspection = (LocalInspectionTool) tool;
+                runner.measure(extension.getShortName(), new Runnable() {
+                    @Override
+                    public void run() {
+                        for (PsiFile file : files) {
+                            final ProblemsHolder holder     = new ProblemsHolder(manager, file, false);
+                            final PsiElementVisitor visitor = inspection.buildVisitor(holder, false);
+                            file.accept(new PsiRecursiveElementWalkingVisitor() {
+                                @Override
+                                public void visitElement(PsiElement element) {
+                                    element.accept(visitor);
+                                    super.visitElement(element);
+                                }
+                            });
+                        }
+                    }
+                });
+            }
+        }
+
+        runner.report(System.out);
+        final List<String> regressions = runner.findRegressions();
+        assertTrue(regressions.toString(), regressions.isEmpty());
+    }
+}
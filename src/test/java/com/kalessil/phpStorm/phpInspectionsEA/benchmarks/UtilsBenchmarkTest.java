@@ -0,0 +1,96 @@
+package com.kalessil.phpStorm.phpInspectionsEA.benchmarks;
+
+import com.intellij.codeInspection.InspectionManager;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ExpressionSemanticUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.PossibleValuesDiscoveryUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.TypeFromPsiResolvingUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.phpExceptions.CollectPossibleThrowsUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/*
+ * This file is part of the Php Inspections (EA Extended) package.
+ *
+ * (c) Vladimir Reznichenko <kalessil@gmail.com>
+ *
+ * For the full copyright and license information, please view the LICENSE
+ * file that was distributed with this source code.
+ */
+
+/** throughput of utils shared by many inspections, see BenchmarkRunner for options */
+final public class UtilsBenchmarkTest extends CodeInsightFixtureTestCase {
+    public void testUtilsThroughput() throws Exception {
+        if (!BenchmarkRunner.isEnabled()) {
+            return;
+        }
+
+        final List<PhpExpression> expressions = new ArrayList<>();
+        final List<PsiElement> conditions     = new ArrayList<>();
+        final List<Variable> variables        = new ArrayList<>();
+        final List<Method> methods            = new ArrayList<>();
+        for (PsiFile file : BenchmarkRunner.loadCorpus(myFixture)) {
+            expressions.addAll(PsiTreeUtil.findChildrenOfType(file, BinaryExpression.class));
+            expressions.addAll(PsiTreeUtil.findChildrenOfType(file, TernaryExpression.class));
+            expressions.addAll(PsiTreeUtil.findChildrenOfType(file, MethodReference.class));
+            for (If ifStatement : PsiTreeUtil.findChildrenOfType(file, If.class)) {
+                conditions.add(ifStatement.getCondition());
+            }
+            variables.addAll(PsiTreeUtil.findChildrenOfType(file, Variable.class));
+            methods.addAll(PsiTreeUtil.findChildrenOfType(file, Method.class));
+        }
+
+        final PhpIndex index            = PhpIndex.getInstance(myFixture.getProject());
+        final BenchmarkRunner runner    = new BenchmarkRunner(myFixture.getProject());
+        final InspectionManager manager = InspectionManager.getInstance(myFixture.getProject());
+
+        runner.measure("TypeFromPsiResolvingUtil.resolveExpressionType", new Runnable() {
+            @Override
+            public void run() {
+                for (PhpExpression expression : expressions) {
+                    TypeFromPsiResolvingUtil.resolveExpressionType(expression, ExpressionSemanticUtil.getScope(expression), index, new HashSet<String>());
+                }
+            }
+        });
+        runner.measure("ExpressionSemanticUtil.getConditions", new Runnable() {
+            @Override
+            public void run() {
+                for (PsiElement condition : conditions) {
+                    ExpressionSemanticUtil.getConditions(condition, null);
+                }
+            }
+        });
+        runner.measure("PossibleValuesDiscoveryUtil.discover", new Runnable() {
+            @Override
+            public void run() {
+                for (Variable variable : variables) {
+                    PossibleValuesDiscoveryUtil.discover(variable, new HashSet<PsiElement>()).clear();
+                }
+            }
+        });
+        runner.measure("CollectPossibleThrowsUtil.collectNestedAndWorkflowExceptions", new Runnable() {
+            @Override
+            public void run() {
+                for (Method method : methods) {
+                    final ProblemsHolder holder = new ProblemsHolder(manager, method.getContainingFile(), false);
+                    final HashMap<PhpClass, HashSet<PsiElement>> thrown
+                        = CollectPossibleThrowsUtil.collectNestedAndWorkflowExceptions(method, new HashSet<PsiElement>(), holder);
+                    thrown.clear();
+                }
+            }
+        });
+
+        runner.report(System.out);
+        final List<String> regressions = runner.findRegressions();
+        assertTrue(regressions.toString(), regressions.isEmpty());
+    }
+}
@@ -0,0 +1,18 @@
+package com.kalessil.phpStorm.phpInspectionsEA.exceptionsWorkflow;
+
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.exceptionsWorkflow.ExceptionsAnnotatingAndHandlingInspector;
+
+final public class ExceptionsAnnotatingAndHandlingInspectorTest extends CodeInsightFixtureTestCase {
+    public void testIfInfersNonAnnotatedCalls() {
+        final ExceptionsAnnotatingAndHandlingInspector inspector = new ExceptionsAnnotatingAndHandlingInspector();
+        inspector.INFER_NON_ANNOTATED_CALLS = true;
+        inspector.INFERENCE_MAX_DEPTH       = 2;
+        /* the time budget is not reached here: results cut by time are not reported */
+        inspector.INFERENCE_MAX_MILLIS      = 60000;
+
+        myFixture.configureByFile("fixtures/exceptionsWorkflow/inferred-exceptions.php");
+        myFixture.enableInspections(inspector);
+        myFixture.testHighlighting(true, false, true);
+    }
+}
@@ -0,0 +1,34 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.indexers;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.ConstantValuesIndexer;
+
+final public class ConstantValuesIndexerTest extends CodeInsightFixtureTestCase {
+    public void testConstantValuesAreIndexed() {
+        myFixture.configureByText("constants.php",
+            "<?php namespace NS;\n" +
+            "define('PREFIX', '/^');\n" +
+            "const SUFFIX = '$/' . 'i';\n" +
+            "const DYNAMIC = PREFIX . $suffix;\n" +
+            "class Patterns {\n" +
+            "    const WORD    = \\PREFIX . '\\w+' . SUFFIX;\n" +
+            "    const NUMBERS = self::WORD . 42;\n" +
+            "    const LATE    = static::WORD;\n" +
+            "    const LOOP    = self::LOOP;\n" +
+            "}"
+        );
+
+        final Project project = myFixture.getProject();
+        assertEquals("/^", ConstantValuesIndexer.getValue(project, "\\PREFIX"));
+        assertEquals("$/i", ConstantValuesIndexer.getValue(project, "\\NS\\SUFFIX"));
+        /* namespaced references are falling back to global constants */
+        assertEquals("/^\\w+$/i", ConstantValuesIndexer.getValue(project, "\\NS\\Patterns::WORD"));
+        assertEquals("/^\\w+$/i42", ConstantValuesIndexer.getValue(project, "\\NS\\Patterns::NUMBERS"));
+
+        assertNull(ConstantValuesIndexer.getValue(project, "\\NS\\DYNAMIC"));
+        assertNull(ConstantValuesIndexer.getValue(project, "\\NS\\Patterns::LATE"));
+        assertNull(ConstantValuesIndexer.getValue(project, "\\NS\\Patterns::LOOP"));
+        assertNull(ConstantValuesIndexer.getValue(project, "\\NS\\UNKNOWN"));
+    }
+}
@@ -0,0 +1,52 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.indexers;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.batch.RegularExpressionsAudit;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.RegularExpressionsIndexer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+final public class RegularExpressionsIndexerTest extends CodeInsightFixtureTestCase {
+    public void testPatternsAreIndexedAndAudited() throws Exception {
+        myFixture.addFileToProject("first.php",
+            "<?php\n" +
+            "preg_match('/^(a+)+$/', $x);\n" +
+            "preg_match('/^\\d+$/', $x);\n" +
+            "preg_replace('/^\\d+$/', '', $x);\n" +
+            "preg_quote('/not a pattern/');\n" +
+            "preg_match(\"/$dynamic/\", $x);"
+        );
+        myFixture.addFileToProject("second.php",
+            "<?php\n" +
+            "preg_split('/^\\d+$/', $x);\n" +
+            "preg_match(('/\\s+$/'), $x);"
+        );
+
+        final Project project             = myFixture.getProject();
+        final Map<String, int[]> patterns = RegularExpressionsIndexer.getPatterns(project, GlobalSearchScope.allScope(project));
+        assertEquals(3, patterns.size());
+        assertEquals(3, patterns.get("/^\\d+$/")[0]);
+        assertEquals(2, patterns.get("/^\\d+$/")[1]);
+        assertEquals(1, patterns.get("/^(a+)+$/")[0]);
+        assertEquals(1, patterns.get("/\\s+$/")[0]);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            final List<RegularExpressionsAudit.Entry> entries = RegularExpressionsAudit.audit(patterns, executor);
+            assertEquals(3, entries.size());
+            assertEquals("/^(a+)+$/", entries.get(0).pattern);
+            assertEquals(4, entries.get(0).severity);
+            assertEquals("/\\s+$/", entries.get(1).pattern);
+            assertEquals("n^2", entries.get(1).complexity);
+            assertEquals("/^\\d+$/", entries.get(2).pattern);
+            assertEquals("linear", entries.get(2).complexity);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
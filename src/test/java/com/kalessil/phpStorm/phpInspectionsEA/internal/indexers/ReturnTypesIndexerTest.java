@@ -0,0 +1,31 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.indexers;
+
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.indexers.ReturnTypesIndexer;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+final public class ReturnTypesIndexerTest extends CodeInsightFixtureTestCase {
+    public void testReturnTypesAreIndexed() {
+        myFixture.configureByText("test.php",
+            "<?php namespace NS;\n" +
+            "/** @return int */\n" +
+            "function counter($flag) { if ($flag) { return 'string'; } $callback = function () { return []; }; return counter(true); }\n" +
+            "class Service { public function create() { return new Service(); } }\n" +
+            "function nothing() {}\n" +
+            "interface Shape { public function area(): float; }"
+        );
+
+        final String counter = ReturnTypesIndexer.getReturnTypes(myFixture.getProject(), "\\NS\\counter");
+        assertNotNull(counter);
+        /* closure returns are not ours, own recursive signature is dropped */
+        assertEquals(new HashSet<>(Arrays.asList("int", "string")), new HashSet<>(Arrays.asList(counter.split("\\|"))));
+
+        assertEquals("\\NS\\Service", ReturnTypesIndexer.getReturnTypes(myFixture.getProject(), "\\NS\\Service.create"));
+        /* declared return types are collected, nothing collected means falling back to PSI types */
+        assertEquals("float", ReturnTypesIndexer.getReturnTypes(myFixture.getProject(), "\\NS\\Shape.area"));
+        assertNull(ReturnTypesIndexer.getReturnTypes(myFixture.getProject(), "\\NS\\nothing"));
+        assertNull(ReturnTypesIndexer.getReturnTypes(myFixture.getProject(), "\\NS\\unknown"));
+    }
+}
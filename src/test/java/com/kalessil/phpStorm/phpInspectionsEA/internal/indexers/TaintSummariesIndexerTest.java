@@ -0,0 +1,93 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.indexers;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.taint.TaintSummariesUtil;
+
+final public class TaintSummariesIndexerTest extends CodeInsightFixtureTestCase {
+    public void testSummariesAreComposedAcrossFiles() {
+        myFixture.addFileToProject("helpers.php",
+            "<?php namespace NS;\n" +
+            "function load($path) { require $path; }\n" +
+            "function choose($first, $second) { $result = $second; return trim($result); }\n" +
+            "function numeric($value) { return (int) $value; }\n" +
+            "function loop($value) { return loop($value); }\n" +
+            "function stub($value) {}"
+        );
+        myFixture.addFileToProject("classes.php",
+            "<?php namespace NS;\n" +
+            "class Loader {\n" +
+            "    public function render($prefix, $template) { load(choose($prefix, $template)); }\n" +
+            "    public static function request() { return $_GET['page']; }\n" +
+            "    public static function restore($data) { return \\unserialize(numeric($data)); }\n" +
+            "}\n" +
+            "interface Renderer { public function render($template); }"
+        );
+
+        final Project project = myFixture.getProject();
+
+        final TaintSummariesUtil.Summary load = TaintSummariesUtil.getSummary(project, "\\NS\\load");
+        assertNotNull(load);
+        assertTrue(load.sinkParameters.get("include").contains(0));
+
+        final TaintSummariesUtil.Summary choose = TaintSummariesUtil.getSummary(project, "\\NS\\choose");
+        assertNotNull(choose);
+        assertFalse(choose.returnedParameters.contains(0));
+        assertTrue(choose.returnedParameters.contains(1));
+
+        /* parameters are reaching the sink through two callees in another file */
+        final TaintSummariesUtil.Summary render = TaintSummariesUtil.getSummary(project, "\\NS\\Loader.render");
+        assertNotNull(render);
+        assertFalse(render.sinkParameters.get("include").contains(0));
+        assertTrue(render.sinkParameters.get("include").contains(1));
+
+        final TaintSummariesUtil.Summary request = TaintSummariesUtil.getSummary(project, "\\NS\\Loader.request");
+        assertNotNull(request);
+        assertTrue(request.isReturningSource);
+        /* names are case-insensitive in PHP */
+        assertSame(request, TaintSummariesUtil.getSummary(project, "\\ns\\LOADER.Request"));
+
+        final TaintSummariesUtil.Summary restore = TaintSummariesUtil.getSummary(project, "\\NS\\Loader.restore");
+        assertNotNull(restore);
+        assertTrue(restore.sinkParameters.isEmpty());
+
+        final TaintSummariesUtil.Summary loop = TaintSummariesUtil.getSummary(project, "\\NS\\loop");
+        assertNotNull(loop);
+        assertTrue(loop.returnedParameters.contains(0));
+
+        /* declarations without statements are not summarized: they would act as sanitizers */
+        assertNull(TaintSummariesUtil.getSummary(project, "\\trim"));
+        assertNull(TaintSummariesUtil.getSummary(project, "\\NS\\stub"));
+        assertNull(TaintSummariesUtil.getSummary(project, "\\NS\\Renderer.render"));
+    }
+
+    public void testMutualRecursionIsOrderIndependent() {
+        myFixture.addFileToProject("recursion.php",
+            "<?php\n" +
+            "function a($x) { return b($x) . $_GET['q']; }\n" +
+            "function b($y) { return a($y); }\n" +
+            "function first($x) { second($x); }\n" +
+            "function second($y) { first($y); unserialize($y); }"
+        );
+
+        final Project project = myFixture.getProject();
+
+        /* b is summarized while a is being summarized, it's not cached with a passing data through */
+        final TaintSummariesUtil.Summary a = TaintSummariesUtil.getSummary(project, "\\a");
+        assertNotNull(a);
+        assertTrue(a.isReturningSource);
+        assertTrue(a.returnedParameters.contains(0));
+        final TaintSummariesUtil.Summary b = TaintSummariesUtil.getSummary(project, "\\b");
+        assertNotNull(b);
+        assertTrue(b.isReturningSource);
+        assertTrue(b.returnedParameters.contains(0));
+
+        /* sinks of the cycle are reaching parameters of the function where recursion was entered */
+        final TaintSummariesUtil.Summary first = TaintSummariesUtil.getSummary(project, "\\first");
+        assertNotNull(first);
+        assertTrue(first.sinkParameters.get("unserialize").contains(0));
+        final TaintSummariesUtil.Summary second = TaintSummariesUtil.getSummary(project, "\\second");
+        assertNotNull(second);
+        assertTrue(second.sinkParameters.get("unserialize").contains(0));
+    }
+}
@@ -0,0 +1,33 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.openApi;
+
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.apiUsage.AliasFunctionsUsageInspector;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.InspectionsProfiler;
+
+import java.util.List;
+
+final public class InspectionsProfilerTest extends CodeInsightFixtureTestCase {
+    public void testCollectsStatisticsWhenEnabled() {
+        InspectionsProfiler.reset();
+        InspectionsProfiler.setEnabled(true);
+        try {
+            myFixture.configureByText("test.php", "<?php echo sizeof([]), join(',', []), strlen('');");
+            myFixture.enableInspections(AliasFunctionsUsageInspector.class);
+            myFixture.doHighlighting();
+        } finally {
+            InspectionsProfiler.setEnabled(false);
+        }
+
+        final List<InspectionsProfiler.Entry> entries = InspectionsProfiler.getSnapshot(false);
+        assertEquals(1, entries.size());
+        assertEquals("AliasFunctionsUsageInspection", entries.get(0).inspection);
+        assertEquals("FunctionReference", entries.get(0).element);
+        assertEquals(3, entries.get(0).invocations);
+        assertTrue(InspectionsProfiler.toJson().contains("\"name\": \"AliasFunctionsUsageInspection\""));
+
+        /* disabled profiler is not instrumenting visitors */
+        InspectionsProfiler.reset();
+        myFixture.doHighlighting();
+        assertTrue(InspectionsProfiler.getSnapshot(true).isEmpty());
+    }
+}
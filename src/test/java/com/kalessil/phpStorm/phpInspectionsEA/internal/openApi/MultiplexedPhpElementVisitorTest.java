@@ -0,0 +1,68 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.openApi;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.jetbrains.php.lang.psi.elements.ForeachStatement;
+import com.jetbrains.php.lang.psi.elements.FunctionReference;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.BasePhpElementVisitor;
+import com.kalessil.phpStorm.phpInspectionsEA.openApi.MultiplexedPhpElementVisitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+final public class MultiplexedPhpElementVisitorTest extends CodeInsightFixtureTestCase {
+    public void testDispatchesToInterestedVisitorsOnly() {
+        final PsiFile file = myFixture.configureByText("test.php", "<?php foreach ([] as $x) { strlen($x); } trim('');");
+
+        final List<PsiElement> calls    = new ArrayList<>();
+        final List<PsiElement> loops    = new ArrayList<>();
+        final List<PsiElement> elements = new ArrayList<>();
+
+        final MultiplexedPhpElementVisitor multiplexer = new MultiplexedPhpElementVisitor();
+        multiplexer.register(new BasePhpElementVisitor() {
+            public void visitPhpFunctionCall(FunctionReference reference) {
+                calls.add(reference);
+            }
+        });
+        multiplexer.register(new BasePhpElementVisitor() {
+            public void visitPhpForeach(ForeachStatement foreach) {
+                loops.add(foreach);
+            }
+        });
+        multiplexer.register(new BasePhpElementVisitor() {
+            public void visitElement(PsiElement element) {
+                elements.add(element);
+            }
+        });
+        multiplexer.walk(file);
+
+        assertEquals(2, calls.size());
+        assertEquals(1, loops.size());
+        assertTrue(elements.size() > calls.size() + loops.size());
+    }
+
+    public void testRoutesFunctionCallsByName() {
+        final PsiFile file = myFixture.configureByText("test.php", "<?php strlen(''); STRLEN(''); trim(''); $x->strlen();");
+
+        final List<PsiElement> routed   = new ArrayList<>();
+        final List<PsiElement> unrouted = new ArrayList<>();
+
+        final MultiplexedPhpElementVisitor multiplexer = new MultiplexedPhpElementVisitor();
+        multiplexer.register(new BasePhpElementVisitor() {
+            public void visitPhpFunctionCall(FunctionReference reference) {
+                routed.add(reference);
+            }
+        }, Collections.singletonList("strlen"));
+        multiplexer.register(new BasePhpElementVisitor() {
+            public void visitPhpFunctionCall(FunctionReference reference) {
+                unrouted.add(reference);
+            }
+        });
+        multiplexer.walk(file);
+
+        assertEquals(2, routed.size());
+        assertEquals(3, unrouted.size());
+    }
+}
@@ -0,0 +1,55 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.regularExpressions;
+
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.BacktrackingAnalyzer;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreAutomaton;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+final public class BacktrackingAnalyzerTest extends CodeInsightFixtureTestCase {
+    public void testExponential() {
+        for (String regex : new String[] {"/^(a|a)*$/", "/^(a*)*$/", "/^(\\w+\\s?)*$/", "/^(a|b|ab)*c$/", "/(a|a)*b/"}) {
+            final BacktrackingAnalyzer.Vulnerability vulnerability = analyze(regex);
+            assertNotNull(regex, vulnerability);
+            assertTrue(regex, vulnerability.exponential);
+        }
+
+        final BacktrackingAnalyzer.Vulnerability vulnerability = analyze("/^x(\\d+)*y$/");
+        assertNotNull(vulnerability);
+        assertEquals("x0", vulnerability.prefix);
+        assertEquals("00", vulnerability.pump);
+    }
+
+    public void testPolynomial() {
+        for (String regex : new String[] {"/^\\d*\\d*$/", "/^.*.*=.*$/", "/^\\d+\\s*\\d+$/"}) {
+            final BacktrackingAnalyzer.Vulnerability vulnerability = analyze(regex);
+            assertNotNull(regex, vulnerability);
+            assertFalse(regex, vulnerability.exponential);
+        }
+    }
+
+    public void testSafe() {
+        final String[] patterns = {
+            "/^(?>a+)*$/", "/^(a++)*$/", "/^(a|b)*$/", "/^a+b+$/", "/^(?:(?:a+)b)*$/", "/^(\\d{1,3}\\.){3}\\d{1,3}$/",
+            /* accepted right after the loop: no failing match to backtrack on */
+            "/(a|a)*/", "/x(a+)+/"
+        };
+        for (String regex : patterns) {
+            assertNull(regex, analyze(regex));
+        }
+    }
+
+    public void testUnsupported() {
+        /* back-references are not regular */
+        assertNull(PcreAutomaton.of(PcrePattern.of("/<(\\w+)>.*<\\/\\1>/")));
+        assertNull(analyze("/^(a+)+\\1$/"));
+    }
+
+    @Nullable
+    private static BacktrackingAnalyzer.Vulnerability analyze(@NotNull String regex) {
+        final PcrePattern pattern = PcrePattern.of(regex);
+        assertNotNull(regex, pattern);
+        return pattern.getVulnerability();
+    }
+}
@@ -0,0 +1,75 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.regularExpressions;
+
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.BacktrackingSimulator;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
+import org.jetbrains.annotations.NotNull;
+
+final public class BacktrackingSimulatorTest extends CodeInsightFixtureTestCase {
+    public void testLimits() {
+        final BacktrackingSimulator simulator = simulator("/^(a|a)*$/");
+        assertEquals(101, simulator.measure("aaaaaaaaaaaaaaaaaaaa!", 100));
+        assertTrue(simulator.isLimitExceeded());
+        assertTrue(simulator.measure("aaaa", 100) <= 100);
+        assertFalse(simulator.isLimitExceeded());
+    }
+
+    public void testLimitIsPerStartOffset() {
+        /* every start offset is within the limit, while the total over offsets is not */
+        final BacktrackingSimulator simulator = simulator("/\\d+x/");
+        final String subject                  = "00000000000000000000";
+        final int total                       = simulator.measure(subject, 1000000);
+        final int firstOffset                 = simulator("/\\d+x/A").measure(subject, 1000000);
+        assertTrue(firstOffset < total - 1);
+
+        assertEquals(total, simulator.measure(subject, total - 1));
+        assertFalse(simulator.isLimitExceeded());
+        simulator.measure(subject, firstOffset - 1);
+        assertTrue(simulator.isLimitExceeded());
+    }
+
+    public void testModifiers() {
+        /* case-insensitive matching succeeds at the first offset, otherwise all offsets are tried */
+        assertTrue(simulator("/A/i").measure("abcdef", 100) < simulator("/A/").measure("abcdef", 100));
+        /* anchored patterns are tried at the subject start only */
+        assertTrue(simulator("/\\d+x/A").measure("000000", 1000) < simulator("/\\d+x/").measure("000000", 1000));
+        /* possessive quantifiers are not backtracking */
+        assertTrue(simulator("/^\\d++\\d$/").measure("00000000", 1000) < simulator("/^\\d+\\d$/").measure("00000000", 1000));
+    }
+
+    public void testProbe() {
+        final PcrePattern exponential = PcrePattern.of("/^(\\w+\\s?)*$/");
+        assertNotNull(exponential);
+        final BacktrackingSimulator.Probe exploding = exponential.getCostProbe();
+        assertNotNull(exploding);
+        assertTrue(exploding.isExceedingLimit());
+
+        final PcrePattern quadratic = PcrePattern.of("/^\\d*\\d*$/");
+        assertNotNull(quadratic);
+        final BacktrackingSimulator.Probe growing = quadratic.getCostProbe();
+        assertNotNull(growing);
+        assertFalse(growing.isExceedingLimit());
+        assertEquals(2, Math.round(growing.getGrowth()));
+
+        final PcrePattern linear = PcrePattern.of("/^[\\w.+-]+@[\\w-]+\\.[\\w.-]+$/");
+        assertNotNull(linear);
+        assertNull(linear.getCostProbe());
+    }
+
+    public void testUnsupported() {
+        for (String regex : new String[] {"/(a)(?(1)b|c)/", "/a(?R)?b/", "/(?<x>a)\\k<x>/", "/a(*SKIP)b/", "/(a)\\g{99999999999}/"}) {
+            final PcrePattern pattern = PcrePattern.of(regex);
+            assertNotNull(regex, pattern);
+            assertNull(regex, BacktrackingSimulator.of(pattern));
+        }
+    }
+
+    @NotNull
+    private static BacktrackingSimulator simulator(@NotNull String regex) {
+        final PcrePattern pattern = PcrePattern.of(regex);
+        assertNotNull(regex, pattern);
+        final BacktrackingSimulator simulator = BacktrackingSimulator.of(pattern);
+        assertNotNull(regex, simulator);
+        return simulator;
+    }
+}
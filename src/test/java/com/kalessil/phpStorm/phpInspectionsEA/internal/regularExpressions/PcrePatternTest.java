@@ -0,0 +1,62 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.regularExpressions;
+
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcreNode;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.pcre.PcrePattern;
+
+import java.util.List;
+
+final public class PcrePatternTest extends CodeInsightFixtureTestCase {
+    public void testDelimitersAndModifiers() {
+        final PcrePattern slashes = PcrePattern.of("/a/b/im");
+        assertNotNull(slashes);
+        assertEquals("a/b", slashes.getBody());
+        assertEquals("im", slashes.getModifiers());
+        assertSame(slashes, PcrePattern.of("/a/b/im"));
+
+        final PcrePattern curly = PcrePattern.of("{a{2}}u");
+        assertNotNull(curly);
+        assertEquals("a{2}", curly.getBody());
+        assertTrue(curly.hasModifier('u'));
+
+        assertNull(PcrePattern.of("no delimiters"));
+    }
+
+    public void testTreeStructure() {
+        final PcrePattern pattern = PcrePattern.of("/(?:\\D+|0(?!1))*+[\\]a-z\\d-]\\(x\\)/");
+        assertNotNull(pattern);
+        final PcreNode root = pattern.getRoot();
+        assertNotNull(root);
+        assertEquals(PcreNode.Type.SEQUENCE, root.getType());
+
+        final List<PcreNode> quantified = root.findAll(PcreNode.Type.QUANTIFIED);
+        assertEquals(2, quantified.size());
+        assertEquals("*", quantified.get(0).getQuantifierText());
+        assertTrue(quantified.get(0).isPossessive());
+        assertEquals("+", quantified.get(1).getQuantifierText());
+
+        /* escaped brackets and parentheses are literals, not classes and groups */
+        final List<PcreNode> classes = root.findAll(PcreNode.Type.CLASS);
+        assertEquals(1, classes.size());
+        assertEquals(4, classes.get(0).getChildren().size());
+        assertEquals(1, root.findAll(PcreNode.Type.RANGE).size());
+        assertEquals(1, root.findAll(PcreNode.Type.ALTERNATION).size());
+        assertEquals(2, root.findAll(PcreNode.Type.GROUP).size());
+        assertTrue(root.findAll(PcreNode.Type.GROUP).get(1).isLookaround());
+    }
+
+    public void testExtendedModeAndMalformedPatterns() {
+        final PcrePattern extended = PcrePattern.of("/a # comment\n b {2,10}/x");
+        assertNotNull(extended);
+        assertNotNull(extended.getRoot());
+        final PcreNode quantified = extended.getRoot().findAll(PcreNode.Type.QUANTIFIED).get(0);
+        assertEquals(2, quantified.getMin());
+        assertEquals(10, quantified.getMax());
+
+        for (String malformed : new String[] {"/a)/", "/(a/", "/[a/", "/a**/", "/a\\/"}) {
+            final PcrePattern pattern = PcrePattern.of(malformed);
+            assertNotNull(pattern);
+            assertNull(malformed, pattern.getRoot());
+        }
+    }
+}
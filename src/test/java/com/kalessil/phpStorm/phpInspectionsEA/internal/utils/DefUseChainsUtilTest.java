@@ -0,0 +1,47 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.jetbrains.php.codeInsight.controlFlow.PhpControlFlowUtil;
+import com.jetbrains.php.codeInsight.controlFlow.instructions.PhpAccessVariableInstruction;
+import com.jetbrains.php.lang.psi.elements.Function;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.DefUseChainsUtil;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+final public class DefUseChainsUtilTest extends CodeInsightFixtureTestCase {
+    public void testChainsMatchControlFlow() {
+        final PsiFile file = myFixture.configureByText("test.php",
+            "<?php function f($a) { $b = $a; if ($a) { $b = 1; } echo $b; $b = 2; return $b; }"
+        );
+        final Function function = PsiTreeUtil.findChildOfType(file, Function.class);
+        assertNotNull(function);
+
+        final DefUseChainsUtil.Chains chains = DefUseChainsUtil.getChains(function);
+        assertSame(chains, DefUseChainsUtil.getChains(function));
+
+        for (String name : new String[]{"a", "b", "undefined"}) {
+            final PhpAccessVariableInstruction[] expected
+                = PhpControlFlowUtil.getFollowingVariableAccessInstructions(function.getControlFlow().getEntryPoint(), name, false);
+            assertEquals(new HashSet<>(Arrays.asList(expected)), new HashSet<>(Arrays.asList(chains.getAccesses(name))));
+        }
+        assertEquals(3, chains.countWrites("b"));
+
+        /* echo $b observes both writes preceding it, return $b only the last one */
+        PhpAccessVariableInstruction echoRead = null;
+        PhpAccessVariableInstruction lastRead = null;
+        for (PhpAccessVariableInstruction access : chains.getAccesses("b")) {
+            if (access.getAccess().isRead()) {
+                lastRead = access;
+                echoRead = null == echoRead ? access : echoRead;
+            }
+        }
+        assertNotNull(echoRead);
+        assertNotNull(lastRead);
+        assertEquals(2, chains.getReachingWrites(echoRead).length);
+        assertEquals(1, chains.getReachingWrites(lastRead).length);
+        assertEquals(1, chains.getReachedReads(chains.getReachingWrites(lastRead)[0]).length);
+    }
+}
@@ -0,0 +1,37 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.jetbrains.php.lang.psi.elements.*;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.FileFactsUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final public class FileFactsUtilTest extends CodeInsightFixtureTestCase {
+    public void testFactsMatchTreeWalking() {
+        final PsiFile file = myFixture.configureByText("test.php",
+            "<?php function f($a) { $b = $a; foreach ($a as $c) { $b[] = http_build_query($c); try { $this->x = $c; } catch (\\Exception $e) {} } return $b; }\n" +
+            "function g($d) { while ($d) { $d = HTTP_BUILD_QUERY($d); } }"
+        );
+
+        for (Function function : PsiTreeUtil.findChildrenOfType(file, Function.class)) {
+            assertEquals(new ArrayList<>(PsiTreeUtil.findChildrenOfType(function, Variable.class)), FileFactsUtil.findVariables(function));
+            assertEquals(new ArrayList<>(PsiTreeUtil.findChildrenOfType(function, FieldReference.class)), FileFactsUtil.findFieldReferences(function));
+            assertEquals(new ArrayList<>(PsiTreeUtil.findChildrenOfType(function, Try.class)), FileFactsUtil.findTryStatements(function));
+            assertEquals(new ArrayList<>(PsiTreeUtil.findChildrenOfType(function, AssignmentExpression.class)), FileFactsUtil.findAssignments(function));
+            assertEquals(1, FileFactsUtil.findLoops(function).size());
+            assertEquals(1, FileFactsUtil.findFunctionCalls(function, "http_build_query").size());
+        }
+
+        /* the scope itself is not included, as in PsiTreeUtil */
+        final Variable variable = PsiTreeUtil.findChildOfType(file, Variable.class);
+        assertNotNull(variable);
+        assertTrue(FileFactsUtil.findVariables(variable).isEmpty());
+
+        final List<FunctionReference> calls = FileFactsUtil.findFunctionCalls(file, "Http_Build_Query");
+        assertEquals(2, calls.size());
+        assertTrue(FileFactsUtil.findFunctionCalls(file, "strlen").isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.jetbrains.php.lang.psi.elements.Function;
+import com.jetbrains.php.lang.psi.elements.Variable;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.LocalTypesInferenceUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.PhpTypeSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+final public class LocalTypesInferenceUtilTest extends CodeInsightFixtureTestCase {
+    public void testTypesArePropagatedThroughBranchesAndLoops() {
+        final PsiFile file = myFixture.configureByText("test.php",
+            "<?php function f($p) {\n" +
+            "    $a = 1;\n" +
+            "    if ($p) { $a = 'x'; }\n" +
+            "    echo $a;\n" +
+            "    $b = [];\n" +
+            "    while ($p) { echo $b; $b = new \\stdClass(); }\n" +
+            "    if ($p) { $c = 1.0; }\n" +
+            "    return [$c, $p];\n" +
+            "}"
+        );
+        final Function function = PsiTreeUtil.findChildOfType(file, Function.class);
+        assertNotNull(function);
+
+        final LocalTypesInferenceUtil.LocalTypes types = LocalTypesInferenceUtil.getTypes(function);
+        assertSame(types, LocalTypesInferenceUtil.getTypes(function));
+
+        final List<Variable> reads = new ArrayList<>();
+        for (Variable variable : PsiTreeUtil.findChildrenOfType(function, Variable.class)) {
+            if (null != types.get(variable)) {
+                reads.add(variable);
+            }
+        }
+
+        /* branches are joined */
+        assertEquals(PhpTypeSet.parse(getProject(), "int|string"), getReadType(types, reads, "a"));
+        /* the loop body observes its own writes on the back edge */
+        assertEquals(PhpTypeSet.parse(getProject(), "array|\\stdClass"), getReadType(types, reads, "b"));
+        /* not assigned on some of paths */
+        assertEquals(PhpTypeSet.parse(getProject(), "float|mixed"), getReadType(types, reads, "c"));
+        /* parameters are left to signatures: each of 4 reads is not inferred */
+        int parameterReads = 0;
+        for (Variable variable : PsiTreeUtil.findChildrenOfType(function, Variable.class)) {
+            if ("p".equals(variable.getName())) {
+                assertNull(types.get(variable));
+                ++parameterReads;
+            }
+        }
+        assertEquals(4, parameterReads);
+    }
+
+    private static PhpTypeSet getReadType(LocalTypesInferenceUtil.LocalTypes types, List<Variable> reads, String name) {
+        for (Variable variable : reads) {
+            if (name.equals(variable.getName())) {
+                return types.get(variable);
+            }
+        }
+        return null;
+    }
+}
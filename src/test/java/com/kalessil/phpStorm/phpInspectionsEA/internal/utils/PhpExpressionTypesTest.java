@@ -0,0 +1,30 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.codeInspection.InspectionManager;
+import com.intellij.codeInspection.ProblemsHolder;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.jetbrains.php.lang.psi.elements.BinaryExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.strictOperators.util.PhpExpressionTypes;
+
+final public class PhpExpressionTypesTest extends CodeInsightFixtureTestCase {
+    public void testTypesAreSharedBetweenInspections() {
+        final PsiFile file = myFixture.configureByText("test.php", "<?php $x = 1 + 'string';");
+        final BinaryExpression expression = PsiTreeUtil.findChildOfType(file, BinaryExpression.class);
+        assertNotNull(expression);
+
+        /* each inspection has own problems holder */
+        final InspectionManager manager = InspectionManager.getInstance(myFixture.getProject());
+        final ProblemsHolder first      = new ProblemsHolder(manager, file, false);
+        final ProblemsHolder second     = new ProblemsHolder(manager, file, false);
+
+        final PhpExpressionTypes left = PhpExpressionTypes.of(expression.getLeftOperand(), first);
+        assertSame(left, PhpExpressionTypes.of(expression.getLeftOperand(), second));
+        assertTrue(left.isInt());
+        assertTrue(PhpExpressionTypes.of(expression.getRightOperand(), second).isString());
+
+        assertSame(PhpExpressionTypes.of("int|null", first), PhpExpressionTypes.of("int|null", second));
+        assertEquals("int|null", PhpExpressionTypes.of("int|null", first).toString());
+    }
+}
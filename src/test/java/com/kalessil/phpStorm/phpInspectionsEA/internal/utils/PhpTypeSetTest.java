@@ -0,0 +1,62 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.impl.PsiModificationTrackerImpl;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.PhpTypeSet;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+final public class PhpTypeSetTest extends CodeInsightFixtureTestCase {
+    public void testParsingNormalizesTypes() {
+        final PhpTypeSet types = PhpTypeSet.parse(getProject(), "integer|\\Boolean|string[]||\\Foo\\Bar|\\Foo\\Bar|null");
+
+        assertTrue(types.contains(PhpTypeSet.INTEGER));
+        assertTrue(types.contains(PhpTypeSet.BOOLEAN));
+        assertTrue(types.contains(PhpTypeSet.ARRAY));
+        assertTrue(types.contains(PhpTypeSet.NULL));
+        assertFalse(types.contains(PhpTypeSet.STRING));
+        assertTrue(types.containsClass("\\Foo\\Bar"));
+        assertEquals(5, types.size());
+        assertEquals("array|bool|int|null|\\Foo\\Bar", types.toString());
+
+        final HashSet<String> collection = new HashSet<>(Arrays.asList("int", "\\bool", "array", "null", "\\Foo\\Bar"));
+        assertEquals(types, PhpTypeSet.of(getProject(), collection));
+        assertSame(PhpTypeSet.EMPTY, PhpTypeSet.parse(getProject(), "|"));
+    }
+
+    public void testSetOperations() {
+        final PhpTypeSet first  = PhpTypeSet.parse(getProject(), "int|\\First|\\Common");
+        final PhpTypeSet second = PhpTypeSet.parse(getProject(), "string|\\Second|\\Common");
+        final PhpTypeSet third  = PhpTypeSet.parse(getProject(), "float|\\Third");
+
+        assertTrue(first.intersects(second));
+        assertFalse(first.intersects(third));
+        assertEquals(PhpTypeSet.parse(getProject(), "\\Common"), first.intersection(second));
+        assertEquals(PhpTypeSet.parse(getProject(), "int|string|\\First|\\Second|\\Common"), first.union(second));
+
+        /* known results are returned without allocating new sets */
+        final PhpTypeSet subset = PhpTypeSet.parse(getProject(), "int|\\Common");
+        assertSame(first, first.union(subset));
+        assertSame(subset, first.intersection(subset));
+        assertSame(first, first.with(PhpTypeSet.INTEGER));
+        assertSame(first, first.without(PhpTypeSet.STRING));
+        assertSame(first, first.withoutClass("\\Unknown"));
+
+        assertEquals(PhpTypeSet.parse(getProject(), "int|\\First"), first.withoutClass("\\Common"));
+        assertTrue(first.union(third).containsAll(third));
+    }
+
+    public void testSetsBuiltBeforeIdsReset() {
+        final PhpTypeSet before = PhpTypeSet.parse(getProject(), "int|\\First|\\Common");
+        ((PsiModificationTrackerImpl) PsiManager.getInstance(getProject()).getModificationTracker()).incCounter();
+        final PhpTypeSet after  = PhpTypeSet.parse(getProject(), "\\Second|\\Common");
+
+        /* ids are interned from scratch after the reset, sets are compared by names */
+        assertTrue(before.intersects(after));
+        assertEquals(PhpTypeSet.parse(getProject(), "\\Common"), before.intersection(after));
+        assertEquals(PhpTypeSet.parse(getProject(), "int|\\First|\\Second|\\Common"), before.union(after));
+        assertEquals(before.hashCode(), PhpTypeSet.parse(getProject(), "int|\\First|\\Common").hashCode());
+    }
+}
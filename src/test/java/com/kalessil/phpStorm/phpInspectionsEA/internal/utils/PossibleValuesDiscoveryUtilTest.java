@@ -7,7 +7,10 @@ import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
 import com.jetbrains.php.lang.psi.elements.*;
 import com.kalessil.phpStorm.phpInspectionsEA.utils.PossibleValuesDiscoveryUtil;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Set;
 
 final public class PossibleValuesDiscoveryUtilTest extends CodeInsightFixtureTestCase {
     public void testTernaryDiscovery() {
@@ -99,4 +102,52 @@ final public class PossibleValuesDiscoveryUtilTest extends CodeInsightFixtureTes
         assertEquals(1, values.size());
         assertInstanceOf(values.iterator().next(), ConstantReference.class);
     }
+
+    public void testStringsFolding() {
+        String pattern    = "class test { const PREFIX = '/^'; function test($parameter) { " +
+                "$x = $parameter ? 'a' : 'b'; $y = sprintf('%s[%d]', $x, 1); " +
+                "return [self::PREFIX . $y . '$/', $parameter . '']; } }";
+        PsiElement clazz = PhpPsiElementFactory.createFromText(myFixture.getProject(), PhpClass.class, pattern);
+        assertNotNull(clazz);
+
+        PsiElement values = PsiTreeUtil.findChildOfType(clazz, ArrayCreationExpression.class);
+        assertNotNull(values);
+        PsiElement[] items = PsiTreeUtil.getChildrenOfType(values, PhpPsiElement.class);
+        assertNotNull(items);
+        assertEquals(2, items.length);
+
+        Set<String> folded = PossibleValuesDiscoveryUtil.discoverStrings(items[0].getFirstPsiChild());
+        assertNotNull(folded);
+        assertEquals(new HashSet<>(Arrays.asList("/^a[1]$/", "/^b[1]$/")), folded);
+
+        /* parameters can have any value */
+        assertNull(PossibleValuesDiscoveryUtil.discoverStrings(items[1].getFirstPsiChild()));
+    }
+
+    public void testNumbersAndUnassignedPathsFolding() {
+        String pattern    = "function test($parameter) { " +
+                "if ($parameter) { $x = 'a'; } " +
+                "return [0x1A, 010, 0b11, 1e3, 1.50, 1.0e20, sprintf('%99999999999$s', 'a'), $x]; }";
+        Function callable = PhpPsiElementFactory.createFromText(myFixture.getProject(), Function.class, pattern);
+        assertNotNull(callable);
+
+        PsiElement values = PsiTreeUtil.findChildOfType(callable, ArrayCreationExpression.class);
+        assertNotNull(values);
+        PsiElement[] items = PsiTreeUtil.getChildrenOfType(values, PhpPsiElement.class);
+        assertNotNull(items);
+        assertEquals(8, items.length);
+
+        /* numbers are folded as PHP is converting them into strings */
+        final String[] expected = {"26", "8", "3", "1000", "1.5"};
+        for (int index = 0; index < expected.length; ++index) {
+            assertEquals(Collections.singleton(expected[index]), PossibleValuesDiscoveryUtil.discoverStrings(items[index].getFirstPsiChild()));
+        }
+        assertNull(PossibleValuesDiscoveryUtil.discoverStrings(items[5].getFirstPsiChild()));
+
+        /* positions overflowing integers are not crashing the folding */
+        assertNull(PossibleValuesDiscoveryUtil.discoverStrings(items[6].getFirstPsiChild()));
+
+        /* the variable is not assigned when the condition is false */
+        assertNull(PossibleValuesDiscoveryUtil.discoverStrings(items[7].getFirstPsiChild()));
+    }
 }
@@ -0,0 +1,92 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.intellij.util.TimeoutUtil;
+import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
+import com.jetbrains.php.lang.psi.elements.Function;
+import com.jetbrains.php.lang.psi.elements.Variable;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.ReportedElementsRegistry;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+final public class ReportedElementsRegistryTest extends CodeInsightFixtureTestCase {
+    public void testReportsOncePerScope() {
+        final Function scope    = PhpPsiElementFactory.createFromText(myFixture.getProject(), Function.class, "function f($x) {}");
+        final Variable variable = PhpPsiElementFactory.createFromText(myFixture.getProject(), Variable.class, "$x;");
+
+        final ReportedElementsRegistry registry = new ReportedElementsRegistry(10);
+        assertTrue(registry.markReported(scope, variable));
+        assertFalse(registry.markReported(scope, variable));
+        assertTrue(registry.getReported(scope).contains(variable));
+        assertEquals(1, registry.countScopes());
+    }
+
+    public void testEvictsLeastRecentlyUsedScopes() {
+        final ReportedElementsRegistry registry = new ReportedElementsRegistry(2);
+        final List<PsiElement> scopes           = createScopes(3);
+
+        registry.markReported(scopes.get(0), scopes.get(0));
+        registry.markReported(scopes.get(1), scopes.get(1));
+        /* touch the first scope, so the second one becomes the eldest */
+        registry.getReported(scopes.get(0));
+        registry.markReported(scopes.get(2), scopes.get(2));
+
+        assertEquals(2, registry.countScopes());
+        assertFalse(registry.markReported(scopes.get(0), scopes.get(0)));
+        assertTrue(registry.markReported(scopes.get(1), scopes.get(1)));
+    }
+
+    public void testFootprintIsBoundedByLimit() {
+        final ReportedElementsRegistry registry = new ReportedElementsRegistry(50);
+
+        /* repeated inspection rounds over new PSI: the registry is not growing beyond the limit (fewer if collected) */
+        for (int round = 0; round < 5; ++round) {
+            for (PsiElement scope : createScopes(200)) {
+                registry.markReported(scope, scope.getFirstChild());
+            }
+            assertTrue(registry.countScopes() <= 50);
+        }
+    }
+
+    public void testReleasedScopesAreNotRetained() {
+        final ReportedElementsRegistry registry        = new ReportedElementsRegistry(Integer.MAX_VALUE);
+        final List<WeakReference<PsiElement>> released = registerScopes(registry, 200);
+
+        /* collects until soft references are cleared, weakly reachable scopes are cleared before them */
+        PlatformTestUtil.tryGcSoftlyReachableObjects();
+        for (WeakReference<PsiElement> scope : released) {
+            assertNull(scope.get());
+        }
+
+        /* cleared keys are enqueued by the reference handler thread, shortly after collecting */
+        for (int attempt = 0; attempt < 100 && registry.countScopes() > 0; ++attempt) {
+            TimeoutUtil.sleep(10);
+        }
+        assertEquals(0, registry.countScopes());
+    }
+
+    /* scopes are not reachable from the caller frame once registered */
+    private List<WeakReference<PsiElement>> registerScopes(ReportedElementsRegistry registry, int count) {
+        final List<WeakReference<PsiElement>> references = new ArrayList<>();
+        for (PsiElement scope : createScopes(count)) {
+            registry.markReported(scope, scope.getFirstChild());
+            references.add(new WeakReference<>(scope));
+        }
+        assertEquals(count, registry.countScopes());
+
+        return references;
+    }
+
+    private List<PsiElement> createScopes(int count) {
+        final List<PsiElement> scopes = new ArrayList<>();
+        for (int index = 0; index < count; ++index) {
+            scopes.add(PhpPsiElementFactory.createFromText(myFixture.getProject(), Function.class, "function f" + index + "($x) { return $x; }"));
+        }
+
+        return scopes;
+    }
+}
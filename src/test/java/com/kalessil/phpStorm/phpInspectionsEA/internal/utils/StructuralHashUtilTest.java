@@ -0,0 +1,41 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
+import com.jetbrains.php.lang.psi.elements.BinaryExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.StructuralHashUtil;
+
+import java.util.Arrays;
+import java.util.List;
+
+final public class StructuralHashUtilTest extends CodeInsightFixtureTestCase {
+    public void testHashIgnoresFormatting() {
+        final PsiElement first  = PhpPsiElementFactory.createFromText(myFixture.getProject(), BinaryExpression.class, "$x > strlen($y);");
+        final PsiElement second = PhpPsiElementFactory.createFromText(myFixture.getProject(), BinaryExpression.class, "$x  >  strlen( /* comment */ $y);");
+        final PsiElement third  = PhpPsiElementFactory.createFromText(myFixture.getProject(), BinaryExpression.class, "$x > (strlen($y));");
+        final PsiElement other  = PhpPsiElementFactory.createFromText(myFixture.getProject(), BinaryExpression.class, "$x > strlen($z);");
+        assertNotNull(first);
+        assertNotNull(second);
+        assertNotNull(third);
+        assertNotNull(other);
+
+        assertEquals(StructuralHashUtil.getHash(first), StructuralHashUtil.getHash(second));
+        assertEquals(StructuralHashUtil.getHash(first), StructuralHashUtil.getHash(third));
+        assertFalse(StructuralHashUtil.getHash(first) == StructuralHashUtil.getHash(other));
+
+        assertTrue(StructuralHashUtil.areEquivalent(first, second));
+        assertFalse(StructuralHashUtil.areEquivalent(first, other));
+    }
+
+    public void testGroupsEquivalentElements() {
+        final PsiElement first  = PhpPsiElementFactory.createFromText(myFixture.getProject(), BinaryExpression.class, "$x > 0;");
+        final PsiElement second = PhpPsiElementFactory.createFromText(myFixture.getProject(), BinaryExpression.class, "$y > 0;");
+        final PsiElement third  = PhpPsiElementFactory.createFromText(myFixture.getProject(), BinaryExpression.class, "$x>0;");
+
+        final List<List<PsiElement>> groups = StructuralHashUtil.groupEquivalent(Arrays.asList(first, second, null, third));
+        assertEquals(2, groups.size());
+        assertEquals(Arrays.asList(first, third), groups.get(0));
+        assertEquals(Arrays.asList(second), groups.get(1));
+    }
+}
@@ -0,0 +1,34 @@
+package com.kalessil.phpStorm.phpInspectionsEA.internal.utils;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
+import com.jetbrains.php.lang.psi.elements.TernaryExpression;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.TypeFromPsiResolvingUtil;
+import com.kalessil.phpStorm.phpInspectionsEA.utils.Types;
+
+import java.util.HashSet;
+
+final public class TypeFromPsiResolvingUtilTest extends CodeInsightFixtureTestCase {
+    public void testResolvedTypesAreMemoized() {
+        String pattern        = "$x ? 'string' : [];";
+        PsiElement expression = PhpPsiElementFactory.createFromText(myFixture.getProject(), TernaryExpression.class, pattern);
+        assertNotNull(expression);
+
+        final PhpIndex index = PhpIndex.getInstance(myFixture.getProject());
+
+        HashSet<String> first = new HashSet<>();
+        TypeFromPsiResolvingUtil.resolveExpressionType(expression, null, index, first);
+        final long hits       = TypeFromPsiResolvingUtil.getCacheHits();
+
+        /* the set is pre-filled: cached types must be added, not replacing what callers collected */
+        HashSet<String> second = new HashSet<>();
+        second.add(Types.strNull);
+        TypeFromPsiResolvingUtil.resolveExpressionType(expression, null, index, second);
+
+        assertEquals(hits + 1, TypeFromPsiResolvingUtil.getCacheHits());
+        assertTrue(first.contains(Types.strString) && first.contains(Types.strArray));
+        assertEquals(first.size() + 1, second.size());
+    }
+}
@@ -16,8 +16,8 @@ final public class NotOptimalRegularExpressionsInspectorTest extends CodeInsight
         myFixture.testHighlighting(true, false, true);
     }
 
-    public void testNestedQuantifiers() {
-        myFixture.configureByFile("fixtures/regularExpressions/quantifier-compounds-quantifier.php");
+    public void testCatastrophicBacktracking() {
+        myFixture.configureByFile("fixtures/regularExpressions/catastrophic-backtracking.php");
         myFixture.enableInspections(NotOptimalRegularExpressionsInspector.class);
         myFixture.testHighlighting(true, false, true);
     }
@@ -0,0 +1,12 @@
+package com.kalessil.phpStorm.phpInspectionsEA.regularExpressions;
+
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.regularExpressions.RegularExpressionCostProbeInspector;
+
+final public class RegularExpressionCostProbeInspectorTest extends CodeInsightFixtureTestCase {
+    public void testIfFindsAllPatterns() {
+        myFixture.configureByFile("fixtures/regularExpressions/cost-probe.php");
+        myFixture.enableInspections(RegularExpressionCostProbeInspector.class);
+        myFixture.testHighlighting(true, false, true);
+    }
+}
@@ -0,0 +1,12 @@
+package com.kalessil.phpStorm.phpInspectionsEA.security;
+
+import com.intellij.testFramework.fixtures.CodeInsightFixtureTestCase;
+import com.kalessil.phpStorm.phpInspectionsEA.inspectors.security.TaintedDataFlowInspector;
+
+final public class TaintedDataFlowInspectorTest extends CodeInsightFixtureTestCase {
+    public void testIfFindsAllPatterns() {
+        myFixture.configureByFile("fixtures/security/tainted-data-flow.php");
+        myFixture.enableInspections(TaintedDataFlowInspector.class);
+        myFixture.testHighlighting(true, false, true);
+    }
+}
@@ -24,6 +24,8 @@ class aClass {
         echo <error descr="Amount of expected parameters is 3">sprintf</error> (self::$pattern2, $arg);
         echo <error descr="Amount of expected parameters is 3">sprintf</error> ($this->pattern3, $arg);
         echo sprintf(<error descr="Pattern seems to be not valid">'%'</error>, $arg);
+        /* test folding computed patterns */
+        echo <error descr="Amount of expected parameters is 3">sprintf</error> ('%%' . self::PATTERN1 . '', $arg);
 
 
         /* false-positives */
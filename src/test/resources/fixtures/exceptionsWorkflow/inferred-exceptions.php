@@ -0,0 +1,92 @@
+<?php
+
+class DirectException extends \Exception {}
+class DeepException extends \Exception {}
+class RecursionException extends \Exception {}
+class AnnotatedException extends \Exception {}
+
+class InferredExceptions {
+    /**
+     * @throws AnnotatedException
+     */
+    public function annotated() { throw new AnnotatedException(); }
+
+    public function direct()     { throw new DirectException(); }
+    public function indirect()   { $this->direct(); }
+
+    /* deeper than 2 calls from the analyzed method */
+    public function deepFirst()  { $this->deepSecond(); }
+    public function deepSecond() { $this->deepThird(); }
+    public function deepThird()  { throw new DeepException(); }
+
+    public function ping($count) {
+        if ($count > 0) {
+            $this->pong($count - 1);
+        }
+        throw new RecursionException();
+    }
+    public function pong($count) { $this->ping($count); }
+
+    /**
+     * @return void
+     */
+    public function callsDirect() {
+        <weak_warning descr="Throws a non-annotated/unhandled exception: '\DirectException'">$this->direct()</weak_warning>;
+    }
+
+    /**
+     * @return void
+     */
+    public function callsIndirect() {
+        <weak_warning descr="Throws a non-annotated/unhandled exception: '\DirectException'">$this->indirect()</weak_warning>;
+    }
+
+    /**
+     * @return void
+     */
+    public function callsRecursion() {
+        <weak_warning descr="Throws a non-annotated/unhandled exception: '\RecursionException'">$this->ping(1)</weak_warning>;
+    }
+
+    /**
+     * @return void
+     */
+    public function callsDeepSecond() {
+        <weak_warning descr="Throws a non-annotated/unhandled exception: '\DeepException'">$this->deepSecond()</weak_warning>;
+    }
+
+    /* false-positives: annotated, handled, and cut by the depth limit */
+
+    /**
+     * @throws AnnotatedException
+     */
+    public function callsAnnotated() {
+        $this->annotated();
+    }
+
+    /**
+     * @throws DirectException
+     */
+    public function annotatesIndirect() {
+        $this->indirect();
+    }
+
+    /**
+     * @return void
+     */
+    public function handlesIndirect() {
+        try {
+            $this->indirect();
+        } catch (DirectException $exception) {
+            return;
+        }
+    }
+
+    /**
+     * @return void
+     */
+    public function callsDeep() {
+        /* the deepSecond() summary is reused only if it fits into the depth limit */
+        $this->deepFirst();
+    }
+}
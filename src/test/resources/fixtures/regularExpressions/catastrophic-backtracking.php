@@ -0,0 +1,23 @@
+<?php
+
+    preg_match(<error descr="Exponential backtracking on 'a' followed by repeated 'aa' (ReDoS, Regular Expression Denial of Service)">'/(?:\D+|0(?!1))*$/'</error>, '');
+    preg_match(<error descr="Exponential backtracking on 'aa' followed by repeated 'aa' (ReDoS, Regular Expression Denial of Service)">'/^(?:\D+|0(?!1))+$/'</error>, '');
+    preg_match(<error descr="Exponential backtracking on 'aaa' followed by repeated 'aa' (ReDoS, Regular Expression Denial of Service)">'/^(?:\D+|0(?!1)){10}$/'</error>, '');
+    preg_match(<error descr="Exponential backtracking on 'aa' followed by repeated 'aa' (ReDoS, Regular Expression Denial of Service)">'/^(?:\D+|0(?!1)){1,}$/'</error>, '');
+    preg_match(<error descr="Exponential backtracking on 'aa' followed by repeated 'aa' (ReDoS, Regular Expression Denial of Service)">'/^(?:\D+|0(?!1)){1,10}$/'</error>, '');
+    preg_match(<error descr="Exponential backtracking on 'aa' followed by repeated 'aa' (ReDoS, Regular Expression Denial of Service)">'/^((?:\D+|0(?!1))+)$/'</error>, '');
+    preg_match(<error descr="Exponential backtracking on 'a' followed by repeated 'aa' (ReDoS, Regular Expression Denial of Service)">'/^(a|a)*$/'</error>, '');
+    preg_match(<error descr="Exponential backtracking on ' ' followed by repeated '  ' (ReDoS, Regular Expression Denial of Service)">'/^(\s+)*x/'</error>, '');
+    preg_match(<weak_warning descr="Polynomial backtracking on '00' followed by repeated '00' (ReDoS, Regular Expression Denial of Service)">'/^\d+\s*\d+$/'</weak_warning>, '');
+
+    /* possessive quantifiers and atomic groups are not backtracking */
+    preg_match('/^(?:\D+|0(?!1))++$/', '');
+    preg_match('/^(?>a+)*$/', '');
+
+    /* not ambiguous */
+    preg_match('/^(?:(?:a+)b)*$/', '');
+    preg_match('/^\(a+\)+$/', '');
+    preg_match('/^[\w.+-]+@[\w-]+\.[\w.-]+$/', '');
+
+    /* matching is succeeding on any input, without backtracking */
+    preg_match('/(?:\D+|0(?!1))*/', '');
@@ -0,0 +1,11 @@
+<?php
+
+    preg_match(<error descr="Backtracking exceeds pcre.backtrack_limit on 19 characters, preg_* returns an error (n: steps): 11: 6145, 19: >1000000">'/^(a+)+$/'</error>, '');
+    preg_match(<weak_warning descr="Backtracking steps grow as n^2 with the subject length n (n: steps): 5: 38, 9: 102, 17: 326, 33: 1158, 65: 4358, 129: 16902">'/\s+$/'</weak_warning>, '');
+    preg_match(<weak_warning descr="Backtracking steps grow as n^2 with the subject length n (n: steps): 11: 144, 19: 400, 35: 1296, 67: 4624, 131: 17424, 259: 67600">'/^\w+\s?\w+$/U'</weak_warning>, '');
+
+    /* linear costs */
+    preg_match('/^\d+$/', '');
+    preg_match('/abc/', '');
+    preg_match('/^(?>a+)+$/', '');
+    preg_match('/^(a|b)*$/', '');
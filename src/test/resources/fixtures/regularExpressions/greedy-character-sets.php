@@ -6,4 +6,5 @@
 
     preg_match(<error descr="[\D\W] is 'greedy'. Please remove \D as it's a subset of \W">'/[\D\W]/'</error>,     '');
     preg_match(<error descr="[\D\W\S] is 'greedy'. Please remove \D as it's a subset of \W">'/[\D\W\S]/'</error>, '');
-    preg_match('/[\D\W\[\]]/', '');
\ No newline at end of file
+    preg_match(<error descr="[\D\W\[\]] is 'greedy'. Please remove \D as it's a subset of \W">'/[\D\W\[\]]/'</error>, '');
+    preg_match('/\[\d\w]/', '');
\ No newline at end of file
@@ -1,10 +0,0 @@
-<?php
-
-    preg_match(<error descr="(...+...)* might be exploited (ReDoS, Regular Expression Denial of Service)">'/(?:\D+|0(?!1))*/'</error>, '');
-    preg_match(<error descr="(...+...)+ might be exploited (ReDoS, Regular Expression Denial of Service)">'/(?:\D+|0(?!1))+/'</error>, '');
-    preg_match(<error descr="(...+...){10} might be exploited (ReDoS, Regular Expression Denial of Service)">'/(?:\D+|0(?!1)){10}/'</error>, '');
-    preg_match(<error descr="(...+...){1,} might be exploited (ReDoS, Regular Expression Denial of Service)">'/(?:\D+|0(?!1)){1,}/'</error>, '');
-    preg_match(<error descr="(...+...){1,10} might be exploited (ReDoS, Regular Expression Denial of Service)">'/(?:\D+|0(?!1)){1,10}/'</error>, '');
-
-    preg_match('/(?:\D+|0(?!1))++/', '');
-    preg_match('/((?:\D+|0(?!1))+)/', '');
\ No newline at end of file
@@ -0,0 +1,50 @@
+<?php
+
+    function passThrough($value)          { return trim($value); }
+    function sanitize($value)             { return (int) $value; }
+    function fromRequest()                { return $_REQUEST['payload']; }
+    function includeTemplate($name, $directory) {
+        include $directory . '/' . $name . '.php';
+    }
+
+    class Controller {
+        public function handle() {
+            $this->render(<warning descr="Untrusted data from superglobals reaches 'include' in 'render(...)' (File Inclusion Vulnerability)">$_GET['page']</warning>);
+        }
+        public function render($template) {
+            $path = '/templates/' . $template;
+            self::load($path);
+        }
+        private static function load($path) {
+            require $path;
+        }
+        public static function restore() {
+            return unserialize(<warning descr="Untrusted data from superglobals reaches 'unserialize' (PHP Object Injection Vulnerability)">$_COOKIE['state']</warning>);
+        }
+    }
+
+    $name = $_GET['name'];
+    include <warning descr="Untrusted data from superglobals reaches 'include' (File Inclusion Vulnerability)">$name</warning>;
+    includeTemplate(<warning descr="Untrusted data from superglobals reaches 'include' in 'includeTemplate(...)' (File Inclusion Vulnerability)">$_POST['template']</warning>, __DIR__);
+    includeTemplate(<warning descr="Untrusted data from superglobals reaches 'include' in 'includeTemplate(...)' (File Inclusion Vulnerability)">passThrough($_COOKIE['template'])</warning>, __DIR__);
+    IncludeTemplate(<warning descr="Untrusted data from superglobals reaches 'include' in 'IncludeTemplate(...)' (File Inclusion Vulnerability)">PassThrough($_POST['x'])</warning>, __DIR__);
+    $object = unserialize(<warning descr="Untrusted data from superglobals reaches 'unserialize' (PHP Object Injection Vulnerability)">fromRequest()</warning>);
+    extract(<warning descr="Untrusted data from superglobals reaches 'extract' (Variable extract Vulnerability)">$_POST</warning>, EXTR_SKIP);
+    parse_str(<warning descr="Untrusted data from superglobals reaches 'parse_str' (Variable extract Vulnerability)">$_SERVER['QUERY_STRING']</warning>, $parameters);
+    foreach ($_GET as $key => $value) {
+        $state = unserialize(<warning descr="Untrusted data from superglobals reaches 'unserialize' (PHP Object Injection Vulnerability)">$value</warning>);
+        $identifier = intval($value);
+        include "/pages/$identifier.php";
+    }
+    (new Controller())->render(<warning descr="Untrusted data from superglobals reaches 'include' in 'render(...)' (File Inclusion Vulnerability)">$_GET['page']</warning>);
+    $restored = UnSerialize(<warning descr="Untrusted data from superglobals reaches 'unserialize' (PHP Object Injection Vulnerability)">$_COOKIE['restored']</warning>);
+
+    /* false-positives */
+    include __DIR__ . '/file.php';
+    includeTemplate(sanitize($_GET['id']), __DIR__);
+    includeTemplate('index', __DIR__ . '/' . md5($_GET['id']));
+    extract(['first' => 1]);
+    /* reported by NonSecureExtractUsageInspection and NonSecureParseStrUsageInspection */
+    extract($_POST);
+    parse_str($_SERVER['QUERY_STRING']);
+    include '/pages/' . IntVal($_GET['id']) . '.php';